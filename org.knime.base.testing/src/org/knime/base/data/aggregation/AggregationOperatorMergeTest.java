@@ -0,0 +1,248 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.base.data.aggregation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import org.knime.base.data.aggregation.general.CountOperator;
+import org.knime.base.data.aggregation.general.FirstOperator;
+import org.knime.base.data.aggregation.general.LastOperator;
+import org.knime.base.data.aggregation.general.MaxOperator;
+import org.knime.base.data.aggregation.general.MinOperator;
+import org.knime.base.data.aggregation.general.MissingValueCountOperator;
+import org.knime.base.data.aggregation.numerical.MeanOperator;
+import org.knime.base.data.aggregation.numerical.SecondMomentOperator;
+import org.knime.base.data.aggregation.numerical.StdDeviationOperator;
+import org.knime.base.data.aggregation.numerical.SumOperator;
+import org.knime.base.data.aggregation.numerical.VarianceOperator;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnSpec;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataType;
+import org.knime.core.data.DoubleValue;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DoubleCell;
+
+/**
+ * Tests {@link AggregationOperator#merge(AggregationOperator)}: aggregating consecutive chunks of values and merging
+ * the partial results in chunk order must give the same result as aggregating all values in one pass.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class AggregationOperatorMergeTest {
+
+    private static final DataColumnSpec COL_SPEC = new DataColumnSpecCreator("Value", DoubleCell.TYPE).createSpec();
+
+    /** Values with a large offset (to detect numerically unstable merging) and some missing values. */
+    private static List<DataRow> createValues(final int count, final long seed) {
+        final Random rand = new Random(seed);
+        final List<DataRow> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(createRow(values.size(), rand.nextInt(20) == 0 ? DataType.getMissingCell()
+                : new DoubleCell(1e6 + rand.nextGaussian() * 100)));
+        }
+        return values;
+    }
+
+    private static DataRow createRow(final int idx, final DataCell cell) {
+        return new DefaultRow(RowKey.createRowKey(idx), cell);
+    }
+
+    /**
+     * @param inclMissing <code>true</code> if the operators that support the missing value option should include
+     *            missing cells
+     * @return all mergeable operators
+     */
+    private static List<AggregationOperator> createOperators(final boolean inclMissing) {
+        final List<AggregationOperator> operators = new ArrayList<>();
+        for (final AggregationOperator op : createOperators(new OperatorColumnSettings(false, COL_SPEC))) {
+            if (!inclMissing) {
+                operators.add(op);
+            } else if (op.supportsMissingValueOption()) {
+                operators.add(createInstance(op, new OperatorColumnSettings(true, COL_SPEC)));
+            }
+        }
+        return operators;
+    }
+
+    private static List<AggregationOperator> createOperators(final OperatorColumnSettings settings) {
+        final GlobalSettings global = GlobalSettings.DEFAULT;
+        return Arrays.<AggregationOperator> asList(new SumOperator(global, settings),
+            new MeanOperator(global, settings), new VarianceOperator(global, settings),
+            new StdDeviationOperator(global, settings), new SecondMomentOperator(global, settings),
+            new MinOperator(global, settings), new MaxOperator(global, settings), new CountOperator(global, settings),
+            new MissingValueCountOperator(global, settings), new FirstOperator(global, settings),
+            new LastOperator(global, settings));
+    }
+
+    /** All operators that implement mergeInternal report to be mergeable. */
+    @Test
+    public void testIsMergeable() {
+        for (final AggregationOperator op : createOperators(false)) {
+            assertTrue(op.getLabel() + " should be mergeable", op.isMergeable());
+        }
+    }
+
+    /** Chunks of the size used by the parallel GroupBy, the boundaries are not aligned with the value count. */
+    @Test
+    public void testMergeChunks() {
+        final List<DataRow> values = createValues(25001, 1);
+        for (final boolean inclMissing : new boolean[]{true, false}) {
+            for (final AggregationOperator op : createOperators(inclMissing)) {
+                assertMerge(op, values, 10000, 20000);
+            }
+        }
+    }
+
+    /** Random chunk boundaries, including empty chunks and chunks of a single value. */
+    @Test
+    public void testMergeRandomChunks() {
+        final Random rand = new Random(2);
+        for (int run = 0; run < 20; run++) {
+            final List<DataRow> values = createValues(100 + rand.nextInt(500), run);
+            final int[] boundaries = new int[rand.nextInt(10) + 1];
+            for (int i = 0; i < boundaries.length; i++) {
+                boundaries[i] = rand.nextInt(values.size() + 1);
+            }
+            Arrays.sort(boundaries);
+            for (final boolean inclMissing : new boolean[]{true, false}) {
+                for (final AggregationOperator op : createOperators(inclMissing)) {
+                    assertMerge(op, values, boundaries);
+                }
+            }
+        }
+    }
+
+    /** Chunks that contain only missing values and an entirely missing input. */
+    @Test
+    public void testMergeMissingChunks() {
+        final List<DataRow> values = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            values.add(createRow(values.size(), DataType.getMissingCell()));
+        }
+        values.addAll(createValues(10, 3));
+        for (int i = 0; i < 10; i++) {
+            values.add(createRow(values.size(), DataType.getMissingCell()));
+        }
+        for (final boolean inclMissing : new boolean[]{true, false}) {
+            for (final AggregationOperator op : createOperators(inclMissing)) {
+                assertMerge(op, values, 10, 20);
+                assertMerge(op, values.subList(0, 10), 5);
+            }
+        }
+    }
+
+    /** Merging into an operator of a different class fails. */
+    @Test(expected = IllegalArgumentException.class)
+    public void testMergeDifferentClass() {
+        final OperatorColumnSettings settings = new OperatorColumnSettings(false, COL_SPEC);
+        new SumOperator(GlobalSettings.DEFAULT, settings).merge(new MeanOperator(GlobalSettings.DEFAULT, settings));
+    }
+
+    /**
+     * Aggregates the values in one pass and in chunks that are merged afterwards and compares the results.
+     *
+     * @param template the operator to create the instances from
+     * @param values the values to aggregate
+     * @param boundaries the (sorted) start indices of the second to last chunk
+     */
+    private static void assertMerge(final AggregationOperator template, final List<DataRow> values,
+        final int... boundaries) {
+        final AggregationOperator singlePass = createInstance(template);
+        for (final DataRow row : values) {
+            singlePass.compute(row, 0);
+        }
+
+        AggregationOperator merged = null;
+        int start = 0;
+        for (int i = 0; i <= boundaries.length; i++) {
+            final int end = i < boundaries.length ? boundaries[i] : values.size();
+            final AggregationOperator chunk = createInstance(template);
+            for (final DataRow row : values.subList(start, end)) {
+                chunk.compute(row, 0);
+            }
+            if (merged == null) {
+                merged = chunk;
+            } else {
+                merged.merge(chunk);
+            }
+            start = end;
+        }
+
+        final String msg = template.getLabel() + " (incl. missing: " + template.inclMissingCells() + ", chunks "
+            + Arrays.toString(boundaries) + " of " + values.size() + " values)";
+        assertEquals("Missing value count of " + msg, singlePass.getMissingValuesCount(),
+            merged.getMissingValuesCount());
+        assertFalse("Merged operator skipped: " + msg, merged.isSkipped());
+        final DataCell expected = singlePass.getResult();
+        final DataCell actual = merged.getResult();
+        if (!expected.isMissing() && expected instanceof DoubleValue && actual instanceof DoubleValue) {
+            final double e = ((DoubleValue)expected).getDoubleValue();
+            final double a = ((DoubleValue)actual).getDoubleValue();
+            assertEquals("Result of " + msg, e, a, Math.max(Math.abs(e), 1) * 1e-9);
+        } else {
+            assertEquals("Result of " + msg, expected, actual);
+        }
+    }
+
+    private static AggregationOperator createInstance(final AggregationOperator template) {
+        return createInstance(template, template.getOperatorColumnSettings());
+    }
+
+    private static AggregationOperator createInstance(final AggregationOperator template,
+        final OperatorColumnSettings settings) {
+        return template.createInstance(template.getGlobalSettings(), settings);
+    }
+}
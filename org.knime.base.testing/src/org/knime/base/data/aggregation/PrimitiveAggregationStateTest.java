@@ -0,0 +1,293 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.base.data.aggregation;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import org.knime.base.data.aggregation.general.CountOperator;
+import org.knime.base.data.aggregation.general.FirstOperator;
+import org.knime.base.data.aggregation.numerical.MeanOperator;
+import org.knime.base.data.aggregation.numerical.StdDeviationOperator;
+import org.knime.base.data.aggregation.numerical.SumOperator;
+import org.knime.base.data.aggregation.numerical.VarianceOperator;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnSpec;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataType;
+import org.knime.core.data.DoubleValue;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
+
+/**
+ * Compares the results of the {@link PrimitiveAggregationState}s with the ones of one {@link AggregationOperator}
+ * instance per group.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class PrimitiveAggregationStateTest {
+
+    private static final int NO_OF_GROUPS = 300;
+
+    /** Groups that never get a value, partially beyond the capacity of the arrays. */
+    private static final int NO_OF_EMPTY_GROUPS = 50;
+
+    /** Double values with missing cells. */
+    @Test
+    public void testDouble() {
+        final DataColumnSpec spec = new DataColumnSpecCreator("Value", DoubleCell.TYPE).createSpec();
+        for (final AggregationOperator op : createOperators(spec)) {
+            assertState(op, createValues(DoubleCell.TYPE, 20000, 1));
+        }
+    }
+
+    /** Integer values whose sum is returned as integer. */
+    @Test
+    public void testInt() {
+        final DataColumnSpec spec = new DataColumnSpecCreator("Value", IntCell.TYPE).createSpec();
+        for (final AggregationOperator op : createOperators(spec)) {
+            assertState(op, createValues(IntCell.TYPE, 20000, 2));
+        }
+    }
+
+    /** Long values whose sum is returned as long. */
+    @Test
+    public void testLong() {
+        final DataColumnSpec spec = new DataColumnSpecCreator("Value", LongCell.TYPE).createSpec();
+        for (final AggregationOperator op : createOperators(spec)) {
+            assertState(op, createValues(LongCell.TYPE, 20000, 3));
+        }
+    }
+
+    /** Groups whose integer sum overflows are skipped with the same message as the operator. */
+    @Test
+    public void testIntOverflow() {
+        final DataColumnSpec spec = new DataColumnSpecCreator("Value", IntCell.TYPE).createSpec();
+        final List<DataRow> values = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            values.add(createRow(i, 0, new IntCell(Integer.MAX_VALUE - i)));
+            values.add(createRow(i, 1, new IntCell(i)));
+        }
+        final AggregationOperator sum =
+            new SumOperator(GlobalSettings.DEFAULT, new OperatorColumnSettings(false, spec));
+        assertState(sum, values);
+        final PrimitiveAggregationState state = sum.createPrimitiveState();
+        for (final DataRow row : values) {
+            state.compute(getGroupIdx(row), row.getCell(0));
+        }
+        assertTrue("Overflow not detected", state.getResult(0).isMissing());
+        assertNotNull("Overflow not reported", state.getSkipMessage(0));
+        assertNull("Unexpected skip message", state.getSkipMessage(1));
+    }
+
+    /** The partial results of two states are merged in the order of their values. */
+    @Test
+    public void testMerge() {
+        final DataColumnSpec spec = new DataColumnSpecCreator("Value", DoubleCell.TYPE).createSpec();
+        final List<DataRow> values = createValues(DoubleCell.TYPE, 20000, 4);
+        // the groups of the second state have different indices, some only occur in one of the states
+        final List<Integer> otherIdx = new ArrayList<>();
+        for (int i = 0; i < NO_OF_GROUPS; i++) {
+            otherIdx.add(i);
+        }
+        Collections.shuffle(otherIdx, new Random(5));
+        for (final AggregationOperator template : createOperators(spec)) {
+            final AggregationOperator[] operators = createGroupOperators(template, values);
+            final PrimitiveAggregationState state = template.createPrimitiveState();
+            final PrimitiveAggregationState other = template.createPrimitiveState();
+            for (int i = 0, size = values.size(); i < size; i++) {
+                final DataRow row = values.get(i);
+                final int groupIdx = getGroupIdx(row);
+                if (i < size / 2 && groupIdx % 7 != 0) {
+                    compute(template, state, groupIdx, row);
+                } else if (groupIdx % 11 != 0) {
+                    compute(template, other, otherIdx.get(groupIdx), row);
+                }
+            }
+            for (int groupIdx = 0; groupIdx < NO_OF_GROUPS; groupIdx++) {
+                state.merge(groupIdx, other, otherIdx.get(groupIdx));
+            }
+            for (int groupIdx = 0; groupIdx < NO_OF_GROUPS + NO_OF_EMPTY_GROUPS; groupIdx++) {
+                if (groupIdx < NO_OF_GROUPS && (groupIdx % 7 == 0 || groupIdx % 11 == 0)) {
+                    // these groups lack the values that are not passed to the states
+                    continue;
+                }
+                assertGroup(template, operators[groupIdx], state, groupIdx);
+            }
+        }
+    }
+
+    /** Operators that compute a different result don't provide a primitive state. */
+    @Test
+    public void testUnsupportedOperator() {
+        final DataColumnSpec spec = new DataColumnSpecCreator("Value", DoubleCell.TYPE).createSpec();
+        assertNull("First should not provide a primitive state",
+            new FirstOperator(GlobalSettings.DEFAULT, new OperatorColumnSettings(false, spec)).createPrimitiveState());
+    }
+
+    /** The arrays grow to the requested index and by at least half of their length. */
+    @Test
+    public void testEnsureCapacity() {
+        final double[] doubles = new double[]{1, 2};
+        assertSame("Array should not be copied", doubles, PrimitiveAggregationState.ensureCapacity(doubles, 1));
+        final double[] grownDoubles = PrimitiveAggregationState.ensureCapacity(doubles, 2);
+        assertEquals("Unexpected capacity", 16, grownDoubles.length);
+        assertArrayEquals("Values not copied", new double[]{1, 2}, Arrays.copyOf(grownDoubles, 2), 0);
+        assertEquals("Unexpected capacity", 101,
+            PrimitiveAggregationState.ensureCapacity(new long[0], 100).length);
+        assertEquals("Unexpected capacity", 150,
+            PrimitiveAggregationState.ensureCapacity(new long[100], 100).length);
+        assertEquals("Unexpected default value", 0, PrimitiveAggregationState.get(new long[2], 5));
+        assertEquals("Unexpected default value", 0, PrimitiveAggregationState.get(new double[0], 0), 0);
+    }
+
+    private static List<AggregationOperator> createOperators(final DataColumnSpec spec) {
+        final OperatorColumnSettings settings = new OperatorColumnSettings(false, spec);
+        final GlobalSettings global = GlobalSettings.DEFAULT;
+        return Arrays.<AggregationOperator> asList(new SumOperator(global, settings),
+            new MeanOperator(global, settings), new VarianceOperator(global, settings),
+            new StdDeviationOperator(global, settings), new CountOperator(global, settings),
+            new CountOperator(global, new OperatorColumnSettings(true, spec)));
+    }
+
+    /**
+     * @return values in random groups with about 5% missing cells, the groups are visited in random order to force
+     *         several resize operations
+     */
+    private static List<DataRow> createValues(final DataType type, final int count, final long seed) {
+        final Random rand = new Random(seed);
+        final List<DataRow> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final DataCell cell;
+            if (rand.nextInt(20) == 0) {
+                cell = DataType.getMissingCell();
+            } else if (IntCell.TYPE.equals(type)) {
+                cell = new IntCell(rand.nextInt(100000) - 50000);
+            } else if (LongCell.TYPE.equals(type)) {
+                cell = new LongCell(rand.nextInt() * 1000L);
+            } else {
+                cell = new DoubleCell(1e6 + rand.nextGaussian() * 100);
+            }
+            values.add(createRow(i, rand.nextInt(NO_OF_GROUPS), cell));
+        }
+        return values;
+    }
+
+    /** The group index is stored in the row key. */
+    private static DataRow createRow(final int idx, final int groupIdx, final DataCell cell) {
+        return new DefaultRow(new RowKey(groupIdx + "_" + idx), cell);
+    }
+
+    private static int getGroupIdx(final DataRow row) {
+        final String key = row.getKey().getString();
+        return Integer.parseInt(key.substring(0, key.indexOf('_')));
+    }
+
+    private static AggregationOperator[] createGroupOperators(final AggregationOperator template,
+        final List<DataRow> values) {
+        final AggregationOperator[] operators = new AggregationOperator[NO_OF_GROUPS + NO_OF_EMPTY_GROUPS];
+        for (int i = 0; i < operators.length; i++) {
+            operators[i] = template.createInstance(template.getGlobalSettings(), template.getOperatorColumnSettings());
+        }
+        for (final DataRow row : values) {
+            operators[getGroupIdx(row)].compute(row, 0);
+        }
+        return operators;
+    }
+
+    /** Passes the cell to the state as done by the GroupBy, i.e. missing cells only if they are included. */
+    private static void compute(final AggregationOperator template, final PrimitiveAggregationState state,
+        final int groupIdx, final DataRow row) {
+        final DataCell cell = row.getCell(0);
+        if (template.inclMissingCells() || !cell.isMissing()) {
+            state.compute(groupIdx, cell);
+        }
+    }
+
+    private static void assertState(final AggregationOperator template, final List<DataRow> values) {
+        final AggregationOperator[] operators = createGroupOperators(template, values);
+        final PrimitiveAggregationState state = template.createPrimitiveState();
+        assertNotNull(template.getLabel() + " should provide a primitive state", state);
+        for (final DataRow row : values) {
+            compute(template, state, getGroupIdx(row), row);
+        }
+        for (int groupIdx = 0; groupIdx < operators.length; groupIdx++) {
+            assertGroup(template, operators[groupIdx], state, groupIdx);
+        }
+    }
+
+    private static void assertGroup(final AggregationOperator template, final AggregationOperator operator,
+        final PrimitiveAggregationState state, final int groupIdx) {
+        final String msg = template.getLabel() + " (incl. missing: " + template.inclMissingCells() + ") of group "
+            + groupIdx;
+        final DataCell expected = operator.getResult();
+        final DataCell actual = state.getResult(groupIdx);
+        if (!expected.isMissing() && expected.getType().equals(DoubleCell.TYPE)) {
+            assertEquals("Unexpected result type of " + msg, expected.getType(), actual.getType());
+            final double e = ((DoubleValue)expected).getDoubleValue();
+            assertEquals("Result of " + msg, e, ((DoubleValue)actual).getDoubleValue(),
+                Math.max(Math.abs(e), 1) * 1e-9);
+        } else {
+            assertEquals("Result of " + msg, expected, actual);
+        }
+        assertEquals("Skip message of " + msg, operator.isSkipped() ? operator.getSkipMessage() : null,
+            state.getSkipMessage(groupIdx));
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.base.data.aggregation.general;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+
+import org.junit.Test;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.StringCell;
+
+/**
+ * Tests that the {@link CountMinTopKSketch} finds the most frequent values, also if partial sketches are merged.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class CountMinTopKSketchTest {
+
+    /** Few distinct values are counted exactly, values with the same count keep their first occurrence order. */
+    @Test
+    public void testExact() {
+        final CountMinTopKSketch sketch = new CountMinTopKSketch(3, 0.001);
+        for (final String value : new String[]{"b", "a", "c", "b", "c", "a", "d", "c", "c", "b", "a", "c"}) {
+            sketch.add(new StringCell(value));
+        }
+        assertEquals("Unexpected top k", Arrays.asList(new StringCell("c"), new StringCell("b"), new StringCell("a")),
+            sketch.getTopK());
+    }
+
+    /** Merging exactly counted sketches gives the same result as counting all values in one sketch. */
+    @Test
+    public void testMergeExact() {
+        final CountMinTopKSketch sketch1 = new CountMinTopKSketch(3, 0.001);
+        final CountMinTopKSketch sketch2 = new CountMinTopKSketch(3, 0.001);
+        for (final String value : new String[]{"b", "a", "b", "b"}) {
+            sketch1.add(new StringCell(value));
+        }
+        for (final String value : new String[]{"a", "c", "c", "d", "a", "c", "c", "c"}) {
+            sketch2.add(new StringCell(value));
+        }
+        sketch1.merge(sketch2);
+        assertEquals("Unexpected top k", Arrays.asList(new StringCell("c"), new StringCell("b"), new StringCell("a")),
+            sketch1.getTopK());
+    }
+
+    /**
+     * More distinct values than the width of the sketch with a skewed distribution. The most frequent values are
+     * found by a single sketch as well as by merged sketches of consecutive chunks.
+     */
+    @Test
+    public void testSketch() {
+        for (final int noOfChunks : new int[]{1, 4}) {
+            final Random rand = new Random(1);
+            final int count = 200000;
+            final Map<DataCell, Long> counts = new LinkedHashMap<>();
+            final CountMinTopKSketch[] sketches = new CountMinTopKSketch[noOfChunks];
+            for (int i = 0; i < noOfChunks; i++) {
+                sketches[i] = new CountMinTopKSketch(5, 0.001);
+            }
+            for (int i = 0; i < count; i++) {
+                final DataCell cell = new IntCell((int)(Math.pow(rand.nextDouble(), 3) * 100000));
+                counts.merge(cell, 1L, Long::sum);
+                sketches[i * noOfChunks / count].add(cell);
+            }
+            for (int i = 1; i < noOfChunks; i++) {
+                sketches[0].merge(sketches[i]);
+            }
+            final List<Entry<DataCell, Long>> entries = new ArrayList<>(counts.entrySet());
+            entries.sort((a, b) -> Long.compare(b.getValue(), a.getValue()));
+            final List<DataCell> expected = new ArrayList<>();
+            for (final Entry<DataCell, Long> e : entries.subList(0, 5)) {
+                expected.add(e.getKey());
+            }
+            assertEquals("Test data should exceed the width of the sketch", true, counts.size() > 2719);
+            assertEquals("Unexpected top k of " + noOfChunks + " chunks", expected, sketches[0].getTopK());
+        }
+    }
+
+    /** Sketches with different parameters can't be merged. */
+    @Test(expected = IllegalArgumentException.class)
+    public void testMergeDifferentParameters() {
+        new CountMinTopKSketch(3, 0.001).merge(new CountMinTopKSketch(3, 0.01));
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.base.data.aggregation.general;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataType;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
+import org.knime.core.data.def.StringCell;
+
+/**
+ * Tests the accuracy and merging of the {@link HyperLogLogSketch} and the hashing of the cell values.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class HyperLogLogSketchTest {
+
+    /** Strings with the same 32 bit hash code get different 64 bit hashes. */
+    @Test
+    public void testStringHashCodeCollision() {
+        assertEquals("Test strings should have the same hash code", "Aa".hashCode(), "BB".hashCode());
+        assertNotEquals("Hashes of distinct strings collide", HyperLogLogSketch.hash(new StringCell("Aa")),
+            HyperLogLogSketch.hash(new StringCell("BB")));
+        final HyperLogLogSketch sketch = new HyperLogLogSketch(14);
+        sketch.add(HyperLogLogSketch.hash(new StringCell("Aa")));
+        sketch.add(HyperLogLogSketch.hash(new StringCell("BB")));
+        sketch.add(HyperLogLogSketch.hash(new StringCell("Aa")));
+        assertEquals("Unexpected count", 2, sketch.estimate());
+    }
+
+    /** Distinct values of the supported types don't collide. */
+    @Test
+    public void testHashDistinctValues() {
+        final Set<Long> hashes = new HashSet<>();
+        for (int i = 0; i < 100000; i++) {
+            hashes.add(HyperLogLogSketch.hash(new StringCell("Value" + i)));
+            hashes.add(HyperLogLogSketch.hash(new IntCell(i)));
+            hashes.add(HyperLogLogSketch.hash(new LongCell(i)));
+            hashes.add(HyperLogLogSketch.hash(new DoubleCell(i)));
+        }
+        assertEquals("Hashes of distinct values collide", 400000, hashes.size());
+    }
+
+    /** Equal cells have the same hash. */
+    @Test
+    public void testHashEqualValues() {
+        assertEqualHash(new StringCell("Value"), new StringCell("Value"));
+        assertEqualHash(new IntCell(-5), new IntCell(-5));
+        assertEqualHash(new LongCell(Long.MIN_VALUE), new LongCell(Long.MIN_VALUE));
+        assertEqualHash(new DoubleCell(Double.NaN), new DoubleCell(0.0 / 0.0));
+        assertEqualHash(DataType.getMissingCell(), DataType.getMissingCell());
+        // equal cells but their hash codes differ which fails the assertion in DataCell#equals
+        assertEquals("Different hashes of 0.0 and -0.0", HyperLogLogSketch.hash(new DoubleCell(0.0)),
+            HyperLogLogSketch.hash(new DoubleCell(-0.0)));
+    }
+
+    private static void assertEqualHash(final DataCell cell1, final DataCell cell2) {
+        assertEquals("Test cells should be equal", cell1, cell2);
+        assertEquals("Different hashes of " + cell1 + " and " + cell2, HyperLogLogSketch.hash(cell1),
+            HyperLogLogSketch.hash(cell2));
+    }
+
+    /** Small cardinalities are counted exactly. */
+    @Test
+    public void testSparse() {
+        final HyperLogLogSketch sketch = new HyperLogLogSketch(14);
+        for (int i = 0; i < 2000; i++) {
+            sketch.add(HyperLogLogSketch.hash(new StringCell("Value" + i % 1500)));
+            assertEquals("Unexpected count", Math.min(i + 1, 1500), sketch.estimate());
+        }
+    }
+
+    /**
+     * The estimate is within four standard errors of the distinct count. The sketch is deterministic for the given
+     * values, i.e. the test does not fail by chance.
+     */
+    @Test
+    public void testAccuracy() {
+        for (final double error : new double[]{0.05, 0.02, 0.01}) {
+            final int precision = HyperLogLogSketch.getPrecision(error);
+            for (final int count : new int[]{1000, 10000, 100000, 1000000}) {
+                final HyperLogLogSketch sketch = new HyperLogLogSketch(precision);
+                for (int i = 0; i < count; i++) {
+                    // add every value twice
+                    sketch.add(HyperLogLogSketch.mix(count + i));
+                    sketch.add(HyperLogLogSketch.mix(count + i));
+                }
+                final double relError = Math.abs(sketch.estimate() - count) / (double)count;
+                assertTrue("Relative error " + relError + " of " + count + " values exceeds the bound for a "
+                    + "relative standard error of " + error, relError <= 4 * error);
+            }
+        }
+    }
+
+    /** Merging gives the same estimate as adding the values of both sketches to one sketch. */
+    @Test
+    public void testMerge() {
+        // the sizes cover merging sparse into sparse, dense into sparse, sparse into dense and dense into dense
+        final int[][] sizes = new int[][]{{10, 20}, {10, 5000}, {5000, 10}, {5000, 80000}, {80000, 5000}};
+        for (final int[] size : sizes) {
+            final HyperLogLogSketch sketch1 = new HyperLogLogSketch(12);
+            final HyperLogLogSketch sketch2 = new HyperLogLogSketch(12);
+            final HyperLogLogSketch union = new HyperLogLogSketch(12);
+            for (int i = 0; i < size[0]; i++) {
+                sketch1.add(HyperLogLogSketch.mix(i));
+                union.add(HyperLogLogSketch.mix(i));
+            }
+            // the values overlap with the ones of the first sketch
+            for (int i = size[0] / 2; i < size[0] / 2 + size[1]; i++) {
+                sketch2.add(HyperLogLogSketch.mix(i));
+                union.add(HyperLogLogSketch.mix(i));
+            }
+            sketch1.merge(sketch2);
+            assertEquals("Unexpected estimate of merged sketches of size " + size[0] + " and " + size[1],
+                union.estimate(), sketch1.estimate());
+        }
+    }
+
+    /** Sketches with different precision can't be merged. */
+    @Test(expected = IllegalArgumentException.class)
+    public void testMergeDifferentPrecision() {
+        new HyperLogLogSketch(10).merge(new HyperLogLogSketch(12));
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.base.data.aggregation.numerical;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests the rank error of the {@link KLLSketch} for a single sketch and for merged sketches.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class KLLSketchTest {
+
+    /** Shuffled values 0 to count - 1, i.e. the rank of a value is the value + 1. */
+    private static double[] createValues(final int count) {
+        final double[] values = new double[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = i;
+        }
+        final Random rand = new Random(count);
+        for (int i = count; i > 1; i--) {
+            final int j = rand.nextInt(i);
+            final double tmp = values[i - 1];
+            values[i - 1] = values[j];
+            values[j] = tmp;
+        }
+        return values;
+    }
+
+    /** The quantiles are exact as long as the sketch doesn't need to compact its values. */
+    @Test
+    public void testExact() {
+        final KLLSketch sketch = new KLLSketch(KLLSketch.getK(0.01));
+        final int count = 100;
+        for (final double value : createValues(count)) {
+            sketch.add(value);
+        }
+        for (int i = 0; i <= 100; i++) {
+            final double quantile = i / 100.0;
+            assertEquals("Unexpected quantile " + quantile, Math.max(0, Math.ceil(quantile * count) - 1),
+                sketch.getQuantile(quantile), 0);
+        }
+    }
+
+    /** The rank of the estimated quantiles is within the requested rank error. */
+    @Test
+    public void testAccuracy() {
+        assertAccuracy(1);
+    }
+
+    /** The rank error of merged sketches of consecutive chunks is within the requested rank error. */
+    @Test
+    public void testMerge() {
+        assertAccuracy(8);
+    }
+
+    private static void assertAccuracy(final int noOfChunks) {
+        for (final double rankError : new double[]{0.05, 0.01}) {
+            for (final int count : new int[]{10000, 1000000}) {
+                final KLLSketch[] sketches = new KLLSketch[noOfChunks];
+                for (int i = 0; i < noOfChunks; i++) {
+                    sketches[i] = new KLLSketch(KLLSketch.getK(rankError));
+                }
+                final double[] values = createValues(count);
+                for (int i = 0; i < count; i++) {
+                    sketches[(int)((long)i * noOfChunks / count)].add(values[i]);
+                }
+                for (int i = 1; i < noOfChunks; i++) {
+                    sketches[0].merge(sketches[i]);
+                }
+                assertEquals("Unexpected count", count, sketches[0].getCount());
+                for (int i = 0; i <= 100; i++) {
+                    final double quantile = i / 100.0;
+                    final double rank = (sketches[0].getQuantile(quantile) + 1) / count;
+                    assertTrue("Rank " + rank + " of quantile " + quantile + " of " + count + " values in "
+                        + noOfChunks + " chunk(s) exceeds the rank error " + rankError,
+                        Math.abs(rank - quantile) <= rankError);
+                }
+            }
+        }
+    }
+
+    /** Empty sketches don't change the result when merged and have no quantiles. */
+    @Test
+    public void testEmpty() {
+        final KLLSketch sketch = new KLLSketch(KLLSketch.getK(0.01));
+        assertTrue("Empty sketch should have no quantile", Double.isNaN(sketch.getQuantile(0.5)));
+        sketch.merge(new KLLSketch(KLLSketch.getK(0.01)));
+        assertTrue("Empty sketch should have no quantile", Double.isNaN(sketch.getQuantile(0.5)));
+        for (int i = 0; i < 5; i++) {
+            sketch.add(i);
+        }
+        sketch.merge(new KLLSketch(KLLSketch.getK(0.01)));
+        assertEquals("Unexpected count", 5, sketch.getCount());
+        assertEquals("Unexpected median", 2, sketch.getQuantile(0.5), 0);
+    }
+}
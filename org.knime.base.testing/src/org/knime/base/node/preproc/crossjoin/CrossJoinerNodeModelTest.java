@@ -0,0 +1,288 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.base.node.preproc.crossjoin;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.RowIterator;
+import org.knime.core.data.container.ContainerTable;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.DefaultNodeProgressMonitor;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.Node;
+import org.knime.core.node.NodeFactory;
+import org.knime.core.node.NodeModel;
+import org.knime.core.node.NodeSettings;
+import org.knime.core.node.defaultnodesettings.SettingsModelBoolean;
+import org.knime.core.node.defaultnodesettings.SettingsModelIntegerBounded;
+import org.knime.core.node.port.PortType;
+import org.knime.core.node.streamable.BufferedDataTableRowOutput;
+import org.knime.core.node.streamable.DataTableRowInput;
+import org.knime.core.node.streamable.PartitionInfo;
+import org.knime.core.node.streamable.PortInput;
+import org.knime.core.node.streamable.PortObjectInput;
+import org.knime.core.node.streamable.PortOutput;
+import org.knime.core.node.workflow.SingleNodeContainer;
+import org.knime.core.node.workflow.virtual.parchunk.VirtualParallelizedChunkPortObjectInNodeFactory;
+
+/**
+ * Compares the output of the {@link CrossJoinerNodeModel} with the one of the nested loop over the chunks of both
+ * tables that was used before the bottom table was cached and the rows were joined in parallel.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class CrossJoinerNodeModelTest {
+
+    private ExecutionContext m_exec;
+
+    /**
+     * @throws java.lang.Exception
+     */
+    @Before
+    public void setUp() throws Exception {
+        NodeFactory<NodeModel> dummyFactory =
+            (NodeFactory)new VirtualParallelizedChunkPortObjectInNodeFactory(new PortType[0]);
+        m_exec =
+            new ExecutionContext(new DefaultNodeProgressMonitor(), new Node(dummyFactory),
+                SingleNodeContainer.MemoryPolicy.CacheOnDisc, new HashMap<Integer, ContainerTable>());
+    }
+
+    /**
+     * Checks the rows and their order for chunk sizes that do and don't divide the table sizes.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testChunks() throws Exception {
+        final BufferedDataTable left = createTable("L", 25);
+        final BufferedDataTable right = createTable("R", 17);
+        for (final int chunkSize : new int[]{1, 3, 7, 17, 25, 100}) {
+            compare(left, right, chunkSize, false, 0, false);
+            compare(left, right, chunkSize, true, 0, false);
+        }
+    }
+
+    /**
+     * Checks tables whose join consists of several batches that are created in parallel.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testLargeTables() throws Exception {
+        final BufferedDataTable left = createTable("L", 130);
+        final BufferedDataTable right = createTable("R", 70);
+        compare(left, right, 16, true, 0, false);
+        compare(left, right, 1000, false, 0, false);
+    }
+
+    /**
+     * Checks that the bottom table is read again for each chunk of the top table if it doesn't fit into memory.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testLowMemory() throws Exception {
+        final BufferedDataTable left = createTable("L", 60);
+        final BufferedDataTable right = createTable("R", 45);
+        for (final int rowsBeforeSpill : new int[]{1, 10, 44}) {
+            compare(left, right, 7, true, rowsBeforeSpill, false);
+            compare(left, right, 7, true, rowsBeforeSpill, true);
+        }
+    }
+
+    /**
+     * Checks that an empty top or bottom table results in an empty table with the joined spec.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testEmptyTables() throws Exception {
+        final BufferedDataTable empty = createTable("E", 0);
+        final BufferedDataTable table = createTable("T", 20);
+        for (final boolean streaming : new boolean[]{false, true}) {
+            compare(empty, table, 3, true, 0, streaming);
+            compare(table, empty, 3, true, 0, streaming);
+            compare(empty, empty, 3, false, 0, streaming);
+        }
+    }
+
+    /**
+     * Checks that the streamed execution gives the same output as the execution on tables.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testStreaming() throws Exception {
+        final BufferedDataTable left = createTable("L", 90);
+        final BufferedDataTable right = createTable("R", 33);
+        for (final int chunkSize : new int[]{1, 8, 90}) {
+            compare(left, right, chunkSize, false, 0, true);
+            compare(left, right, chunkSize, true, 0, true);
+        }
+    }
+
+    private void compare(final BufferedDataTable left, final BufferedDataTable right, final int chunkSize,
+        final boolean showRowIds, final int rowsBeforeSpill, final boolean streaming) throws Exception {
+        final CrossJoinerNodeModel model = createModel(chunkSize, showRowIds);
+        model.setRowsCachedBeforeForcedSpill(rowsBeforeSpill);
+        final DataTableSpec spec =
+            model.configure(new DataTableSpec[]{left.getDataTableSpec(), right.getDataTableSpec()})[0];
+        final BufferedDataTable result;
+        if (streaming) {
+            final BufferedDataTableRowOutput output = new BufferedDataTableRowOutput(m_exec.createDataContainer(spec));
+            model.createStreamableOperator(new PartitionInfo(0, 1), new DataTableSpec[]{spec, spec}).runFinal(
+                new PortInput[]{new DataTableRowInput(left), new PortObjectInput(right)}, new PortOutput[]{output},
+                m_exec);
+            result = output.getDataTable();
+        } else {
+            result = model.execute(new BufferedDataTable[]{left, right}, m_exec)[0];
+        }
+
+        final String msg = "chunk size " + chunkSize + ", rows before spill " + rowsBeforeSpill + ", streaming "
+            + streaming + ": ";
+        assertThat(msg + "Unexpected spec", result.getDataTableSpec(), is(spec));
+        final List<DataRow> expected = crossJoin(left, right, chunkSize, showRowIds);
+        assertThat(msg + "Unexpected number of rows", result.size(), is((long)expected.size()));
+        final RowIterator iter = result.iterator();
+        for (final DataRow expectedRow : expected) {
+            final DataRow row = iter.next();
+            assertThat(msg + "Unexpected row key", row.getKey(), is(expectedRow.getKey()));
+            assertThat(msg + "Unexpected number of cells in row " + row.getKey(), row.getNumCells(),
+                is(expectedRow.getNumCells()));
+            for (int i = 0; i < row.getNumCells(); i++) {
+                assertThat(msg + "Unexpected cell in row " + row.getKey(), row.getCell(i), is(expectedRow.getCell(i)));
+            }
+        }
+    }
+
+    /**
+     * The previous implementation: the chunks of the top table in the outer loop, the chunks of the bottom table
+     * in the inner loop and the rows of each pair of chunks nested in the same way.
+     */
+    private static List<DataRow> crossJoin(final BufferedDataTable left, final BufferedDataTable right,
+        final int chunkSize, final boolean showRowIds) {
+        final List<DataRow> leftRows = toList(left);
+        final List<DataRow> rightRows = toList(right);
+        final List<DataRow> result = new ArrayList<>();
+        for (int leftChunk = 0; leftChunk < leftRows.size(); leftChunk += chunkSize) {
+            for (int rightChunk = 0; rightChunk < rightRows.size(); rightChunk += chunkSize) {
+                for (final DataRow l : leftRows.subList(leftChunk, Math.min(leftRows.size(), leftChunk + chunkSize))) {
+                    for (final DataRow r
+                            : rightRows.subList(rightChunk, Math.min(rightRows.size(), rightChunk + chunkSize))) {
+                        final List<DataCell> cells = new ArrayList<>();
+                        for (final DataCell cell : l) {
+                            cells.add(cell);
+                        }
+                        for (final DataCell cell : r) {
+                            cells.add(cell);
+                        }
+                        if (showRowIds) {
+                            cells.add(new StringCell(l.getKey().getString()));
+                            cells.add(new StringCell(r.getKey().getString()));
+                        }
+                        result.add(new DefaultRow(l.getKey().getString() + "_" + r.getKey().getString(), cells));
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private static List<DataRow> toList(final BufferedDataTable table) {
+        final List<DataRow> rows = new ArrayList<>();
+        for (final DataRow row : table) {
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private static CrossJoinerNodeModel createModel(final int chunkSize, final boolean showRowIds)
+        throws Exception {
+        final CrossJoinerNodeModel model = new CrossJoinerNodeModel();
+        final NodeSettings settings = new NodeSettings("CrossJoiner");
+        model.saveSettingsTo(settings);
+        final SettingsModelIntegerBounded cacheSize = CrossJoinerNodeModel.createCacheSizeSettingsModel();
+        cacheSize.setIntValue(chunkSize);
+        cacheSize.saveSettingsTo(settings);
+        final SettingsModelBoolean showFirst = CrossJoinerNodeModel.createshowFirstRowIdsSettingsModel();
+        showFirst.setBooleanValue(showRowIds);
+        showFirst.saveSettingsTo(settings);
+        final SettingsModelBoolean showSecond = CrossJoinerNodeModel.createshowSecondRowIdsSettingsModel();
+        showSecond.setBooleanValue(showRowIds);
+        showSecond.saveSettingsTo(settings);
+        model.validateSettings(settings);
+        model.loadValidatedSettingsFrom(settings);
+        return model;
+    }
+
+    /** Both tables have the same column names to check the renaming of the bottom table columns. */
+    private BufferedDataTable createTable(final String prefix, final int size) {
+        final DataTableSpec spec = new DataTableSpec("TestDataSpec", new String[]{"Name", "Index", "Value"},
+            new DataType[]{StringCell.TYPE, IntCell.TYPE, DoubleCell.TYPE});
+        final BufferedDataContainer dc = m_exec.createDataContainer(spec);
+        for (int i = 0; i < size; i++) {
+            final DataCell value = i % 5 == 0 ? DataType.getMissingCell() : new DoubleCell(i / 3.0);
+            dc.addRowToTable(new DefaultRow(prefix + i, new StringCell(prefix + "-" + i), new IntCell(i), value));
+        }
+        dc.close();
+        return dc.getTable();
+    }
+}
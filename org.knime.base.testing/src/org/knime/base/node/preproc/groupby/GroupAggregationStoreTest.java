@@ -0,0 +1,249 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.base.node.preproc.groupby;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.base.data.aggregation.AggregationMethods;
+import org.knime.base.data.aggregation.ColumnAggregator;
+import org.knime.base.data.aggregation.GlobalSettings;
+import org.knime.base.data.aggregation.GlobalSettings.AggregationContext;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.DoubleValue;
+import org.knime.core.data.container.ContainerTable;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.DefaultNodeProgressMonitor;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.Node;
+import org.knime.core.node.NodeFactory;
+import org.knime.core.node.NodeModel;
+import org.knime.core.node.port.PortType;
+import org.knime.core.node.workflow.SingleNodeContainer;
+import org.knime.core.node.workflow.virtual.parchunk.VirtualParallelizedChunkPortObjectInNodeFactory;
+
+/**
+ * Compares the groups of a {@link GroupAggregationStore} that uses primitive states with the ones of a store that
+ * uses one operator per group.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class GroupAggregationStoreTest {
+    private static final List<String> GROUP_COLS = Arrays.asList("Group");
+
+    /** The methods that support primitive states, each one excluding and including missing cells. */
+    private static final String[] PRIMITIVE_METHODS =
+        new String[]{"Sum_V2.5.2", "Mean", "Variance", "Standard deviation", "Count"};
+
+    private ExecutionContext m_exec;
+
+    /**
+     * @throws java.lang.Exception
+     */
+    @Before
+    public void setUp() throws Exception {
+        NodeFactory<NodeModel> dummyFactory =
+            (NodeFactory)new VirtualParallelizedChunkPortObjectInNodeFactory(new PortType[0]);
+        m_exec =
+            new ExecutionContext(new DefaultNodeProgressMonitor(), new Node(dummyFactory),
+                SingleNodeContainer.MemoryPolicy.CacheOnDisc, new HashMap<Integer, ContainerTable>());
+    }
+
+    /**
+     * Checks that primitive states are only used if all operators support them.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testUsesPrimitiveStates() throws Exception {
+        final BufferedDataTable table = createTable(10, 2);
+        assertThat("Primitive states not used", createStore(table, false).usesPrimitiveStates(), is(true));
+        assertThat("Primitive states used", createStore(table, true).usesPrimitiveStates(), is(false));
+    }
+
+    /**
+     * Checks the results of many groups with missing values, the arrays of the states are resized several times.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testCompute() throws Exception {
+        final BufferedDataTable table = createTable(30000, 1000);
+        final GroupAggregationStore primitive = createStore(table, false);
+        final GroupAggregationStore objects = createStore(table, true);
+        for (final DataRow row : table) {
+            primitive.compute(createGroupKey(row), row);
+            objects.compute(createGroupKey(row), row);
+        }
+        compareStores(objects, primitive);
+    }
+
+    /**
+     * Checks the results of stores that are computed in chunks and merged.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testMerge() throws Exception {
+        final BufferedDataTable table = createTable(30000, 1000);
+        final GroupAggregationStore objects = createStore(table, true);
+        final GroupAggregationStore primitive = createStore(table, false);
+        final GroupAggregationStore mergedObjects = objects.createEmptyCopy();
+        GroupAggregationStore primitiveChunk = primitive.createEmptyCopy();
+        GroupAggregationStore objectChunk = objects.createEmptyCopy();
+        final List<DataRow> rows = new ArrayList<>();
+        for (final DataRow row : table) {
+            rows.add(row);
+        }
+        int rowIdx = 0;
+        for (final DataRow row : rows) {
+            objects.compute(createGroupKey(row), row);
+            primitiveChunk.compute(createGroupKey(row), row);
+            objectChunk.compute(createGroupKey(row), row);
+            if (++rowIdx % 7000 == 0) {
+                primitive.merge(primitiveChunk);
+                mergedObjects.merge(objectChunk);
+                primitiveChunk = primitive.createEmptyCopy();
+                objectChunk = objects.createEmptyCopy();
+            }
+        }
+        primitive.merge(primitiveChunk);
+        mergedObjects.merge(objectChunk);
+        compareStores(objects, primitive);
+        compareStores(objects, mergedObjects);
+    }
+
+    private static GroupKey createGroupKey(final DataRow row) {
+        return new GroupKey(new DataCell[]{row.getCell(0)});
+    }
+
+    private static void compareStores(final GroupAggregationStore reference, final GroupAggregationStore test) {
+        assertThat("Unequal number of groups", test.size(), is(reference.size()));
+        for (int groupIdx = 0; groupIdx < reference.size(); groupIdx++) {
+            assertThat("Unexpected group", test.getGroup(groupIdx), is(reference.getGroup(groupIdx)));
+            assertThat("Unexpected row keys", test.getRowKeys(groupIdx), is(reference.getRowKeys(groupIdx)));
+            final DataCell[] refCells = reference.createResultCells(groupIdx);
+            final DataCell[] testCells = test.createResultCells(groupIdx);
+            // the reference store might have additional columns that don't support primitive states
+            for (int i = 0; i < testCells.length; i++) {
+                final String msg = "Unexpected cell " + i + " of group " + reference.getGroup(groupIdx);
+                if (!refCells[i].isMissing() && refCells[i].getType().equals(DoubleCell.TYPE)) {
+                    final double expected = ((DoubleValue)refCells[i]).getDoubleValue();
+                    assertThat(msg, testCells[i].getType(), is(refCells[i].getType()));
+                    assertEquals(msg, expected, ((DoubleValue)testCells[i]).getDoubleValue(),
+                        Math.max(Math.abs(expected), 1) * 1e-9);
+                } else {
+                    assertThat(msg, testCells[i], is(refCells[i]));
+                }
+            }
+        }
+    }
+
+    /**
+     * @param table the table to aggregate
+     * @param addFirst <code>true</code> if the First method should be added which doesn't support primitive states
+     * @return an empty store for the given table
+     * @throws Exception if the store can't be created
+     */
+    private GroupAggregationStore createStore(final BufferedDataTable table, final boolean addFirst)
+        throws Exception {
+        final DataTableSpec spec = table.getDataTableSpec();
+        final List<ColumnAggregator> aggregators = new ArrayList<>();
+        for (final String col : new String[]{"Double", "Int"}) {
+            for (final String method : PRIMITIVE_METHODS) {
+                aggregators.add(
+                    new ColumnAggregator(spec.getColumnSpec(col), AggregationMethods.getMethod4Id(method), false));
+                aggregators.add(
+                    new ColumnAggregator(spec.getColumnSpec(col), AggregationMethods.getMethod4Id(method), true));
+            }
+        }
+        if (addFirst) {
+            aggregators.add(
+                new ColumnAggregator(spec.getColumnSpec("Double"), AggregationMethods.getMethod4Id("First")));
+        }
+        final GlobalSettings globalSettings = GlobalSettings.builder().setGroupColNames(GROUP_COLS)
+            .setDataTableSpec(spec).setNoOfRows(table.size())
+            .setAggregationContext(AggregationContext.ROW_AGGREGATION).build();
+        // the table provides the aggregators and settings of the store
+        final GroupByTable groupByTable = new MemoryGroupByTable(m_exec, createTable(0, 1), GROUP_COLS,
+            aggregators.toArray(new ColumnAggregator[0]), globalSettings, true,
+            ColumnNamePolicy.AGGREGATION_METHOD_COLUMN_NAME, false);
+        return new GroupAggregationStore(groupByTable, spec);
+    }
+
+    private BufferedDataTable createTable(final int size, final int noOfGroups) {
+        final DataTableSpec spec = new DataTableSpec("TestDataSpec", new String[]{"Group", "Double", "Int"},
+            new DataType[]{StringCell.TYPE, DoubleCell.TYPE, IntCell.TYPE});
+        final BufferedDataContainer dc = m_exec.createDataContainer(spec);
+        final Random rand = new Random(1);
+        for (int i = 0; i < size; i++) {
+            final DataCell doubleCell =
+                rand.nextInt(20) == 0 ? DataType.getMissingCell() : new DoubleCell(1e6 + rand.nextGaussian() * 100);
+            final DataCell intCell =
+                rand.nextInt(20) == 0 ? DataType.getMissingCell() : new IntCell(rand.nextInt(1000));
+            dc.addRowToTable(new DefaultRow(Integer.toString(i), new StringCell("G" + rand.nextInt(noOfGroups)),
+                doubleCell, intCell));
+        }
+        dc.close();
+        return dc.getTable();
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.base.node.preproc.groupby;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.base.data.aggregation.AggregationMethod;
+import org.knime.base.data.aggregation.AggregationMethods;
+import org.knime.base.data.aggregation.ColumnAggregator;
+import org.knime.base.data.aggregation.GlobalSettings;
+import org.knime.base.data.aggregation.GlobalSettings.AggregationContext;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.RowIterator;
+import org.knime.core.data.container.ContainerTable;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.DefaultNodeProgressMonitor;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.Node;
+import org.knime.core.node.NodeFactory;
+import org.knime.core.node.NodeModel;
+import org.knime.core.node.port.PortType;
+import org.knime.core.node.workflow.SingleNodeContainer;
+import org.knime.core.node.workflow.virtual.parchunk.VirtualParallelizedChunkPortObjectInNodeFactory;
+
+/**
+ * Compares the results of the {@link HashGroupByTable} with the ones of the sort based {@link BigGroupByTable}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class HashGroupByTableTest {
+    private static final List<String> GROUP_COLS = Arrays.asList("Group");
+
+    private ExecutionContext m_exec;
+
+    /**
+     * @throws java.lang.Exception
+     */
+    @Before
+    public void setUp() throws Exception {
+        NodeFactory<NodeModel> dummyFactory =
+            (NodeFactory)new VirtualParallelizedChunkPortObjectInNodeFactory(new PortType[0]);
+        m_exec =
+            new ExecutionContext(new DefaultNodeProgressMonitor(), new Node(dummyFactory),
+                SingleNodeContainer.MemoryPolicy.CacheOnDisc, new HashMap<Integer, ContainerTable>());
+    }
+
+    /** Disables the forced spilling. */
+    @After
+    public void tearDown() {
+        HashGroupByTable.setRowsBeforeForcedSpill(0);
+    }
+
+    /**
+     * Checks that the in-memory hash aggregation creates the same groups as the sort based aggregation.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testInMemory() throws Exception {
+        final BufferedDataTable table = createTable(1000, 50);
+        compareTables(aggregate(table, false, false), aggregate(table, true, false));
+    }
+
+    /**
+     * Checks that the hash aggregation creates the same groups if partitions are spilled due to low memory.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testSpillPartitions() throws Exception {
+        final BufferedDataTable table = createTable(5000, 300);
+        final GroupByTable reference = aggregate(table, false, false);
+        HashGroupByTable.setRowsBeforeForcedSpill(10);
+        final GroupByTable test = aggregate(table, true, false);
+        compareTables(reference, test);
+        assertThat("Unexpected hilite mapping", test.getHiliteMapping(), is(reference.getHiliteMapping()));
+    }
+
+    /**
+     * Checks that the hash aggregation retains the row order if partitions are spilled due to low memory.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testSpillPartitionsRetainOrder() throws Exception {
+        final BufferedDataTable table = createTable(5000, 300);
+        final GroupByTable reference = aggregate(table, false, true);
+        HashGroupByTable.setRowsBeforeForcedSpill(10);
+        final GroupByTable test = aggregate(table, true, true);
+        assertThat("Unequal number of rows in result table", test.getBufferedTable().size(),
+            is(reference.getBufferedTable().size()));
+        final RowIterator referenceIter = reference.getBufferedTable().iterator();
+        final RowIterator testIter = test.getBufferedTable().iterator();
+        while (referenceIter.hasNext()) {
+            // row keys may differ but the groups must be in the same order
+            assertCells(referenceIter.next(), testIter.next());
+        }
+    }
+
+    /**
+     * Checks that order dependent aggregation methods give the same result if partitions are spilled, i.e. that the
+     * rows of a spilled partition are aggregated in the order of the input table although the rows read before and
+     * after the partition was spilled are written to disk separately.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testSpillPartitionsOrderDependentMethods() throws Exception {
+        final BufferedDataTable table = createTable(5000, 300);
+        final AggregationMethod[] methods = new AggregationMethod[]{AggregationMethods.getMethod4Id("First"),
+            AggregationMethods.getMethod4Id("Last"), AggregationMethods.getMethod4Id("List")};
+        final GroupByTable reference = aggregate(table, false, false, methods);
+        for (final int rowsBeforeSpill : new int[]{10, 1000, 4999}) {
+            HashGroupByTable.setRowsBeforeForcedSpill(rowsBeforeSpill);
+            compareTables(reference, aggregate(table, true, false, methods));
+        }
+    }
+
+    private GroupByTable aggregate(final BufferedDataTable table, final boolean hash, final boolean retainOrder)
+        throws Exception {
+        return aggregate(table, hash, retainOrder, AggregationMethods.getDefaultNumericalMethod());
+    }
+
+    private GroupByTable aggregate(final BufferedDataTable table, final boolean hash, final boolean retainOrder,
+        final AggregationMethod... methods) throws Exception {
+        final DataTableSpec spec = table.getDataTableSpec();
+        final ColumnAggregator[] aggregators = new ColumnAggregator[methods.length];
+        for (int i = 0; i < methods.length; i++) {
+            aggregators[i] = new ColumnAggregator(spec.getColumnSpec("Value"), methods[i]);
+        }
+        final GlobalSettings globalSettings = GlobalSettings.builder().setGroupColNames(GROUP_COLS)
+            .setDataTableSpec(spec).setNoOfRows(table.size())
+            .setAggregationContext(AggregationContext.ROW_AGGREGATION).build();
+        if (hash) {
+            return new HashGroupByTable(m_exec, table, GROUP_COLS, aggregators, globalSettings, true,
+                ColumnNamePolicy.AGGREGATION_METHOD_COLUMN_NAME, retainOrder);
+        }
+        return new BigGroupByTable(m_exec, table, GROUP_COLS, aggregators, globalSettings, true,
+            ColumnNamePolicy.AGGREGATION_METHOD_COLUMN_NAME, retainOrder);
+    }
+
+    private BufferedDataTable createTable(final int size, final int noOfGroups) {
+        final DataTableSpec spec = new DataTableSpec("TestDataSpec", new String[]{"Group", "Value"},
+            new DataType[]{StringCell.TYPE, IntCell.TYPE});
+        final BufferedDataContainer dc = m_exec.createDataContainer(spec);
+        final Random rand = new Random(1);
+        for (int i = 0; i < size; i++) {
+            dc.addRowToTable(new DefaultRow(Integer.toString(i), new StringCell("G" + rand.nextInt(noOfGroups)),
+                new IntCell(rand.nextInt(1000))));
+        }
+        dc.close();
+        return dc.getTable();
+    }
+
+    private static void compareTables(final GroupByTable reference, final GroupByTable test) {
+        final BufferedDataTable referenceTable = reference.getBufferedTable();
+        final BufferedDataTable testTable = test.getBufferedTable();
+        assertThat("Unexpected table spec", testTable.getDataTableSpec(), is(referenceTable.getDataTableSpec()));
+        assertThat("Unequal number of rows in result table", testTable.size(), is(referenceTable.size()));
+        final RowIterator referenceIter = referenceTable.iterator();
+        final RowIterator testIter = testTable.iterator();
+        while (referenceIter.hasNext()) {
+            final DataRow refRow = referenceIter.next();
+            final DataRow testRow = testIter.next();
+            assertThat("Unexpected row key", testRow.getKey(), is(refRow.getKey()));
+            assertCells(refRow, testRow);
+        }
+    }
+
+    private static void assertCells(final DataRow refRow, final DataRow testRow) {
+        final Iterator<DataCell> refCell = refRow.iterator();
+        final Iterator<DataCell> testCell = testRow.iterator();
+        while (refCell.hasNext()) {
+            assertThat("Unexpected cell in row " + refRow.getKey(), testCell.next(), is(refCell.next()));
+        }
+    }
+}
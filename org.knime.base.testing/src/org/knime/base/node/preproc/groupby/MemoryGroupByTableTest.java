@@ -0,0 +1,205 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.base.node.preproc.groupby;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.base.data.aggregation.AggregationMethods;
+import org.knime.base.data.aggregation.ColumnAggregator;
+import org.knime.base.data.aggregation.GlobalSettings;
+import org.knime.base.data.aggregation.GlobalSettings.AggregationContext;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnSpec;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.DoubleValue;
+import org.knime.core.data.RowIterator;
+import org.knime.core.data.container.ContainerTable;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.DefaultNodeProgressMonitor;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.Node;
+import org.knime.core.node.NodeFactory;
+import org.knime.core.node.NodeModel;
+import org.knime.core.node.port.PortType;
+import org.knime.core.node.workflow.SingleNodeContainer;
+import org.knime.core.node.workflow.virtual.parchunk.VirtualParallelizedChunkPortObjectInNodeFactory;
+
+/**
+ * Compares the results of the {@link MemoryGroupByTable} with the ones of the sort based {@link BigGroupByTable}.
+ * The tables are large enough to be aggregated in several chunks whose partial results are merged if more than one
+ * processor is available.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class MemoryGroupByTableTest {
+    private static final List<String> GROUP_COLS = Arrays.asList("Group");
+
+    private static final String[] MERGEABLE_METHODS = new String[]{"Mean", "Sum_V2.5.2", "Variance", "Minimum",
+        "Maximum", "Count", "First", "Last", "Missing value count"};
+
+    private ExecutionContext m_exec;
+
+    /**
+     * @throws java.lang.Exception
+     */
+    @Before
+    public void setUp() throws Exception {
+        NodeFactory<NodeModel> dummyFactory =
+            (NodeFactory)new VirtualParallelizedChunkPortObjectInNodeFactory(new PortType[0]);
+        m_exec =
+            new ExecutionContext(new DefaultNodeProgressMonitor(), new Node(dummyFactory),
+                SingleNodeContainer.MemoryPolicy.CacheOnDisc, new HashMap<Integer, ContainerTable>());
+    }
+
+    /**
+     * Few groups that span all chunks.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testFewGroups() throws Exception {
+        compareTables(createTable(55001, 7));
+    }
+
+    /**
+     * Many groups of which most only occur in some of the chunks.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testManyGroups() throws Exception {
+        compareTables(createTable(45000, 20000));
+    }
+
+    /**
+     * A table that is too small to be split into chunks.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testSmallTable() throws Exception {
+        compareTables(createTable(1000, 30));
+    }
+
+    private void compareTables(final BufferedDataTable table) throws Exception {
+        final BufferedDataTable reference = aggregate(table, false).getBufferedTable();
+        final BufferedDataTable test = aggregate(table, true).getBufferedTable();
+        assertThat("Unexpected table spec", test.getDataTableSpec(), is(reference.getDataTableSpec()));
+        assertThat("Unequal number of rows in result table", test.size(), is(reference.size()));
+        final RowIterator referenceIter = reference.iterator();
+        final RowIterator testIter = test.iterator();
+        while (referenceIter.hasNext()) {
+            // row keys may differ but the groups must be in the order of their first occurrence
+            final DataRow refRow = referenceIter.next();
+            final DataRow testRow = testIter.next();
+            for (int i = 0; i < refRow.getNumCells(); i++) {
+                final String msg = "Unexpected cell in column "
+                    + reference.getDataTableSpec().getColumnSpec(i).getName() + " of row " + refRow.getKey();
+                final DataCell refCell = refRow.getCell(i);
+                final DataCell testCell = testRow.getCell(i);
+                if (!refCell.isMissing() && refCell.getType().equals(DoubleCell.TYPE)
+                    && testCell instanceof DoubleValue) {
+                    // the merged partial results may differ in the last digits
+                    final double expected = ((DoubleValue)refCell).getDoubleValue();
+                    assertEquals(msg, expected, ((DoubleValue)testCell).getDoubleValue(),
+                        Math.max(Math.abs(expected), 1) * 1e-9);
+                } else {
+                    assertThat(msg, testCell, is(refCell));
+                }
+            }
+        }
+    }
+
+    private GroupByTable aggregate(final BufferedDataTable table, final boolean memory) throws Exception {
+        final DataTableSpec spec = table.getDataTableSpec();
+        final DataColumnSpec valueSpec = spec.getColumnSpec("Value");
+        final ColumnAggregator[] aggregators = new ColumnAggregator[2 * MERGEABLE_METHODS.length];
+        for (int i = 0; i < MERGEABLE_METHODS.length; i++) {
+            aggregators[2 * i] =
+                new ColumnAggregator(valueSpec, AggregationMethods.getMethod4Id(MERGEABLE_METHODS[i]), false);
+            aggregators[2 * i + 1] =
+                new ColumnAggregator(valueSpec, AggregationMethods.getMethod4Id(MERGEABLE_METHODS[i]), true);
+        }
+        final GlobalSettings globalSettings = GlobalSettings.builder().setGroupColNames(GROUP_COLS)
+            .setDataTableSpec(spec).setNoOfRows(table.size())
+            .setAggregationContext(AggregationContext.ROW_AGGREGATION).build();
+        if (memory) {
+            return new MemoryGroupByTable(m_exec, table, GROUP_COLS, aggregators, globalSettings, true,
+                ColumnNamePolicy.AGGREGATION_METHOD_COLUMN_NAME, true);
+        }
+        return new BigGroupByTable(m_exec, table, GROUP_COLS, aggregators, globalSettings, true,
+            ColumnNamePolicy.AGGREGATION_METHOD_COLUMN_NAME, true);
+    }
+
+    private BufferedDataTable createTable(final int size, final int noOfGroups) {
+        final DataTableSpec spec = new DataTableSpec("TestDataSpec", new String[]{"Group", "Value"},
+            new DataType[]{StringCell.TYPE, DoubleCell.TYPE});
+        final BufferedDataContainer dc = m_exec.createDataContainer(spec);
+        final Random rand = new Random(1);
+        for (int i = 0; i < size; i++) {
+            final DataCell value =
+                rand.nextInt(20) == 0 ? DataType.getMissingCell() : new DoubleCell(1e6 + rand.nextGaussian() * 100);
+            dc.addRowToTable(
+                new DefaultRow(Integer.toString(i), new StringCell("G" + rand.nextInt(noOfGroups)), value));
+        }
+        dc.close();
+        return dc.getTable();
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+
+package org.knime.base.node.preproc.joiner;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Test;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataType;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
+import org.knime.core.data.def.StringCell;
+
+/**
+ * Tests the {@link JoinHashTable} with primitive and generic keys.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class JoinHashTableTest {
+
+    private static JoinTuple tuple(final DataCell... cells) {
+        return new JoinTuple(cells);
+    }
+
+    private static Set<Integer> get(final JoinHashTable table,
+            final JoinTuple tuple) {
+        Set<Integer> rows = new TreeSet<Integer>();
+        for (int entry = table.getFirst(tuple);
+                entry != JoinHashTable.NO_ENTRY;
+                entry = table.getNext(entry)) {
+            rows.add(table.getRowIndex(entry));
+        }
+        return rows;
+    }
+
+    private static Set<Integer> rows(final Integer... rows) {
+        Set<Integer> set = new TreeSet<Integer>();
+        for (Integer row : rows) {
+            set.add(row);
+        }
+        return set;
+    }
+
+    /** Tests int keys including the growth of the table. */
+    @Test
+    public void testIntKeys() {
+        JoinHashTable table = new JoinHashTable();
+        for (int i = 0; i < 1000; i++) {
+            table.add(tuple(new IntCell(i % 100)), i);
+        }
+        assertThat(table.getNumTuples(), is(100));
+        for (int i = 0; i < 100; i++) {
+            assertThat(get(table, tuple(new IntCell(i))).size(), is(10));
+        }
+        assertThat(get(table, tuple(new IntCell(7))),
+                is(rows(7, 107, 207, 307, 407, 507, 607, 707, 807, 907)));
+        assertThat(get(table, tuple(new IntCell(100))), is(rows()));
+        // cells of different classes are not equal, see DataCell#equals
+        assertThat(get(table, tuple(new LongCell(7))), is(rows()));
+        assertThat(get(table, tuple(new StringCell("7"))), is(rows()));
+    }
+
+    /** Tests long and string keys. */
+    @Test
+    public void testLongAndStringKeys() {
+        JoinHashTable longTable = new JoinHashTable();
+        JoinHashTable stringTable = new JoinHashTable();
+        for (int i = 0; i < 500; i++) {
+            longTable.add(tuple(new LongCell(i * 1000000007L)), i);
+            stringTable.add(tuple(new StringCell("Row" + i)), i);
+        }
+        assertThat(longTable.getNumTuples(), is(500));
+        assertThat(stringTable.getNumTuples(), is(500));
+        assertThat(get(longTable, tuple(new LongCell(42 * 1000000007L))),
+                is(rows(42)));
+        assertThat(get(stringTable, tuple(new StringCell("Row42"))),
+                is(rows(42)));
+        assertThat(get(stringTable, tuple(new StringCell("Row500"))),
+                is(rows()));
+    }
+
+    /** Tests that missing cells never match. */
+    @Test
+    public void testMissingCells() {
+        JoinHashTable table = new JoinHashTable();
+        table.add(tuple(new IntCell(1)), 0);
+        table.add(tuple(DataType.getMissingCell()), 1);
+        table.add(tuple(DataType.getMissingCell()), 2);
+        assertThat(get(table, tuple(DataType.getMissingCell())), is(rows()));
+        Set<Integer> all = new TreeSet<Integer>();
+        table.forEachRowIndex(all::add);
+        assertThat(all, is(rows(0, 1, 2)));
+    }
+
+    /**
+     * Tests the switch to the generic map when a tuple with several cells
+     * or another cell type is added.
+     */
+    @Test
+    public void testSwitchToMap() {
+        JoinHashTable table = new JoinHashTable();
+        table.add(tuple(new StringCell("a")), 0);
+        table.add(tuple(new StringCell("b")), 1);
+        table.add(tuple(new DoubleCell(1.5)), 2);
+        table.add(tuple(new StringCell("a")), 3);
+        assertThat(table.getNumTuples(), is(3));
+        assertThat(get(table, tuple(new StringCell("a"))), is(rows(0, 3)));
+        assertThat(get(table, tuple(new StringCell("b"))), is(rows(1)));
+        assertThat(get(table, tuple(new DoubleCell(1.5))), is(rows(2)));
+
+        JoinHashTable multi = new JoinHashTable();
+        multi.add(tuple(new IntCell(1), new StringCell("a")), 0);
+        multi.add(tuple(new IntCell(1), new StringCell("a")), 1);
+        multi.add(tuple(new IntCell(1), new StringCell("b")), 2);
+        assertThat(get(multi, tuple(new IntCell(1), new StringCell("a"))),
+                is(rows(0, 1)));
+    }
+
+    /** Tests that retaining a partition keeps the rows of its tuples. */
+    @Test
+    public void testRetainPartition() {
+        JoinHashTable table = new JoinHashTable();
+        for (int i = 0; i < 200; i++) {
+            table.add(tuple(new IntCell(i)), i);
+            table.add(tuple(new IntCell(i)), i);
+        }
+        table.add(tuple(DataType.getMissingCell()), 200);
+        for (int part = 0; part < 2; part++) {
+            JoinHashTable retained = table.retainPartition(1, part);
+            Set<Integer> expected = new TreeSet<Integer>();
+            for (int i = 0; i < 200; i++) {
+                JoinTuple tuple = tuple(new IntCell(i));
+                if ((tuple.hashCode() & 1) == part) {
+                    expected.add(i);
+                    assertThat(get(retained, tuple), is(rows(i)));
+                } else {
+                    assertThat(get(retained, tuple), is(rows()));
+                }
+            }
+            if ((tuple(DataType.getMissingCell()).hashCode() & 1) == part) {
+                expected.add(200);
+            }
+            Set<Integer> all = new TreeSet<Integer>();
+            retained.forEachRowIndex(all::add);
+            assertThat(all, is(expected));
+        }
+    }
+}
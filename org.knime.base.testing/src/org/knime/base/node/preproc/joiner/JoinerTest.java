@@ -50,12 +50,15 @@
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertThat;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Random;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.knime.base.node.preproc.joiner.Joiner.JoinStrategy;
+import org.knime.base.node.preproc.joiner.Joiner2Settings.CompositionMode;
 import org.knime.base.node.preproc.joiner.Joiner2Settings.JoinMode;
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataRow;
@@ -67,6 +70,7 @@
 import org.knime.core.data.def.DefaultRow;
 import org.knime.core.data.def.IntCell;
 import org.knime.core.data.def.StringCell;
+import org.knime.core.data.sort.BufferedDataTableSorter;
 import org.knime.core.node.BufferedDataTable;
 import org.knime.core.node.DefaultNodeProgressMonitor;
 import org.knime.core.node.ExecutionContext;
@@ -405,6 +409,212 @@ public void testSortPartitionsFullOuterJoin() throws Exception {
     }
 
 
+    /**
+     * Checks whether the broadcast hash join gives the same results as the hybrid hash join for all join modes and
+     * both the top and the bottom table being the smaller one.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testBroadcastHashJoin() throws Exception {
+        BufferedDataTable smallTable = m_exec.createBufferedDataTable(new TestData(100, 1), m_exec);
+        BufferedDataTable largeTable = m_exec.createBufferedDataTable(new TestData(200, 1), m_exec);
+        for (JoinMode joinMode : JoinMode.values()) {
+            compareWithStrategy(smallTable, largeTable, joinMode, JoinStrategy.BroadcastHashJoin, 0);
+            compareWithStrategy(largeTable, smallTable, joinMode, JoinStrategy.BroadcastHashJoin, 0);
+        }
+    }
+
+    /**
+     * Checks whether the broadcast hash join falls back to the hybrid hash join if the smaller table does not fit
+     * into memory.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testBroadcastHashJoinLowMemory() throws Exception {
+        BufferedDataTable smallTable = m_exec.createBufferedDataTable(new TestData(100, 1), m_exec);
+        BufferedDataTable largeTable = m_exec.createBufferedDataTable(new TestData(200, 1), m_exec);
+        for (JoinMode joinMode : JoinMode.values()) {
+            compareWithStrategy(smallTable, largeTable, joinMode, JoinStrategy.BroadcastHashJoin, 10);
+            compareWithStrategy(largeTable, smallTable, joinMode, JoinStrategy.BroadcastHashJoin, 10);
+        }
+    }
+
+    /**
+     * Checks whether the sort-merge join gives the same results as the hybrid hash join for all join modes.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testSortMergeJoin() throws Exception {
+        BufferedDataTable leftTable = m_exec.createBufferedDataTable(new TestData(100, 1), m_exec);
+        BufferedDataTable rightTable = m_exec.createBufferedDataTable(new TestData(200, 1), m_exec);
+        Joiner joiner = new Joiner(leftTable.getDataTableSpec(), rightTable.getDataTableSpec(),
+            createReferenceSettings("Data"));
+        assertThat("Unsorted tables recognized as sorted",
+            joiner.isSortedOnJoinColumns(leftTable, rightTable, m_exec), is(false));
+
+        boolean[] ascending = new boolean[]{true};
+        BufferedDataTable sortedLeftTable =
+            new BufferedDataTableSorter(leftTable, Arrays.asList("Data"), ascending).sort(m_exec);
+        BufferedDataTable sortedRightTable =
+            new BufferedDataTableSorter(rightTable, Arrays.asList("Data"), ascending).sort(m_exec);
+        assertThat("Unsorted bottom table recognized as sorted",
+            joiner.isSortedOnJoinColumns(sortedLeftTable, rightTable, m_exec), is(false));
+        assertThat("Unsorted top table recognized as sorted",
+            joiner.isSortedOnJoinColumns(leftTable, sortedRightTable, m_exec), is(false));
+        assertThat("Sorted tables not recognized",
+            joiner.isSortedOnJoinColumns(sortedLeftTable, sortedRightTable, m_exec), is(true));
+        leftTable = sortedLeftTable;
+        rightTable = sortedRightTable;
+        for (JoinMode joinMode : JoinMode.values()) {
+            compareWithStrategy(leftTable, rightTable, joinMode, JoinStrategy.SortMergeJoin, 0);
+            compareWithStrategy(rightTable, leftTable, joinMode, JoinStrategy.SortMergeJoin, 0);
+        }
+    }
+
+    /**
+     * Checks whether probing the partitions in parallel gives the same results as the sequential probing for all join
+     * modes, also when the number of partitions must be increased due to low memory.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testParallelProbe() throws Exception {
+        BufferedDataTable leftTable = m_exec.createBufferedDataTable(new TestData(100, 1), m_exec);
+        BufferedDataTable rightTable = m_exec.createBufferedDataTable(new TestData(200, 1), m_exec);
+        for (JoinMode joinMode : JoinMode.values()) {
+            Joiner2Settings settingsRef = createReferenceSettings("Data");
+            settingsRef.setJoinMode(joinMode);
+            Joiner2Settings settingsTest = createReferenceSettings("Data");
+            settingsTest.setJoinMode(joinMode);
+
+            // run joiner with reference settings
+            Joiner joinerRef = new Joiner(leftTable.getDataTableSpec(), rightTable.getDataTableSpec(), settingsRef);
+            BufferedDataTable reference = joinerRef.computeJoinTable(leftTable, rightTable, m_exec);
+
+            // run joiner with small chunks and several threads so that the bottom table is probed in parallel, also
+            // on machines with a single processor
+            Joiner joinerTest = new Joiner(leftTable.getDataTableSpec(), rightTable.getDataTableSpec(), settingsTest);
+            joinerTest.setProbeChunkSize(7);
+            joinerTest.setProbeThreadCount(4);
+            joinerTest.setRowsAddedBeforeOOM(10);
+            BufferedDataTable test = joinerTest.computeJoinTable(leftTable, rightTable, m_exec);
+            compareTables(reference, test);
+        }
+    }
+
+    /**
+     * Checks whether skipping the rows of the bottom table with the Bloom filter gives the same results as probing
+     * all rows for all join modes and both compositions, also when the number of partitions must be increased due to
+     * low memory.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testBloomFilter() throws Exception {
+        BufferedDataTable leftTable = m_exec.createBufferedDataTable(new TestData(100, 1), m_exec);
+        BufferedDataTable rightTable = m_exec.createBufferedDataTable(new TestData(200, 1), m_exec);
+        for (CompositionMode compositionMode : CompositionMode.values()) {
+            for (JoinMode joinMode : JoinMode.values()) {
+                for (int rowsBeforeOOM : new int[]{0, 10}) {
+                    Joiner2Settings settingsRef = createReferenceSettings("Data");
+                    Joiner2Settings settingsTest = createReferenceSettings("Data");
+                    if (compositionMode == CompositionMode.MatchAny) {
+                        for (Joiner2Settings settings : Arrays.asList(settingsRef, settingsTest)) {
+                            settings.setLeftJoinColumns(new String[]{"Index", "Data"});
+                            settings.setRightJoinColumns(new String[]{"Index", "Data"});
+                        }
+                    }
+                    settingsRef.setCompositionMode(compositionMode);
+                    settingsRef.setJoinMode(joinMode);
+                    settingsTest.setCompositionMode(compositionMode);
+                    settingsTest.setJoinMode(joinMode);
+
+                    // run joiner without Bloom filter
+                    Joiner joinerRef =
+                        new Joiner(leftTable.getDataTableSpec(), rightTable.getDataTableSpec(), settingsRef);
+                    joinerRef.setUseBloomFilter(false);
+                    joinerRef.setRowsAddedBeforeOOM(rowsBeforeOOM);
+                    BufferedDataTable reference = joinerRef.computeJoinTable(leftTable, rightTable, m_exec);
+
+                    // run joiner with Bloom filter, the top table is the smaller one
+                    Joiner joinerTest =
+                        new Joiner(leftTable.getDataTableSpec(), rightTable.getDataTableSpec(), settingsTest);
+                    joinerTest.setRowsAddedBeforeOOM(rowsBeforeOOM);
+                    BufferedDataTable test = joinerTest.computeJoinTable(leftTable, rightTable, m_exec);
+                    compareTables(reference, test);
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks whether skipping the rows of the larger table with the Bloom filter in the broadcast hash join gives
+     * the same results as probing all rows for all join modes, both compositions and both the top and the bottom
+     * table being the smaller one.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testBroadcastHashJoinBloomFilter() throws Exception {
+        BufferedDataTable smallTable = m_exec.createBufferedDataTable(new TestData(100, 1), m_exec);
+        BufferedDataTable largeTable = m_exec.createBufferedDataTable(new TestData(200, 1), m_exec);
+        for (CompositionMode compositionMode : CompositionMode.values()) {
+            for (JoinMode joinMode : JoinMode.values()) {
+                for (BufferedDataTable[] tables : Arrays.asList(new BufferedDataTable[]{smallTable, largeTable},
+                    new BufferedDataTable[]{largeTable, smallTable})) {
+                    Joiner2Settings settingsRef = createReferenceSettings("Data");
+                    Joiner2Settings settingsTest = createReferenceSettings("Data");
+                    if (compositionMode == CompositionMode.MatchAny) {
+                        for (Joiner2Settings settings : Arrays.asList(settingsRef, settingsTest)) {
+                            settings.setLeftJoinColumns(new String[]{"Index", "Data"});
+                            settings.setRightJoinColumns(new String[]{"Index", "Data"});
+                        }
+                    }
+                    settingsRef.setCompositionMode(compositionMode);
+                    settingsRef.setJoinMode(joinMode);
+                    settingsTest.setCompositionMode(compositionMode);
+                    settingsTest.setJoinMode(joinMode);
+
+                    // run broadcast joiner without Bloom filter
+                    Joiner joinerRef =
+                        new Joiner(tables[0].getDataTableSpec(), tables[1].getDataTableSpec(), settingsRef);
+                    joinerRef.setJoinStrategy(JoinStrategy.BroadcastHashJoin);
+                    joinerRef.setUseBloomFilter(false);
+                    BufferedDataTable reference = joinerRef.computeJoinTable(tables[0], tables[1], m_exec);
+
+                    // run broadcast joiner with Bloom filter
+                    Joiner joinerTest =
+                        new Joiner(tables[0].getDataTableSpec(), tables[1].getDataTableSpec(), settingsTest);
+                    joinerTest.setJoinStrategy(JoinStrategy.BroadcastHashJoin);
+                    BufferedDataTable test = joinerTest.computeJoinTable(tables[0], tables[1], m_exec);
+                    compareTables(reference, test);
+                }
+            }
+        }
+    }
+
+    private void compareWithStrategy(final BufferedDataTable leftTable, final BufferedDataTable rightTable,
+        final JoinMode joinMode, final JoinStrategy strategy, final int rowsBeforeOOM) throws Exception {
+        Joiner2Settings settingsRef = createReferenceSettings("Data");
+        settingsRef.setJoinMode(joinMode);
+        Joiner2Settings settingsTest = createReferenceSettings("Data");
+        settingsTest.setJoinMode(joinMode);
+
+        // run joiner with reference settings
+        Joiner joinerRef = new Joiner(leftTable.getDataTableSpec(), rightTable.getDataTableSpec(), settingsRef);
+        BufferedDataTable reference = joinerRef.computeJoinTable(leftTable, rightTable, m_exec);
+
+        // run joiner with test strategy
+        Joiner joinerTest = new Joiner(leftTable.getDataTableSpec(), rightTable.getDataTableSpec(), settingsTest);
+        joinerTest.setJoinStrategy(strategy);
+        joinerTest.setRowsAddedBeforeOOM(rowsBeforeOOM);
+        BufferedDataTable test = joinerTest.computeJoinTable(leftTable, rightTable, m_exec);
+        compareTables(reference, test);
+    }
+
     private Joiner2Settings createReferenceSettings(final String col) {
         Joiner2Settings settingsRef = new Joiner2Settings();
         String[] joinColumns = new String[]{col};
@@ -0,0 +1,290 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.base.node.preproc.transpose;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnSpec;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.RowIterator;
+import org.knime.core.data.container.ContainerTable;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.DefaultNodeProgressMonitor;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.Node;
+import org.knime.core.node.NodeFactory;
+import org.knime.core.node.NodeModel;
+import org.knime.core.node.NodeSettings;
+import org.knime.core.node.port.PortType;
+import org.knime.core.node.workflow.SingleNodeContainer;
+import org.knime.core.node.workflow.virtual.parchunk.VirtualParallelizedChunkPortObjectInNodeFactory;
+
+/**
+ * Compares the output of the {@link TransposeTableNodeModel}, which writes blocks of transposed rows to disk and
+ * merges them, with the one of the previous implementation that read the entire table once per chunk of columns.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class TransposeTableNodeModelTest {
+
+    private ExecutionContext m_exec;
+
+    /**
+     * @throws java.lang.Exception
+     */
+    @Before
+    public void setUp() throws Exception {
+        NodeFactory<NodeModel> dummyFactory =
+            (NodeFactory)new VirtualParallelizedChunkPortObjectInNodeFactory(new PortType[0]);
+        m_exec =
+            new ExecutionContext(new DefaultNodeProgressMonitor(), new Node(dummyFactory),
+                SingleNodeContainer.MemoryPolicy.CacheOnDisc, new HashMap<Integer, ContainerTable>());
+    }
+
+    /**
+     * Checks a table that is kept in memory entirely.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testInMemory() throws Exception {
+        compare(createTable(30), 0);
+        compare(createTable(1), 0);
+    }
+
+    /**
+     * Checks tables that are written to disk in fewer blocks than are read at the same time, with and without
+     * rows remaining in memory.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testLowMemory() throws Exception {
+        final BufferedDataTable table = createTable(45);
+        for (final int rowsBeforeSpill : new int[]{5, 7, 44, 45}) {
+            compare(table, rowsBeforeSpill);
+        }
+    }
+
+    /**
+     * Checks tables that are written to disk in more than 40 blocks, which are merged once or several times before
+     * the output is created.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testMergeBlocks() throws Exception {
+        compare(createTable(41), 1);
+        compare(createTable(45), 1);
+        compare(createTable(100), 1);
+        compare(createTable(250), 3);
+        // 1700 blocks are merged into 43 and then into 2 blocks
+        compare(createTable(1700), 1);
+    }
+
+    /**
+     * Checks an empty table and a table without columns.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testEmptyTables() throws Exception {
+        final BufferedDataTable empty = createTable(0);
+        final BufferedDataTable result = createModel(0).execute(new BufferedDataTable[]{empty}, m_exec)[0];
+        assertThat("Unexpected spec", result.getDataTableSpec(), is(new DataTableSpec()));
+        assertThat("Unexpected number of rows", result.size(), is((long)empty.getDataTableSpec().getNumColumns()));
+        final RowIterator iter = result.iterator();
+        for (final DataColumnSpec colSpec : empty.getDataTableSpec()) {
+            final DataRow row = iter.next();
+            assertThat("Unexpected row key", row.getKey().getString(), is(colSpec.getName()));
+            assertThat("Unexpected number of cells", row.getNumCells(), is(0));
+        }
+
+        final BufferedDataContainer dc = m_exec.createDataContainer(new DataTableSpec());
+        for (int i = 0; i < 50; i++) {
+            dc.addRowToTable(new DefaultRow("Row" + i, new DataCell[0]));
+        }
+        dc.close();
+        compare(dc.getTable(), 0);
+        compare(dc.getTable(), 1);
+    }
+
+    private void compare(final BufferedDataTable table, final int rowsBeforeSpill) throws Exception {
+        final TransposeTableNodeModel model = createModel(rowsBeforeSpill);
+        final BufferedDataTable result = model.execute(new BufferedDataTable[]{table}, m_exec)[0];
+
+        final String msg = table.size() + " rows, rows before spill " + rowsBeforeSpill + ": ";
+        final List<DataRow> expected = new ArrayList<>();
+        final DataTableSpec expectedSpec = transpose(table, 10, expected);
+        assertThat(msg + "Unexpected spec", result.getDataTableSpec(), is(expectedSpec));
+        assertThat(msg + "Unexpected number of rows", result.size(), is((long)expected.size()));
+        final RowIterator iter = result.iterator();
+        for (final DataRow expectedRow : expected) {
+            final DataRow row = iter.next();
+            assertThat(msg + "Unexpected row key", row.getKey(), is(expectedRow.getKey()));
+            assertThat(msg + "Unexpected number of cells in row " + row.getKey(), row.getNumCells(),
+                is(expectedRow.getNumCells()));
+            for (int i = 0; i < row.getNumCells(); i++) {
+                assertThat(msg + "Unexpected cell in row " + row.getKey(), row.getCell(i), is(expectedRow.getCell(i)));
+            }
+        }
+    }
+
+    /**
+     * The previous implementation: the column types are determined in a first pass and the table is read again for
+     * each chunk of columns, whose cells are collected in memory.
+     */
+    private static DataTableSpec transpose(final BufferedDataTable table, final int chunkSize,
+        final List<DataRow> result) {
+        final DataTableSpec spec = table.getDataTableSpec();
+        final int newNrCols = (int)table.size();
+        final int newNrRows = spec.getNumColumns();
+        final DataColumnSpec[] colSpecs = new DataColumnSpec[newNrCols];
+        int c = 0;
+        int idx = 0;
+        for (final DataRow row : table) {
+            DataType type = null;
+            for (final DataCell cell : row) {
+                type = type == null ? cell.getType() : DataType.getCommonSuperType(type, cell.getType());
+            }
+            if (type == null) {
+                type = DataType.getType(DataCell.class);
+            }
+            String colName = row.getKey().getString().trim();
+            if (colName.isEmpty()) {
+                colName = "<empty_" + idx + ">";
+                idx++;
+            }
+            colSpecs[c++] = new DataColumnSpecCreator(colName, type).createSpec();
+        }
+        for (int colIdx = 0; colIdx < newNrRows; colIdx += chunkSize) {
+            final Map<String, DataCell[]> map = new LinkedHashMap<>();
+            int rowIdx = 0;
+            for (final DataRow row : table) {
+                for (int r = colIdx; r < Math.min(newNrRows, colIdx + chunkSize); r++) {
+                    final String newRowKey = spec.getColumnSpec(r).getName();
+                    DataCell[] cellArray = map.get(newRowKey);
+                    if (cellArray == null) {
+                        cellArray = new DataCell[newNrCols];
+                        map.put(newRowKey, cellArray);
+                    }
+                    cellArray[rowIdx] = row.getCell(r);
+                }
+                rowIdx++;
+            }
+            for (final Map.Entry<String, DataCell[]> e : map.entrySet()) {
+                result.add(new DefaultRow(e.getKey(), e.getValue()));
+            }
+        }
+        return new DataTableSpec(colSpecs);
+    }
+
+    private static TransposeTableNodeModel createModel(final int rowsBeforeSpill) throws Exception {
+        final TransposeTableNodeModel model = new TransposeTableNodeModel();
+        final NodeSettings settings = new NodeSettings("Transpose");
+        model.saveSettingsTo(settings);
+        model.validateSettings(settings);
+        model.loadValidatedSettingsFrom(settings);
+        model.setRowsBufferedBeforeForcedSpill(rowsBeforeSpill);
+        return model;
+    }
+
+    /**
+     * The table has more columns than the previous chunk size, mixed types in most rows and some row keys
+     * consisting of whitespace only.
+     */
+    private BufferedDataTable createTable(final int size) {
+        final String[] names = new String[23];
+        final DataType[] types = new DataType[names.length];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = "Col" + i;
+            types[i] = DataType.getType(DataCell.class);
+        }
+        final BufferedDataContainer dc = m_exec.createDataContainer(new DataTableSpec(names, types));
+        for (int r = 0; r < size; r++) {
+            final DataCell[] cells = new DataCell[names.length];
+            for (int i = 0; i < cells.length; i++) {
+                if ((r + i) % 7 == 0) {
+                    cells[i] = DataType.getMissingCell();
+                } else if (r % 4 == 0) {
+                    // rows with cells of a single type
+                    cells[i] = new IntCell(r * i);
+                } else {
+                    cells[i] = i % 3 == 0 ? new StringCell(r + "-" + i)
+                        : i % 3 == 1 ? new IntCell(r + i) : new DoubleCell(r / (i + 1.0));
+                }
+            }
+            final StringBuilder key = new StringBuilder();
+            if (r % 11 == 5) {
+                for (int i = 0; i <= r / 11; i++) {
+                    key.append(i % 2 == 0 ? ' ' : '\t');
+                }
+            } else {
+                key.append("Row").append(r);
+            }
+            dc.addRowToTable(new DefaultRow(key.toString(), cells));
+        }
+        dc.close();
+        return dc.getTable();
+    }
+}
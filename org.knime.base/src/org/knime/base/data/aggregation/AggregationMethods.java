@@ -88,6 +88,8 @@
 import org.knime.base.data.aggregation.date.DayRangeOperator;
 import org.knime.base.data.aggregation.date.MedianDateOperator;
 import org.knime.base.data.aggregation.date.MillisRangeOperator;
+import org.knime.base.data.aggregation.general.ApproximateTopKOperator;
+import org.knime.base.data.aggregation.general.ApproximateUniqueCountOperator;
 import org.knime.base.data.aggregation.general.ConcatenateOperator;
 import org.knime.base.data.aggregation.general.CountOperator;
 import org.knime.base.data.aggregation.general.FirstOperator;
@@ -103,6 +105,8 @@
 import org.knime.base.data.aggregation.general.UniqueConcatenateOperator;
 import org.knime.base.data.aggregation.general.UniqueConcatenateWithCountOperator;
 import org.knime.base.data.aggregation.general.UniqueCountOperator;
+import org.knime.base.data.aggregation.numerical.ApproximateMedianOperator;
+import org.knime.base.data.aggregation.numerical.ApproximateQuantileOperator;
 import org.knime.base.data.aggregation.numerical.CorrelationOperator;
 import org.knime.base.data.aggregation.numerical.CovarianceOperator;
 import org.knime.base.data.aggregation.numerical.GeometricMeanOperator;
@@ -262,6 +266,11 @@ private AggregationMethods() {
             addOperator(new MedianAbsoluteDeviationOperator(GlobalSettings.DEFAULT,
                 OperatorColumnSettings.DEFAULT_EXCL_MISSING));
             addOperator(new SecondMomentOperator(GlobalSettings.DEFAULT, OperatorColumnSettings.DEFAULT_EXCL_MISSING));
+            /**Sketch based median and quantile.*/
+            addOperator(new ApproximateMedianOperator(GlobalSettings.DEFAULT,
+                OperatorColumnSettings.DEFAULT_EXCL_MISSING));
+            addOperator(new ApproximateQuantileOperator(GlobalSettings.DEFAULT,
+                OperatorColumnSettings.DEFAULT_EXCL_MISSING));
 
             //The boolean methods
             /**True count operator.*/
@@ -311,6 +320,12 @@ private AggregationMethods() {
                 OperatorColumnSettings.DEFAULT_EXCL_MISSING));
             /**Counts the number of unique group members.*/
             addOperator(new UniqueCountOperator(GlobalSettings.DEFAULT, OperatorColumnSettings.DEFAULT_INCL_MISSING));
+            /**Estimates the number of unique group members.*/
+            addOperator(new ApproximateUniqueCountOperator(GlobalSettings.DEFAULT,
+                OperatorColumnSettings.DEFAULT_INCL_MISSING));
+            /**Estimates the most frequent group members.*/
+            addOperator(new ApproximateTopKOperator(GlobalSettings.DEFAULT,
+                OperatorColumnSettings.DEFAULT_EXCL_MISSING));
             /**Counts the number of group members.*/
             addOperator(new CountOperator(GlobalSettings.DEFAULT, OperatorColumnSettings.DEFAULT_INCL_MISSING));
             /**Returns the percentage of the group.*/
@@ -379,6 +379,93 @@ protected boolean computeInternal(final DataRow row, final DataCell cell) {
      */
     protected abstract boolean computeInternal(final DataCell cell);
 
+    /**
+     * Returns <code>true</code> if the partial results of two instances of
+     * this operator can be combined via {@link #merge(AggregationOperator)}.
+     * This allows to aggregate consecutive parts of a group independently
+     * (e.g. in parallel) and to merge the partial results afterwards.
+     * Mergeable operators have to override
+     * {@link #mergeInternal(AggregationOperator)}. Subclasses of mergeable
+     * operators that maintain additional state have to override it as well.
+     *
+     * @return <code>true</code> if this operator supports merging of partial
+     * results. The default implementation returns <code>false</code>.
+     * @since 3.6
+     */
+    public boolean isMergeable() {
+        return false;
+    }
+
+    /**
+     * Merges the partial result of the given operator into this operator.
+     * The given operator must be of the same class and must have been
+     * created with the same settings. It must have processed the rows that
+     * follow the rows processed by this operator in the input table and
+     * should not be used afterwards.
+     *
+     * @param operator the operator whose partial result should be merged
+     * into this operator
+     * @throws UnsupportedOperationException if this operator is not
+     * {@link #isMergeable() mergeable}
+     * @throws IllegalArgumentException if the given operator is of a
+     * different class
+     * @since 3.6
+     */
+    public final void merge(final AggregationOperator operator) {
+        if (!isMergeable()) {
+            throw new UnsupportedOperationException("Operator '" + getLabel()
+                + "' does not support merging of partial results");
+        }
+        if (operator == null || !getClass().equals(operator.getClass())) {
+            throw new IllegalArgumentException("Operator of class "
+                + (operator == null ? null : operator.getClass().getName())
+                + " can't be merged into " + getClass().getName());
+        }
+        m_missingValuesCount += operator.m_missingValuesCount;
+        if (m_skipped) {
+            return;
+        }
+        if (operator.m_skipped) {
+            m_skipped = true;
+            m_skipMsg = operator.m_skipMsg;
+            return;
+        }
+        m_skipped = mergeInternal(operator);
+    }
+
+    /**
+     * Merges the partial result of the given operator into this operator.
+     * Only called if {@link #isMergeable()} returns <code>true</code> and
+     * neither of both operators has been skipped.
+     *
+     * @param operator the operator of the same class whose partial result
+     * should be merged into this operator
+     * @return <code>true</code> if this column should be skipped in further
+     * calculations
+     * @since 3.6
+     */
+    protected boolean mergeInternal(final AggregationOperator operator) {
+        throw new UnsupportedOperationException("Operator '" + getLabel()
+            + "' does not support merging of partial results");
+    }
+
+    /**
+     * Operators whose partial result consists of a few primitive values can
+     * return a {@link PrimitiveAggregationState} that stores these values for
+     * all groups in primitive arrays. This avoids the creation of one
+     * operator instance per group if all operators of an aggregation support
+     * it. The state must compute the same results as this operator.
+     * Subclasses that change the computation have to return
+     * <code>null</code>.
+     *
+     * @return a new and empty {@link PrimitiveAggregationState} for this
+     * operator or <code>null</code> if not supported which is the default
+     * @since 3.6
+     */
+    public PrimitiveAggregationState createPrimitiveState() {
+        return null;
+    }
+
     /**
      * {@inheritDoc}
      */
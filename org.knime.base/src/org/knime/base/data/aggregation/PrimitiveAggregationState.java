@@ -0,0 +1,138 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+
+
+package org.knime.base.data.aggregation;
+
+import java.util.Arrays;
+
+import org.knime.core.data.DataCell;
+
+/**
+ * Stores the partial results of an {@link AggregationOperator} for all groups in primitive arrays that are indexed
+ * by the index of the group instead of creating one operator instance per group. The arrays grow automatically with
+ * the largest group index passed to {@link #compute(int, DataCell)}.
+ *
+ * <p>
+ * Instances are created by {@link AggregationOperator#createPrimitiveState()} and always support merging of partial
+ * results.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.6
+ */
+public abstract class PrimitiveAggregationState {
+
+    /**
+     * @param groupIdx the index of the group the cell belongs to
+     * @param cell the {@link DataCell} to consider. The caller is responsible to only pass missing cells if the
+     *            creating operator {@link AggregationOperator#inclMissingCells() includes missing cells}.
+     */
+    public abstract void compute(int groupIdx, DataCell cell);
+
+    /**
+     * Merges the partial result of a group of another state into a group of this state. The other state must have
+     * been created by an operator of the same class and settings. The values of the other group must follow the
+     * values of this group in the input table.
+     *
+     * @param groupIdx the index of the group to merge into
+     * @param other the state to merge from
+     * @param otherGroupIdx the index of the group in the other state
+     */
+    public abstract void merge(int groupIdx, PrimitiveAggregationState other, int otherGroupIdx);
+
+    /**
+     * @param groupIdx the index of the group
+     * @return the result {@link DataCell} of the group
+     */
+    public abstract DataCell getResult(int groupIdx);
+
+    /**
+     * @param groupIdx the index of the group
+     * @return the reason why the group was skipped or <code>null</code> if the result of the group is valid
+     */
+    public String getSkipMessage(final int groupIdx) {
+        return null;
+    }
+
+    /**
+     * @param array the array to check
+     * @param idx the index that should be accessible
+     * @return the given array if it is large enough or a copy of it that contains the given index
+     */
+    protected static double[] ensureCapacity(final double[] array, final int idx) {
+        return idx < array.length ? array : Arrays.copyOf(array, newCapacity(array.length, idx));
+    }
+
+    /**
+     * @param array the array to check
+     * @param idx the index that should be accessible
+     * @return the given array if it is large enough or a copy of it that contains the given index
+     */
+    protected static long[] ensureCapacity(final long[] array, final int idx) {
+        return idx < array.length ? array : Arrays.copyOf(array, newCapacity(array.length, idx));
+    }
+
+    /**
+     * @param array the array to read from
+     * @param idx the index to read
+     * @return the value at the given index or 0 if the array does not contain the index
+     */
+    protected static double get(final double[] array, final int idx) {
+        return idx < array.length ? array[idx] : 0;
+    }
+
+    /**
+     * @param array the array to read from
+     * @param idx the index to read
+     * @return the value at the given index or 0 if the array does not contain the index
+     */
+    protected static long get(final long[] array, final int idx) {
+        return idx < array.length ? array[idx] : 0;
+    }
+
+    private static int newCapacity(final int length, final int idx) {
+        return Math.max(idx + 1, Math.max(16, length + (length >> 1)));
+    }
+}
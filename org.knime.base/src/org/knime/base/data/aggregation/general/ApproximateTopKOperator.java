@@ -0,0 +1,355 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+
+package org.knime.base.data.aggregation.general;
+
+import java.util.List;
+
+import javax.swing.JPanel;
+
+import org.knime.base.data.aggregation.AggregationOperator;
+import org.knime.base.data.aggregation.GlobalSettings;
+import org.knime.base.data.aggregation.OperatorColumnSettings;
+import org.knime.base.data.aggregation.OperatorData;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.DataValue;
+import org.knime.core.data.collection.CollectionCellFactory;
+import org.knime.core.data.collection.ListCell;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.NodeSettingsRO;
+import org.knime.core.node.NodeSettingsWO;
+import org.knime.core.node.NotConfigurableException;
+import org.knime.core.node.defaultnodesettings.DialogComponentNumber;
+import org.knime.core.node.defaultnodesettings.SettingsModelDouble;
+import org.knime.core.node.defaultnodesettings.SettingsModelInteger;
+
+/**
+ * Returns the k most frequent values per group as a list ordered by decreasing frequency. The frequencies are
+ * estimated with a Count-Min sketch once a group contains too many distinct values which bounds the memory per group.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.6
+ */
+public class ApproximateTopKOperator extends AggregationOperator {
+
+    private ApproximateTopKSettingsPanel m_settingsPanel;
+
+    private final ApproximateTopKSettings m_settings = new ApproximateTopKSettings();
+
+    private final int m_k;
+
+    private final double m_error;
+
+    private CountMinTopKSketch m_sketch;
+
+    /**
+     * Constructor for class ApproximateTopKOperator.
+     *
+     * @param globalSettings the global settings
+     * @param opColSettings the operator column specific settings
+     */
+    public ApproximateTopKOperator(final GlobalSettings globalSettings, final OperatorColumnSettings opColSettings) {
+        this(new OperatorData("Top k (approximate)", false, false, DataValue.class, true), globalSettings,
+            opColSettings, ApproximateTopKSettings.DEFAULT_K, ApproximateTopKSettings.DEFAULT_ERROR);
+    }
+
+    /**
+     * Constructor for class ApproximateTopKOperator.
+     *
+     * @param operatorData the operator data
+     * @param globalSettings the global settings
+     * @param opColSettings the operator column specific settings
+     * @param k the number of most frequent values to return
+     * @param error the error of the estimated frequencies relative to the group size
+     */
+    protected ApproximateTopKOperator(final OperatorData operatorData, final GlobalSettings globalSettings,
+        final OperatorColumnSettings opColSettings, final int k, final double error) {
+        super(operatorData, globalSettings, opColSettings);
+        m_settings.setK(k);
+        m_settings.setError(error);
+        m_k = k;
+        m_error = error;
+        m_sketch = new CountMinTopKSketch(k, error);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AggregationOperator createInstance(final GlobalSettings globalSettings,
+        final OperatorColumnSettings opColSettings) {
+        return new ApproximateTopKOperator(getOperatorData(), globalSettings, opColSettings,
+            m_settings.getKModel().getIntValue(), m_settings.getErrorModel().getDoubleValue());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected DataType getDataType(final DataType origType) {
+        return ListCell.getCollectionType(origType);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean computeInternal(final DataCell cell) {
+        m_sketch.add(cell);
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isMergeable() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean mergeInternal(final AggregationOperator operator) {
+        m_sketch.merge(((ApproximateTopKOperator)operator).m_sketch);
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected DataCell getResultInternal() {
+        final List<DataCell> topK = m_sketch.getTopK();
+        if (topK.isEmpty()) {
+            return DataType.getMissingCell();
+        }
+        return CollectionCellFactory.createListCell(topK);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void resetInternal() {
+        m_sketch = new CountMinTopKSketch(m_k, m_error);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getDescription() {
+        return "Returns the k most frequent values per group using a bounded amount of memory.";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getDetailedDescription() {
+        return "Returns a list with the k most frequent values per group ordered by decreasing frequency. "
+            + "Values with the same frequency are ordered by their first occurrence. "
+            + "The frequencies are counted exactly as long as a group contains only a few distinct values. "
+            + "Otherwise they are estimated using a "
+            + "<a href=\"https://en.wikipedia.org/wiki/Count%E2%80%93min_sketch\">Count-Min sketch</a> "
+            + "that overestimates each frequency by at most the specified relative error times the group size "
+            + "with a probability of 99%. The memory per group depends only on k and the relative error.";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getColumnLabel() {
+        return "Top " + m_settings.getKModel().getIntValue() + " (approximate)";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean hasOptionalSettings() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ApproximateTopKSettingsPanel getSettingsPanel() {
+        if (m_settingsPanel == null) {
+            m_settingsPanel = new ApproximateTopKSettingsPanel(m_settings);
+        }
+        return m_settingsPanel;
+    }
+
+    @Override
+    public void loadValidatedSettings(final NodeSettingsRO settings) throws InvalidSettingsException {
+        m_settings.loadSettingsFrom(settings);
+    }
+
+    @Override
+    public void loadSettingsFrom(final NodeSettingsRO settings, final DataTableSpec spec)
+        throws NotConfigurableException {
+        getSettingsPanel().loadSettingsFrom(settings, spec);
+    }
+
+    @Override
+    public void saveSettingsTo(final NodeSettingsWO settings) {
+        m_settings.saveSettingsTo(settings);
+    }
+
+    @Override
+    public void validateSettings(final NodeSettingsRO settings) throws InvalidSettingsException {
+        m_settings.validateSettings(settings);
+    }
+
+    @Override
+    public void validate() throws InvalidSettingsException {
+        m_settings.validate();
+    }
+
+    /**
+     * {@link JPanel} that allows the user to specify k and the relative error.
+     */
+    private class ApproximateTopKSettingsPanel extends JPanel {
+
+        private static final long serialVersionUID = 1;
+
+        private final DialogComponentNumber m_kComponent;
+
+        private final DialogComponentNumber m_errorComponent;
+
+        /**
+         * @param settings the {@link ApproximateTopKSettings} to use
+         */
+        ApproximateTopKSettingsPanel(final ApproximateTopKSettings settings) {
+            m_kComponent = new DialogComponentNumber(settings.getKModel(), "Number of values (k): ", 1);
+            m_errorComponent = new DialogComponentNumber(settings.getErrorModel(), "Relative error: ", 0.001);
+            add(m_kComponent.getComponentPanel());
+            add(m_errorComponent.getComponentPanel());
+        }
+
+        /**
+         * @param settings the <code>NodeSettings</code> to read from
+         * @param spec the input {@link DataTableSpec}
+         * @throws NotConfigurableException if the settings are invalid
+         */
+        void loadSettingsFrom(final NodeSettingsRO settings, final DataTableSpec spec)
+            throws NotConfigurableException {
+            final DataTableSpec[] specs = new DataTableSpec[]{spec};
+            m_kComponent.loadSettingsFrom(settings, specs);
+            m_errorComponent.loadSettingsFrom(settings, specs);
+        }
+    }
+
+    /**
+     * Class that holds the settings of the {@link ApproximateTopKSettingsPanel}.
+     */
+    private static class ApproximateTopKSettings {
+
+        private static final String CFG_K = "k";
+
+        private static final String CFG_RELATIVE_ERROR = "relativeError";
+
+        /** The default number of values. */
+        static final int DEFAULT_K = 5;
+
+        /** The default relative error of the estimated frequencies. */
+        static final double DEFAULT_ERROR = 0.01;
+
+        private final SettingsModelInteger m_k = new SettingsModelInteger(CFG_K, DEFAULT_K);
+
+        private final SettingsModelDouble m_error = new SettingsModelDouble(CFG_RELATIVE_ERROR, DEFAULT_ERROR);
+
+        void setK(final int k) {
+            m_k.setIntValue(k);
+        }
+
+        void setError(final double error) {
+            m_error.setDoubleValue(error);
+        }
+
+        SettingsModelInteger getKModel() {
+            return m_k;
+        }
+
+        SettingsModelDouble getErrorModel() {
+            return m_error;
+        }
+
+        void validate() throws InvalidSettingsException {
+            checkBoundaries(m_k.getIntValue(), m_error.getDoubleValue());
+        }
+
+        private static void checkBoundaries(final int k, final double error) throws InvalidSettingsException {
+            if (k < 1) {
+                throw new InvalidSettingsException("Number of values must be greater than 0");
+            }
+            if (!(error > 0 && error < 1)) {
+                throw new InvalidSettingsException("Relative error must be greater than 0 and less than 1");
+            }
+        }
+
+        void validateSettings(final NodeSettingsRO settings) throws InvalidSettingsException {
+            checkBoundaries(((SettingsModelInteger)m_k.createCloneWithValidatedValue(settings)).getIntValue(),
+                ((SettingsModelDouble)m_error.createCloneWithValidatedValue(settings)).getDoubleValue());
+        }
+
+        void loadSettingsFrom(final NodeSettingsRO settings) throws InvalidSettingsException {
+            m_k.loadSettingsFrom(settings);
+            m_error.loadSettingsFrom(settings);
+        }
+
+        void saveSettingsTo(final NodeSettingsWO settings) {
+            m_k.saveSettingsTo(settings);
+            m_error.saveSettingsTo(settings);
+        }
+    }
+}
@@ -0,0 +1,311 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+
+package org.knime.base.data.aggregation.general;
+
+import javax.swing.JPanel;
+
+import org.knime.base.data.aggregation.AggregationOperator;
+import org.knime.base.data.aggregation.GlobalSettings;
+import org.knime.base.data.aggregation.OperatorColumnSettings;
+import org.knime.base.data.aggregation.OperatorData;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.DataValue;
+import org.knime.core.data.def.LongCell;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.NodeSettingsRO;
+import org.knime.core.node.NodeSettingsWO;
+import org.knime.core.node.NotConfigurableException;
+import org.knime.core.node.defaultnodesettings.DialogComponentNumber;
+import org.knime.core.node.defaultnodesettings.SettingsModelDouble;
+
+/**
+ * Estimates the count of the unique values per group using the HyperLogLog algorithm. In contrast to the
+ * {@link UniqueCountOperator} the memory per group is bounded by the requested relative error and does not grow with
+ * the number of distinct values.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.6
+ */
+public class ApproximateUniqueCountOperator extends AggregationOperator {
+
+    private static final DataType TYPE = LongCell.TYPE;
+
+    private ApproximateUniqueCountSettingsPanel m_settingsPanel;
+
+    private final ApproximateUniqueCountSettings m_settings = new ApproximateUniqueCountSettings();
+
+    private final int m_precision;
+
+    private HyperLogLogSketch m_sketch;
+
+    /**
+     * Constructor for class ApproximateUniqueCountOperator.
+     *
+     * @param globalSettings the global settings
+     * @param opColSettings the operator column specific settings
+     */
+    public ApproximateUniqueCountOperator(final GlobalSettings globalSettings,
+        final OperatorColumnSettings opColSettings) {
+        this(new OperatorData("Unique count (approximate)", true, false, DataValue.class, true), globalSettings,
+            opColSettings, ApproximateUniqueCountSettings.DEFAULT_ERROR);
+    }
+
+    /**
+     * Constructor for class ApproximateUniqueCountOperator.
+     *
+     * @param operatorData the operator data
+     * @param globalSettings the global settings
+     * @param opColSettings the operator column specific settings
+     * @param relativeError the relative standard error of the estimate
+     */
+    protected ApproximateUniqueCountOperator(final OperatorData operatorData, final GlobalSettings globalSettings,
+        final OperatorColumnSettings opColSettings, final double relativeError) {
+        super(operatorData, globalSettings, opColSettings);
+        m_settings.setRelativeError(relativeError);
+        m_precision = HyperLogLogSketch.getPrecision(relativeError);
+        m_sketch = new HyperLogLogSketch(m_precision);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AggregationOperator createInstance(final GlobalSettings globalSettings,
+        final OperatorColumnSettings opColSettings) {
+        return new ApproximateUniqueCountOperator(getOperatorData(), globalSettings, opColSettings,
+            m_settings.getErrorModel().getDoubleValue());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected DataType getDataType(final DataType origType) {
+        return TYPE;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean computeInternal(final DataCell cell) {
+        m_sketch.add(HyperLogLogSketch.hash(cell));
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isMergeable() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean mergeInternal(final AggregationOperator operator) {
+        m_sketch.merge(((ApproximateUniqueCountOperator)operator).m_sketch);
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected DataCell getResultInternal() {
+        return new LongCell(m_sketch.estimate());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void resetInternal() {
+        m_sketch = new HyperLogLogSketch(m_precision);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getDescription() {
+        return "Estimates the number of unique values per group using a fixed amount of memory.";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getDetailedDescription() {
+        return "Estimates the number of unique values per group using the "
+            + "<a href=\"https://en.wikipedia.org/wiki/HyperLogLog\">HyperLogLog</a> algorithm. "
+            + "Groups with only a few unique values are counted exactly unless the hashes of two values collide. "
+            + "The memory per group depends only on the relative standard error that can be specified "
+            + "in the settings and not on the number of unique values. "
+            + "Values are distinguished by a 64 bit hash of strings, integers, longs and doubles and by their "
+            + "32 bit hash code for all other types.";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean hasOptionalSettings() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ApproximateUniqueCountSettingsPanel getSettingsPanel() {
+        if (m_settingsPanel == null) {
+            m_settingsPanel = new ApproximateUniqueCountSettingsPanel(m_settings);
+        }
+        return m_settingsPanel;
+    }
+
+    @Override
+    public void loadValidatedSettings(final NodeSettingsRO settings) throws InvalidSettingsException {
+        m_settings.loadSettingsFrom(settings);
+    }
+
+    @Override
+    public void loadSettingsFrom(final NodeSettingsRO settings, final DataTableSpec spec)
+        throws NotConfigurableException {
+        getSettingsPanel().loadSettingsFrom(settings, spec);
+    }
+
+    @Override
+    public void saveSettingsTo(final NodeSettingsWO settings) {
+        m_settings.saveSettingsTo(settings);
+    }
+
+    @Override
+    public void validateSettings(final NodeSettingsRO settings) throws InvalidSettingsException {
+        m_settings.validateSettings(settings);
+    }
+
+    @Override
+    public void validate() throws InvalidSettingsException {
+        m_settings.validate();
+    }
+
+    /**
+     * {@link JPanel} that allows the user to specify the relative error.
+     */
+    private class ApproximateUniqueCountSettingsPanel extends JPanel {
+
+        private static final long serialVersionUID = 1;
+
+        private final DialogComponentNumber m_errorComponent;
+
+        /**
+         * @param settings the {@link ApproximateUniqueCountSettings} to use
+         */
+        ApproximateUniqueCountSettingsPanel(final ApproximateUniqueCountSettings settings) {
+            m_errorComponent = new DialogComponentNumber(settings.getErrorModel(), "Relative error: ", 0.01);
+            add(m_errorComponent.getComponentPanel());
+        }
+
+        /**
+         * @param settings the <code>NodeSettings</code> to read from
+         * @param spec the input {@link DataTableSpec}
+         * @throws NotConfigurableException if the settings are invalid
+         */
+        void loadSettingsFrom(final NodeSettingsRO settings, final DataTableSpec spec)
+            throws NotConfigurableException {
+            m_errorComponent.loadSettingsFrom(settings, new DataTableSpec[]{spec});
+        }
+    }
+
+    /**
+     * Class that holds the settings of the {@link ApproximateUniqueCountSettingsPanel}.
+     */
+    private static class ApproximateUniqueCountSettings {
+
+        private static final String CFG_RELATIVE_ERROR = "relativeError";
+
+        /** The default relative standard error. */
+        static final double DEFAULT_ERROR = 0.02;
+
+        private final SettingsModelDouble m_error = new SettingsModelDouble(CFG_RELATIVE_ERROR, DEFAULT_ERROR);
+
+        void setRelativeError(final double error) {
+            m_error.setDoubleValue(error);
+        }
+
+        SettingsModelDouble getErrorModel() {
+            return m_error;
+        }
+
+        void validate() throws InvalidSettingsException {
+            checkBoundary(m_error.getDoubleValue());
+        }
+
+        private static void checkBoundary(final double val) throws InvalidSettingsException {
+            if (!(val > 0 && val < 1)) {
+                throw new InvalidSettingsException("Relative error must be greater than 0 and less than 1");
+            }
+        }
+
+        void validateSettings(final NodeSettingsRO settings) throws InvalidSettingsException {
+            checkBoundary(((SettingsModelDouble)m_error.createCloneWithValidatedValue(settings)).getDoubleValue());
+        }
+
+        void loadSettingsFrom(final NodeSettingsRO settings) throws InvalidSettingsException {
+            m_error.loadSettingsFrom(settings);
+        }
+
+        void saveSettingsTo(final NodeSettingsWO settings) {
+            m_error.saveSettingsTo(settings);
+        }
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+
+package org.knime.base.data.aggregation.general;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.knime.core.data.DataCell;
+
+/**
+ * Finds the most frequent values using a Count-Min sketch (Cormode and Muthukrishnan: An Improved Data Stream Summary:
+ * The Count-Min Sketch and its Applications, 2005) in combination with a bounded set of candidates. The values are
+ * counted exactly as long as the number of distinct values does not exceed the width of the sketch. Afterwards the
+ * sketch is used to estimate the counts which overestimates each count by at most error * n with a probability of
+ * 99%.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class CountMinTopKSketch {
+
+    /** The number of rows which results in a probability of 99% that the error bound holds. */
+    private static final int DEPTH = 5;
+
+    private final int m_k;
+
+    private final int m_width;
+
+    /** The exact counts, <code>null</code> once the sketch is used. */
+    private Map<DataCell, Long> m_counts = new LinkedHashMap<>();
+
+    private long[] m_table;
+
+    private Map<DataCell, Long> m_candidates;
+
+    /** Lower bound of the smallest candidate count, the counts of the candidates only grow. */
+    private long m_minCandidateCount;
+
+    /**
+     * @param k the number of most frequent values to find
+     * @param error the error of the estimated counts relative to the number of added values
+     */
+    CountMinTopKSketch(final int k, final double error) {
+        m_k = k;
+        m_width = (int)Math.ceil(Math.E / error);
+    }
+
+    /**
+     * @param cell the value to add
+     */
+    void add(final DataCell cell) {
+        add(cell, 1);
+    }
+
+    private void add(final DataCell cell, final long count) {
+        if (m_counts != null) {
+            m_counts.merge(cell, count, Long::sum);
+            if (m_counts.size() > m_width) {
+                toSketch();
+            }
+            return;
+        }
+        offer(cell, addToTable(cell, count));
+    }
+
+    private void toSketch() {
+        final Map<DataCell, Long> counts = m_counts;
+        m_counts = null;
+        m_table = new long[DEPTH * m_width];
+        m_candidates = new LinkedHashMap<>();
+        m_minCandidateCount = 0;
+        for (final Entry<DataCell, Long> e : counts.entrySet()) {
+            addToTable(e.getKey(), e.getValue());
+        }
+        for (final DataCell cell : counts.keySet()) {
+            offer(cell, estimate(cell));
+        }
+    }
+
+    /**
+     * Adds the given count to the sketch and returns the new estimated count of the given value.
+     */
+    private long addToTable(final DataCell cell, final long count) {
+        final long hash = HyperLogLogSketch.hash(cell);
+        final int h1 = (int)hash;
+        final int h2 = (int)(hash >>> 32) | 1;
+        long min = Long.MAX_VALUE;
+        for (int i = 0; i < DEPTH; i++) {
+            final int idx = i * m_width + Math.floorMod(h1 + i * h2, m_width);
+            m_table[idx] += count;
+            min = Math.min(min, m_table[idx]);
+        }
+        return min;
+    }
+
+    private long estimate(final DataCell cell) {
+        final long hash = HyperLogLogSketch.hash(cell);
+        final int h1 = (int)hash;
+        final int h2 = (int)(hash >>> 32) | 1;
+        long min = Long.MAX_VALUE;
+        for (int i = 0; i < DEPTH; i++) {
+            min = Math.min(min, m_table[i * m_width + Math.floorMod(h1 + i * h2, m_width)]);
+        }
+        return min;
+    }
+
+    /**
+     * Updates the candidates with the given estimated count.
+     */
+    private void offer(final DataCell cell, final long estimate) {
+        if (m_candidates.containsKey(cell) || m_candidates.size() < m_k) {
+            m_candidates.put(cell, estimate);
+            return;
+        }
+        if (estimate <= m_minCandidateCount) {
+            return;
+        }
+        DataCell minCell = null;
+        long minCount = Long.MAX_VALUE;
+        for (final Entry<DataCell, Long> e : m_candidates.entrySet()) {
+            if (e.getValue() < minCount) {
+                minCount = e.getValue();
+                minCell = e.getKey();
+            }
+        }
+        m_minCandidateCount = minCount;
+        if (estimate > minCount) {
+            m_candidates.remove(minCell);
+            m_candidates.put(cell, estimate);
+        }
+    }
+
+    /**
+     * Merges the given sketch into this sketch.
+     *
+     * @param other the sketch to merge which must have been created with the same parameters
+     */
+    void merge(final CountMinTopKSketch other) {
+        if (other.m_k != m_k || other.m_width != m_width) {
+            throw new IllegalArgumentException("Sketches with different parameters can't be merged");
+        }
+        if (other.m_counts != null) {
+            for (final Entry<DataCell, Long> e : other.m_counts.entrySet()) {
+                add(e.getKey(), e.getValue());
+            }
+            return;
+        }
+        if (m_counts != null) {
+            toSketch();
+        }
+        for (int i = 0; i < m_table.length; i++) {
+            m_table[i] += other.m_table[i];
+        }
+        final List<DataCell> cells = new ArrayList<>(m_candidates.keySet());
+        cells.addAll(other.m_candidates.keySet());
+        m_candidates.clear();
+        m_minCandidateCount = 0;
+        for (final DataCell cell : cells) {
+            offer(cell, estimate(cell));
+        }
+    }
+
+    /**
+     * @return the most frequent values ordered by decreasing (estimated) count
+     */
+    List<DataCell> getTopK() {
+        final List<Entry<DataCell, Long>> entries =
+            new ArrayList<>(m_counts != null ? m_counts.entrySet() : m_candidates.entrySet());
+        // stable sort keeps the first occurrence order for values with the same count
+        entries.sort((a, b) -> Long.compare(b.getValue(), a.getValue()));
+        final int size = Math.min(m_k, entries.size());
+        final List<DataCell> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(entries.get(i).getKey());
+        }
+        return result;
+    }
+}
@@ -49,6 +49,7 @@
 import org.knime.base.data.aggregation.GlobalSettings;
 import org.knime.base.data.aggregation.OperatorColumnSettings;
 import org.knime.base.data.aggregation.OperatorData;
+import org.knime.base.data.aggregation.PrimitiveAggregationState;
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataType;
 import org.knime.core.data.DataValue;
@@ -122,6 +123,23 @@ protected DataCell getResultInternal() {
         return new IntCell(m_counter);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isMergeable() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean mergeInternal(final AggregationOperator operator) {
+        m_counter += ((CountOperator)operator).m_counter;
+        return false;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -137,4 +155,39 @@ protected void resetInternal() {
     public String getDescription() {
         return "Counts members per group.";
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public PrimitiveAggregationState createPrimitiveState() {
+        //subclasses such as the percent operator compute a different result
+        return getClass() == CountOperator.class ? new CountState() : null;
+    }
+
+    /** Number of values per group. */
+    private static final class CountState extends PrimitiveAggregationState {
+
+        private long[] m_counts = new long[0];
+
+        @Override
+        public void compute(final int groupIdx, final DataCell cell) {
+            m_counts = ensureCapacity(m_counts, groupIdx);
+            m_counts[groupIdx]++;
+        }
+
+        @Override
+        public void merge(final int groupIdx, final PrimitiveAggregationState other, final int otherGroupIdx) {
+            final long count = get(((CountState)other).m_counts, otherGroupIdx);
+            if (count > 0) {
+                m_counts = ensureCapacity(m_counts, groupIdx);
+                m_counts[groupIdx] += count;
+            }
+        }
+
+        @Override
+        public DataCell getResult(final int groupIdx) {
+            return new IntCell((int)get(m_counts, groupIdx));
+        }
+    }
 }
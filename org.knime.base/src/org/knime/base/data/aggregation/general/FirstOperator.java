@@ -123,6 +123,25 @@ protected DataCell getResultInternal() {
         return m_firstCell;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isMergeable() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean mergeInternal(final AggregationOperator operator) {
+        if (m_firstCell == null) {
+            m_firstCell = ((FirstOperator)operator).m_firstCell;
+        }
+        return false;
+    }
+
     /**
      * {@inheritDoc}
      */
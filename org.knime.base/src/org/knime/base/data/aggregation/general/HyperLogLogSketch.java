@@ -0,0 +1,261 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+
+package org.knime.base.data.aggregation.general;
+
+import java.util.Arrays;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
+import org.knime.core.data.def.StringCell;
+
+/**
+ * HyperLogLog sketch that estimates the number of distinct hash values it has seen with a fixed amount of memory.
+ * Small cardinalities are counted exactly by keeping the hash values in a sorted array until it would require more
+ * memory than the registers. The count of the values is only exact if their hashes don't collide, see
+ * {@link #hash(DataCell)}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class HyperLogLogSketch {
+
+    /** The minimum supported precision. */
+    static final int MIN_PRECISION = 4;
+
+    /** The maximum supported precision. */
+    static final int MAX_PRECISION = 18;
+
+    private final int m_precision;
+
+    private final int m_noOfRegisters;
+
+    /** The sorted distinct hashes as long as the sketch is in sparse mode, <code>null</code> afterwards. */
+    private long[] m_sparse;
+
+    private int m_sparseSize;
+
+    /** The registers, <code>null</code> as long as the sketch is in sparse mode. */
+    private byte[] m_registers;
+
+    /**
+     * @param precision the number of bits used to select a register
+     */
+    HyperLogLogSketch(final int precision) {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("Precision must be between " + MIN_PRECISION + " and "
+                + MAX_PRECISION + ": " + precision);
+        }
+        m_precision = precision;
+        m_noOfRegisters = 1 << precision;
+        m_sparse = new long[8];
+    }
+
+    /**
+     * @param relativeError the requested relative standard error
+     * @return the smallest precision that guarantees the given relative standard error
+     */
+    static int getPrecision(final double relativeError) {
+        final double registers = Math.pow(1.04 / relativeError, 2);
+        final int precision = (int)Math.ceil(Math.log(registers) / Math.log(2));
+        return Math.max(MIN_PRECISION, Math.min(MAX_PRECISION, precision));
+    }
+
+    /**
+     * @param hash the well distributed 64 bit hash of the value to add
+     */
+    void add(final long hash) {
+        if (m_registers != null) {
+            addToRegisters(hash);
+            return;
+        }
+        final int idx = Arrays.binarySearch(m_sparse, 0, m_sparseSize, hash);
+        if (idx >= 0) {
+            return;
+        }
+        final int insertIdx = -(idx + 1);
+        if (m_sparseSize == m_sparse.length) {
+            // a long requires 8 registers so switch to the dense representation if it gets bigger
+            if (m_sparseSize * 8 >= m_noOfRegisters) {
+                toDense();
+                addToRegisters(hash);
+                return;
+            }
+            m_sparse = Arrays.copyOf(m_sparse, m_sparseSize * 2);
+        }
+        System.arraycopy(m_sparse, insertIdx, m_sparse, insertIdx + 1, m_sparseSize - insertIdx);
+        m_sparse[insertIdx] = hash;
+        m_sparseSize++;
+    }
+
+    private void toDense() {
+        m_registers = new byte[m_noOfRegisters];
+        for (int i = 0; i < m_sparseSize; i++) {
+            addToRegisters(m_sparse[i]);
+        }
+        m_sparse = null;
+        m_sparseSize = 0;
+    }
+
+    private void addToRegisters(final long hash) {
+        final int idx = (int)(hash >>> (Long.SIZE - m_precision));
+        // the remaining bits followed by a stop bit to limit the rank
+        final long w = (hash << m_precision) | (1L << (m_precision - 1));
+        final byte rank = (byte)(Long.numberOfLeadingZeros(w) + 1);
+        if (rank > m_registers[idx]) {
+            m_registers[idx] = rank;
+        }
+    }
+
+    /**
+     * Merges the given sketch into this sketch.
+     *
+     * @param other the sketch to merge which must have the same precision
+     */
+    void merge(final HyperLogLogSketch other) {
+        if (other.m_precision != m_precision) {
+            throw new IllegalArgumentException("Sketches with different precision can't be merged");
+        }
+        if (other.m_registers == null) {
+            for (int i = 0; i < other.m_sparseSize; i++) {
+                add(other.m_sparse[i]);
+            }
+            return;
+        }
+        if (m_registers == null) {
+            toDense();
+        }
+        for (int i = 0; i < m_noOfRegisters; i++) {
+            if (other.m_registers[i] > m_registers[i]) {
+                m_registers[i] = other.m_registers[i];
+            }
+        }
+    }
+
+    /**
+     * @return the estimated number of distinct values
+     */
+    long estimate() {
+        if (m_registers == null) {
+            return m_sparseSize;
+        }
+        final int m = m_noOfRegisters;
+        double sum = 0;
+        int zeros = 0;
+        for (final byte r : m_registers) {
+            sum += 1.0 / (1L << r);
+            if (r == 0) {
+                zeros++;
+            }
+        }
+        final double alpha;
+        switch (m) {
+            case 16:
+                alpha = 0.673;
+                break;
+            case 32:
+                alpha = 0.697;
+                break;
+            case 64:
+                alpha = 0.709;
+                break;
+            default:
+                alpha = 0.7213 / (1 + 1.079 / m);
+        }
+        final double estimate = alpha * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            // linear counting for small cardinalities
+            return Math.round(m * Math.log((double)m / zeros));
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * Computes a 64 bit hash of the value of the given cell. Strings, integers, longs and doubles are hashed by their
+     * value which makes collisions of distinct values unlikely. All other cells are hashed by their 32 bit
+     * {@link DataCell#hashCode() hash code}, distinct values of these cells collide once the number of distinct values
+     * reaches a few ten thousands.
+     *
+     * @param cell the cell to hash
+     * @return the well distributed 64 bit hash of the cell value
+     */
+    static long hash(final DataCell cell) {
+        // the salts distinguish equal values of different cell classes which are never equal
+        if (cell instanceof StringCell) {
+            // 64 bit FNV-1a
+            final String value = ((StringCell)cell).getStringValue();
+            long h = 0xCBF29CE484222325L;
+            for (int i = 0, length = value.length(); i < length; i++) {
+                h = (h ^ value.charAt(i)) * 0x100000001B3L;
+            }
+            return mix(h);
+        } else if (cell instanceof IntCell) {
+            return mix(((IntCell)cell).getIntValue() ^ 0x2545F4914F6CDD1DL);
+        } else if (cell instanceof LongCell) {
+            return mix(((LongCell)cell).getLongValue() ^ 0x5851F42D4C957F2DL);
+        } else if (cell instanceof DoubleCell) {
+            // adding 0.0 turns -0.0 into 0.0 which are equal cells, doubleToLongBits collapses all NaNs
+            return mix(Double.doubleToLongBits(((DoubleCell)cell).getDoubleValue() + 0.0) ^ 0x14057B7EF767814FL);
+        }
+        return mix(cell.hashCode());
+    }
+
+    /**
+     * 64 bit finalizer of MurmurHash3 to spread the bits of the given value.
+     *
+     * @param value the value to mix
+     * @return the mixed 64 bit hash
+     */
+    static long mix(final long value) {
+        long h = value * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -122,6 +122,26 @@ protected DataCell getResultInternal() {
         return m_lastCell;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isMergeable() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean mergeInternal(final AggregationOperator operator) {
+        final DataCell otherCell = ((LastOperator)operator).m_lastCell;
+        if (otherCell != null) {
+            m_lastCell = otherCell;
+        }
+        return false;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -139,6 +139,27 @@ protected DataCell getResultInternal() {
         return m_maxVal;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isMergeable() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean mergeInternal(final AggregationOperator operator) {
+        final DataCell otherVal = ((MaxOperator)operator).m_maxVal;
+        if (otherVal != null && (m_maxVal == null
+                || m_comparator.compare(otherVal, m_maxVal) > 0)) {
+            m_maxVal = otherVal;
+        }
+        return false;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -138,6 +138,27 @@ protected DataCell getResultInternal() {
         return m_minVal;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isMergeable() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean mergeInternal(final AggregationOperator operator) {
+        final DataCell otherVal = ((MinOperator)operator).m_minVal;
+        if (otherVal != null && (m_minVal == null
+                || m_comparator.compare(otherVal, m_minVal) < 0)) {
+            m_minVal = otherVal;
+        }
+        return false;
+    }
+
     /**
      * {@inheritDoc}
      */
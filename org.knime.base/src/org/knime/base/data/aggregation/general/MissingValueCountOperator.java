@@ -137,6 +137,23 @@ protected DataCell getResultInternal() {
         return new IntCell(m_counter);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isMergeable() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean mergeInternal(final AggregationOperator operator) {
+        m_counter += ((MissingValueCountOperator)operator).m_counter;
+        return false;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -0,0 +1,376 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+
+package org.knime.base.data.aggregation.numerical;
+
+import javax.swing.JPanel;
+
+import org.knime.base.data.aggregation.AggregationOperator;
+import org.knime.base.data.aggregation.GlobalSettings;
+import org.knime.base.data.aggregation.OperatorColumnSettings;
+import org.knime.base.data.aggregation.OperatorData;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.DoubleValue;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.NodeSettingsRO;
+import org.knime.core.node.NodeSettingsWO;
+import org.knime.core.node.NotConfigurableException;
+import org.knime.core.node.defaultnodesettings.DialogComponentNumber;
+import org.knime.core.node.defaultnodesettings.SettingsModelDouble;
+
+/**
+ * Estimates the quantile per group using a KLL sketch. In contrast to the {@link QuantileOperator} the memory per
+ * group is bounded by the requested rank error and grows only logarithmically with the number of values.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.6
+ */
+public class ApproximateQuantileOperator extends AggregationOperator {
+
+    private static final DataType TYPE = DoubleCell.TYPE;
+
+    private ApproximateQuantileSettingsPanel m_settingsPanel;
+
+    private final ApproximateQuantileSettings m_settings = new ApproximateQuantileSettings();
+
+    private final boolean m_fixedQuantile;
+
+    private final int m_k;
+
+    private KLLSketch m_sketch;
+
+    /**
+     * Constructor for class ApproximateQuantileOperator.
+     *
+     * @param globalSettings the global settings
+     * @param opColSettings the operator column specific settings
+     */
+    public ApproximateQuantileOperator(final GlobalSettings globalSettings,
+        final OperatorColumnSettings opColSettings) {
+        this(new OperatorData("Quantile (approximate)", false, false, DoubleValue.class, false), globalSettings,
+            opColSettings, ApproximateQuantileSettings.DEFAULT_QUANTILE, ApproximateQuantileSettings.DEFAULT_ERROR,
+            false);
+    }
+
+    /**
+     * Constructor for class ApproximateQuantileOperator.
+     *
+     * @param operatorData the operator data
+     * @param globalSettings the global settings
+     * @param opColSettings the operator column specific settings
+     * @param quantile the quantile to compute
+     * @param rankError the normalized rank error of the estimate
+     * @param fixedQuantile <code>true</code> if the user can't change the quantile
+     */
+    protected ApproximateQuantileOperator(final OperatorData operatorData, final GlobalSettings globalSettings,
+        final OperatorColumnSettings opColSettings, final double quantile, final double rankError,
+        final boolean fixedQuantile) {
+        super(operatorData, globalSettings, AggregationOperator.setInclMissingFlag(opColSettings, false));
+        m_settings.setQuantile(quantile);
+        m_settings.setRankError(rankError);
+        m_fixedQuantile = fixedQuantile;
+        m_k = KLLSketch.getK(rankError);
+        m_sketch = new KLLSketch(m_k);
+    }
+
+    /**
+     * @return the quantile to compute
+     */
+    protected double getQuantile() {
+        return m_settings.getQuantileModel().getDoubleValue();
+    }
+
+    /**
+     * @return the normalized rank error of the estimate
+     */
+    protected double getRankError() {
+        return m_settings.getErrorModel().getDoubleValue();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AggregationOperator createInstance(final GlobalSettings globalSettings,
+        final OperatorColumnSettings opColSettings) {
+        return new ApproximateQuantileOperator(getOperatorData(), globalSettings, opColSettings, getQuantile(),
+            getRankError(), m_fixedQuantile);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected DataType getDataType(final DataType origType) {
+        return TYPE;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean computeInternal(final DataCell cell) {
+        m_sketch.add(((DoubleValue)cell).getDoubleValue());
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isMergeable() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean mergeInternal(final AggregationOperator operator) {
+        m_sketch.merge(((ApproximateQuantileOperator)operator).m_sketch);
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected DataCell getResultInternal() {
+        if (m_sketch.getCount() == 0) {
+            return DataType.getMissingCell();
+        }
+        return new DoubleCell(m_sketch.getQuantile(getQuantile()));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void resetInternal() {
+        m_sketch = new KLLSketch(m_k);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getDescription() {
+        return "Estimates the quantile per group using a fixed amount of memory.";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getDetailedDescription() {
+        return "Estimates the quantile per group by skipping missing cells using a "
+            + "<a href=\"https://arxiv.org/abs/1603.05346\">KLL sketch</a>. The returned value is one of the "
+            + "group values whose rank differs from the rank of the exact quantile by at most the specified "
+            + "rank error (with high probability), e.g. a rank error of 0.01 corresponds to 1% of the group size. "
+            + "The memory per group depends on the rank error and grows only logarithmically with the group size.";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getColumnLabel() {
+        if (m_fixedQuantile) {
+            return super.getColumnLabel();
+        }
+        return getQuantile() + "-quantile (approximate)";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean hasOptionalSettings() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ApproximateQuantileSettingsPanel getSettingsPanel() {
+        if (m_settingsPanel == null) {
+            m_settingsPanel = new ApproximateQuantileSettingsPanel(m_settings, !m_fixedQuantile);
+        }
+        return m_settingsPanel;
+    }
+
+    @Override
+    public void loadValidatedSettings(final NodeSettingsRO settings) throws InvalidSettingsException {
+        m_settings.loadSettingsFrom(settings);
+    }
+
+    @Override
+    public void loadSettingsFrom(final NodeSettingsRO settings, final DataTableSpec spec)
+        throws NotConfigurableException {
+        getSettingsPanel().loadSettingsFrom(settings, spec);
+    }
+
+    @Override
+    public void saveSettingsTo(final NodeSettingsWO settings) {
+        m_settings.saveSettingsTo(settings);
+    }
+
+    @Override
+    public void validateSettings(final NodeSettingsRO settings) throws InvalidSettingsException {
+        m_settings.validateSettings(settings);
+    }
+
+    @Override
+    public void validate() throws InvalidSettingsException {
+        m_settings.validate();
+    }
+
+    /**
+     * {@link JPanel} that allows the user to specify the quantile and the rank error.
+     */
+    private class ApproximateQuantileSettingsPanel extends JPanel {
+
+        private static final long serialVersionUID = 1;
+
+        private final DialogComponentNumber m_quantileComponent;
+
+        private final DialogComponentNumber m_errorComponent;
+
+        /**
+         * @param settings the {@link ApproximateQuantileSettings} to use
+         * @param showQuantile <code>true</code> if the quantile can be changed by the user
+         */
+        ApproximateQuantileSettingsPanel(final ApproximateQuantileSettings settings, final boolean showQuantile) {
+            m_quantileComponent = new DialogComponentNumber(settings.getQuantileModel(), "Quantile: ", 0.1);
+            m_errorComponent = new DialogComponentNumber(settings.getErrorModel(), "Rank error: ", 0.01);
+            if (showQuantile) {
+                add(m_quantileComponent.getComponentPanel());
+            }
+            add(m_errorComponent.getComponentPanel());
+        }
+
+        /**
+         * @param settings the <code>NodeSettings</code> to read from
+         * @param spec the input {@link DataTableSpec}
+         * @throws NotConfigurableException if the settings are invalid
+         */
+        void loadSettingsFrom(final NodeSettingsRO settings, final DataTableSpec spec)
+            throws NotConfigurableException {
+            final DataTableSpec[] specs = new DataTableSpec[]{spec};
+            m_quantileComponent.loadSettingsFrom(settings, specs);
+            m_errorComponent.loadSettingsFrom(settings, specs);
+        }
+    }
+
+    /**
+     * Class that holds the settings of the {@link ApproximateQuantileSettingsPanel}.
+     */
+    private static class ApproximateQuantileSettings {
+
+        private static final String CFG_QUANTILE = "quantile";
+
+        private static final String CFG_RANK_ERROR = "rankError";
+
+        /** The default quantile. */
+        static final double DEFAULT_QUANTILE = 0.5;
+
+        /** The default normalized rank error. */
+        static final double DEFAULT_ERROR = 0.01;
+
+        private final SettingsModelDouble m_quantile = new SettingsModelDouble(CFG_QUANTILE, DEFAULT_QUANTILE);
+
+        private final SettingsModelDouble m_error = new SettingsModelDouble(CFG_RANK_ERROR, DEFAULT_ERROR);
+
+        void setQuantile(final double quantile) {
+            m_quantile.setDoubleValue(quantile);
+        }
+
+        void setRankError(final double error) {
+            m_error.setDoubleValue(error);
+        }
+
+        SettingsModelDouble getQuantileModel() {
+            return m_quantile;
+        }
+
+        SettingsModelDouble getErrorModel() {
+            return m_error;
+        }
+
+        void validate() throws InvalidSettingsException {
+            checkBoundaries(m_quantile.getDoubleValue(), m_error.getDoubleValue());
+        }
+
+        private static void checkBoundaries(final double quantile, final double error)
+            throws InvalidSettingsException {
+            if (!(quantile >= 0 && quantile <= 1)) {
+                throw new InvalidSettingsException("Quantile must be between 0 and 1");
+            }
+            if (!(error > 0 && error < 1)) {
+                throw new InvalidSettingsException("Rank error must be greater than 0 and less than 1");
+            }
+        }
+
+        void validateSettings(final NodeSettingsRO settings) throws InvalidSettingsException {
+            checkBoundaries(
+                ((SettingsModelDouble)m_quantile.createCloneWithValidatedValue(settings)).getDoubleValue(),
+                ((SettingsModelDouble)m_error.createCloneWithValidatedValue(settings)).getDoubleValue());
+        }
+
+        void loadSettingsFrom(final NodeSettingsRO settings) throws InvalidSettingsException {
+            m_quantile.loadSettingsFrom(settings);
+            m_error.loadSettingsFrom(settings);
+        }
+
+        void saveSettingsTo(final NodeSettingsWO settings) {
+            m_quantile.saveSettingsTo(settings);
+            m_error.saveSettingsTo(settings);
+        }
+    }
+}
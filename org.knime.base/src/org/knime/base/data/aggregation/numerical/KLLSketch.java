@@ -0,0 +1,237 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+
+package org.knime.base.data.aggregation.numerical;
+
+import java.util.Arrays;
+
+/**
+ * KLL quantile sketch (Karnin, Lang and Liberty: Optimal Quantile Approximation in Streams, 2016). The sketch consists
+ * of a hierarchy of compactors whose capacities decrease geometrically with decreasing height. Each item stored at
+ * height h represents 2^h items of the input. Whenever the sketch exceeds its capacity a full compactor is sorted and
+ * every other item is promoted to the next height. The memory is O(k log(n/k)) and the rank error is O(1/k).
+ * <p>
+ * The random offset used during compaction is drawn from a generator with a fixed seed to produce reproducible
+ * results.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class KLLSketch {
+
+    private static final double CAPACITY_FACTOR = 2.0 / 3.0;
+
+    private static final int MIN_K = 8;
+
+    private final int m_k;
+
+    private double[][] m_levels = new double[0][];
+
+    private int[] m_sizes = new int[0];
+
+    private int m_size;
+
+    private int m_maxSize;
+
+    private long m_count;
+
+    private long m_random = 0x2545F4914F6CDD1DL;
+
+    /**
+     * @param k the size of the top compactor which determines the accuracy
+     */
+    KLLSketch(final int k) {
+        m_k = Math.max(MIN_K, k);
+        grow();
+    }
+
+    /**
+     * @param rankError the requested normalized rank error
+     * @return the parameter k that achieves the given normalized rank error
+     */
+    static int getK(final double rankError) {
+        // empirical relation of the Apache DataSketches KLL implementation
+        return (int)Math.ceil(Math.pow(2.296 / rankError, 1 / 0.9723));
+    }
+
+    private int capacity(final int height) {
+        final int depth = m_levels.length - height - 1;
+        return (int)Math.ceil(m_k * Math.pow(CAPACITY_FACTOR, depth)) + 1;
+    }
+
+    private void grow() {
+        final int h = m_levels.length;
+        m_levels = Arrays.copyOf(m_levels, h + 1);
+        m_sizes = Arrays.copyOf(m_sizes, h + 1);
+        m_levels[h] = new double[4];
+        m_maxSize = 0;
+        for (int i = 0; i <= h; i++) {
+            m_maxSize += capacity(i);
+        }
+    }
+
+    private void append(final int height, final double value) {
+        double[] level = m_levels[height];
+        final int size = m_sizes[height];
+        if (size == level.length) {
+            level = Arrays.copyOf(level, size * 2);
+            m_levels[height] = level;
+        }
+        level[size] = value;
+        m_sizes[height] = size + 1;
+        m_size++;
+    }
+
+    /**
+     * @param value the value to add
+     */
+    void add(final double value) {
+        append(0, value);
+        m_count++;
+        if (m_size >= m_maxSize) {
+            compress();
+        }
+    }
+
+    private void compress() {
+        for (int h = 0; h < m_levels.length; h++) {
+            final int size = m_sizes[h];
+            if (size >= capacity(h)) {
+                if (h + 1 >= m_levels.length) {
+                    grow();
+                }
+                final double[] level = m_levels[h];
+                Arrays.sort(level, 0, size);
+                // keep the last item if the size is odd
+                final int end = size - (size & 1);
+                for (int i = nextOffset(); i < end; i += 2) {
+                    append(h + 1, level[i]);
+                }
+                m_size -= end;
+                m_sizes[h] = size - end;
+                if (m_sizes[h] == 1) {
+                    level[0] = level[size - 1];
+                }
+                if (m_size < m_maxSize) {
+                    break;
+                }
+            }
+        }
+    }
+
+    private int nextOffset() {
+        // xorshift64
+        m_random ^= m_random << 13;
+        m_random ^= m_random >>> 7;
+        m_random ^= m_random << 17;
+        return (int)(m_random & 1);
+    }
+
+    /**
+     * Merges the given sketch into this sketch.
+     *
+     * @param other the sketch to merge
+     */
+    void merge(final KLLSketch other) {
+        while (m_levels.length < other.m_levels.length) {
+            grow();
+        }
+        for (int h = 0; h < other.m_levels.length; h++) {
+            final double[] level = other.m_levels[h];
+            for (int i = 0, size = other.m_sizes[h]; i < size; i++) {
+                append(h, level[i]);
+            }
+        }
+        m_count += other.m_count;
+        while (m_size >= m_maxSize) {
+            compress();
+        }
+    }
+
+    /**
+     * @return the number of added values
+     */
+    long getCount() {
+        return m_count;
+    }
+
+    /**
+     * @param quantile the quantile between 0 and 1
+     * @return the estimated quantile or {@link Double#NaN} if the sketch is empty
+     */
+    double getQuantile(final double quantile) {
+        if (m_size == 0) {
+            return Double.NaN;
+        }
+        final double[] values = new double[m_size];
+        final long[] weights = new long[m_size];
+        int idx = 0;
+        for (int h = 0; h < m_levels.length; h++) {
+            final double[] level = m_levels[h];
+            final int size = m_sizes[h];
+            Arrays.sort(level, 0, size);
+            System.arraycopy(level, 0, values, idx, size);
+            Arrays.fill(weights, idx, idx + size, 1L << h);
+            idx += size;
+        }
+        final Integer[] order = new Integer[m_size];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(values[a], values[b]));
+        long totalWeight = 0;
+        for (final long w : weights) {
+            totalWeight += w;
+        }
+        final double targetWeight = quantile * totalWeight;
+        long cumWeight = 0;
+        for (final Integer i : order) {
+            cumWeight += weights[i];
+            if (cumWeight >= targetWeight) {
+                return values[i];
+            }
+        }
+        return values[order[order.length - 1]];
+    }
+}
@@ -49,6 +49,7 @@
 import org.knime.base.data.aggregation.GlobalSettings;
 import org.knime.base.data.aggregation.OperatorColumnSettings;
 import org.knime.base.data.aggregation.OperatorData;
+import org.knime.base.data.aggregation.PrimitiveAggregationState;
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataType;
 import org.knime.core.data.DoubleValue;
@@ -127,6 +128,30 @@ protected DataCell getResultInternal() {
         return new DoubleCell(m_mean);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isMergeable() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean mergeInternal(final AggregationOperator operator) {
+        final MeanOperator other = (MeanOperator)operator;
+        if (other.m_count == 0) {
+            return false;
+        }
+        final int count = m_count + other.m_count;
+        m_mean = m_mean * ((double)m_count / count)
+                    + other.m_mean * ((double)other.m_count / count);
+        m_count = count;
+        return false;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -143,4 +168,54 @@ protected void resetInternal() {
     public String getDescription() {
         return "Calculates the mean value per group.";
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public PrimitiveAggregationState createPrimitiveState() {
+        //subclasses might compute the mean differently
+        return getClass() == MeanOperator.class ? new MeanState() : null;
+    }
+
+    /** Mean and number of values per group. */
+    private static final class MeanState extends PrimitiveAggregationState {
+
+        private double[] m_means = new double[0];
+
+        private long[] m_counts = new long[0];
+
+        @Override
+        public void compute(final int groupIdx, final DataCell cell) {
+            m_means = ensureCapacity(m_means, groupIdx);
+            m_counts = ensureCapacity(m_counts, groupIdx);
+            final double d = ((DoubleValue)cell).getDoubleValue();
+            final long count = m_counts[groupIdx];
+            m_means[groupIdx] = m_means[groupIdx] * ((double)count / (count + 1)) + d * (1.0 / (count + 1));
+            m_counts[groupIdx] = count + 1;
+        }
+
+        @Override
+        public void merge(final int groupIdx, final PrimitiveAggregationState other, final int otherGroupIdx) {
+            final MeanState state = (MeanState)other;
+            final long otherCount = get(state.m_counts, otherGroupIdx);
+            if (otherCount == 0) {
+                return;
+            }
+            m_means = ensureCapacity(m_means, groupIdx);
+            m_counts = ensureCapacity(m_counts, groupIdx);
+            final long count = m_counts[groupIdx] + otherCount;
+            m_means[groupIdx] = m_means[groupIdx] * ((double)m_counts[groupIdx] / count)
+                + state.m_means[otherGroupIdx] * ((double)otherCount / count);
+            m_counts[groupIdx] = count;
+        }
+
+        @Override
+        public DataCell getResult(final int groupIdx) {
+            if (get(m_counts, groupIdx) == 0) {
+                return DataType.getMissingCell();
+            }
+            return new DoubleCell(m_means[groupIdx]);
+        }
+    }
 }
@@ -71,7 +71,7 @@ public class SecondMomentOperator extends StorelessUnivariantStatisticOperator {
      */
     public SecondMomentOperator(final GlobalSettings globalSettings, final OperatorColumnSettings opColSettings) {
         super(new OperatorData("Second moment", false, false, DoubleValue.class, false), globalSettings,
-            AggregationOperator.setInclMissingFlag(opColSettings, false), new SecondMoment());
+            AggregationOperator.setInclMissingFlag(opColSettings, false), new MergeableSecondMoment());
     }
 
     /**
@@ -98,4 +98,49 @@ public String getDetailedDescription() {
             + "(x3-<font style='text-decoration: overline'>x0x1x2</font>)^2 * 3/4 + (x4-<font style='text-decoration: overline'>x0x1x2x3</font>)^2 * 4/5.";
     }
 
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isMergeable() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean mergeInternal(final AggregationOperator operator) {
+        ((MergeableSecondMoment)m_stat).merge((MergeableSecondMoment)((SecondMomentOperator)operator).m_stat);
+        return false;
+    }
+
+    /**
+     * {@link SecondMoment} that allows to combine the moments of two disjoint sets of values.
+     */
+    private static final class MergeableSecondMoment extends SecondMoment {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * @param other the moment of the values to add to this moment
+         */
+        void merge(final MergeableSecondMoment other) {
+            if (other.n == 0) {
+                return;
+            }
+            if (n == 0) {
+                n = other.n;
+                m1 = other.m1;
+                m2 = other.m2;
+                return;
+            }
+            final long count = n + other.n;
+            final double delta = other.m1 - m1;
+            m2 += other.m2 + delta * delta * n * other.n / count;
+            m1 += delta * other.n / count;
+            n = count;
+        }
+    }
 }
@@ -49,6 +49,7 @@
 import org.knime.base.data.aggregation.GlobalSettings;
 import org.knime.base.data.aggregation.OperatorColumnSettings;
 import org.knime.base.data.aggregation.OperatorData;
+import org.knime.base.data.aggregation.PrimitiveAggregationState;
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DoubleValue;
 import org.knime.core.data.def.DoubleCell;
@@ -113,4 +114,13 @@ protected DataCell getResultInternal() {
     public String getDescription() {
         return "Calculates the standard deviation per group.";
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public PrimitiveAggregationState createPrimitiveState() {
+        //subclasses such as the geometric standard deviation transform the values
+        return getClass() == StdDeviationOperator.class ? new VarianceState(true) : null;
+    }
 }
@@ -49,6 +49,7 @@
 import org.knime.base.data.aggregation.GlobalSettings;
 import org.knime.base.data.aggregation.OperatorColumnSettings;
 import org.knime.base.data.aggregation.OperatorData;
+import org.knime.base.data.aggregation.PrimitiveAggregationState;
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataColumnSpec;
 import org.knime.core.data.DataType;
@@ -66,6 +67,10 @@
  */
 public class SumOperator extends AggregationOperator {
 
+    private static final String INT_OVERFLOW_MSG = "Sum > maximum int value. Convert column to long.";
+
+    private static final String LONG_OVERFLOW_MSG = "Sum > maximum long value. Convert column to double.";
+
     private final DataType m_type;
     private boolean m_valid = false;
     private double m_sum = 0;
@@ -149,8 +154,7 @@ protected DataCell getResultInternal() {
             //check if the double value is to big for an integer
             if (m_sum > Integer.MAX_VALUE) {
                 setSkipped(true);
-                setSkipMessage("Sum > maximum int value. "
-                        + "Convert column to long.");
+                setSkipMessage(INT_OVERFLOW_MSG);
                 return DataType.getMissingCell();
             }
             return new IntCell((int)m_sum);
@@ -158,8 +162,7 @@ protected DataCell getResultInternal() {
             //check if the double value is to big for a long
             if (m_sum > Long.MAX_VALUE) {
                 setSkipped(true);
-                setSkipMessage("Sum > maximum long value. "
-                        + "Convert column to double.");
+                setSkipMessage(LONG_OVERFLOW_MSG);
                 return DataType.getMissingCell();
             }
             return new LongCell((long)m_sum);
@@ -167,6 +170,25 @@ protected DataCell getResultInternal() {
         return new DoubleCell(m_sum);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isMergeable() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean mergeInternal(final AggregationOperator operator) {
+        final SumOperator other = (SumOperator)operator;
+        m_valid |= other.m_valid;
+        m_sum += other.m_sum;
+        return false;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -186,4 +208,76 @@ public String getDescription() {
             + "skipped if the sum exceeds the limit of int (2^31-1)"
             + " resp. long (2^62-1).";
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public PrimitiveAggregationState createPrimitiveState() {
+        //subclasses might compute the sum differently
+        return getClass() == SumOperator.class ? new SumState(m_type) : null;
+    }
+
+    /** Sum and number of values per group. */
+    private static final class SumState extends PrimitiveAggregationState {
+
+        private final DataType m_type;
+
+        private double[] m_sums = new double[0];
+
+        private long[] m_counts = new long[0];
+
+        SumState(final DataType type) {
+            m_type = type;
+        }
+
+        @Override
+        public void compute(final int groupIdx, final DataCell cell) {
+            m_sums = ensureCapacity(m_sums, groupIdx);
+            m_counts = ensureCapacity(m_counts, groupIdx);
+            m_sums[groupIdx] += ((DoubleValue)cell).getDoubleValue();
+            m_counts[groupIdx]++;
+        }
+
+        @Override
+        public void merge(final int groupIdx, final PrimitiveAggregationState other, final int otherGroupIdx) {
+            final SumState state = (SumState)other;
+            final long count = get(state.m_counts, otherGroupIdx);
+            if (count == 0) {
+                return;
+            }
+            m_sums = ensureCapacity(m_sums, groupIdx);
+            m_counts = ensureCapacity(m_counts, groupIdx);
+            m_sums[groupIdx] += state.m_sums[otherGroupIdx];
+            m_counts[groupIdx] += count;
+        }
+
+        @Override
+        public DataCell getResult(final int groupIdx) {
+            if (get(m_counts, groupIdx) == 0 || getSkipMessage(groupIdx) != null) {
+                return DataType.getMissingCell();
+            }
+            final double sum = m_sums[groupIdx];
+            if (IntCell.TYPE.equals(m_type)) {
+                return new IntCell((int)sum);
+            } else if (LongCell.TYPE.equals(m_type)) {
+                return new LongCell((long)sum);
+            }
+            return new DoubleCell(sum);
+        }
+
+        @Override
+        public String getSkipMessage(final int groupIdx) {
+            if (get(m_counts, groupIdx) == 0) {
+                return null;
+            }
+            final double sum = m_sums[groupIdx];
+            if (IntCell.TYPE.equals(m_type) && sum > Integer.MAX_VALUE) {
+                return INT_OVERFLOW_MSG;
+            } else if (LongCell.TYPE.equals(m_type) && sum > Long.MAX_VALUE) {
+                return LONG_OVERFLOW_MSG;
+            }
+            return null;
+        }
+    }
 }
@@ -49,6 +49,7 @@
 import org.knime.base.data.aggregation.GlobalSettings;
 import org.knime.base.data.aggregation.OperatorColumnSettings;
 import org.knime.base.data.aggregation.OperatorData;
+import org.knime.base.data.aggregation.PrimitiveAggregationState;
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataType;
 import org.knime.core.data.DoubleValue;
@@ -123,14 +124,24 @@ protected boolean computeInternal(final DataCell cell) {
      */
     @Override
     protected DataCell getResultInternal() {
-        if (m_validCount <= 0) {
+        return createResult(m_validCount, m_sum, m_sumSquare);
+    }
+
+    /**
+     * @param count the number of values
+     * @param sum the sum of the values
+     * @param sumSquare the sum of the squared values
+     * @return the variance or a missing cell if there are no values
+     */
+    static DataCell createResult(final long count, final double sum, final double sumSquare) {
+        if (count <= 0) {
             return DataType.getMissingCell();
         }
-        if (m_validCount == 1) {
+        if (count == 1) {
             return new DoubleCell(0);
         }
-        double variance = (m_sumSquare - ((m_sum * m_sum)
-                / m_validCount)) / (m_validCount - 1);
+        double variance = (sumSquare - ((sum * sum)
+                / count)) / (count - 1);
         // unreported bug fix: in cases in which a column contains
         // almost only one value (for instance 1.0) but one single
         // 'outlier' whose value is, for instance 0.9999998, we get
@@ -141,6 +152,26 @@ protected DataCell getResultInternal() {
         return new DoubleCell(variance);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isMergeable() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean mergeInternal(final AggregationOperator operator) {
+        final VarianceOperator other = (VarianceOperator)operator;
+        m_validCount += other.m_validCount;
+        m_sum += other.m_sum;
+        m_sumSquare += other.m_sumSquare;
+        return false;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -158,4 +189,70 @@ protected void resetInternal() {
     public String getDescription() {
         return "Calculates the variance per group.";
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public PrimitiveAggregationState createPrimitiveState() {
+        //subclasses might compute a different result
+        return getClass() == VarianceOperator.class ? new VarianceState(false) : null;
+    }
+
+    /** Number of values, sum and sum of squares per group. */
+    static final class VarianceState extends PrimitiveAggregationState {
+
+        private final boolean m_stdDeviation;
+
+        private long[] m_counts = new long[0];
+
+        private double[] m_sums = new double[0];
+
+        private double[] m_sumSquares = new double[0];
+
+        /**
+         * @param stdDeviation <code>true</code> if the standard deviation should be returned instead of the variance
+         */
+        VarianceState(final boolean stdDeviation) {
+            m_stdDeviation = stdDeviation;
+        }
+
+        @Override
+        public void compute(final int groupIdx, final DataCell cell) {
+            ensureCapacity(groupIdx);
+            final double d = ((DoubleValue)cell).getDoubleValue();
+            m_counts[groupIdx]++;
+            m_sums[groupIdx] += d;
+            m_sumSquares[groupIdx] += d * d;
+        }
+
+        @Override
+        public void merge(final int groupIdx, final PrimitiveAggregationState other, final int otherGroupIdx) {
+            final VarianceState state = (VarianceState)other;
+            final long count = get(state.m_counts, otherGroupIdx);
+            if (count == 0) {
+                return;
+            }
+            ensureCapacity(groupIdx);
+            m_counts[groupIdx] += count;
+            m_sums[groupIdx] += state.m_sums[otherGroupIdx];
+            m_sumSquares[groupIdx] += state.m_sumSquares[otherGroupIdx];
+        }
+
+        private void ensureCapacity(final int groupIdx) {
+            m_counts = ensureCapacity(m_counts, groupIdx);
+            m_sums = ensureCapacity(m_sums, groupIdx);
+            m_sumSquares = ensureCapacity(m_sumSquares, groupIdx);
+        }
+
+        @Override
+        public DataCell getResult(final int groupIdx) {
+            final DataCell result =
+                createResult(get(m_counts, groupIdx), get(m_sums, groupIdx), get(m_sumSquares, groupIdx));
+            if (m_stdDeviation && !result.isMissing()) {
+                return new DoubleCell(Math.sqrt(Math.abs(((DoubleCell)result).getDoubleValue())));
+            }
+            return result;
+        }
+    }
 }
@@ -47,9 +47,15 @@
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Deque;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
@@ -60,15 +66,17 @@
 import org.knime.core.data.DataColumnSpecCreator;
 import org.knime.core.data.DataRow;
 import org.knime.core.data.DataTableSpec;
-import org.knime.core.data.container.CloseableRowIterator;
-import org.knime.core.data.container.DataContainer;
 import org.knime.core.data.def.DefaultRow;
 import org.knime.core.data.def.StringCell;
+import org.knime.core.data.util.memory.MemoryAlertSystem;
+import org.knime.core.data.util.memory.MemoryAlertSystem.MemoryActionIndicator;
 import org.knime.core.node.BufferedDataTable;
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionContext;
 import org.knime.core.node.ExecutionMonitor;
 import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.node.NodeLogger;
 import org.knime.core.node.NodeModel;
 import org.knime.core.node.NodeSettingsRO;
 import org.knime.core.node.NodeSettingsWO;
@@ -76,6 +84,19 @@
 import org.knime.core.node.defaultnodesettings.SettingsModelBoolean;
 import org.knime.core.node.defaultnodesettings.SettingsModelIntegerBounded;
 import org.knime.core.node.defaultnodesettings.SettingsModelString;
+import org.knime.core.node.port.PortObjectSpec;
+import org.knime.core.node.streamable.BufferedDataTableRowOutput;
+import org.knime.core.node.streamable.DataTableRowInput;
+import org.knime.core.node.streamable.InputPortRole;
+import org.knime.core.node.streamable.OutputPortRole;
+import org.knime.core.node.streamable.PartitionInfo;
+import org.knime.core.node.streamable.PortInput;
+import org.knime.core.node.streamable.PortObjectInput;
+import org.knime.core.node.streamable.PortOutput;
+import org.knime.core.node.streamable.RowInput;
+import org.knime.core.node.streamable.RowOutput;
+import org.knime.core.node.streamable.StreamableOperator;
+import org.knime.core.util.ThreadPool;
 
 /**
  * This is the model implementation of CrossJoiner.
@@ -86,6 +107,11 @@
  */
 final class CrossJoinerNodeModel extends NodeModel {
 
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(CrossJoinerNodeModel.class);
+
+    /** The number of joined rows created by one thread at a time. */
+    private static final int BATCH_SIZE = 1000;
+
     /**
      * Constructor for the node model.
      */
@@ -101,56 +127,278 @@ protected CrossJoinerNodeModel() {
     private SettingsModelBoolean m_showRight = createshowSecondRowIdsSettingsModel();
     private SettingsModelString m_nameRight = createSecondRowIdsNameSettingsModel(m_showRight);
 
+    /** The number of rows of the bottom table that are cached before low memory is simulated, 0 to rely on the
+     * memory alert system only (changed in testing routines). */
+    private int m_rowsCachedBeforeForcedSpill = 0;
+
     /**
      * {@inheritDoc}
      */
     @Override
     protected BufferedDataTable[] execute(final BufferedDataTable[] inData,
             final ExecutionContext exec) throws Exception {
-        boolean showLeft = m_showLeft.getBooleanValue();
-        boolean showRight = m_showRight.getBooleanValue();
-        int chunksize = m_cacheSize.getIntValue();
-        String sep = m_rkseparator.getStringValue();
-
-        DataContainer dc = exec.createDataContainer(
-            createSpec(inData[0].getDataTableSpec(), inData[1].getDataTableSpec(), showLeft, showRight));
-
-        long numOutRows = inData[0].size() * inData[1].size();
-        long rowcounter = 0;
-
-        CloseableRowIterator leftit = inData[0].iterator();
-        // iterate over all possible chunks of left table
-        for (long chunkcount = 0; chunkcount < Math.ceil(inData[0].size() * 1.0 / chunksize); chunkcount++) {
-            // read one chunk of left table
-            List<DataRow> rowsleft = new LinkedList<DataRow>();
-            for (int i = 0; i < chunksize && leftit.hasNext(); i++) {
-                rowsleft.add(leftit.next());
-                exec.checkCanceled();
+        BufferedDataTableRowOutput output = new BufferedDataTableRowOutput(exec.createDataContainer(
+            createSpec(inData[0].getDataTableSpec(), inData[1].getDataTableSpec(), m_showLeft.getBooleanValue(),
+                m_showRight.getBooleanValue())));
+        crossJoin(new DataTableRowInput(inData[0]), inData[1], output, exec);
+        return new BufferedDataTable[]{output.getDataTable()};
+    }
+
+    /**
+     * Joins each row of the top input with each row of the bottom table. Both are processed in chunks of the
+     * configured size, the output contains the joined rows of each pair of a top and a bottom chunk with the top
+     * chunks in the outer loop. The chunks of the bottom table are kept in memory if there is enough memory,
+     * otherwise the bottom table is read again for each chunk of the top input. The joined rows are created by
+     * several threads and pushed in their original order.
+     *
+     * @param left the top input, read once and closed by this method
+     * @param right the bottom table
+     * @param output the output of the joined rows, closed by this method
+     * @param exec the execution context
+     * @throws Exception if the execution is canceled or fails
+     */
+    private void crossJoin(final RowInput left, final BufferedDataTable right, final RowOutput output,
+        final ExecutionContext exec) throws Exception {
+        final int chunkSize = m_cacheSize.getIntValue();
+        final List<DataRow[]> rightChunks = cacheChunks(right, chunkSize);
+        if (rightChunks == null) {
+            LOGGER.debug("The bottom table does not fit into memory, it is read once per chunk of the top table");
+        }
+        final long numLeftRows = left instanceof DataTableRowInput ? ((DataTableRowInput)left).getRowCount() : -1;
+        final int noOfThreads = Math.min(KNIMEConstants.GLOBAL_THREAD_POOL.getMaxThreads(),
+            Runtime.getRuntime().availableProcessors());
+        final ThreadPool pool = noOfThreads > 1 ? KNIMEConstants.GLOBAL_THREAD_POOL.createSubPool(noOfThreads) : null;
+        final JoinedRowGenerator generator = new JoinedRowGenerator(output, exec, pool, 2 * noOfThreads,
+            numLeftRows >= 0 ? numLeftRows * (double)right.size() : -1);
+        final Callable<Void> submitter = () -> {
+            try {
+                DataRow[] leftChunk;
+                while ((leftChunk = readChunk(left, chunkSize)) != null) {
+                    if (rightChunks != null) {
+                        for (DataRow[] rightChunk : rightChunks) {
+                            generator.add(leftChunk, rightChunk);
+                        }
+                    } else {
+                        RowInput rightInput = new DataTableRowInput(right);
+                        try {
+                            DataRow[] rightChunk;
+                            while ((rightChunk = readChunk(rightInput, chunkSize)) != null) {
+                                generator.add(leftChunk, rightChunk);
+                            }
+                        } finally {
+                            rightInput.close();
+                        }
+                    }
+                }
+                generator.finish();
+            } finally {
+                generator.cancel();
+            }
+            return null;
+        };
+        try {
+            if (pool == null) {
+                submitter.call();
+            } else {
+                try {
+                    pool.runInvisible(submitter);
+                } catch (IllegalThreadStateException ex) {
+                    // this node has not been started by a thread from a thread pool
+                    submitter.call();
+                }
             }
-            // iterate over all possible chunks of right table
-            CloseableRowIterator rightit = inData[1].iterator();
-            for (long chunkcount2 = 0; chunkcount2 < Math.ceil(inData[1].size() * 1.0 / chunksize); chunkcount2++) {
-                // read  one chunk of right table
-                List<DataRow> rowsright = new LinkedList<DataRow>();
-                for (int i = 0; i < chunksize && rightit.hasNext(); i++) {
-                    rowsright.add(rightit.next());
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof Exception) {
+                throw (Exception)ex.getCause();
+            }
+            throw ex;
+        } finally {
+            left.close();
+        }
+        output.close();
+    }
+
+    /**
+     * @param table the table to cache
+     * @param chunkSize the number of rows per chunk
+     * @return the chunks of the table or <code>null</code> if the table does not fit into memory
+     * @throws InterruptedException if the thread is interrupted
+     */
+    private List<DataRow[]> cacheChunks(final BufferedDataTable table, final int chunkSize)
+        throws InterruptedException {
+        final MemoryActionIndicator memIndicator = MemoryAlertSystem.getInstance().newIndicator();
+        final List<DataRow[]> chunks = new ArrayList<>();
+        final RowInput input = new DataTableRowInput(table);
+        try {
+            DataRow[] chunk;
+            long rowCount = 0;
+            while ((chunk = readChunk(input, chunkSize)) != null) {
+                rowCount += chunk.length;
+                if (memIndicator.lowMemoryActionRequired()
+                    || (m_rowsCachedBeforeForcedSpill > 0 && rowCount > m_rowsCachedBeforeForcedSpill)) {
+                    return null;
                 }
+                chunks.add(chunk);
+            }
+        } finally {
+            input.close();
+        }
+        return chunks;
+    }
 
-                for (DataRow left : rowsleft) {
-                    for (DataRow right : rowsright) {
-                        DataRow newRow = joinRow(left, right, showLeft, showRight, sep);
-                        dc.addRowToTable(newRow);
-                        exec.checkCanceled();
-                        exec.setProgress(rowcounter++ / (double) numOutRows, "Generating Row "
-                                                    + newRow.getKey().toString());
+    /**
+     * @param input the input to read from
+     * @param chunkSize the maximal number of rows to read
+     * @return the next rows of the input or <code>null</code> if the input is exhausted
+     * @throws InterruptedException if the thread is interrupted
+     */
+    private static DataRow[] readChunk(final RowInput input, final int chunkSize) throws InterruptedException {
+        final List<DataRow> rows = new ArrayList<>(Math.min(chunkSize, BATCH_SIZE));
+        DataRow row;
+        while (rows.size() < chunkSize && (row = input.poll()) != null) {
+            rows.add(row);
+        }
+        return rows.isEmpty() ? null : rows.toArray(new DataRow[rows.size()]);
+    }
+
+    /**
+     * Creates the joined rows of pairs of chunks in batches of {@link #BATCH_SIZE} rows. The batches are processed by
+     * the threads of the given pool and pushed to the output in their original order.
+     */
+    private final class JoinedRowGenerator {
+
+        private final RowOutput m_output;
+
+        private final ExecutionContext m_exec;
+
+        /** The pool to create the rows in, <code>null</code> if they are created by the calling thread. */
+        private final ThreadPool m_pool;
+
+        /** Limits the number of pending batches to bound the memory consumption. */
+        private final int m_maxPendingBatches;
+
+        private final double m_numOutRows;
+
+        private final boolean m_showLeftIds = m_showLeft.getBooleanValue();
+
+        private final boolean m_showRightIds = m_showRight.getBooleanValue();
+
+        private final String m_separator = m_rkseparator.getStringValue();
+
+        private final Deque<Future<DataRow[]>> m_futures = new ArrayDeque<>();
+
+        private List<JoinUnit> m_batch = new ArrayList<>();
+
+        private int m_batchSize;
+
+        private long m_rowCounter;
+
+        JoinedRowGenerator(final RowOutput output, final ExecutionContext exec, final ThreadPool pool,
+            final int maxPendingBatches, final double numOutRows) {
+            m_output = output;
+            m_exec = exec;
+            m_pool = pool;
+            m_maxPendingBatches = maxPendingBatches;
+            m_numOutRows = numOutRows;
+        }
+
+        /**
+         * Adds the join of a top and a bottom chunk.
+         *
+         * @param leftChunk the chunk of the top table
+         * @param rightChunk the chunk of the bottom table
+         */
+        void add(final DataRow[] leftChunk, final DataRow[] rightChunk) throws Exception {
+            for (DataRow left : leftChunk) {
+                int from = 0;
+                while (from < rightChunk.length) {
+                    final int to = Math.min(rightChunk.length, from + BATCH_SIZE - m_batchSize);
+                    m_batch.add(new JoinUnit(left, rightChunk, from, to));
+                    m_batchSize += to - from;
+                    if (m_batchSize == BATCH_SIZE) {
+                        flush();
                     }
+                    from = to;
+                }
+            }
+        }
+
+        /** Pushes all pending rows to the output. */
+        void finish() throws Exception {
+            flush();
+            while (!m_futures.isEmpty()) {
+                m_exec.checkCanceled();
+                push(m_futures.poll().get());
+            }
+        }
+
+        /** Cancels the pending batches. */
+        void cancel() {
+            for (Future<?> future : m_futures) {
+                future.cancel(true);
+            }
+        }
+
+        private void flush() throws Exception {
+            if (m_batch.isEmpty()) {
+                return;
+            }
+            m_exec.checkCanceled();
+            final List<JoinUnit> batch = m_batch;
+            final int batchSize = m_batchSize;
+            m_batch = new ArrayList<>();
+            m_batchSize = 0;
+            if (m_pool == null) {
+                push(joinRows(batch, batchSize));
+            } else {
+                m_futures.add(m_pool.enqueue(() -> joinRows(batch, batchSize)));
+                if (m_futures.size() > m_maxPendingBatches) {
+                    push(m_futures.poll().get());
+                }
+            }
+        }
+
+        private DataRow[] joinRows(final List<JoinUnit> batch, final int batchSize) {
+            final DataRow[] rows = new DataRow[batchSize];
+            int i = 0;
+            for (JoinUnit unit : batch) {
+                for (int r = unit.m_from; r < unit.m_to; r++) {
+                    rows[i++] = joinRow(unit.m_left, unit.m_right[r], m_showLeftIds, m_showRightIds, m_separator);
                 }
             }
-            rightit.close();
+            return rows;
+        }
+
+        private void push(final DataRow[] rows) throws InterruptedException {
+            for (DataRow row : rows) {
+                m_output.push(row);
+            }
+            m_rowCounter += rows.length;
+            final long rowCounter = m_rowCounter;
+            if (m_numOutRows > 0) {
+                m_exec.setProgress(rowCounter / m_numOutRows, () -> "Generating row " + rowCounter);
+            } else {
+                m_exec.setMessage(() -> "Generating row " + rowCounter);
+            }
+        }
+    }
+
+    /** A row of the top table joined with a range of a chunk of the bottom table. */
+    private static final class JoinUnit {
+        private final DataRow m_left;
+
+        private final DataRow[] m_right;
+
+        private final int m_from;
+
+        private final int m_to;
+
+        JoinUnit(final DataRow left, final DataRow[] right, final int from, final int to) {
+            m_left = left;
+            m_right = right;
+            m_from = from;
+            m_to = to;
         }
-        leftit.close();
-        dc.close();
-        return new BufferedDataTable[]{(BufferedDataTable)dc.getTable()};
     }
 
     /**
@@ -238,6 +486,40 @@ private DataTableSpec createSpec(final DataTableSpec left, final DataTableSpec r
 
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public StreamableOperator createStreamableOperator(final PartitionInfo partitionInfo,
+        final PortObjectSpec[] inSpecs) throws InvalidSettingsException {
+        return new StreamableOperator() {
+
+            @Override
+            public void runFinal(final PortInput[] inputs, final PortOutput[] outputs, final ExecutionContext exec)
+                throws Exception {
+                BufferedDataTable right = (BufferedDataTable)((PortObjectInput)inputs[1]).getPortObject();
+                crossJoin((RowInput)inputs[0], right, (RowOutput)outputs[0], exec);
+            }
+        };
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InputPortRole[] getInputPortRoles() {
+        // the top table is not distributed since the order of the output depends on its chunks
+        return new InputPortRole[]{InputPortRole.NONDISTRIBUTED_STREAMABLE, InputPortRole.NONDISTRIBUTED_NONSTREAMABLE};
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public OutputPortRole[] getOutputPortRoles() {
+        return new OutputPortRole[]{OutputPortRole.NONDISTRIBUTED};
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -338,6 +620,16 @@ protected void saveInternals(final File internDir,
             CanceledExecutionException {
     }
 
+    /**
+     * Used for testing, only.
+     *
+     * @param maxRows the number of rows of the bottom table that are cached before low memory is simulated, 0 to
+     *            rely on the memory alert system only
+     */
+    void setRowsCachedBeforeForcedSpill(final int maxRows) {
+        m_rowsCachedBeforeForcedSpill = maxRows;
+    }
+
     /**
      * @return the settings model for the cache size
      */
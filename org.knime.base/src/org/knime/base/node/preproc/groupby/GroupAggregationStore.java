@@ -0,0 +1,321 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+
+
+package org.knime.base.node.preproc.groupby;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.knime.base.data.aggregation.AggregationOperator;
+import org.knime.base.data.aggregation.ColumnAggregator;
+import org.knime.base.data.aggregation.GlobalSettings;
+import org.knime.base.data.aggregation.PrimitiveAggregationState;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.RowKey;
+
+/**
+ * Holds the groups of a {@link GroupByTable} in the order of their first occurrence together with their
+ * aggregation results and the keys of their member rows if hiliting is enabled. If all operators support
+ * {@link AggregationOperator#createPrimitiveState() primitive states} the partial results of all groups are stored
+ * in one {@link PrimitiveAggregationState} per aggregation column. Otherwise each group gets its own copy of the
+ * {@link ColumnAggregator}s.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class GroupAggregationStore {
+
+    private final GroupByTable m_table;
+
+    private final ColumnAggregator[] m_colAggregators;
+
+    private final int[] m_aggrColIdx;
+
+    /** The operators used to create the states and to check for missing cells, <code>null</code> if not used. */
+    private final AggregationOperator[] m_stateOperators;
+
+    private final PrimitiveAggregationState[] m_states;
+
+    private final Map<GroupKey, Integer> m_groupIdx = new HashMap<>();
+
+    private final List<GroupKey> m_groups = new ArrayList<>();
+
+    /** The aggregators per group if no primitive states are used, <code>null</code> otherwise. */
+    private final List<ColumnAggregator[]> m_groupAggregators;
+
+    /** The row keys per group if hiliting is enabled, <code>null</code> otherwise. */
+    private final List<Set<RowKey>> m_rowKeys;
+
+    /**
+     * @param table the {@link GroupByTable} that provides the aggregators and settings
+     * @param spec the spec of the rows to aggregate
+     */
+    GroupAggregationStore(final GroupByTable table, final DataTableSpec spec) {
+        this(table, createColumnIndices(table.getColAggregators(), spec), createStateOperators(table, spec));
+    }
+
+    private GroupAggregationStore(final GroupByTable table, final int[] aggrColIdx,
+        final AggregationOperator[] stateOperators) {
+        m_table = table;
+        m_colAggregators = table.getColAggregators();
+        m_aggrColIdx = aggrColIdx;
+        m_stateOperators = stateOperators;
+        if (stateOperators == null) {
+            m_states = null;
+            m_groupAggregators = new ArrayList<>();
+        } else {
+            m_states = new PrimitiveAggregationState[stateOperators.length];
+            for (int i = 0; i < stateOperators.length; i++) {
+                m_states[i] = stateOperators[i].createPrimitiveState();
+            }
+            m_groupAggregators = null;
+        }
+        m_rowKeys = table.isEnableHilite() ? new ArrayList<>() : null;
+    }
+
+    private static int[] createColumnIndices(final ColumnAggregator[] colAggregators, final DataTableSpec spec) {
+        final int[] aggrColIdx = new int[colAggregators.length];
+        for (int i = 0, length = colAggregators.length; i < length; i++) {
+            aggrColIdx[i] = spec.findColumnIndex(colAggregators[i].getOriginalColName());
+        }
+        return aggrColIdx;
+    }
+
+    /**
+     * @return the operators to create the primitive states from or <code>null</code> if at least one operator
+     *         doesn't support primitive states
+     */
+    private static AggregationOperator[] createStateOperators(final GroupByTable table, final DataTableSpec spec) {
+        final ColumnAggregator[] colAggregators = table.getColAggregators();
+        final GlobalSettings globalSettings = table.getGlobalSettings();
+        final AggregationOperator[] operators = new AggregationOperator[colAggregators.length];
+        for (int i = 0, length = colAggregators.length; i < length; i++) {
+            if (spec.findColumnIndex(colAggregators[i].getOriginalColName()) < 0) {
+                //the row key option is only supported by the operators
+                return null;
+            }
+            operators[i] = colAggregators[i].clone().getOperator(globalSettings);
+            if (operators[i].createPrimitiveState() == null) {
+                return null;
+            }
+        }
+        return operators;
+    }
+
+    /**
+     * @return a new and empty store with the same settings
+     */
+    GroupAggregationStore createEmptyCopy() {
+        return new GroupAggregationStore(m_table, m_aggrColIdx, m_stateOperators);
+    }
+
+    /**
+     * @return <code>true</code> if the partial results of two stores can be merged
+     * @see #merge(GroupAggregationStore)
+     */
+    boolean isMergeable() {
+        if (m_states != null) {
+            return true;
+        }
+        for (final ColumnAggregator colAggr : m_colAggregators) {
+            if (!colAggr.getOperator(m_table.getGlobalSettings()).isMergeable()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return <code>true</code> if the groups are stored in primitive states
+     */
+    boolean usesPrimitiveStates() {
+        return m_states != null;
+    }
+
+    /**
+     * @return the number of groups
+     */
+    int size() {
+        return m_groups.size();
+    }
+
+    /**
+     * Adds the given row to the given group.
+     *
+     * @param groupKey the group of the row
+     * @param row the row to aggregate
+     */
+    void compute(final GroupKey groupKey, final DataRow row) {
+        final int groupIdx = getGroupIdx(groupKey);
+        if (m_states != null) {
+            for (int i = 0, length = m_states.length; i < length; i++) {
+                final DataCell cell = row.getCell(m_aggrColIdx[i]);
+                if (m_stateOperators[i].inclMissingCells() || !cell.isMissing()) {
+                    m_states[i].compute(groupIdx, cell);
+                }
+            }
+        } else {
+            final ColumnAggregator[] aggregators = m_groupAggregators.get(groupIdx);
+            for (int i = 0, length = aggregators.length; i < length; i++) {
+                aggregators[i].getOperator(m_table.getGlobalSettings()).compute(row, m_aggrColIdx[i]);
+            }
+        }
+        if (m_rowKeys != null) {
+            m_rowKeys.get(groupIdx).add(row.getKey());
+        }
+    }
+
+    private int getGroupIdx(final GroupKey groupKey) {
+        final Integer idx = m_groupIdx.get(groupKey);
+        if (idx != null) {
+            return idx.intValue();
+        }
+        final int groupIdx = m_groups.size();
+        m_groupIdx.put(groupKey, groupIdx);
+        m_groups.add(groupKey);
+        if (m_groupAggregators != null) {
+            final ColumnAggregator[] aggregators = new ColumnAggregator[m_colAggregators.length];
+            for (int i = 0, length = m_colAggregators.length; i < length; i++) {
+                aggregators[i] = m_colAggregators[i].clone();
+            }
+            m_groupAggregators.add(aggregators);
+        }
+        if (m_rowKeys != null) {
+            m_rowKeys.add(new HashSet<>());
+        }
+        return groupIdx;
+    }
+
+    /**
+     * Merges the groups of the given store into this store. The given store must have been created via
+     * {@link #createEmptyCopy()} and must contain the rows that follow the rows of this store.
+     *
+     * @param other the store to merge
+     */
+    void merge(final GroupAggregationStore other) {
+        for (int otherIdx = 0, size = other.size(); otherIdx < size; otherIdx++) {
+            final GroupKey groupKey = other.m_groups.get(otherIdx);
+            final boolean isNew = !m_groupIdx.containsKey(groupKey);
+            final int groupIdx = getGroupIdx(groupKey);
+            if (m_states != null) {
+                for (int i = 0, length = m_states.length; i < length; i++) {
+                    m_states[i].merge(groupIdx, other.m_states[i], otherIdx);
+                }
+            } else if (isNew) {
+                m_groupAggregators.set(groupIdx, other.m_groupAggregators.get(otherIdx));
+            } else {
+                final ColumnAggregator[] aggregators = m_groupAggregators.get(groupIdx);
+                final ColumnAggregator[] otherAggregators = other.m_groupAggregators.get(otherIdx);
+                for (int i = 0, length = aggregators.length; i < length; i++) {
+                    aggregators[i].getOperator(m_table.getGlobalSettings())
+                        .merge(otherAggregators[i].getOperator(m_table.getGlobalSettings()));
+                }
+            }
+            if (m_rowKeys != null) {
+                m_rowKeys.get(groupIdx).addAll(other.m_rowKeys.get(otherIdx));
+            }
+        }
+    }
+
+    /**
+     * @param groupIdx the index of the group
+     * @return the group values
+     */
+    GroupKey getGroup(final int groupIdx) {
+        return m_groups.get(groupIdx);
+    }
+
+    /**
+     * @param groupIdx the index of the group
+     * @return the keys of the rows that belong to the group
+     */
+    Set<RowKey> getRowKeys(final int groupIdx) {
+        if (m_rowKeys == null) {
+            return Collections.emptySet();
+        }
+        return m_rowKeys.get(groupIdx);
+    }
+
+    /**
+     * Creates the cells of the result row for the given group. Skipped groups are reported to the
+     * {@link GroupByTable}.
+     *
+     * @param groupIdx the index of the group
+     * @return the group values followed by the aggregation results
+     */
+    DataCell[] createResultCells(final int groupIdx) {
+        final DataCell[] groupVals = m_groups.get(groupIdx).getGroupVals();
+        final DataCell[] rowVals = new DataCell[groupVals.length + m_colAggregators.length];
+        //add the group values first
+        System.arraycopy(groupVals, 0, rowVals, 0, groupVals.length);
+        int valIdx = groupVals.length;
+        //add the aggregation values
+        for (int i = 0, length = m_colAggregators.length; i < length; i++) {
+            final String skipMsg;
+            if (m_states != null) {
+                rowVals[valIdx++] = m_states[i].getResult(groupIdx);
+                skipMsg = m_states[i].getSkipMessage(groupIdx);
+            } else {
+                final AggregationOperator operator =
+                    m_groupAggregators.get(groupIdx)[i].getOperator(m_table.getGlobalSettings());
+                rowVals[valIdx++] = operator.getResult();
+                skipMsg = operator.isSkipped() ? operator.getSkipMessage() : null;
+            }
+            if (skipMsg != null) {
+                //add skipped groups and the column that causes the skipping
+                //into the skipped groups map
+                m_table.addSkippedGroup(m_colAggregators[i].getOriginalColName(), skipMsg, groupVals);
+            }
+        }
+        return rowVals;
+    }
+}
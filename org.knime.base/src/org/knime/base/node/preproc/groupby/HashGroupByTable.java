@@ -0,0 +1,427 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+
+
+package org.knime.base.node.preproc.groupby;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.Set;
+
+import org.knime.base.data.aggregation.ColumnAggregator;
+import org.knime.base.data.aggregation.GlobalSettings;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.container.CloseableRowIterator;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.util.memory.MemoryAlertSystem;
+import org.knime.core.data.util.memory.MemoryAlertSystem.MemoryActionIndicator;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.NodeLogger;
+import org.knime.core.util.MutableInteger;
+
+
+/**
+ * A {@link GroupByTable} that aggregates the input table in an in-memory hash table instead of sorting it by the
+ * group columns first. The groups are distributed over a fixed number of hash partitions. Whenever the
+ * {@link MemoryAlertSystem} reports low memory the largest half of the partitions that are currently held in memory
+ * are dropped and marked as spilled. From then on, the rows of a spilled partition are written to one table per
+ * partition while the input is read. Once the input table has been read, the groups of all remaining partitions are
+ * written to the result table. The rows of the spilled partitions that were read before they were spilled are then
+ * written by a second pass over the input table, which ends at the row that caused the last spill, i.e. only spills
+ * near the end of the input cause (almost) a second full scan. The table of each spilled partition is aggregated
+ * recursively using a different part of the group hash code.
+ *
+ * <p>
+ * Unless the original row order should be retained the resulting groups are sorted by the group columns, which
+ * yields the same result as the {@link BigGroupByTable}. Since only the (usually much smaller) set of groups is
+ * sorted, the full sort of the input table is avoided.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.6
+ */
+public class HashGroupByTable extends GroupByTable {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(HashGroupByTable.class);
+
+    /** The number of hash code bits used per recursion level to determine the partition of a group. */
+    private static final int NUM_BITS = 6;
+
+    private static final int NUM_PARTITIONS = 1 << NUM_BITS;
+
+    /** The maximal recursion depth. Each level uses a different part of the hash code. */
+    private static final int MAX_DEPTH = Integer.SIZE / NUM_BITS;
+
+    /** Number of rows after which a low memory condition is simulated (only used in testing routines). */
+    private static int rowsBeforeForcedSpill = 0;
+
+    // fields are initialized in createGroupByTable since it is called by the super constructor
+    private Map<RowKey, Set<RowKey>> m_rowKeys;
+
+    private MutableInteger m_groupCounter;
+
+    /**Constructor for class HashGroupByTable.
+     * @param exec the <code>ExecutionContext</code>
+     * @param inDataTable the table to aggregate
+     * @param groupByCols the name of all columns to group by
+     * @param colAggregators the aggregation columns with the aggregation method
+     * to use in the order the columns should be appear in the result table
+     * numerical columns
+     * @param globalSettings the global settings
+     * @param enableHilite <code>true</code> if a row key map should be
+     * maintained to enable hiliting
+     * @param colNamePolicy the {@link ColumnNamePolicy} for the
+     * aggregation columns
+     * @param retainOrder returns the row of the table in the same order as the
+     * input table if set to <code>true</code>
+     * @throws CanceledExecutionException if the user has canceled the execution
+     */
+    public HashGroupByTable(final ExecutionContext exec,
+            final BufferedDataTable inDataTable,
+            final List<String> groupByCols,
+            final ColumnAggregator[] colAggregators,
+            final GlobalSettings globalSettings, final boolean enableHilite,
+            final ColumnNamePolicy colNamePolicy, final boolean retainOrder)
+    throws CanceledExecutionException {
+        super(exec, inDataTable, groupByCols, colAggregators, globalSettings,
+                enableHilite, colNamePolicy, retainOrder);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected BufferedDataTable createGroupByTable(final ExecutionContext exec,
+            final BufferedDataTable table, final DataTableSpec resultSpec,
+            final int[] groupColIdx) throws CanceledExecutionException {
+        m_rowKeys = new HashMap<>();
+        m_groupCounter = new MutableInteger(0);
+        //the groups are sorted by the group columns afterwards to be
+        //consistent with the BigGroupByTable unless the original row order
+        //is restored anyway
+        final boolean sortGroups = groupColIdx.length > 0 && !isRetainOrder();
+        final BufferedDataContainer dc = exec.createDataContainer(resultSpec);
+        aggregate(sortGroups ? exec.createSubExecutionContext(0.8) : exec, table, groupColIdx, 0, dc);
+        dc.close();
+        final BufferedDataTable groupTable = dc.getTable();
+        if (!sortGroups) {
+            if (isEnableHilite()) {
+                for (final Entry<RowKey, Set<RowKey>> e : m_rowKeys.entrySet()) {
+                    addHiliteMapping(e.getKey(), e.getValue());
+                }
+            }
+            m_rowKeys = null;
+            return groupTable;
+        }
+        exec.setMessage("Sorting groups...");
+        final BufferedDataTable sortedTable =
+            sortTable(exec.createSubExecutionContext(0.15), groupTable, getGroupCols());
+        exec.clearTable(groupTable);
+        final ExecutionContext keyExec = exec.createSubExecutionContext(0.05);
+        final BufferedDataContainer resultContainer = exec.createDataContainer(resultSpec);
+        final double noOfGroups = sortedTable.size();
+        int groupCounter = 0;
+        for (final DataRow row : sortedTable) {
+            keyExec.checkCanceled();
+            keyExec.setProgress(groupCounter / noOfGroups);
+            final RowKey rowKey = RowKey.createRowKey(groupCounter++);
+            resultContainer.addRowToTable(new DefaultRow(rowKey, row));
+            if (isEnableHilite()) {
+                addHiliteMapping(rowKey, m_rowKeys.remove(row.getKey()));
+            }
+        }
+        resultContainer.close();
+        exec.clearTable(sortedTable);
+        m_rowKeys = null;
+        return resultContainer.getTable();
+    }
+
+    /**
+     * Aggregates the given table and adds the resulting groups to the given container. Partitions that have been
+     * spilled due to low memory are aggregated recursively.
+     *
+     * @param exec the {@link ExecutionContext}
+     * @param table the table to aggregate
+     * @param groupColIdx the group column indices
+     * @param depth the recursion depth which determines the part of the hash code used for partitioning
+     * @param dc the container to add the result rows to
+     * @throws CanceledExecutionException if the operation has been canceled
+     */
+    private void aggregate(final ExecutionContext exec, final BufferedDataTable table, final int[] groupColIdx,
+        final int depth, final BufferedDataContainer dc) throws CanceledExecutionException {
+        final DataTableSpec spec = table.getDataTableSpec();
+        //without group columns there is only one group that can't be split
+        final boolean spillEnabled = groupColIdx.length > 0 && depth < MAX_DEPTH;
+        final GroupAggregationStore[] partitions = new GroupAggregationStore[NUM_PARTITIONS];
+        final GroupAggregationStore emptyStore = new GroupAggregationStore(this, spec);
+        final boolean[] spilled = new boolean[NUM_PARTITIONS];
+        //the rows of a spilled partition starting with the row that caused the spill are written to disk right away
+        final BufferedDataContainer[] spillContainers = new BufferedDataContainer[NUM_PARTITIONS];
+        //index of the first row of each spilled partition that has been written to its spill container
+        final long[] spillStartRows = new long[NUM_PARTITIONS];
+        int noOfSpilled = 0;
+        final MemoryActionIndicator memIndicator = MemoryAlertSystem.getInstance().newIndicator();
+        final ExecutionContext hashExec = exec.createSubExecutionContext(0.6);
+        exec.setMessage("Creating groups");
+        final double rowCount = table.size();
+        long rowCounter = 0;
+        for (final DataRow row : table) {
+            hashExec.checkCanceled();
+            final long rowIndex = rowCounter++;
+            hashExec.setProgress(rowCounter / rowCount);
+            final GroupKey groupKey = createGroupKey(row, groupColIdx);
+            final int partition = spillEnabled ? getPartition(groupKey, depth) : 0;
+            if (!spilled[partition] && spillEnabled && (memIndicator.lowMemoryActionRequired()
+                    || (rowsBeforeForcedSpill > 0 && rowCounter % rowsBeforeForcedSpill == 0))) {
+                noOfSpilled += spillPartitions(partitions, spilled, depth);
+                for (int i = 0; i < NUM_PARTITIONS; i++) {
+                    if (spilled[i] && spillContainers[i] == null) {
+                        spillContainers[i] = exec.createDataContainer(spec);
+                        spillStartRows[i] = rowIndex;
+                    }
+                }
+            }
+            if (spilled[partition]) {
+                spillContainers[partition].addRowToTable(row);
+                continue;
+            }
+            GroupAggregationStore groups = partitions[partition];
+            if (groups == null) {
+                groups = emptyStore.createEmptyCopy();
+                partitions[partition] = groups;
+            }
+            groups.compute(groupKey, row);
+        }
+        for (int i = 0; i < NUM_PARTITIONS; i++) {
+            if (partitions[i] != null) {
+                createTableRows(dc, partitions[i]);
+                partitions[i] = null;
+            }
+        }
+        if (noOfSpilled == 0) {
+            exec.setProgress(1.0);
+            return;
+        }
+        LOGGER.debug("Spilled " + noOfSpilled + " of " + NUM_PARTITIONS + " partitions at recursion depth " + depth);
+        final BufferedDataTable[][] spillTables =
+            writeSpilledPrefixes(exec.createSubExecutionContext(0.1), table, groupColIdx, depth, spillContainers,
+                spillStartRows);
+        long noOfSpilledRows = 0;
+        for (int i = 0; i < NUM_PARTITIONS; i++) {
+            if (spillTables[i] != null) {
+                noOfSpilledRows += spillTables[i][0].size() + spillTables[i][1].size();
+            }
+        }
+        //aggregate the spilled partitions one after another
+        for (int i = 0; i < NUM_PARTITIONS; i++) {
+            if (spillTables[i] == null) {
+                continue;
+            }
+            final BufferedDataTable prefix = spillTables[i][0];
+            final BufferedDataTable suffix = spillTables[i][1];
+            final long size = prefix.size() + suffix.size();
+            if (size > 0) {
+                final ExecutionContext subExec = exec.createSubExecutionContext(0.3 * size / noOfSpilledRows);
+                if (prefix.size() == 0 || suffix.size() == 0) {
+                    aggregate(subExec, prefix.size() == 0 ? suffix : prefix, groupColIdx, depth + 1, dc);
+                } else {
+                    //row keys are unique since both tables contain different rows of the input table
+                    final BufferedDataTable spillTable =
+                        exec.createConcatenateTable(exec, Optional.empty(), false, prefix, suffix);
+                    aggregate(subExec, spillTable, groupColIdx, depth + 1, dc);
+                    exec.clearTable(spillTable);
+                }
+            }
+            exec.clearTable(prefix);
+            exec.clearTable(suffix);
+        }
+        exec.setProgress(1.0);
+    }
+
+    /**
+     * Creates the tables of the spilled partitions. The rows that were read after a partition was spilled have
+     * already been written to its spill container while aggregating. The rows of the partition that were read before
+     * (and aggregated in memory until the groups were dropped) are written by a second pass over the input table,
+     * which stops at the last row that was read before the last spill. Concatenating both parts (in this order) yields
+     * the rows of the partition in the order of the input table.
+     *
+     * @param exec the {@link ExecutionContext}
+     * @param table the table that has been aggregated
+     * @param groupColIdx the group column indices
+     * @param depth the recursion depth
+     * @param spillContainers the open spill containers of the spilled partitions, <code>null</code> otherwise
+     * @param spillStartRows the index of the first row in the spill container per spilled partition
+     * @return the rows of each spilled partition that were read before and after the partition has been spilled,
+     *         <code>null</code> for partitions that have not been spilled
+     * @throws CanceledExecutionException if the operation has been canceled
+     */
+    private static BufferedDataTable[][] writeSpilledPrefixes(final ExecutionContext exec,
+        final BufferedDataTable table, final int[] groupColIdx, final int depth,
+        final BufferedDataContainer[] spillContainers, final long[] spillStartRows)
+        throws CanceledExecutionException {
+        final DataTableSpec spec = table.getDataTableSpec();
+        final BufferedDataContainer[] prefixContainers = new BufferedDataContainer[NUM_PARTITIONS];
+        long prefixLength = 0;
+        for (int i = 0; i < NUM_PARTITIONS; i++) {
+            if (spillContainers[i] != null) {
+                prefixContainers[i] = exec.createDataContainer(spec);
+                prefixLength = Math.max(prefixLength, spillStartRows[i]);
+            }
+        }
+        exec.setMessage("Writing spilled partitions");
+        final ExecutionContext prefixExec = exec.createSubExecutionContext(0.9);
+        try (CloseableRowIterator it = table.iterator()) {
+            for (long rowIndex = 0; rowIndex < prefixLength && it.hasNext(); rowIndex++) {
+                prefixExec.checkCanceled();
+                prefixExec.setProgress(rowIndex / (double)prefixLength);
+                final DataRow row = it.next();
+                final int partition = getPartition(createGroupKey(row, groupColIdx), depth);
+                if (prefixContainers[partition] != null && rowIndex < spillStartRows[partition]) {
+                    prefixContainers[partition].addRowToTable(row);
+                }
+            }
+        }
+        final BufferedDataTable[][] spillTables = new BufferedDataTable[NUM_PARTITIONS][];
+        for (int i = 0; i < NUM_PARTITIONS; i++) {
+            if (spillContainers[i] != null) {
+                prefixContainers[i].close();
+                spillContainers[i].close();
+                spillTables[i] = new BufferedDataTable[]{prefixContainers[i].getTable(), spillContainers[i].getTable()};
+            }
+        }
+        exec.setProgress(1.0);
+        return spillTables;
+    }
+
+    /**
+     * Marks the larger half of the non-empty partitions as spilled and releases their groups.
+     *
+     * @param partitions the groups per partition
+     * @param spilled the spilled flag per partition
+     * @param depth the current recursion depth
+     * @return the number of newly spilled partitions
+     */
+    private static int spillPartitions(final GroupAggregationStore[] partitions,
+        final boolean[] spilled, final int depth) {
+        final List<Integer> nonEmptyPartitions = new ArrayList<>();
+        for (int i = 0; i < NUM_PARTITIONS; i++) {
+            if (partitions[i] != null) {
+                nonEmptyPartitions.add(i);
+            }
+        }
+        if (nonEmptyPartitions.size() < 2) {
+            // the remaining partition is split up in the next recursion level
+            // if it is spilled, which is impossible if it is the only one
+            LOGGER.debug("Memory is low but only " + nonEmptyPartitions.size()
+                + " partition is left in memory at recursion depth " + depth);
+            return 0;
+        }
+        nonEmptyPartitions.sort((p1, p2) -> Integer.compare(partitions[p2].size(), partitions[p1].size()));
+        final int noOfPartitions = nonEmptyPartitions.size() / 2;
+        for (int i = 0; i < noOfPartitions; i++) {
+            final int partition = nonEmptyPartitions.get(i);
+            partitions[partition] = null;
+            spilled[partition] = true;
+        }
+        LOGGER.debug("Memory is low. Spilling partitions " + nonEmptyPartitions.subList(0, noOfPartitions)
+            + " at recursion depth " + depth);
+        return noOfPartitions;
+    }
+
+    /**
+     * @param groupKey the group key
+     * @param depth the recursion depth
+     * @return the index of the partition the group belongs to at the given recursion depth
+     */
+    private static int getPartition(final GroupKey groupKey, final int depth) {
+        //spread the bits of the hash code and use a different part of it
+        //in each recursion level
+        final int hash = groupKey.hashCode() * 0x9E3779B9;
+        return Integer.rotateLeft(hash, depth * NUM_BITS) >>> (Integer.SIZE - NUM_BITS);
+    }
+
+    private static GroupKey createGroupKey(final DataRow row, final int[] groupColIdx) {
+        final DataCell[] currentGroup = new DataCell[groupColIdx.length];
+        for (int i = 0, length = groupColIdx.length; i < length; i++) {
+            currentGroup[i] = row.getCell(groupColIdx[i]);
+        }
+        return new GroupKey(currentGroup);
+    }
+
+    /**
+     * Creates and adds the result rows for the given groups to the given data container.
+     *
+     * @param dc the {@link BufferedDataContainer} to use
+     * @param groups the groups to add
+     */
+    private void createTableRows(final BufferedDataContainer dc, final GroupAggregationStore groups) {
+        for (int i = 0, size = groups.size(); i < size; i++) {
+            final RowKey rowKey = RowKey.createRowKey(m_groupCounter.intValue());
+            m_groupCounter.inc();
+            dc.addRowToTable(new DefaultRow(rowKey, groups.createResultCells(i)));
+            if (isEnableHilite()) {
+                m_rowKeys.put(rowKey, groups.getRowKeys(i));
+            }
+        }
+    }
+
+    /**
+     * Simulates a low memory condition every given number of rows (used in testing routines only).
+     *
+     * @param rows the number of rows after which the partitions are spilled or 0 to disable
+     */
+    static void setRowsBeforeForcedSpill(final int rows) {
+        rowsBeforeForcedSpill = rows;
+    }
+}
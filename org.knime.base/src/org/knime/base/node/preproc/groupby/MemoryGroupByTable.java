@@ -45,15 +45,14 @@
 
 package org.knime.base.node.preproc.groupby;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.LinkedHashMap;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
-import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
-import org.knime.base.data.aggregation.AggregationOperator;
 import org.knime.base.data.aggregation.ColumnAggregator;
 import org.knime.base.data.aggregation.GlobalSettings;
 import org.knime.core.data.DataCell;
@@ -66,6 +65,8 @@
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionContext;
 import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.util.ThreadPool;
 
 
 /**
@@ -74,8 +75,10 @@
  */
 public class MemoryGroupByTable extends GroupByTable {
 
-    private Map<GroupKey, Set<RowKey>> m_rowKeys;
-    private Map<GroupKey, ColumnAggregator[]> m_vals;
+    /** The number of consecutive rows that are aggregated by one task if all operators are mergeable. */
+    private static final int CHUNK_SIZE = 10000;
+
+    private GroupAggregationStore m_groups;
 
     /**Constructor for class MemoryGroupByTable.
      * @param exec the <code>ExecutionContext</code>
@@ -149,101 +152,144 @@ protected MemoryGroupByTable(final ExecutionContext exec,
     protected BufferedDataTable createGroupByTable(final ExecutionContext exec,
             final BufferedDataTable dataTable, final DataTableSpec resultSpec,
             final int[] groupColIdx) throws CanceledExecutionException {
-        m_rowKeys = new HashMap<>();
-        m_vals = new LinkedHashMap<>();
+        m_groups = new GroupAggregationStore(this, dataTable.getDataTableSpec());
+        final int noOfThreads = Math.min(KNIMEConstants.GLOBAL_THREAD_POOL.getMaxThreads(),
+            Runtime.getRuntime().availableProcessors());
+        if (noOfThreads > 1 && dataTable.size() >= 2 * CHUNK_SIZE && m_groups.isMergeable()) {
+            aggregateParallel(exec.createSubProgress(0.7), dataTable, groupColIdx, noOfThreads);
+            return createResultTable(exec.createSubExecutionContext(0.3), resultSpec);
+        }
         final ExecutionMonitor groupExec = exec.createSubProgress(0.7);
-        final DataTableSpec spec = dataTable.getDataTableSpec();
         final long rowCount = dataTable.size();
         long rowCounter = 0;
         for (final DataRow row : dataTable) {
             groupExec.checkCanceled();
             groupExec.setProgress(rowCounter++ / (double) rowCount,
                     "Analyzing row " + rowCounter + " of " + rowCount);
-            final DataCell[] currentGroup = new DataCell[groupColIdx.length];
-            //fetch the current group column values
-            for (int i = 0, length = groupColIdx.length; i < length; i++) {
-                currentGroup[i] = row.getCell(groupColIdx[i]);
-            }
-            final GroupKey groupKey = new GroupKey(currentGroup);
-            addRowKey(groupKey, row.getKey());
-            addRow(spec, groupKey, row);
+            m_groups.compute(createGroupKey(row, groupColIdx), row);
         }
         return createResultTable(exec.createSubExecutionContext(0.3), resultSpec);
     }
 
+    private static GroupKey createGroupKey(final DataRow row, final int[] groupColIdx) {
+        final DataCell[] currentGroup = new DataCell[groupColIdx.length];
+        //fetch the current group column values
+        for (int i = 0, length = groupColIdx.length; i < length; i++) {
+            currentGroup[i] = row.getCell(groupColIdx[i]);
+        }
+        return new GroupKey(currentGroup);
+    }
+
+    /**
+     * Splits the table into chunks of consecutive rows that are aggregated in parallel. The partial results of the
+     * chunks are merged in the order of the chunks which retains the order of the groups as well as the semantics of
+     * order dependent operators.
+     *
+     * @param exec the {@link ExecutionMonitor} to report progress to
+     * @param dataTable the table to aggregate
+     * @param groupColIdx the group column indices
+     * @param noOfThreads the maximum number of threads to use
+     * @throws CanceledExecutionException if the user has canceled the execution
+     */
+    private void aggregateParallel(final ExecutionMonitor exec, final BufferedDataTable dataTable,
+        final int[] groupColIdx, final int noOfThreads) throws CanceledExecutionException {
+        final ThreadPool pool = KNIMEConstants.GLOBAL_THREAD_POOL.createSubPool(noOfThreads);
+        final double rowCount = dataTable.size();
+        final Callable<Void> submitter = () -> {
+            //limit the number of pending chunks to bound the memory consumption
+            final Deque<Future<GroupAggregationStore>> futures = new ArrayDeque<>();
+            try {
+                List<DataRow> chunk = new ArrayList<>(CHUNK_SIZE);
+                long rowCounter = 0;
+                for (final DataRow row : dataTable) {
+                    chunk.add(row);
+                    if (chunk.size() == CHUNK_SIZE) {
+                        exec.checkCanceled();
+                        final List<DataRow> rows = chunk;
+                        futures.add(pool.enqueue(() -> aggregateChunk(rows, groupColIdx)));
+                        chunk = new ArrayList<>(CHUNK_SIZE);
+                        if (futures.size() > 2 * noOfThreads) {
+                            m_groups.merge(futures.poll().get());
+                        }
+                    }
+                    rowCounter++;
+                    final long currentRow = rowCounter;
+                    exec.setProgress(rowCounter / rowCount,
+                        () -> "Analyzing row " + currentRow + " of " + (long)rowCount);
+                }
+                if (!chunk.isEmpty()) {
+                    final List<DataRow> rows = chunk;
+                    futures.add(pool.enqueue(() -> aggregateChunk(rows, groupColIdx)));
+                }
+                while (!futures.isEmpty()) {
+                    exec.checkCanceled();
+                    m_groups.merge(futures.poll().get());
+                }
+            } finally {
+                for (final Future<?> future : futures) {
+                    future.cancel(true);
+                }
+            }
+            return null;
+        };
+        try {
+            try {
+                pool.runInvisible(submitter);
+            } catch (IllegalThreadStateException ex) {
+                // this node has not been started by a thread from a thread pool
+                submitter.call();
+            }
+        } catch (ExecutionException ex) {
+            throw rethrow(ex.getCause());
+        } catch (Exception ex) {
+            throw rethrow(ex);
+        }
+    }
+
+    /**
+     * @param rows the rows to aggregate
+     * @param groupColIdx the group column indices
+     * @return the groups of the given rows with their partial aggregation results
+     */
+    private GroupAggregationStore aggregateChunk(final List<DataRow> rows, final int[] groupColIdx) {
+        final GroupAggregationStore groups = m_groups.createEmptyCopy();
+        for (final DataRow row : rows) {
+            groups.compute(createGroupKey(row, groupColIdx), row);
+        }
+        return groups;
+    }
+
+    private static RuntimeException rethrow(final Throwable t) throws CanceledExecutionException {
+        if (t instanceof CanceledExecutionException) {
+            throw (CanceledExecutionException)t;
+        }
+        if (t instanceof RuntimeException) {
+            throw (RuntimeException)t;
+        }
+        if (t instanceof Error) {
+            throw (Error)t;
+        }
+        return new IllegalStateException("Parallel aggregation failed: " + t.getMessage(), t);
+    }
+
     private BufferedDataTable createResultTable(final ExecutionContext exec,
             final DataTableSpec resultSpec) throws CanceledExecutionException {
         final BufferedDataContainer dc = exec.createDataContainer(resultSpec);
-        int groupCounter = 0;
-        final int size = m_vals.size();
-        for (final Entry<GroupKey, ColumnAggregator[]> entry
-                : m_vals.entrySet()) {
+        final int size = m_groups.size();
+        for (int groupCounter = 0; groupCounter < size; groupCounter++) {
             exec.checkCanceled();
             exec.setProgress(groupCounter / (double)size,
                     "Writing group " + groupCounter + " of " + size);
-            final GroupKey groupVals = entry.getKey();
-            final ColumnAggregator[] colAggregators = entry.getValue();
-            final RowKey rowKey = RowKey.createRowKey(groupCounter++);
-            final DataCell[] rowVals =
-                new DataCell[groupVals.size() + colAggregators.length];
-            //add the group values first
-            int valIdx = 0;
-            for (final DataCell groupCell : groupVals.getGroupVals()) {
-                rowVals[valIdx++] = groupCell;
-            }
-            //add the aggregation values
-            for (final ColumnAggregator colAggr : colAggregators) {
-                final AggregationOperator operator =
-                    colAggr.getOperator(getGlobalSettings());
-                rowVals[valIdx++] = operator.getResult();
-                if (operator.isSkipped()) {
-                    //add skipped groups and the column that causes the skipping
-                    //into the skipped groups map
-                    addSkippedGroup(colAggr.getOriginalColName(),
-                            operator.getSkipMessage(),
-                            groupVals.getGroupVals());
-                }
-                //reset the operator for the next group
-                operator.reset();
-            }
-            final DataRow newRow = new DefaultRow(rowKey, rowVals);
+            final RowKey rowKey = RowKey.createRowKey(groupCounter);
+            final DataRow newRow = new DefaultRow(rowKey, m_groups.createResultCells(groupCounter));
             dc.addRowToTable(newRow);
             //add hilite mappings if enabled
             if (isEnableHilite()) {
-                final Set<RowKey> oldKeys = m_rowKeys.get(groupVals);
-                addHiliteMapping(rowKey, oldKeys);
+                addHiliteMapping(rowKey, m_groups.getRowKeys(groupCounter));
             }
         }
         dc.close();
+        m_groups = null;
         return dc.getTable();
     }
-
-    private void addRow(final DataTableSpec spec, final GroupKey groupKey,
-            final DataRow row) {
-        ColumnAggregator[] aggregators = m_vals.get(groupKey);
-        if (aggregators == null) {
-            final ColumnAggregator[] origAggregators = getColAggregators();
-            aggregators = new ColumnAggregator[origAggregators.length];
-            for (int i = 0, length = origAggregators.length; i < length; i++) {
-                aggregators[i] = origAggregators[i].clone();
-            }
-            m_vals.put(groupKey, aggregators);
-        }
-        for (final ColumnAggregator aggregator : aggregators) {
-            final int colIdx =
-                spec.findColumnIndex(aggregator.getOriginalColName());
-            aggregator.getOperator(getGlobalSettings()).compute(row, colIdx);
-        }
-    }
-
-    private void addRowKey(final GroupKey groupKey, final RowKey key) {
-        if (isEnableHilite()) {
-            Set<RowKey> keySet = m_rowKeys.get(groupKey);
-            if (keySet == null) {
-                keySet = new HashSet<>();
-                m_rowKeys.put(groupKey, keySet);
-            }
-            keySet.add(key);
-        }
-    }
 }
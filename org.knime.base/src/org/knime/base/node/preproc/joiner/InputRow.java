@@ -102,43 +102,72 @@ int getIndex() {
      * @return the JoinTuples of this row.
      */
     JoinTuple[] getJoinTuples() {
-        List<Integer> indices = null;
-        indices = m_settings.getJoiningIndices(m_port);
-        if (!m_settings.getMatchAny()) {
-            int numJoinAttributes = indices.size();
-            DataCell[] cells = new DataCell[numJoinAttributes];
-            for (int i = 0; i < numJoinAttributes; i++) {
-                int index = indices.get(i);
-                if (index >= 0) {
-                    cells[i] = m_row.getCell(index);
-                } else {
-                    // create a StringCell since row IDs may match
-                    // StringCell's
-                    cells[i] = new StringCell(m_row.getKey().getString());
-                }
+        JoinTuple[] joinTuples = new JoinTuple[getNumJoinTuples()];
+        for (int i = 0; i < joinTuples.length; i++) {
+            joinTuples[i] = getJoinTuple(i);
+        }
+        return joinTuples;
+    }
+
+    /**
+     * @return the number of join tuples of this row, see
+     * {@link #getJoinTuples()}.
+     */
+    int getNumJoinTuples() {
+        return m_settings.getMatchAny()
+            ? m_settings.getJoiningIndices(m_port).size() : 1;
+    }
+
+    /**
+     * @param tupleIndex the index of the join tuple
+     * @return the join tuple with the given index, see
+     * {@link #getJoinTuples()}.
+     */
+    JoinTuple getJoinTuple(final int tupleIndex) {
+        List<Integer> indices = m_settings.getJoiningIndices(m_port);
+        int numJoinAttributes = indices.size();
+        DataCell[] cells = new DataCell[numJoinAttributes];
+        for (int i = 0; i < numJoinAttributes; i++) {
+            if (m_settings.getMatchAny() && i != tupleIndex) {
+                cells[i] = WildCardCell.getDefault();
+            } else {
+                cells[i] = getJoinCell(indices.get(i));
             }
-            return new JoinTuple[]{new JoinTuple(cells)};
-        } else {
-            int numJoinAttributes = indices.size();
-            JoinTuple[] joinCells = new JoinTuple[numJoinAttributes];
-
-            for (int i = 0; i < numJoinAttributes; i++) {
-                int index = indices.get(i);
-                DataCell[] cells = new DataCell[numJoinAttributes];
-                for (int k = 0; k < numJoinAttributes; k++) {
-                    cells[k] = WildCardCell.getDefault();
-                }
-                if (index >= 0) {
-                    cells[i] = m_row.getCell(index);
-                } else {
-                    // create a StringCell since row IDs may match
-                    // StringCell's
-                    cells[i] = new StringCell(m_row.getKey().getString());
-                }
-                joinCells[i] = new JoinTuple(cells);
+        }
+        return new JoinTuple(cells);
+    }
+
+    /**
+     * Computes the hash code of a join tuple without creating the tuple.
+     *
+     * @param tupleIndex the index of the join tuple
+     * @return the hash code of the join tuple with the given index, equal to
+     * the one of {@link #getJoinTuple(int)}.
+     */
+    int getJoinTupleHashCode(final int tupleIndex) {
+        List<Integer> indices = m_settings.getJoiningIndices(m_port);
+        // same as Arrays#hashCode used by JoinTuple#hashCode
+        int result = 1;
+        for (int i = 0; i < indices.size(); i++) {
+            if (m_settings.getMatchAny() && i != tupleIndex) {
+                result = 31 * result + WildCardCell.getDefault().hashCode();
+            } else if (indices.get(i) >= 0) {
+                result = 31 * result + m_row.getCell(indices.get(i)).hashCode();
+            } else {
+                // equal to the hash code of the StringCell of the row ID
+                result = 31 * result + m_row.getKey().getString().hashCode();
             }
-            return joinCells;
         }
+        return result;
+    }
+
+    private DataCell getJoinCell(final int index) {
+        if (index >= 0) {
+            return m_row.getCell(index);
+        }
+        // create a StringCell since row IDs may match
+        // StringCell's
+        return new StringCell(m_row.getKey().getString());
     }
 
     /**
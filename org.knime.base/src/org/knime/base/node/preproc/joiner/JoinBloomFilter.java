@@ -0,0 +1,148 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+
+package org.knime.base.node.preproc.joiner;
+
+/**
+ * A Bloom filter on the hash codes of the {@link JoinTuple}s of the table that
+ * is read into memory (the top table of the hybrid hash join, the smaller
+ * table of the broadcast hash join). It is used to skip the tuples of the
+ * probed table that cannot have a matching tuple without creating them. The
+ * filter has no false negatives, but it also reports the tuples as possible
+ * matches whose hash code equals the one of a tuple in memory.
+ *
+ * <p>The filter must not be modified while it is read concurrently.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class JoinBloomFilter {
+
+    /** The maximal size of the filter, 16 MB. */
+    private static final long MAX_NUM_BITS = 1L << 27;
+
+    /** About 10 bits per key give a false positive probability of 1%. */
+    private static final int BITS_PER_KEY = 10;
+
+    private static final int MAX_NUM_HASH_FUNCTIONS = 8;
+
+    private final long[] m_bits;
+
+    private final int m_bitMask;
+
+    private final int m_numHashFunctions;
+
+    /**
+     * @param expectedNumKeys The expected number of keys to be added.
+     */
+    JoinBloomFilter(final long expectedNumKeys) {
+        final long keys = Math.max(1, expectedNumKeys);
+        // the number of bits is a power of 2 between 64 and MAX_NUM_BITS
+        final long numBits = Math.min(MAX_NUM_BITS,
+                Long.highestOneBit(Math.max(64, BITS_PER_KEY * keys) - 1) << 1);
+        m_bits = new long[(int)(numBits >>> 6)];
+        m_bitMask = (int)(numBits - 1);
+        m_numHashFunctions = (int)Math.max(1, Math.min(MAX_NUM_HASH_FUNCTIONS,
+                Math.round((double)numBits / keys * Math.log(2))));
+    }
+
+    /**
+     * @param hashCode The hash code of a join tuple to add.
+     */
+    void add(final int hashCode) {
+        final long hash = mix(hashCode);
+        final int h1 = (int)hash;
+        final int h2 = (int)(hash >>> 32) | 1;
+        for (int i = 0; i < m_numHashFunctions; i++) {
+            final int bit = (h1 + i * h2) & m_bitMask;
+            m_bits[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    /**
+     * @param hashCode The hash code of a join tuple.
+     * @return <code>false</code> if no tuple with the given hash code was
+     * added, <code>true</code> if such a tuple might have been added.
+     */
+    boolean mightContain(final int hashCode) {
+        final long hash = mix(hashCode);
+        final int h1 = (int)hash;
+        final int h2 = (int)(hash >>> 32) | 1;
+        for (int i = 0; i < m_numHashFunctions; i++) {
+            final int bit = (h1 + i * h2) & m_bitMask;
+            if ((m_bits[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return The number of bits of the filter.
+     */
+    long getNumBits() {
+        return m_bitMask + 1L;
+    }
+
+    /**
+     * @return The number of hash functions.
+     */
+    int getNumHashFunctions() {
+        return m_numHashFunctions;
+    }
+
+    /**
+     * Spreads the bits of the hash code, the lower bits are used to assign
+     * the tuples to the partitions.
+     */
+    private static long mix(final int hashCode) {
+        long h = hashCode;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
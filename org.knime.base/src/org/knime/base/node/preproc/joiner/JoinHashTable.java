@@ -0,0 +1,442 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+
+package org.knime.base.node.preproc.joiner;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.IntValue;
+import org.knime.core.data.LongValue;
+import org.knime.core.data.StringValue;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
+import org.knime.core.data.def.StringCell;
+
+/**
+ * Maps the {@link JoinTuple}s of the rows of one partition to the indices of
+ * these rows. Tuples that consist of a single {@link IntCell},
+ * {@link LongCell} or {@link StringCell} are stored in an open addressing
+ * table that holds the key values in primitive arrays. All other tuples, i.e.
+ * those of joins on several columns or with cells of other types, are stored
+ * in a {@link HashMap}. The table switches to the map as soon as the first
+ * of these tuples is added.
+ *
+ * <p>The row indices of a tuple are stored as linked list in int arrays,
+ * the lists are iterated with {@link #getFirst(JoinTuple)},
+ * {@link #getNext(int)} and {@link #getRowIndex(int)}. The table can be read
+ * concurrently as long as no rows are added.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class JoinHashTable {
+
+    /** Marks the end of a list and an empty slot. */
+    static final int NO_ENTRY = -1;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private enum KeyType {
+        INT, LONG, STRING
+    }
+
+    /** The type of the keys in the slots, null if no key was added. */
+    private KeyType m_keyType;
+
+    /** The first entry of the key in the slot or NO_ENTRY if empty. */
+    private int[] m_slotHeads;
+
+    /** The hash codes of the join tuples of the keys in the slots. */
+    private int[] m_slotHashes;
+
+    /** The int and long keys, null for string keys. */
+    private long[] m_longKeys;
+
+    /** The string keys, null for int and long keys. */
+    private String[] m_stringKeys;
+
+    private int m_numKeys;
+
+    /** The first entry of the tuples, null if the slots are used. */
+    private Map<JoinTuple, Integer> m_tupleHeads;
+
+    /**
+     * The first entry of the rows with a missing cell per hash code of the
+     * tuple. Missing cells never match, but these rows are needed to compute
+     * the outer join.
+     */
+    private final Map<Integer, Integer> m_missingHeads =
+        new HashMap<Integer, Integer>(2);
+
+    private int[] m_rowIndices = new int[INITIAL_CAPACITY];
+
+    private int[] m_next = new int[INITIAL_CAPACITY];
+
+    private int m_numEntries;
+
+    /**
+     * Adds a row to the table.
+     *
+     * @param tuple A join tuple of the row.
+     * @param rowIndex The index of the row.
+     */
+    void add(final JoinTuple tuple, final int rowIndex) {
+        final DataCell[] cells = tuple.getCells();
+        if (cells.length == 1 && cells[0].isMissing()) {
+            addMissing(tuple.hashCode(), rowIndex);
+            return;
+        }
+        if (null == m_tupleHeads) {
+            final KeyType keyType =
+                cells.length == 1 ? getKeyType(cells[0]) : null;
+            if (null != keyType && null == m_keyType) {
+                initSlots(keyType, INITIAL_CAPACITY);
+            }
+            if (null != keyType && keyType == m_keyType) {
+                addKey(tuple.hashCode(), getLongKey(cells[0]),
+                        getStringKey(cells[0]), rowIndex);
+                return;
+            }
+            switchToMap();
+        }
+        final Integer head = m_tupleHeads.get(tuple);
+        final int oldHead = null == head ? NO_ENTRY : head.intValue();
+        final int newHead = addEntry(oldHead, rowIndex);
+        if (newHead != oldHead) {
+            m_tupleHeads.put(tuple, newHead);
+        }
+    }
+
+    /**
+     * @param tuple The join tuple of a probed row.
+     * @return The first entry of the rows that match the given tuple or
+     * {@link #NO_ENTRY} if no row matches.
+     */
+    int getFirst(final JoinTuple tuple) {
+        if (null != m_tupleHeads) {
+            final Integer head = m_tupleHeads.get(tuple);
+            return null == head ? NO_ENTRY : head.intValue();
+        }
+        final DataCell[] cells = tuple.getCells();
+        if (null == m_keyType || cells.length != 1 || cells[0].isMissing()) {
+            return NO_ENTRY;
+        }
+        final DataCell cell = cells[0];
+        if (getKeyType(cell) == m_keyType) {
+            return m_slotHeads[findSlot(tuple.hashCode(), getLongKey(cell),
+                    getStringKey(cell))];
+        }
+        // cells of other classes can still be equal to a key, e.g. adapter
+        // cells, see DataCell#equals
+        final DataCell keyCell = createKeyCell(cell);
+        if (null == keyCell || !cell.equals(keyCell)) {
+            return NO_ENTRY;
+        }
+        return getFirst(new JoinTuple(new DataCell[]{keyCell}));
+    }
+
+    /**
+     * @param entry An entry of a list.
+     * @return The next entry of the list or {@link #NO_ENTRY}.
+     */
+    int getNext(final int entry) {
+        return m_next[entry];
+    }
+
+    /**
+     * @param entry An entry of a list.
+     * @return The index of the row of the entry.
+     */
+    int getRowIndex(final int entry) {
+        return m_rowIndices[entry];
+    }
+
+    /**
+     * @return The number of distinct join tuples.
+     */
+    int getNumTuples() {
+        return null != m_tupleHeads ? m_tupleHeads.size() : m_numKeys;
+    }
+
+    /**
+     * Passes the indices of all rows in the table to the given consumer. Rows
+     * with several join tuples might be passed more than once.
+     *
+     * @param consumer The consumer of the row indices.
+     */
+    void forEachRowIndex(final IntConsumer consumer) {
+        for (int i = 0; i < m_numEntries; i++) {
+            consumer.accept(m_rowIndices[i]);
+        }
+    }
+
+    /**
+     * Creates a new table with the rows of the join tuples whose hash code
+     * falls into the given partition. Used when the number of partitions is
+     * increased.
+     *
+     * @param bitMask The bit mask applied to the hash codes.
+     * @param partition The partition to retain.
+     * @return A new table with the retained rows.
+     */
+    JoinHashTable retainPartition(final int bitMask, final int partition) {
+        final JoinHashTable retained = new JoinHashTable();
+        if (null != m_tupleHeads) {
+            for (Map.Entry<JoinTuple, Integer> e : m_tupleHeads.entrySet()) {
+                if ((e.getKey().hashCode() & bitMask) == partition) {
+                    for (int i = e.getValue(); i != NO_ENTRY; i = m_next[i]) {
+                        retained.add(e.getKey(), m_rowIndices[i]);
+                    }
+                }
+            }
+        } else if (null != m_keyType) {
+            retained.initSlots(m_keyType, INITIAL_CAPACITY);
+            for (int slot = 0; slot < m_slotHeads.length; slot++) {
+                if (NO_ENTRY != m_slotHeads[slot]
+                        && (m_slotHashes[slot] & bitMask) == partition) {
+                    for (int i = m_slotHeads[slot]; i != NO_ENTRY;
+                            i = m_next[i]) {
+                        retained.addKey(m_slotHashes[slot],
+                                null != m_longKeys ? m_longKeys[slot] : 0,
+                                null != m_stringKeys ? m_stringKeys[slot]
+                                        : null, m_rowIndices[i]);
+                    }
+                }
+            }
+        }
+        for (Map.Entry<Integer, Integer> e : m_missingHeads.entrySet()) {
+            if ((e.getKey() & bitMask) == partition) {
+                for (int i = e.getValue(); i != NO_ENTRY; i = m_next[i]) {
+                    retained.addMissing(e.getKey(), m_rowIndices[i]);
+                }
+            }
+        }
+        return retained;
+    }
+
+    private void addMissing(final int hash, final int rowIndex) {
+        final Integer head = m_missingHeads.get(hash);
+        m_missingHeads.put(hash,
+                addEntry(null == head ? NO_ENTRY : head.intValue(), rowIndex));
+    }
+
+    private void addKey(final int hash, final long longKey,
+            final String stringKey, final int rowIndex) {
+        if (4 * (m_numKeys + 1) > 3 * m_slotHeads.length) {
+            rehash(2 * m_slotHeads.length);
+        }
+        final int slot = findSlot(hash, longKey, stringKey);
+        if (NO_ENTRY == m_slotHeads[slot]) {
+            m_slotHashes[slot] = hash;
+            if (null != m_longKeys) {
+                m_longKeys[slot] = longKey;
+            } else {
+                m_stringKeys[slot] = stringKey;
+            }
+            m_numKeys++;
+        }
+        m_slotHeads[slot] = addEntry(m_slotHeads[slot], rowIndex);
+    }
+
+    /**
+     * @return The slot of the given key or the empty slot where it would be
+     * inserted.
+     */
+    private int findSlot(final int hash, final long longKey,
+            final String stringKey) {
+        final int mask = m_slotHeads.length - 1;
+        // the lower bits are equal within a partition, spread the hash code
+        final int h = hash * 0x9E3779B9;
+        int slot = (h ^ (h >>> 16)) & mask;
+        while (NO_ENTRY != m_slotHeads[slot]) {
+            if (m_slotHashes[slot] == hash && (null != m_longKeys
+                    ? m_longKeys[slot] == longKey
+                    : m_stringKeys[slot].equals(stringKey))) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void initSlots(final KeyType keyType, final int capacity) {
+        m_keyType = keyType;
+        m_slotHeads = new int[capacity];
+        Arrays.fill(m_slotHeads, NO_ENTRY);
+        m_slotHashes = new int[capacity];
+        if (KeyType.STRING == keyType) {
+            m_stringKeys = new String[capacity];
+        } else {
+            m_longKeys = new long[capacity];
+        }
+        m_numKeys = 0;
+    }
+
+    private void rehash(final int capacity) {
+        final int[] slotHeads = m_slotHeads;
+        final int[] slotHashes = m_slotHashes;
+        final long[] longKeys = m_longKeys;
+        final String[] stringKeys = m_stringKeys;
+        initSlots(m_keyType, capacity);
+        for (int i = 0; i < slotHeads.length; i++) {
+            if (NO_ENTRY != slotHeads[i]) {
+                final long longKey = null != longKeys ? longKeys[i] : 0;
+                final String stringKey =
+                    null != stringKeys ? stringKeys[i] : null;
+                final int slot =
+                    findSlot(slotHashes[i], longKey, stringKey);
+                m_slotHeads[slot] = slotHeads[i];
+                m_slotHashes[slot] = slotHashes[i];
+                if (null != m_longKeys) {
+                    m_longKeys[slot] = longKey;
+                } else {
+                    m_stringKeys[slot] = stringKey;
+                }
+                m_numKeys++;
+            }
+        }
+    }
+
+    /** Moves the keys of the slots to the map, the lists are kept. */
+    private void switchToMap() {
+        m_tupleHeads = new HashMap<JoinTuple, Integer>(
+                Math.max(INITIAL_CAPACITY, 2 * m_numKeys));
+        if (null != m_keyType) {
+            for (int slot = 0; slot < m_slotHeads.length; slot++) {
+                if (NO_ENTRY != m_slotHeads[slot]) {
+                    final DataCell cell;
+                    switch (m_keyType) {
+                        case INT:
+                            cell = new IntCell((int)m_longKeys[slot]);
+                            break;
+                        case LONG:
+                            cell = new LongCell(m_longKeys[slot]);
+                            break;
+                        default:
+                            cell = new StringCell(m_stringKeys[slot]);
+                    }
+                    m_tupleHeads.put(new JoinTuple(new DataCell[]{cell}),
+                            m_slotHeads[slot]);
+                }
+            }
+        }
+        m_keyType = null;
+        m_slotHeads = null;
+        m_slotHashes = null;
+        m_longKeys = null;
+        m_stringKeys = null;
+        m_numKeys = 0;
+    }
+
+    /**
+     * Prepends the row index to the given list unless it is already its
+     * first element.
+     *
+     * @return The new first entry of the list.
+     */
+    private int addEntry(final int head, final int rowIndex) {
+        if (NO_ENTRY != head && m_rowIndices[head] == rowIndex) {
+            return head;
+        }
+        if (m_numEntries == m_rowIndices.length) {
+            m_rowIndices = Arrays.copyOf(m_rowIndices, 2 * m_numEntries);
+            m_next = Arrays.copyOf(m_next, 2 * m_numEntries);
+        }
+        m_rowIndices[m_numEntries] = rowIndex;
+        m_next[m_numEntries] = head;
+        return m_numEntries++;
+    }
+
+    /**
+     * @return The key type of the cell or null if the cell is stored in the
+     * map.
+     */
+    private static KeyType getKeyType(final DataCell cell) {
+        final Class<? extends DataCell> cellClass = cell.getClass();
+        if (IntCell.class == cellClass) {
+            return KeyType.INT;
+        } else if (LongCell.class == cellClass) {
+            return KeyType.LONG;
+        } else if (StringCell.class == cellClass) {
+            return KeyType.STRING;
+        }
+        return null;
+    }
+
+    private static long getLongKey(final DataCell cell) {
+        if (cell instanceof IntCell) {
+            return ((IntCell)cell).getIntValue();
+        } else if (cell instanceof LongCell) {
+            return ((LongCell)cell).getLongValue();
+        }
+        return 0;
+    }
+
+    private static String getStringKey(final DataCell cell) {
+        return cell instanceof StringCell
+            ? ((StringCell)cell).getStringValue() : null;
+    }
+
+    /**
+     * @return A cell of the key type with the value of the given cell or null
+     * if the cell does not provide a value of the key type.
+     */
+    private DataCell createKeyCell(final DataCell cell) {
+        switch (m_keyType) {
+            case INT:
+                return cell instanceof IntValue
+                    ? new IntCell(((IntValue)cell).getIntValue()) : null;
+            case LONG:
+                return cell instanceof LongValue
+                    ? new LongCell(((LongValue)cell).getLongValue()) : null;
+            default:
+                return cell instanceof StringValue ? new StringCell(
+                        ((StringValue)cell).getStringValue()) : null;
+        }
+    }
+}
@@ -69,6 +69,13 @@ public JoinTuple(final DataCell[] cells) {
         m_cells = cells;
     }
 
+    /**
+     * @return the cells in the tuple
+     */
+    DataCell[] getCells() {
+        return m_cells;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -47,28 +47,35 @@
  */
 package org.knime.base.node.preproc.joiner;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import org.knime.base.data.sort.SortedTable;
 import org.knime.base.node.preproc.joiner.Joiner2Settings.CompositionMode;
 import org.knime.base.node.preproc.joiner.Joiner2Settings.DuplicateHandling;
 import org.knime.base.node.preproc.joiner.Joiner2Settings.JoinMode;
+import org.knime.core.data.DataCell;
 import org.knime.core.data.DataColumnSpec;
 import org.knime.core.data.DataColumnSpecCreator;
 import org.knime.core.data.DataRow;
 import org.knime.core.data.DataTableSpec;
 import org.knime.core.data.DataType;
+import org.knime.core.data.DataValueComparator;
 import org.knime.core.data.DoubleValue;
 import org.knime.core.data.RowKey;
 import org.knime.core.data.container.CloseableRowIterator;
@@ -80,9 +87,12 @@
 import org.knime.core.node.BufferedDataTable;
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.ExecutionMonitor;
 import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.KNIMEConstants;
 import org.knime.core.node.NodeLogger;
 import org.knime.core.node.util.ConvenienceMethods;
+import org.knime.core.util.ThreadPool;
 import org.knime.core.util.UniqueNameGenerator;
 
 /**
@@ -145,6 +155,60 @@ public final class Joiner {
     /** Only used for testcases, simulates an out-of-memory event after that many rows added in memory. */
     private int m_rowsAddedBeforeForcedOOM;
 
+    private JoinStrategy m_joinStrategy = JoinStrategy.HybridHashJoin;
+
+    /** The number of rows of the outer table that are probed by one thread
+     * at a time (changed in testing routines). */
+    private int m_probeChunkSize = 1000;
+
+    /** The number of threads probing the outer table in parallel, if not
+     * positive it's limited by the global thread pool and the number of
+     * processors (changed in testing routines). */
+    private int m_probeThreadCount = -1;
+
+    /** Whether the hybrid and the broadcast hash join may use a Bloom filter
+     * (changed in testing routines). */
+    private boolean m_useBloomFilter = true;
+
+    /**
+     * The Bloom filter on the join tuples of the table that is read into
+     * memory by the hybrid or the broadcast hash join, null if not used.
+     */
+    private JoinBloomFilter m_bloomFilter;
+
+    /** The number of probed tuples tested with the filter. */
+    private long m_bloomFilterTests;
+
+    /** The number of probed tuples skipped by the filter. */
+    private long m_bloomFilterRejects;
+
+    /** The number of tuples that passed the filter without a match. */
+    private long m_bloomFilterFalsePositives;
+
+    /**
+     * The algorithms that can be used to join the two tables. All of them produce the same output.
+     *
+     * @since 3.6
+     */
+    public enum JoinStrategy {
+        /**
+         * Reads the top table in hash partitions that fit into memory and probes them with the bottom table. The
+         * top table is read again for partitions that did not fit into memory. Supports all settings.
+         */
+        HybridHashJoin,
+        /**
+         * Reads the smaller table into a single hash table and probes it with the larger table in one scan. Falls
+         * back to the hybrid hash join if the smaller table does not fit into memory.
+         */
+        BroadcastHashJoin,
+        /**
+         * Merges both tables in one scan. Requires both tables to be sorted on the joining columns and does not
+         * support the 'match any' composition of more than one joining column (the hybrid hash join is used
+         * instead).
+         */
+        SortMergeJoin;
+    }
+
     /**
      * Creates a new instance.
      *
@@ -182,6 +246,121 @@ HashMap<RowKey, Set<RowKey>> getRightRowKeyMap() {
         return m_rightRowKeyMap;
     }
 
+    /**
+     * @param joinStrategy the algorithm used to join the tables, defaults to
+     *            {@link JoinStrategy#HybridHashJoin}
+     * @since 3.6
+     */
+    public void setJoinStrategy(final JoinStrategy joinStrategy) {
+        m_joinStrategy = joinStrategy;
+    }
+
+    /**
+     * @return the algorithm used to join the tables
+     * @since 3.6
+     */
+    public JoinStrategy getJoinStrategy() {
+        return m_joinStrategy;
+    }
+
+    /**
+     * @return <code>true</code> if the settings allow the use of {@link JoinStrategy#SortMergeJoin}
+     */
+    boolean supportsSortMergeJoin() {
+        return !(m_settings.getCompositionMode().equals(CompositionMode.MatchAny)
+                && m_settings.getLeftJoinColumns().length > 1);
+    }
+
+    /**
+     * Checks whether both tables are sorted on their joining columns in the
+     * order required by {@link JoinStrategy#SortMergeJoin}. The tables are
+     * read in lockstep, one row of each table at a time, and reading stops at
+     * the first row of either table that is out of order. An unsorted table
+     * is thus detected without scanning the other table in full.
+     *
+     * @param leftTable the top input table
+     * @param rightTable the bottom input table
+     * @param exec the execution monitor to check for cancellation
+     * @return <code>true</code> if both tables are sorted
+     * @throws CanceledExecutionException when execution is canceled
+     */
+    boolean isSortedOnJoinColumns(final BufferedDataTable leftTable,
+            final BufferedDataTable rightTable,
+            final ExecutionMonitor exec) throws CanceledExecutionException {
+        Map<InputRow.Settings.InDataPort, List<Integer>> joiningIndicesMap =
+            new HashMap<InputRow.Settings.InDataPort, List<Integer>>();
+        joiningIndicesMap.put(InputRow.Settings.InDataPort.Left,
+                getLeftJoinIndices(leftTable));
+        joiningIndicesMap.put(InputRow.Settings.InDataPort.Right,
+                getRightJoinIndices(rightTable));
+        InputRow.Settings settings = new InputRow.Settings(joiningIndicesMap, false);
+        Comparator<JoinTuple> comparator = createJoinTupleComparator(
+                m_leftDataTableSpec, m_rightDataTableSpec);
+        JoinTuple previousLeft = null;
+        JoinTuple previousRight = null;
+        try (CloseableRowIterator leftIter = leftTable.iterator();
+                CloseableRowIterator rightIter = rightTable.iterator()) {
+            while (leftIter.hasNext() || rightIter.hasNext()) {
+                exec.checkCanceled();
+                if (leftIter.hasNext()) {
+                    JoinTuple tuple = new InputRow(leftIter.next(), 0,
+                        InputRow.Settings.InDataPort.Left, settings).getJoinTuples()[0];
+                    if (previousLeft != null && comparator.compare(previousLeft, tuple) > 0) {
+                        return false;
+                    }
+                    previousLeft = tuple;
+                }
+                if (rightIter.hasNext()) {
+                    JoinTuple tuple = new InputRow(rightIter.next(), 0,
+                        InputRow.Settings.InDataPort.Right, settings).getJoinTuples()[0];
+                    if (previousRight != null && comparator.compare(previousRight, tuple) > 0) {
+                        return false;
+                    }
+                    previousRight = tuple;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Creates a comparator for the join tuples of both tables based on the
+     * comparators of the common super types of the joining columns.
+     */
+    private Comparator<JoinTuple> createJoinTupleComparator(
+            final DataTableSpec leftSpec, final DataTableSpec rightSpec) {
+        String[] leftJoinCols = m_settings.getLeftJoinColumns();
+        String[] rightJoinCols = m_settings.getRightJoinColumns();
+        final DataValueComparator[] comparators =
+            new DataValueComparator[leftJoinCols.length];
+        for (int i = 0; i < leftJoinCols.length; i++) {
+            DataType leftType =
+                Joiner2Settings.ROW_KEY_IDENTIFIER.equals(leftJoinCols[i])
+                ? StringCell.TYPE
+                : leftSpec.getColumnSpec(leftJoinCols[i]).getType();
+            DataType rightType =
+                Joiner2Settings.ROW_KEY_IDENTIFIER.equals(rightJoinCols[i])
+                ? StringCell.TYPE
+                : rightSpec.getColumnSpec(rightJoinCols[i]).getType();
+            comparators[i] = DataType.getCommonSuperType(leftType, rightType)
+                .getComparator();
+        }
+        return new Comparator<JoinTuple>() {
+            @Override
+            public int compare(final JoinTuple o1, final JoinTuple o2) {
+                DataCell[] cells1 = o1.getCells();
+                DataCell[] cells2 = o2.getCells();
+                for (int i = 0; i < comparators.length; i++) {
+                    int diff = comparators[i].compare(cells1[i], cells2[i]);
+                    if (diff != 0) {
+                        return diff;
+                    }
+                }
+                return 0;
+            }
+        };
+    }
+
     /**
      * Creates a spec for the output table by taking care of duplicate columns.
      *
@@ -505,14 +684,6 @@ public BufferedDataTable computeJoinTable(
             .equals(CompositionMode.MatchAny)
             && m_settings.getLeftJoinColumns().length > 1;
 
-        if (m_retainLeft && m_matchAny) {
-            m_globalLeftOuterJoins = new HashSet<Integer>();
-            for (int i = 0; i < leftTable.getRowCount(); i++) {
-                m_globalLeftOuterJoins.add(i);
-            }
-        }
-
-
         m_inputDataRowSettings = createInputDataRowSettings(leftTable,
                 rightTable);
         int[] rightSurvivors = getIndicesOf(rightTable, m_rightSurvivors);
@@ -520,51 +691,28 @@ public BufferedDataTable computeJoinTable(
                 rightTable.getDataTableSpec(),
                 rightSurvivors);
 
-        /* numBits -> numPartitions
-         * 0 -> 1
-         * 1 -> 2
-         * 2 -> 4
-         * 3 -> 8
-         * 4 -> 16
-         * 5 -> 32
-         * 6 -> 64
-         * 7 -> 128
-         */
-        m_numBits = m_numBitsInitial;
-        int numPartitions = 0x0001 << m_numBits;
-        m_bitMask = 0;
-        for (int i = 0; i < m_numBits; i++) {
-            m_bitMask += 0x0001 << i;
-        }
-
-        Set<Integer> pendingParts = new TreeSet<Integer>();
-        for (int i = 0; i < numPartitions; i++) {
-            pendingParts.add(i);
-        }
-
-
         JoinContainer joinCont = new JoinContainer(
                 m_outputDataRowSettings);
 
         double[] progressIntervals = new double[] {0.6, 0.2, 0.2};
         exec.setProgress(0.0);
-        while (pendingParts.size() > 0) {
-            Collection<Integer> processedParts = performJoin(
-                    innerTable, outerTable,
-                    joinCont, pendingParts, exec, progressIntervals[0]);
-            pendingParts.removeAll(processedParts);
-        }
-
-
-        if (m_retainLeft && m_matchAny) {
-            // Add left outer joins
-            int c = 0;
-            for (Integer index : m_globalLeftOuterJoins) {
-                DataRow outRow = OutputRow.createDataRow(c, index, -1,
-                        m_outputDataRowSettings);
-                joinCont.addLeftOuter(outRow, exec);
-                c++;
+        boolean joined = false;
+        if (JoinStrategy.SortMergeJoin.equals(m_joinStrategy)) {
+            if (m_matchAny) {
+                LOGGER.debug("Sort-merge join does not support matching any "
+                        + "of the joining columns, use hybrid hash join.");
+            } else {
+                sortMergeJoin(leftTable, rightTable, joinCont,
+                        exec.createSubExecutionContext(progressIntervals[0]));
+                joined = true;
             }
+        } else if (JoinStrategy.BroadcastHashJoin.equals(m_joinStrategy)) {
+            joined = broadcastHashJoin(leftTable, rightTable, joinCont,
+                    exec.createSubExecutionContext(progressIntervals[0]));
+        }
+        if (!joined) {
+            hybridHashJoin(innerTable, outerTable, joinCont, exec,
+                    progressIntervals[0]);
         }
         joinCont.close();
 
@@ -618,6 +766,426 @@ public BufferedDataTable computeJoinTable(
         return oc.getTable();
     }
 
+    /**
+     * Joins the tables with the hybrid hash join, see
+     * {@link JoinStrategy#HybridHashJoin}.
+     *
+     * @param leftTable The inner input table.
+     * @param rightTable The outer input table.
+     * @param joinCont The container used for storing the joined rows.
+     * @param exec The execution context.
+     * @param progressDiff The difference in the progress monitor.
+     * @throws CanceledExecutionException when execution is canceled
+     */
+    private void hybridHashJoin(final BufferedDataTable leftTable,
+            final BufferedDataTable rightTable,
+            final JoinContainer joinCont,
+            final ExecutionContext exec,
+            final double progressDiff) throws CanceledExecutionException {
+        if (m_retainLeft && m_matchAny) {
+            m_globalLeftOuterJoins = new HashSet<Integer>();
+            for (int i = 0; i < leftTable.getRowCount(); i++) {
+                m_globalLeftOuterJoins.add(i);
+            }
+        }
+
+        /* numBits -> numPartitions
+         * 0 -> 1
+         * 1 -> 2
+         * 2 -> 4
+         * 3 -> 8
+         * 4 -> 16
+         * 5 -> 32
+         * 6 -> 64
+         * 7 -> 128
+         */
+        m_numBits = m_numBitsInitial;
+        int numPartitions = 0x0001 << m_numBits;
+        m_bitMask = 0;
+        for (int i = 0; i < m_numBits; i++) {
+            m_bitMask += 0x0001 << i;
+        }
+
+        Set<Integer> pendingParts = new TreeSet<Integer>();
+        for (int i = 0; i < numPartitions; i++) {
+            pendingParts.add(i);
+        }
+
+        // The filter is filled while the top table is read the first time.
+        // It is only used if the top table is not larger than the bottom
+        // table, otherwise most rows of the bottom table are expected to match.
+        m_bloomFilter = m_useBloomFilter
+                && leftTable.size() <= rightTable.size()
+            ? new JoinBloomFilter(leftTable.size()
+                    * (m_matchAny ? m_settings.getLeftJoinColumns().length : 1))
+            : null;
+        m_bloomFilterTests = 0;
+        m_bloomFilterRejects = 0;
+        m_bloomFilterFalsePositives = 0;
+
+        boolean fillBloomFilter = null != m_bloomFilter;
+        while (pendingParts.size() > 0) {
+            Collection<Integer> processedParts = performJoin(
+                    leftTable, rightTable,
+                    joinCont, pendingParts, exec, progressDiff,
+                    fillBloomFilter);
+            fillBloomFilter = false;
+            pendingParts.removeAll(processedParts);
+        }
+
+        logBloomFilterStatistics();
+
+
+        if (m_retainLeft && m_matchAny) {
+            // Add left outer joins
+            int c = 0;
+            for (Integer index : m_globalLeftOuterJoins) {
+                DataRow outRow = OutputRow.createDataRow(c, index, -1,
+                        m_outputDataRowSettings);
+                joinCont.addLeftOuter(outRow, exec);
+                c++;
+            }
+        }
+    }
+
+    /**
+     * Logs how many probed tuples were skipped by the Bloom filter and
+     * releases the filter.
+     */
+    private void logBloomFilterStatistics() {
+        if (null != m_bloomFilter) {
+            LOGGER.debug("Bloom filter with " + m_bloomFilter.getNumBits()
+                + " bits and " + m_bloomFilter.getNumHashFunctions()
+                + " hash functions skipped " + m_bloomFilterRejects + " of "
+                + m_bloomFilterTests + " probed tuples ("
+                + Math.round(100.0 * m_bloomFilterRejects
+                        / Math.max(1, m_bloomFilterTests))
+                + "%), " + m_bloomFilterFalsePositives
+                + " tuples passed without a match.");
+            m_bloomFilter = null;
+        }
+    }
+
+    /**
+     * Joins the tables with the broadcast hash join, see
+     * {@link JoinStrategy#BroadcastHashJoin}. The smaller table is read into
+     * memory and the larger table is scanned once. The join tuples of the
+     * larger table are only created if the Bloom filter on the smaller table
+     * reports a possible match.
+     *
+     * @param leftTable The left input table.
+     * @param rightTable The right input table.
+     * @param outputCont The container used for storing the joined rows.
+     * @param exec The execution context.
+     * @return <code>false</code> if the smaller table does not fit into
+     * memory. Nothing was added to the output container in this case.
+     * @throws CanceledExecutionException when execution is canceled
+     */
+    private boolean broadcastHashJoin(final BufferedDataTable leftTable,
+            final BufferedDataTable rightTable,
+            final JoinContainer outputCont,
+            final ExecutionContext exec) throws CanceledExecutionException {
+        final boolean buildLeft = leftTable.size() <= rightTable.size();
+        final BufferedDataTable buildTable = buildLeft ? leftTable : rightTable;
+        final BufferedDataTable probeTable = buildLeft ? rightTable : leftTable;
+        final boolean retainBuild = buildLeft ? m_retainLeft : m_retainRight;
+        final boolean retainProbe = buildLeft ? m_retainRight : m_retainLeft;
+        final double numRows = Math.max(1, leftTable.size() + rightTable.size());
+
+        MemoryActionIndicator memIndicator =
+            MemoryAlertSystem.getInstance().newIndicator();
+        JoinHashTable buildTuples = new JoinHashTable();
+        m_bloomFilter = m_useBloomFilter
+            ? new JoinBloomFilter(buildTable.size()
+                    * (m_matchAny ? m_settings.getLeftJoinColumns().length : 1))
+            : null;
+        m_bloomFilterTests = 0;
+        m_bloomFilterRejects = 0;
+        m_bloomFilterFalsePositives = 0;
+        // the rows of the right table are needed to create the output rows
+        List<DataRow> buildRows = buildLeft ? null : new ArrayList<DataRow>();
+        int buildCount = 0;
+        try (CloseableRowIterator iter = buildTable.iterator()) {
+            while (iter.hasNext()) {
+                exec.checkCanceled();
+                if (memIndicator.lowMemoryActionRequired()
+                        || (m_rowsAddedBeforeForcedOOM > 0
+                                && buildCount >= m_rowsAddedBeforeForcedOOM)) {
+                    LOGGER.debug("Memory is low, the " + (buildLeft ? "top" : "bottom")
+                        + " table does not fit into memory. Fall back to hybrid hash join.");
+                    m_bloomFilter = null;
+                    return false;
+                }
+                DataRow row = iter.next();
+                InputRow inputRow = new InputRow(row, buildCount,
+                        buildLeft ? InputRow.Settings.InDataPort.Left
+                                : InputRow.Settings.InDataPort.Right,
+                        m_inputDataRowSettings);
+                for (JoinTuple tuple : inputRow.getJoinTuples()) {
+                    buildTuples.add(tuple, buildCount);
+                    if (null != m_bloomFilter) {
+                        m_bloomFilter.add(tuple.hashCode());
+                    }
+                }
+                if (null != buildRows) {
+                    buildRows.add(row);
+                }
+                buildCount++;
+                exec.setProgress(buildCount / numRows);
+            }
+        }
+
+        BitSet matchedBuildRows = retainBuild ? new BitSet(buildCount) : null;
+        int probeCount = 0;
+        try (CloseableRowIterator iter = probeTable.iterator()) {
+            while (iter.hasNext()) {
+                exec.checkCanceled();
+                DataRow row = iter.next();
+                InputRow inputRow = new InputRow(row, probeCount,
+                        buildLeft ? InputRow.Settings.InDataPort.Right
+                                : InputRow.Settings.InDataPort.Left,
+                        m_inputDataRowSettings);
+                boolean matchFound = false;
+                for (int t = 0; t < inputRow.getNumJoinTuples(); t++) {
+                    if (null != m_bloomFilter) {
+                        m_bloomFilterTests++;
+                        if (!m_bloomFilter.mightContain(
+                                inputRow.getJoinTupleHashCode(t))) {
+                            m_bloomFilterRejects++;
+                            continue;
+                        }
+                    }
+                    int entry = buildTuples.getFirst(inputRow.getJoinTuple(t));
+                    if (JoinHashTable.NO_ENTRY == entry) {
+                        if (null != m_bloomFilter) {
+                            m_bloomFilterFalsePositives++;
+                        }
+                        continue;
+                    }
+                    matchFound = true;
+                    for (; entry != JoinHashTable.NO_ENTRY;
+                            entry = buildTuples.getNext(entry)) {
+                        int index = buildTuples.getRowIndex(entry);
+                        DataRow outRow = buildLeft
+                            ? OutputRow.createDataRow(outputCont.getRowCount(),
+                                    index, probeCount, row,
+                                    m_outputDataRowSettings)
+                            : OutputRow.createDataRow(outputCont.getRowCount(),
+                                    probeCount, index, buildRows.get(index),
+                                    m_outputDataRowSettings);
+                        outputCont.addMatch(outRow, exec);
+                        if (null != matchedBuildRows) {
+                            matchedBuildRows.set(index);
+                        }
+                    }
+                }
+                if (retainProbe && !matchFound) {
+                    if (buildLeft) {
+                        addRightOuter(outputCont, probeCount, row, exec);
+                    } else {
+                        addLeftOuter(outputCont, probeCount, exec);
+                    }
+                }
+                probeCount++;
+                exec.setProgress((buildCount + probeCount) / numRows);
+            }
+        }
+        logBloomFilterStatistics();
+
+        if (null != matchedBuildRows) {
+            for (int i = matchedBuildRows.nextClearBit(0); i < buildCount;
+                    i = matchedBuildRows.nextClearBit(i + 1)) {
+                if (buildLeft) {
+                    addLeftOuter(outputCont, i, exec);
+                } else {
+                    addRightOuter(outputCont, i, buildRows.get(i), exec);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Joins the tables with the sort-merge join, see
+     * {@link JoinStrategy#SortMergeJoin}. Both tables must be sorted on the
+     * joining columns.
+     *
+     * @param leftTable The left input table.
+     * @param rightTable The right input table.
+     * @param outputCont The container used for storing the joined rows.
+     * @param exec The execution context.
+     * @throws CanceledExecutionException when execution is canceled
+     * @throws IllegalStateException if one of the tables is not sorted
+     */
+    private void sortMergeJoin(final BufferedDataTable leftTable,
+            final BufferedDataTable rightTable,
+            final JoinContainer outputCont,
+            final ExecutionContext exec) throws CanceledExecutionException {
+        final Comparator<JoinTuple> comparator = createJoinTupleComparator(
+                leftTable.getDataTableSpec(), rightTable.getDataTableSpec());
+        final double numRows = Math.max(1, leftTable.size() + rightTable.size());
+        try (SortedTupleIterator leftIter = new SortedTupleIterator(leftTable,
+                    InputRow.Settings.InDataPort.Left, comparator);
+                SortedTupleIterator rightIter = new SortedTupleIterator(
+                    rightTable, InputRow.Settings.InDataPort.Right,
+                    comparator)) {
+            List<Integer> leftRun = new ArrayList<Integer>();
+            List<JoinTuple> leftRunTuples = new ArrayList<JoinTuple>();
+            while (leftIter.hasRow() || rightIter.hasRow()) {
+                exec.checkCanceled();
+                int diff = !leftIter.hasRow() ? 1 : !rightIter.hasRow() ? -1
+                    : comparator.compare(leftIter.getTuple(),
+                            rightIter.getTuple());
+                if (diff < 0) {
+                    if (m_retainLeft) {
+                        addLeftOuter(outputCont, leftIter.getIndex(), exec);
+                    }
+                    leftIter.advance();
+                } else if (diff > 0) {
+                    if (m_retainRight) {
+                        addRightOuter(outputCont, rightIter.getIndex(),
+                                rightIter.getRow(), exec);
+                    }
+                    rightIter.advance();
+                } else {
+                    // collect the left rows with the same key, note that
+                    // tuples with missing cells compare equal but never match
+                    JoinTuple key = leftIter.getTuple();
+                    leftRun.clear();
+                    leftRunTuples.clear();
+                    while (leftIter.hasRow()
+                            && comparator.compare(key, leftIter.getTuple()) == 0) {
+                        leftRun.add(leftIter.getIndex());
+                        leftRunTuples.add(leftIter.getTuple());
+                        leftIter.advance();
+                    }
+                    BitSet matchedLeftRows = new BitSet(leftRun.size());
+                    while (rightIter.hasRow()
+                            && comparator.compare(key, rightIter.getTuple()) == 0) {
+                        exec.checkCanceled();
+                        boolean matchFound = false;
+                        for (int i = 0; i < leftRun.size(); i++) {
+                            if (leftRunTuples.get(i).equals(rightIter.getTuple())) {
+                                DataRow outRow = OutputRow.createDataRow(
+                                        outputCont.getRowCount(),
+                                        leftRun.get(i), rightIter.getIndex(),
+                                        rightIter.getRow(),
+                                        m_outputDataRowSettings);
+                                outputCont.addMatch(outRow, exec);
+                                matchedLeftRows.set(i);
+                                matchFound = true;
+                            }
+                        }
+                        if (m_retainRight && !matchFound) {
+                            addRightOuter(outputCont, rightIter.getIndex(),
+                                    rightIter.getRow(), exec);
+                        }
+                        rightIter.advance();
+                    }
+                    if (m_retainLeft) {
+                        for (int i = matchedLeftRows.nextClearBit(0);
+                                i < leftRun.size();
+                                i = matchedLeftRows.nextClearBit(i + 1)) {
+                            addLeftOuter(outputCont, leftRun.get(i), exec);
+                        }
+                    }
+                }
+                exec.setProgress((leftIter.getIndex() + rightIter.getIndex())
+                        / numRows);
+            }
+        }
+    }
+
+    /** Adds a row of the left table that does not match any row. */
+    private void addLeftOuter(final JoinContainer outputCont,
+            final int leftIndex, final ExecutionContext exec) {
+        DataRow outRow = OutputRow.createDataRow(outputCont.getRowCount(),
+                leftIndex, -1, m_outputDataRowSettings);
+        outputCont.addLeftOuter(outRow, exec);
+    }
+
+    /** Adds a row of the right table that does not match any row. */
+    private void addRightOuter(final JoinContainer outputCont,
+            final int rightIndex, final DataRow rightRow,
+            final ExecutionContext exec) {
+        DataRow outRow = OutputRow.createDataRow(outputCont.getRowCount(),
+                -1, rightIndex, rightRow, m_outputDataRowSettings);
+        outputCont.addRightOuter(outRow, exec);
+    }
+
+    /**
+     * Iterates over the rows of a table together with their join tuple and
+     * checks that the rows are sorted on the joining columns.
+     */
+    private final class SortedTupleIterator implements AutoCloseable {
+        private final CloseableRowIterator m_iter;
+
+        private final InputRow.Settings.InDataPort m_port;
+
+        private final Comparator<JoinTuple> m_comparator;
+
+        private DataRow m_row;
+
+        private JoinTuple m_tuple;
+
+        private int m_index = -1;
+
+        SortedTupleIterator(final BufferedDataTable table,
+                final InputRow.Settings.InDataPort port,
+                final Comparator<JoinTuple> comparator) {
+            m_iter = table.iterator();
+            m_port = port;
+            m_comparator = comparator;
+            advance();
+        }
+
+        /** @return <code>true</code> if the iterator points to a row */
+        boolean hasRow() {
+            return null != m_row;
+        }
+
+        /** @return the current row */
+        DataRow getRow() {
+            return m_row;
+        }
+
+        /** @return the join tuple of the current row */
+        JoinTuple getTuple() {
+            return m_tuple;
+        }
+
+        /** @return the index of the current row */
+        int getIndex() {
+            return m_index;
+        }
+
+        /** Moves to the next row. */
+        void advance() {
+            if (!m_iter.hasNext()) {
+                m_row = null;
+                return;
+            }
+            JoinTuple previous = m_tuple;
+            m_row = m_iter.next();
+            m_index++;
+            m_tuple = new InputRow(m_row, m_index, m_port,
+                    m_inputDataRowSettings).getJoinTuples()[0];
+            if (null != previous && m_comparator.compare(previous, m_tuple) > 0) {
+                throw new IllegalStateException("The "
+                        + (InputRow.Settings.InDataPort.Left.equals(m_port)
+                                ? "top" : "bottom")
+                        + " input table is not sorted on the joining columns"
+                        + " (row \"" + m_row.getKey() + "\")");
+            }
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void close() {
+            m_iter.close();
+        }
+    }
+
     /** This method start with reading the partitions of the left table defined
      * in currParts. If memory is low, partitions will be skipped or the
      * number of partitions will be raised which leads to smaller partitions.
@@ -630,6 +1198,8 @@ public BufferedDataTable computeJoinTable(
      * @param pendingParts The parts that are not processed yet.
      * @param exec The execution context.
      * @param progressDiff The difference in the progress monitor.
+     * @param fillBloomFilter Whether the join tuples of all rows of the inner
+     * table are added to the Bloom filter.
      * @return The partitions that were successfully processed (read + joined).
      * @throws CanceledExecutionException when execution is canceled
      */
@@ -639,7 +1209,8 @@ private Collection<Integer> performJoin(
             final JoinContainer outputContainer,
             final Collection<Integer> pendingParts,
             final ExecutionContext exec,
-            final double progressDiff) throws CanceledExecutionException  {
+            final double progressDiff,
+            final boolean fillBloomFilter) throws CanceledExecutionException  {
         // Update increment for reporting progress
         double progress = exec.getProgressMonitor().getProgress();
         double numRows = leftTable.size() + rightTable.size();
@@ -650,8 +1221,8 @@ private Collection<Integer> performJoin(
         setMessage("Read", exec, pendingParts, currParts);
 
         // Partition left table
-        Map <Integer, Map<JoinTuple, Set<Integer>>> leftTableHashed =
-            new HashMap<Integer, Map<JoinTuple, Set<Integer>>>();
+        Map <Integer, JoinHashTable> leftTableHashed =
+            new HashMap<Integer, JoinHashTable>();
         // This is only used when m_leftRetain is true and m_matchAny is false.
         // It holds the row indices of the left table that do not match to
         // any row of the right table
@@ -677,6 +1248,9 @@ private Collection<Integer> performJoin(
                         m_inputDataRowSettings);
 
                 for (JoinTuple tuple : inputDataRow.getJoinTuples()) {
+                    if (fillBloomFilter) {
+                        m_bloomFilter.add(tuple.hashCode());
+                    }
                     int partition = tuple.hashCode() & m_bitMask;
                     if (currParts.contains(partition)) {
                         addRow(leftTableHashed, leftOuterJoins,
@@ -780,7 +1354,7 @@ private Collection<Integer> performJoin(
         // Log which parts were successfully joined
         for (int part : currParts) {
             int numTuples = leftTableHashed.get(part) != null
-            ? leftTableHashed.get(part).values().size() : 0;
+            ? leftTableHashed.get(part).getNumTuples() : 0;
             LOGGER.debug("Joined " + part + " with "
                     + numTuples + " tuples.");
         }
@@ -817,27 +1391,19 @@ private void setMessage(final String activity,
      * the entries that are in the given part.
      */
     private void retainPartitions(
-            final Map<Integer, Map<JoinTuple, Set<Integer>>> innerHash,
+            final Map<Integer, JoinHashTable> innerHash,
             final Map<Integer, Set<Integer>> innerIndexMap,
             final int part) {
         innerIndexMap.clear();
 
-        Map<JoinTuple, Set<Integer>> thisInnerHash = innerHash.get(part);
-        for (Iterator<JoinTuple> iter = thisInnerHash.keySet().iterator();
-        iter.hasNext();) {
-            JoinTuple tuple = iter.next();
-            int index = tuple.hashCode() & m_bitMask;
-            if (index != part) {
-                iter.remove();
-            } else if (m_retainLeft && !m_matchAny) {
-                Set<Integer> thisInnerIndexMap = innerIndexMap.get(index);
-                if (null == thisInnerIndexMap) {
-                    thisInnerIndexMap = new HashSet<Integer>();
-                    innerIndexMap.put(index, thisInnerIndexMap);
-                }
-                for (Integer rowIndex : thisInnerHash.get(tuple)) {
-                    thisInnerIndexMap.add(rowIndex);
-                }
+        JoinHashTable thisInnerHash =
+            innerHash.get(part).retainPartition(m_bitMask, part);
+        innerHash.put(part, thisInnerHash);
+        if (m_retainLeft && !m_matchAny) {
+            Set<Integer> thisInnerIndexMap = new HashSet<Integer>();
+            thisInnerHash.forEachRowIndex(thisInnerIndexMap::add);
+            if (!thisInnerIndexMap.isEmpty()) {
+                innerIndexMap.put(part, thisInnerIndexMap);
             }
         }
     }
@@ -849,7 +1415,7 @@ private void retainPartitions(
      * @param row The row to be added.
      */
     private void addRow(
-            final Map <Integer, Map<JoinTuple, Set<Integer>>> leftTableHashed,
+            final Map <Integer, JoinHashTable> leftTableHashed,
             final Map <Integer, Set<Integer>> leftOuterJoins,
             final int partition, final JoinTuple joinTuple,
             final InputRow row) {
@@ -862,29 +1428,20 @@ private void addRow(
             indices.add(row.getIndex());
         }
 
-        Map<JoinTuple, Set<Integer>> partTuples =
-            leftTableHashed.get(partition);
+        JoinHashTable partTuples = leftTableHashed.get(partition);
         if (null == partTuples) {
-            partTuples = new HashMap<JoinTuple, Set<Integer>>();
+            partTuples = new JoinHashTable();
             leftTableHashed.put(partition, partTuples);
         }
-
-
-        Set<Integer> c = partTuples.get(joinTuple);
-        if (null != c) {
-            c.add(row.getIndex());
-        } else {
-            Set<Integer> list = new HashSet<Integer>();
-            list.add(row.getIndex());
-            partTuples.put(joinTuple, list);
-        }
-
-
+        partTuples.add(joinTuple, row.getIndex());
     }
 
 
     /**
-     * Join given rows in memory and append joined row to the outputCont.
+     * Join given rows in memory and append joined row to the outputCont. The
+     * rows of the outer table are probed in parallel if the table is large
+     * enough. The probing threads only read the hash tables of the left
+     * table, the joined rows are added in the order of the outer table.
      *
      * @param leftTableHashed Stores the rows of the left input table in parts.
      * @param leftOuterJoins The same number as found in leftTableHashed used
@@ -897,96 +1454,292 @@ private void addRow(
      * @throws CanceledExecutionException When execution is canceled
      */
     private void joinInMemory(
-            final Map <Integer, Map<JoinTuple, Set<Integer>>> leftTableHashed,
+            final Map <Integer, JoinHashTable> leftTableHashed,
             final Map <Integer, Set<Integer>> leftOuterJoins,
             final Collection<Integer> currParts,
             final BufferedDataTable rightTable,
             final JoinContainer outputCont,
             final ExecutionContext exec,
             final double incProgress) throws CanceledExecutionException {
-        double progress = exec.getProgressMonitor().getProgress();
-        int counter = 0;
-        for (DataRow dataRow : rightTable) {
-            progress += incProgress;
-            exec.getProgressMonitor().setProgress(progress);
-            exec.checkCanceled();
+        // the partitions are looked up for every join tuple
+        final Set<Integer> parts = new HashSet<Integer>(currParts);
+        final int noOfThreads = m_probeThreadCount > 0 ? m_probeThreadCount
+                : Math.min(KNIMEConstants.GLOBAL_THREAD_POOL.getMaxThreads(),
+                        Runtime.getRuntime().availableProcessors());
+        if (noOfThreads > 1 && rightTable.size() >= 2 * m_probeChunkSize) {
+            joinInMemoryParallel(leftTableHashed, leftOuterJoins, parts,
+                    rightTable, outputCont, exec, incProgress, noOfThreads);
+        } else {
+            double progress = exec.getProgressMonitor().getProgress();
+            int counter = 0;
+            for (DataRow dataRow : rightTable) {
+                progress += incProgress;
+                exec.getProgressMonitor().setProgress(progress);
+                exec.checkCanceled();
+                addProbeResult(probe(leftTableHashed, parts, dataRow, counter),
+                        leftOuterJoins, outputCont, exec);
+                counter++;
+            }
+        }
 
-            InputRow rightRow = new InputRow(dataRow, counter,
-                    InputRow.Settings.InDataPort.Right,
-                    m_inputDataRowSettings);
+        if (m_retainLeft && !m_matchAny) {
+            for (int partition : leftOuterJoins.keySet()) {
+                for (Integer row : leftOuterJoins.get(partition)) {
+                    // add left outer join
+                    DataRow outRow = OutputRow.createDataRow(
+                            outputCont.getRowCount(),
+                            row, -1,
+                            m_outputDataRowSettings);
+                    outputCont.addLeftOuter(outRow, exec);
+                }
+            }
+        }
 
-            boolean matchFoundForRightRow = false;
-            boolean deferMatch = false;
+    }
 
-            for (JoinTuple joinTuple : rightRow.getJoinTuples()) {
-                int partition = joinTuple.hashCode() & m_bitMask;
-                if (!currParts.contains(partition)) {
-                    deferMatch = true;
-                    // skip and defer non-match when partition is not in the current partitions
-                    continue;
+    /**
+     * Probes chunks of consecutive rows of the outer table in parallel and
+     * adds the results of the chunks in their original order.
+     */
+    private void joinInMemoryParallel(
+            final Map <Integer, JoinHashTable> leftTableHashed,
+            final Map <Integer, Set<Integer>> leftOuterJoins,
+            final Set<Integer> currParts,
+            final BufferedDataTable rightTable,
+            final JoinContainer outputCont,
+            final ExecutionContext exec,
+            final double incProgress,
+            final int noOfThreads) throws CanceledExecutionException {
+        final ThreadPool pool =
+            KNIMEConstants.GLOBAL_THREAD_POOL.createSubPool(noOfThreads);
+        final Callable<Void> submitter = () -> {
+            // limit the number of pending chunks to bound the memory consumption
+            final Deque<Future<ProbeResult[]>> futures = new ArrayDeque<>();
+            double progress = exec.getProgressMonitor().getProgress();
+            try {
+                List<DataRow> chunk = new ArrayList<DataRow>(m_probeChunkSize);
+                int counter = 0;
+                for (DataRow dataRow : rightTable) {
+                    chunk.add(dataRow);
+                    counter++;
+                    if (chunk.size() == m_probeChunkSize) {
+                        exec.checkCanceled();
+                        final List<DataRow> rows = chunk;
+                        final int firstIndex = counter - rows.size();
+                        futures.add(pool.enqueue(() -> probeChunk(
+                                leftTableHashed, currParts, rows, firstIndex)));
+                        chunk = new ArrayList<DataRow>(m_probeChunkSize);
+                        if (futures.size() > 2 * noOfThreads) {
+                            progress = addProbeResults(futures.poll().get(),
+                                    leftOuterJoins, outputCont, exec,
+                                    progress, incProgress);
+                        }
+                    }
+                }
+                if (!chunk.isEmpty()) {
+                    final List<DataRow> rows = chunk;
+                    final int firstIndex = counter - rows.size();
+                    futures.add(pool.enqueue(() -> probeChunk(
+                            leftTableHashed, currParts, rows, firstIndex)));
                 }
+                while (!futures.isEmpty()) {
+                    exec.checkCanceled();
+                    progress = addProbeResults(futures.poll().get(),
+                            leftOuterJoins, outputCont, exec,
+                            progress, incProgress);
+                }
+            } finally {
+                for (Future<?> future : futures) {
+                    future.cancel(true);
+                }
+            }
+            return null;
+        };
+        try {
+            try {
+                pool.runInvisible(submitter);
+            } catch (IllegalThreadStateException ex) {
+                // this node has not been started by a thread from a thread pool
+                submitter.call();
+            }
+        } catch (ExecutionException ex) {
+            throw rethrow(ex.getCause());
+        } catch (Exception ex) {
+            throw rethrow(ex);
+        }
+    }
+
+    private ProbeResult[] probeChunk(
+            final Map <Integer, JoinHashTable> leftTableHashed,
+            final Set<Integer> currParts, final List<DataRow> rows,
+            final int firstIndex) {
+        ProbeResult[] results = new ProbeResult[rows.size()];
+        for (int i = 0; i < results.length; i++) {
+            results[i] = probe(leftTableHashed, currParts, rows.get(i),
+                    firstIndex + i);
+        }
+        return results;
+    }
+
+    private double addProbeResults(final ProbeResult[] results,
+            final Map <Integer, Set<Integer>> leftOuterJoins,
+            final JoinContainer outputCont,
+            final ExecutionContext exec,
+            final double progress, final double incProgress) {
+        for (ProbeResult result : results) {
+            addProbeResult(result, leftOuterJoins, outputCont, exec);
+        }
+        double newProgress = progress + results.length * incProgress;
+        exec.getProgressMonitor().setProgress(newProgress);
+        return newProgress;
+    }
 
-                Map<JoinTuple, Set<Integer>> leftTuples =
-                    leftTableHashed.get(partition);
-                if (null == leftTuples) {
-                    // skip and check for outer join when the left table does not have rows that fall
-                    // in this partition
-                    deferMatch = false;
+    /**
+     * Finds the rows of the left table that match the given row of the right
+     * table. Only reads the given hash tables and can be called concurrently.
+     */
+    private ProbeResult probe(
+            final Map <Integer, JoinHashTable> leftTableHashed,
+            final Set<Integer> currParts, final DataRow dataRow,
+            final int index) {
+        InputRow rightRow = new InputRow(dataRow, index,
+                InputRow.Settings.InDataPort.Right,
+                m_inputDataRowSettings);
+        ProbeResult result = new ProbeResult(dataRow, index);
+
+        // the join tuples are only created if they might have a match
+        for (int t = 0; t < rightRow.getNumJoinTuples(); t++) {
+            int hashCode = rightRow.getJoinTupleHashCode(t);
+            int partition = hashCode & m_bitMask;
+            if (!currParts.contains(partition)) {
+                result.m_deferMatch = true;
+                // skip and defer non-match when partition is not in the current partitions
+                continue;
+            }
+
+            JoinHashTable leftTuples = leftTableHashed.get(partition);
+            if (null == leftTuples) {
+                // skip and check for outer join when the left table does not have rows that fall
+                // in this partition
+                result.m_deferMatch = false;
+                continue;
+            }
+
+            if (null != m_bloomFilter) {
+                result.m_numFilterTests++;
+                if (!m_bloomFilter.mightContain(hashCode)) {
+                    result.m_numFilterRejects++;
                     continue;
                 }
+            }
 
-                Set<Integer> localLeftOuterJoins = null;
-                if (m_retainLeft  && !m_matchAny) {
-                    localLeftOuterJoins = leftOuterJoins.get(partition);
+            int entry = leftTuples.getFirst(rightRow.getJoinTuple(t));
+            if (JoinHashTable.NO_ENTRY == entry) {
+                if (null != m_bloomFilter) {
+                    result.m_numFilterFalsePositives++;
                 }
-
-                Set<Integer> leftRows = leftTuples.get(joinTuple);
-                if (null != leftRows) {
-                    matchFoundForRightRow = true;
-                    for (Integer leftRowIndex : leftRows) {
-                        // add inner join
-                        DataRow outRow = OutputRow.createDataRow(
-                                outputCont.getRowCount(),
-                                leftRowIndex, rightRow.getIndex(),
-                                dataRow,
-                                m_outputDataRowSettings);
-                        outputCont.addMatch(outRow, exec);
-                        if (m_retainLeft && !m_matchAny) {
-                            localLeftOuterJoins.remove(leftRowIndex);
-                        }
-                        if (m_retainLeft && m_matchAny) {
-                            m_globalLeftOuterJoins.remove(leftRowIndex);
-                        }
-                    }
+            } else {
+                result.m_matchFound = true;
+                for (; entry != JoinHashTable.NO_ENTRY;
+                        entry = leftTuples.getNext(entry)) {
+                    result.addMatch(partition, leftTuples.getRowIndex(entry));
                 }
             }
+        }
+        return result;
+    }
 
-
-            if (m_retainRight && !matchFoundForRightRow && !deferMatch) {
-                long outRowIndex = outputCont.getRowCount();
-                // add right outer join
-                DataRow outRow = OutputRow.createDataRow(outRowIndex,
-                        -1, rightRow.getIndex(),
-                        dataRow,
-                        m_outputDataRowSettings);
-                outputCont.addRightOuter(outRow, exec);
+    /**
+     * Adds the joined rows of the given probe result to the output container
+     * and updates the outer joins of the left table.
+     */
+    private void addProbeResult(final ProbeResult result,
+            final Map <Integer, Set<Integer>> leftOuterJoins,
+            final JoinContainer outputCont,
+            final ExecutionContext exec) {
+        m_bloomFilterTests += result.m_numFilterTests;
+        m_bloomFilterRejects += result.m_numFilterRejects;
+        m_bloomFilterFalsePositives += result.m_numFilterFalsePositives;
+        for (int i = 0; i < result.m_numMatches; i++) {
+            int partition = result.m_matches[2 * i];
+            Integer leftRowIndex = result.m_matches[2 * i + 1];
+            // add inner join
+            DataRow outRow = OutputRow.createDataRow(
+                    outputCont.getRowCount(),
+                    leftRowIndex, result.m_index,
+                    result.m_row,
+                    m_outputDataRowSettings);
+            outputCont.addMatch(outRow, exec);
+            if (m_retainLeft && !m_matchAny) {
+                leftOuterJoins.get(partition).remove(leftRowIndex);
+            }
+            if (m_retainLeft && m_matchAny) {
+                m_globalLeftOuterJoins.remove(leftRowIndex);
             }
-            counter++;
         }
 
-        if (m_retainLeft && !m_matchAny) {
-            for (int partition : leftOuterJoins.keySet()) {
-                for (Integer row : leftOuterJoins.get(partition)) {
-                    // add left outer join
-                    DataRow outRow = OutputRow.createDataRow(
-                            outputCont.getRowCount(),
-                            row, -1,
-                            m_outputDataRowSettings);
-                    outputCont.addLeftOuter(outRow, exec);
-                }
-            }
+        if (m_retainRight && !result.m_matchFound && !result.m_deferMatch) {
+            long outRowIndex = outputCont.getRowCount();
+            // add right outer join
+            DataRow outRow = OutputRow.createDataRow(outRowIndex,
+                    -1, result.m_index,
+                    result.m_row,
+                    m_outputDataRowSettings);
+            outputCont.addRightOuter(outRow, exec);
         }
+    }
 
+    private static RuntimeException rethrow(final Throwable t)
+            throws CanceledExecutionException {
+        if (t instanceof CanceledExecutionException) {
+            throw (CanceledExecutionException)t;
+        }
+        if (t instanceof RuntimeException) {
+            throw (RuntimeException)t;
+        }
+        if (t instanceof Error) {
+            throw (Error)t;
+        }
+        return new IllegalStateException("Parallel join failed: "
+                + t.getMessage(), t);
+    }
+
+    /**
+     * The rows of the left table that match a row of the right table.
+     */
+    private static final class ProbeResult {
+        private final DataRow m_row;
+
+        private final int m_index;
+
+        /** Pairs of partition and left row index. */
+        private int[] m_matches = new int[2];
+
+        private int m_numMatches;
+
+        private boolean m_matchFound;
+
+        private boolean m_deferMatch;
+
+        private int m_numFilterTests;
+
+        private int m_numFilterRejects;
+
+        private int m_numFilterFalsePositives;
+
+        ProbeResult(final DataRow row, final int index) {
+            m_row = row;
+            m_index = index;
+        }
+
+        void addMatch(final int partition, final int leftRowIndex) {
+            if (2 * m_numMatches == m_matches.length) {
+                m_matches = Arrays.copyOf(m_matches, 2 * m_matches.length);
+            }
+            m_matches[2 * m_numMatches] = partition;
+            m_matches[2 * m_numMatches + 1] = leftRowIndex;
+            m_numMatches++;
+        }
     }
 
     private List<Integer> getLeftJoinIndices(
@@ -1223,6 +1976,33 @@ void setRowsAddedBeforeOOM(final int maxRows) {
         m_rowsAddedBeforeForcedOOM = maxRows;
     }
 
+    /**
+     * Used for testing, only.
+     * @param chunkSize number of rows of the outer table probed by one thread
+     * at a time
+     */
+    void setProbeChunkSize(final int chunkSize) {
+        m_probeChunkSize = chunkSize;
+    }
+
+    /**
+     * Used for testing, only.
+     * @param threadCount number of threads probing the outer table in
+     * parallel, a non-positive value restores the default
+     */
+    void setProbeThreadCount(final int threadCount) {
+        m_probeThreadCount = threadCount;
+    }
+
+    /**
+     * Used for testing, only.
+     * @param useBloomFilter whether the hybrid and the broadcast hash join
+     * may use a Bloom filter
+     */
+    void setUseBloomFilter(final boolean useBloomFilter) {
+        m_useBloomFilter = useBloomFilter;
+    }
+
     /**
      * Used for testing, only.
      * @param bits number of initial partitions will be 2^bits
@@ -54,6 +54,7 @@
 import java.util.HashMap;
 import java.util.Set;
 
+import org.knime.base.node.preproc.joiner.Joiner.JoinStrategy;
 import org.knime.core.data.DataTableSpec;
 import org.knime.core.data.RowKey;
 import org.knime.core.node.BufferedDataTable;
@@ -61,6 +62,7 @@
 import org.knime.core.node.ExecutionContext;
 import org.knime.core.node.ExecutionMonitor;
 import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.NodeLogger;
 import org.knime.core.node.NodeModel;
 import org.knime.core.node.NodeSettings;
 import org.knime.core.node.NodeSettingsRO;
@@ -78,6 +80,14 @@
  */
 public class Joiner2NodeModel extends NodeModel {
 
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(Joiner2NodeModel.class);
+
+    /**
+     * Tables with at most that many rows are read into memory completely and
+     * joined with a single scan of the other table.
+     */
+    private static final long BROADCAST_MAX_ROWS = 100000;
+
     private final Joiner2Settings m_settings = new Joiner2Settings();
 
 
@@ -129,6 +139,12 @@ protected BufferedDataTable[] execute(final BufferedDataTable[] inData,
         Joiner joiner =
                 new Joiner(inData[0].getDataTableSpec(), inData[1]
                         .getDataTableSpec(), m_settings);
+        JoinStrategy joinStrategy = chooseJoinStrategy(joiner, inData[0],
+                inData[1], exec.createSubProgress(0.0));
+        LOGGER.debug("Join plan: " + joinStrategy + " (top table: "
+                + inData[0].size() + " rows, bottom table: "
+                + inData[1].size() + " rows)");
+        joiner.setJoinStrategy(joinStrategy);
 
         BufferedDataTable[] joinedTable = new BufferedDataTable[]{
                 joiner.computeJoinTable(inData[0], inData[1], exec)};
@@ -148,6 +164,26 @@ protected BufferedDataTable[] execute(final BufferedDataTable[] inData,
         return joinedTable;
     }
 
+    /**
+     * Chooses the join algorithm based on the table sizes and on whether both
+     * tables are already sorted on the joining columns.
+     */
+    private static JoinStrategy chooseJoinStrategy(final Joiner joiner,
+            final BufferedDataTable leftTable,
+            final BufferedDataTable rightTable, final ExecutionMonitor exec)
+            throws CanceledExecutionException, InvalidSettingsException {
+        if (Math.min(leftTable.size(), rightTable.size()) <= BROADCAST_MAX_ROWS) {
+            return JoinStrategy.BroadcastHashJoin;
+        }
+        // validates the settings against the input tables
+        joiner.getOutputSpec();
+        if (joiner.supportsSortMergeJoin()
+                && joiner.isSortedOnJoinColumns(leftTable, rightTable, exec)) {
+            return JoinStrategy.SortMergeJoin;
+        }
+        return JoinStrategy.HybridHashJoin;
+    }
+
     /**
      * {@inheritDoc}
      */
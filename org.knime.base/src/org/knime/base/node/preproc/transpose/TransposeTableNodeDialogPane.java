@@ -46,12 +46,14 @@
 
 import org.knime.core.node.defaultnodesettings.DefaultNodeSettingsPane;
 import org.knime.core.node.defaultnodesettings.DialogComponentNumber;
-import org.knime.core.node.defaultnodesettings.SettingsModelIntegerBounded;
 
 /**
  * 
  * @author Thomas Gabriel, University of Konstanz
+ * @deprecated the table is transposed in two passes independent of the
+ * chunk size, the node has no dialog anymore
  */
+@Deprecated
 public class TransposeTableNodeDialogPane extends DefaultNodeSettingsPane {
 
     /**
@@ -59,15 +61,8 @@ public class TransposeTableNodeDialogPane extends DefaultNodeSettingsPane {
      */
     TransposeTableNodeDialogPane() {
         super.addDialogComponent(new DialogComponentNumber(
-                createChunkSizeModel(), "Chunk size (columns): ", 10)); 
-    }
-    
-    /**
-     * @return bounded integer model for chunk size
-     */
-    static final SettingsModelIntegerBounded createChunkSizeModel() {
-        return new SettingsModelIntegerBounded(
-                "chunk_size", 10, 1, Integer.MAX_VALUE);
+                TransposeTableNodeModel.createChunkSizeModel(),
+                "Chunk size (columns): ", 10)); 
     }
     
 }
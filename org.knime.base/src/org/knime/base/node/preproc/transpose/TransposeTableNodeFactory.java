@@ -87,7 +87,7 @@ public NodeView<TransposeTableNodeModel> createNodeView(final int viewIndex,
      */
     @Override
     public boolean hasDialog() {
-        return true;
+        return false;
     }
 
     /**
@@ -95,6 +95,6 @@ public boolean hasDialog() {
      */
     @Override
     public NodeDialogPane createNodeDialogPane() {
-        return new TransposeTableNodeDialogPane();
+        return null;
     }
 }
@@ -48,8 +48,7 @@
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.List;
 
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataColumnSpec;
@@ -57,13 +56,18 @@
 import org.knime.core.data.DataRow;
 import org.knime.core.data.DataTableSpec;
 import org.knime.core.data.DataType;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.container.CloseableRowIterator;
 import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.util.memory.MemoryAlertSystem;
+import org.knime.core.data.util.memory.MemoryAlertSystem.MemoryActionIndicator;
 import org.knime.core.node.BufferedDataContainer;
 import org.knime.core.node.BufferedDataTable;
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionContext;
 import org.knime.core.node.ExecutionMonitor;
 import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.NodeLogger;
 import org.knime.core.node.NodeModel;
 import org.knime.core.node.NodeSettingsRO;
 import org.knime.core.node.NodeSettingsWO;
@@ -79,12 +83,23 @@
  */
 final class TransposeTableNodeModel extends NodeModel {
 
+    private static final NodeLogger LOGGER =
+        NodeLogger.getLogger(TransposeTableNodeModel.class);
+
+    /** The maximal number of temporary tables read at the same time. */
+    private static final int MAX_OPEN_BLOCKS = 40;
+
     /** Output hilite handler for new data generated during execute. */
     private final HiLiteHandler m_outHiLite;
 
-    /** Chunk size model. */
+    /** Chunk size model, no longer used but kept for backward compatibility. */
     private final SettingsModelIntegerBounded m_chunkSize
-        = TransposeTableNodeDialogPane.createChunkSizeModel();
+        = createChunkSizeModel();
+
+    /** The number of rows kept in memory before low memory is simulated,
+     * 0 to rely on the memory alert system only (changed in testing
+     * routines). */
+    private int m_rowsBufferedBeforeForcedSpill = 0;
 
     /**
      * Creates a transpose model with one data in- and output.
@@ -95,6 +110,24 @@ final class TransposeTableNodeModel extends NodeModel {
         m_outHiLite = new HiLiteHandler();
     }
 
+    /**
+     * @return bounded integer model for chunk size
+     */
+    static SettingsModelIntegerBounded createChunkSizeModel() {
+        return new SettingsModelIntegerBounded(
+                "chunk_size", 10, 1, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Used for testing, only.
+     *
+     * @param maxRows the number of rows kept in memory before they are
+     * written to a temporary table, 0 to rely on the memory alert system only
+     */
+    void setRowsBufferedBeforeForcedSpill(final int maxRows) {
+        m_rowsBufferedBeforeForcedSpill = maxRows;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -172,10 +205,18 @@ protected BufferedDataTable[] execute(final BufferedDataTable[] inData,
         // new number of columns = number of rows
         CheckUtils.checkState(inData[0].size() <= Integer.MAX_VALUE, "Transpose operation can't handle more rows than " + Integer.MAX_VALUE);
         final int newNrCols = (int)inData[0].size();
+        // new number of rows
+        final int newNrRows = spec.getNumColumns();
         // new column names
         final ArrayList<String> colNames = new ArrayList<String>();
         // new column types
         final ArrayList<DataType> colTypes = new ArrayList<DataType>();
+        // blocks of consecutive rows written to disk, transposed
+        List<BufferedDataTable> blocks = new ArrayList<BufferedDataTable>();
+        // the rows that are not written to disk
+        final List<DataRow> buffer = new ArrayList<DataRow>();
+        final MemoryActionIndicator memIndicator =
+            MemoryAlertSystem.getInstance().newIndicator();
         // over entire table
 
         // index for unique colNames if row id only contains whitespace
@@ -183,8 +224,9 @@ protected BufferedDataTable[] execute(final BufferedDataTable[] inData,
 
         for (DataRow row : inData[0]) {
             exec.checkCanceled();
-            exec.setMessage("Determine most-general column type for row: "
-                    + row.getKey().getString());
+            exec.setProgress(0.5 * colNames.size() / newNrCols,
+                "Transpose row \"" + row.getKey().getString()
+                + "\" to column.");
             DataType type = null;
             // and all cells
             for (int i = 0; i < row.getNumCells(); i++) {
@@ -205,9 +247,14 @@ protected BufferedDataTable[] execute(final BufferedDataTable[] inData,
             }
             colNames.add(colName);
             colTypes.add(type);
+            buffer.add(row);
+            if (memIndicator.lowMemoryActionRequired()
+                || (m_rowsBufferedBeforeForcedSpill > 0
+                    && buffer.size() >= m_rowsBufferedBeforeForcedSpill)) {
+                blocks.add(writeBlock(buffer, newNrRows, exec));
+                buffer.clear();
+            }
         }
-        // new number of rows
-        int newNrRows = spec.getNumColumns();
         // create new specs
         final DataColumnSpec[] colSpecs = new DataColumnSpec[newNrCols];
         for (int c = 0; c < newNrCols; c++) {
@@ -215,54 +262,155 @@ protected BufferedDataTable[] execute(final BufferedDataTable[] inData,
                     .get(c)).createSpec();
             exec.checkCanceled();
         }
+        // limit the number of tables read at the same time
+        while (blocks.size() > MAX_OPEN_BLOCKS) {
+            LOGGER.debug("Merging " + blocks.size() + " temporary tables");
+            List<BufferedDataTable> merged = new ArrayList<BufferedDataTable>();
+            for (int i = 0; i < blocks.size(); i += MAX_OPEN_BLOCKS) {
+                List<BufferedDataTable> group = blocks.subList(i,
+                    Math.min(blocks.size(), i + MAX_OPEN_BLOCKS));
+                merged.add(group.size() == 1 ? group.get(0)
+                    : mergeBlocks(group, newNrRows, exec));
+            }
+            blocks = merged;
+        }
         BufferedDataContainer cont = exec
                 .createDataContainer(new DataTableSpec(colSpecs));
-        final int chunkSize = m_chunkSize.getIntValue();
-        // total number of chunks
-        final double nrChunks = Math.ceil((double) newNrRows / chunkSize);
-        for (int chunkIdx = 0; chunkIdx < nrChunks; chunkIdx++) {
-            // map of new row keys to cell arrays
-            Map<String, DataCell[]> map =
-                new LinkedHashMap<String, DataCell[]>(newNrRows);
-            int rowIdx = 0;
-            for (DataRow row : inData[0]) {
-                exec.setProgress(((rowIdx + 1) * (chunkIdx + 1))
-                        / (nrChunks * newNrCols), "Transpose row \""
-                        + row.getKey().getString() + "\" to column.");
-                int colIdx = chunkIdx * chunkSize;
-                // iterate chunk of columns
-                for (int r = colIdx;
-                        r < Math.min(newNrRows, colIdx + chunkSize); r++) {
-                    String newRowKey = spec.getColumnSpec(r).getName();
-                    DataCell[] cellArray = map.get(newRowKey);
-                    if (cellArray == null) {
-                        cellArray = new DataCell[newNrCols];
-                        map.put(newRowKey, cellArray);
-                    }
-                    cellArray[rowIdx] = row.getCell(r);
-                }
-                try {
-                    exec.checkCanceled();
-                } catch (CanceledExecutionException cee) {
-                    cont.close();
-                    throw cee;
+        final List<CloseableRowIterator> blockIterators =
+            new ArrayList<CloseableRowIterator>(blocks.size());
+        for (BufferedDataTable block : blocks) {
+            blockIterators.add(block.iterator());
+        }
+        try {
+            for (int r = 0; r < newNrRows; r++) {
+                exec.checkCanceled();
+                String newRowKey = spec.getColumnSpec(r).getName();
+                exec.setProgress(0.5 + 0.5 * r / newNrRows,
+                    "Adding row \"" + newRowKey + "\" to table.");
+                DataCell[] cellArray = new DataCell[newNrCols];
+                int pos = readSegments(blockIterators, cellArray);
+                for (DataRow row : buffer) {
+                    cellArray[pos++] = row.getCell(r);
                 }
-                rowIdx++;
+                cont.addRowToTable(new DefaultRow(newRowKey, cellArray));
             }
-            // add chunk of rows to buffer
-            for (Map.Entry<String, DataCell[]> e : map.entrySet()) {
-                exec.setMessage("Adding row \"" + e.getKey() + "\" to table.");
-                DataRow row = new DefaultRow(
-                        e.getKey(), e.getValue());
-                cont.addRowToTable(row);
+        } finally {
+            for (CloseableRowIterator it : blockIterators) {
+                it.close();
             }
         }
+        for (BufferedDataTable block : blocks) {
+            exec.clearTable(block);
+        }
         exec.setProgress(1.0, "Finished, closing buffer...");
         cont.close();
         return new BufferedDataTable[]{cont.getTable()};
 
     }
 
+    /**
+     * Writes the given rows transposed into a temporary table: row
+     * <i>c</i> of the table contains the cells of column <i>c</i> of the
+     * given rows.
+     *
+     * @param rows the rows to write
+     * @param nrCols the number of columns of the rows
+     * @param exec the context to create the table
+     * @return the temporary table
+     * @throws CanceledExecutionException if the execution was canceled
+     */
+    private static BufferedDataTable writeBlock(final List<DataRow> rows,
+            final int nrCols, final ExecutionContext exec)
+            throws CanceledExecutionException {
+        exec.setMessage("Writing temporary table");
+        BufferedDataContainer cont = exec.createDataContainer(
+            createBlockSpec(rows.size()), false);
+        for (int c = 0; c < nrCols; c++) {
+            exec.checkCanceled();
+            DataCell[] cells = new DataCell[rows.size()];
+            for (int i = 0; i < cells.length; i++) {
+                cells[i] = rows.get(i).getCell(c);
+            }
+            cont.addRowToTable(new DefaultRow(RowKey.createRowKey(c), cells));
+        }
+        cont.close();
+        return cont.getTable();
+    }
+
+    /**
+     * Concatenates the rows of the given temporary tables into a new
+     * temporary table. The given tables are cleared.
+     *
+     * @param blocks the tables to merge, in the order of their input rows
+     * @param nrRows the number of rows of the tables
+     * @param exec the context to create the table
+     * @return the merged temporary table
+     * @throws CanceledExecutionException if the execution was canceled
+     */
+    private static BufferedDataTable mergeBlocks(
+            final List<BufferedDataTable> blocks, final int nrRows,
+            final ExecutionContext exec) throws CanceledExecutionException {
+        int nrCells = 0;
+        final List<CloseableRowIterator> iterators =
+            new ArrayList<CloseableRowIterator>(blocks.size());
+        for (BufferedDataTable block : blocks) {
+            nrCells += block.getDataTableSpec().getNumColumns();
+            iterators.add(block.iterator());
+        }
+        BufferedDataContainer cont =
+            exec.createDataContainer(createBlockSpec(nrCells), false);
+        try {
+            for (int r = 0; r < nrRows; r++) {
+                exec.checkCanceled();
+                DataCell[] cells = new DataCell[nrCells];
+                readSegments(iterators, cells);
+                cont.addRowToTable(new DefaultRow(RowKey.createRowKey(r), cells));
+            }
+        } finally {
+            for (CloseableRowIterator it : iterators) {
+                it.close();
+            }
+        }
+        cont.close();
+        for (BufferedDataTable block : blocks) {
+            exec.clearTable(block);
+        }
+        return cont.getTable();
+    }
+
+    /**
+     * Reads the next row of each iterator and copies their cells one after
+     * another into the given array.
+     *
+     * @return the number of copied cells
+     */
+    private static int readSegments(final List<CloseableRowIterator> iterators,
+            final DataCell[] cells) {
+        int pos = 0;
+        for (CloseableRowIterator it : iterators) {
+            DataRow segment = it.next();
+            for (int i = 0; i < segment.getNumCells(); i++) {
+                cells[pos++] = segment.getCell(i);
+            }
+        }
+        return pos;
+    }
+
+    /**
+     * @param nrCells the number of cells per row
+     * @return the spec of a temporary table whose rows contain the given
+     * number of cells of any type
+     */
+    private static DataTableSpec createBlockSpec(final int nrCells) {
+        DataColumnSpec[] colSpecs = new DataColumnSpec[nrCells];
+        DataType type = DataType.getType(DataCell.class);
+        for (int i = 0; i < nrCells; i++) {
+            colSpecs[i] = new DataColumnSpecCreator(Integer.toString(i), type)
+                .createSpec();
+        }
+        return new DataTableSpec(colSpecs);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -0,0 +1,235 @@
+/*
+ * -------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ *
+ */
+package org.knime.core.data.container;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.node.NodeLogger;
+
+import junit.framework.TestCase;
+
+/**
+ * Test case for class <code>ConcurrentTableRepository</code>. Besides the map semantics it hammers a repository
+ * with concurrent put/get/remove calls (as many parallel node executions do on the global table repository) and logs
+ * the throughput compared to a synchronized map.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class ConcurrentTableRepositoryTest extends TestCase {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(ConcurrentTableRepositoryTest.class);
+
+    private static final int THREAD_COUNT = 8;
+
+    private static final int OPERATIONS_PER_THREAD = 200000;
+
+    /** The table used as value, the repository doesn't care about its content. */
+    private static ContainerTable createTable() {
+        DataContainer c = new DataContainer(
+            new DataTableSpec(new String[] {"Int"}, new DataType[] {IntCell.TYPE}));
+        c.close();
+        return (ContainerTable)c.getTable();
+    }
+
+    /** Map semantics: put, get, remove and views. */
+    public void testMapSemantics() {
+        ConcurrentTableRepository rep = new ConcurrentTableRepository();
+        ContainerTable t1 = createTable();
+        ContainerTable t2 = createTable();
+        assertTrue(rep.isEmpty());
+        assertNull(rep.put(1, t1));
+        assertNull(rep.put(2, t2));
+        assertSame(t1, rep.get(1));
+        assertTrue(rep.containsKey(2));
+        assertTrue(rep.containsValue(t2));
+        assertEquals(2, rep.size());
+        assertEquals(2, rep.entrySet().size());
+        assertEquals(2, rep.values().size());
+        assertTrue(rep.keySet().contains(1));
+
+        Map<Integer, ContainerTable> expected = new HashMap<Integer, ContainerTable>();
+        expected.put(1, t1);
+        expected.put(2, t2);
+        assertEquals(expected, rep);
+        assertEquals(expected.hashCode(), rep.hashCode());
+
+        Map<Integer, ContainerTable> copy = new HashMap<Integer, ContainerTable>(rep);
+        assertSame(t1, rep.remove(1));
+        assertNull(rep.get(1));
+        assertSame("copy must not be affected", t1, copy.get(1));
+        assertFalse(rep.remove(2, t1));
+        assertTrue(rep.remove(2, t2));
+        assertTrue(rep.isEmpty());
+    }
+
+    /** <code>null</code> tables are rejected and don't change the existing mapping. */
+    public void testNullTables() {
+        ConcurrentTableRepository rep = new ConcurrentTableRepository();
+        ContainerTable t1 = createTable();
+        rep.put(1, t1);
+        try {
+            rep.put(1, null);
+            fail("Expected NullPointerException for null table");
+        } catch (NullPointerException e) {
+            // expected, see class documentation
+        }
+        try {
+            rep.putIfAbsent(2, null);
+            fail("Expected NullPointerException for null table");
+        } catch (NullPointerException e) {
+            // expected
+        }
+        try {
+            rep.putAll(Collections.singletonMap(3, (ContainerTable)null));
+            fail("Expected NullPointerException for null table");
+        } catch (NullPointerException e) {
+            // expected
+        }
+        try {
+            rep.replace(1, null);
+            fail("Expected NullPointerException for null table");
+        } catch (NullPointerException e) {
+            // expected
+        }
+        assertSame(t1, rep.get(1));
+        assertEquals(1, rep.size());
+    }
+
+    /** Lookups with null keys behave like in a HashMap without a null mapping, adding a null key fails. */
+    public void testNullKeys() {
+        ConcurrentTableRepository rep = new ConcurrentTableRepository();
+        ContainerTable t1 = createTable();
+        rep.put(1, t1);
+        assertNull(rep.get(null));
+        assertSame(t1, rep.getOrDefault(null, t1));
+        assertFalse(rep.containsKey(null));
+        assertFalse(rep.containsValue(null));
+        assertNull(rep.remove(null));
+        assertFalse(rep.remove(null, t1));
+        assertFalse(rep.remove(1, null));
+        assertEquals(1, rep.size());
+        try {
+            rep.put(null, t1);
+            fail("Expected NullPointerException for null key");
+        } catch (NullPointerException e) {
+            // expected, see class documentation
+        }
+        assertSame(t1, rep.get(1));
+    }
+
+    /**
+     * Concurrent put/get/remove on disjoint and shared keys.
+     *
+     * @throws Exception if a worker fails
+     */
+    public void testConcurrentAccess() throws Exception {
+        ConcurrentTableRepository rep = new ConcurrentTableRepository();
+        long concurrentNanos = runContention(rep);
+        for (int t = 0; t < THREAD_COUNT; t++) {
+            // each thread leaves its "shared" table in the repository
+            assertNotNull("Missing table of thread " + t, rep.get(-t - 1));
+        }
+        assertEquals("Only the shared tables must be left", THREAD_COUNT, rep.size());
+
+        Map<Integer, ContainerTable> synchronizedMap =
+            Collections.synchronizedMap(new HashMap<Integer, ContainerTable>());
+        long synchronizedNanos = runContention(synchronizedMap);
+        LOGGER.infoWithFormat("Table repository contention (%d threads, %d operations each): "
+            + "concurrent %d ms, synchronized %d ms", THREAD_COUNT, OPERATIONS_PER_THREAD,
+            TimeUnit.NANOSECONDS.toMillis(concurrentNanos), TimeUnit.NANOSECONDS.toMillis(synchronizedNanos));
+    }
+
+    /** Runs the workers on the given map and returns the elapsed time in nanoseconds. */
+    private static long runContention(final Map<Integer, ContainerTable> rep) throws Exception {
+        final ContainerTable table = createTable();
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        try {
+            Future<?>[] futures = new Future<?>[THREAD_COUNT];
+            for (int t = 0; t < THREAD_COUNT; t++) {
+                final int thread = t;
+                futures[t] = executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        start.await();
+                        int base = thread * OPERATIONS_PER_THREAD;
+                        rep.put(-thread - 1, table);
+                        for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                            int key = base + i;
+                            rep.put(key, table);
+                            // lookups of own and foreign (possibly absent) tables, like blob resolution
+                            assertSame(table, rep.get(key));
+                            rep.get((key + OPERATIONS_PER_THREAD) % (THREAD_COUNT * OPERATIONS_PER_THREAD));
+                            assertSame(table, rep.get(-thread - 1));
+                            assertSame(table, rep.remove(key));
+                        }
+                        return null;
+                    }
+                });
+            }
+            long startTime = System.nanoTime();
+            start.countDown();
+            for (Future<?> f : futures) {
+                f.get(2, TimeUnit.MINUTES);
+            }
+            return System.nanoTime() - startTime;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+}
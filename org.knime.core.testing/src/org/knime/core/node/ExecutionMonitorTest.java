@@ -111,5 +111,35 @@ public void run() {
         double n = dad.getProgress();
         assertTrue("progress=" + n, n < 0.91 && n > 0.89);
     }
+
+    /**
+     * Test method for 'ExecutionMonitor.createProgressCounter(long)': counts all rows, reports (at least) the first
+     * row and eventually notices cancelation.
+     * @throws CanceledExecutionException not expected
+     */
+    public final void testProgressCounter() throws CanceledExecutionException {
+        DefaultNodeProgressMonitor dad = new DefaultNodeProgressMonitor();
+        ExecutionMonitor dadEx = new ExecutionMonitor(dad);
+        ProgressCounter counter = dadEx.createProgressCounter(100000L);
+        assertTrue("first row not reported", counter.increment());
+        int reportCount = 1;
+        for (int i = 1; i < 100000; i++) {
+            if (counter.increment()) {
+                reportCount++;
+            }
+        }
+        assertEquals(100000L, counter.getCount());
+        assertEquals(1.0, counter.getProgress(), 0.0);
+        assertTrue("too many reports: " + reportCount, reportCount < 1000);
+        dad.setExecuteCanceled();
+        try {
+            for (int i = 0; i < 10 * (1 << 16); i++) {
+                counter.increment();
+            }
+            fail("cancelation not noticed");
+        } catch (CanceledExecutionException cee) {
+            // expected
+        }
+    }
     
 }
@@ -0,0 +1,248 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.node;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.IsNull.notNullValue;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnDomainCreator;
+import org.knime.core.data.DataColumnProperties;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.container.ContainerTable;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.data.vector.bytevector.DenseByteVectorCell;
+import org.knime.core.data.vector.bytevector.DenseByteVectorCellFactory;
+import org.knime.core.node.port.PortObject;
+import org.knime.core.node.workflow.FlowObjectStack;
+import org.knime.core.node.workflow.FlowVariable;
+import org.knime.core.node.workflow.NodeID;
+import org.knime.core.node.workflow.SingleNodeContainer;
+import org.knime.core.node.workflow.node.adapter.AdapterNodeFactory;
+import org.knime.core.node.workflow.node.adapter.AdapterNodeModel;
+import org.knime.core.util.FileUtil;
+
+/**
+ * Tests the {@link NodeExecutionCache}: the table fingerprints must cover the complete table content and nodes that
+ * save internals must not be cached.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class NodeExecutionCacheTest {
+
+    private File m_cacheDir;
+
+    private NodeExecutionCache m_cache;
+
+    private ExecutionContext m_exec;
+
+    /** Creates the cache in a temporary directory. */
+    @Before
+    public void setUp() throws Exception {
+        m_cacheDir = FileUtil.createTempDir(getClass().getSimpleName());
+        m_cache = new NodeExecutionCache(m_cacheDir, Long.MAX_VALUE);
+        m_exec = new ExecutionContext(new DefaultNodeProgressMonitor(), createNode(new AdapterNodeFactory()),
+            SingleNodeContainer.MemoryPolicy.CacheInMemory, new HashMap<Integer, ContainerTable>());
+    }
+
+    /** Deletes the cache directory. */
+    @After
+    public void tearDown() {
+        FileUtil.deleteRecursively(m_cacheDir);
+    }
+
+    /** Tables with identical content (but different identity) have the same fingerprint. */
+    @Test
+    public void testFingerprintOfEqualTables() throws Exception {
+        DataTableSpec spec = new DataTableSpec(new DataColumnSpecCreator("s", StringCell.TYPE).createSpec(),
+            new DataColumnSpecCreator("i", IntCell.TYPE).createSpec());
+        BufferedDataTable t1 = createTable(spec, new StringCell("a"), new IntCell(1), DataType.getMissingCell(),
+            new IntCell(2));
+        BufferedDataTable t2 = createTable(spec, new StringCell("a"), new IntCell(1), DataType.getMissingCell(),
+            new IntCell(2));
+        BufferedDataTable t3 = createTable(spec, new StringCell("a"), new IntCell(1), new StringCell("?"),
+            new IntCell(2));
+        assertThat("Fingerprint of equal tables", fingerprint(t2), is(fingerprint(t1)));
+        assertThat("Fingerprint of tables with different cells", fingerprint(t3), not(is(fingerprint(t1))));
+    }
+
+    /** Cells whose string representation is truncated are distinguished by their serialized content. */
+    @Test
+    public void testFingerprintCoversCompleteCellContent() throws Exception {
+        DataTableSpec spec = new DataTableSpec(
+            new DataColumnSpecCreator("vector", DataType.getType(DenseByteVectorCell.class)).createSpec());
+        // DenseByteVector#toString only shows the first 30000 entries
+        DenseByteVectorCellFactory f1 = new DenseByteVectorCellFactory(40000);
+        DenseByteVectorCellFactory f2 = new DenseByteVectorCellFactory(40000);
+        f2.setValue(35000, 1);
+        DenseByteVectorCell c1 = f1.createDataCell();
+        DenseByteVectorCell c2 = f2.createDataCell();
+        assertThat("String representation (precondition)", c2.toString(), is(c1.toString()));
+
+        assertThat("Fingerprint of tables that differ after the truncation of toString",
+            fingerprint(createTable(spec, c2)), not(is(fingerprint(createTable(spec, c1)))));
+    }
+
+    /** The domain and the properties of the columns are part of the fingerprint. */
+    @Test
+    public void testFingerprintCoversSpec() throws Exception {
+        DataColumnSpecCreator creator = new DataColumnSpecCreator("i", IntCell.TYPE);
+        DataTableSpec plainSpec = new DataTableSpec(creator.createSpec());
+        creator.setDomain(new DataColumnDomainCreator(new IntCell(0), new IntCell(10)).createDomain());
+        DataTableSpec domainSpec = new DataTableSpec(creator.createSpec());
+        creator.setProperties(new DataColumnProperties(Collections.singletonMap("key", "value")));
+        DataTableSpec propertiesSpec = new DataTableSpec(creator.createSpec());
+
+        String plain = fingerprint(createTable(plainSpec, new IntCell(5)));
+        String domain = fingerprint(createTable(domainSpec, new IntCell(5)));
+        String properties = fingerprint(createTable(propertiesSpec, new IntCell(5)));
+        assertThat("Fingerprint with domain", domain, not(is(plain)));
+        assertThat("Fingerprint with properties", properties, not(is(domain)));
+        assertThat("Fingerprint of same spec", fingerprint(createTable(domainSpec, new IntCell(5))), is(domain));
+    }
+
+    /** The output of a node is stored and read again with the same key. */
+    @Test
+    public void testStoreAndLoad() throws Exception {
+        Node node = createNode(new AdapterNodeFactory());
+        BufferedDataTable input = createTable(new DataTableSpec(
+            new DataColumnSpecCreator("s", StringCell.TYPE).createSpec()), new StringCell("x"), new StringCell("y"));
+        PortObject[] inData = new PortObject[]{null, input};
+        String key = m_cache.createKey(node, inData, m_exec);
+        assertThat("Cache key", key, notNullValue());
+        assertThat("Cache key of same input", m_cache.createKey(node, inData, m_exec), is(key));
+        assertThat("Cached output before store", m_cache.load(key, node, m_exec), nullValue());
+
+        m_cache.store(key, node, inData, m_exec);
+        PortObject[] cached = m_cache.load(key, node, m_exec);
+        assertThat("Cached output", cached, notNullValue());
+        BufferedDataTable cachedTable = (BufferedDataTable)cached[1];
+        assertThat("Cached spec", cachedTable.getDataTableSpec(), is(input.getDataTableSpec()));
+        Iterator<DataRow> it = cachedTable.iterator();
+        for (DataRow expected : input) {
+            DataRow actual = it.next();
+            assertThat("Row key", actual.getKey(), is(expected.getKey()));
+            assertThat("Cell", actual.getCell(0), is(expected.getCell(0)));
+        }
+        assertThat("More rows than expected", it.hasNext(), is(false));
+    }
+
+    /** The result of a node that saves internals is not cached, a cache hit would skip creating them. */
+    @Test
+    public void testNodeWithInternalsNotCached() throws Exception {
+        Node node = createNode(new InternalsNodeFactory());
+        BufferedDataTable input = createTable(new DataTableSpec(
+            new DataColumnSpecCreator("s", StringCell.TYPE).createSpec()), new StringCell("x"));
+        PortObject[] inData = new PortObject[]{null, input};
+        String key = m_cache.createKey(node, inData, m_exec);
+        assertThat("Cache key", key, notNullValue());
+        m_cache.store(key, node, inData, m_exec);
+        assertThat("Cached output of node with internals", m_cache.load(key, node, m_exec), nullValue());
+        assertThat("Files left in cache directory", m_cacheDir.list().length, is(0));
+    }
+
+    private String fingerprint(final BufferedDataTable table) throws CanceledExecutionException {
+        return NodeExecutionCache.getFingerprint(table, m_exec);
+    }
+
+    /** Creates a table with the given cells, filled row by row. */
+    private BufferedDataTable createTable(final DataTableSpec spec, final DataCell... cells) {
+        BufferedDataContainer container = m_exec.createDataContainer(spec);
+        int nrColumns = spec.getNumColumns();
+        for (int i = 0; i < cells.length / nrColumns; i++) {
+            DataCell[] rowCells = new DataCell[nrColumns];
+            System.arraycopy(cells, i * nrColumns, rowCells, 0, nrColumns);
+            container.addRowToTable(new DefaultRow(RowKey.createRowKey((long)i), rowCells));
+        }
+        container.close();
+        return container.getTable();
+    }
+
+    /** Creates a node with an (empty) flow object stack, as required to compute the cache key. */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static Node createNode(final AdapterNodeFactory factory) {
+        Node node = new Node((NodeFactory)factory);
+        NodeID id = NodeID.fromString("0:1");
+        node.setFlowObjectStack(FlowObjectStack.createFromFlowVariableList(Collections.<FlowVariable> emptyList(), id),
+            FlowObjectStack.createFromFlowVariableList(Collections.<FlowVariable> emptyList(), id));
+        return node;
+    }
+
+    /** Creates a node model that passes its input through and saves internals (like a hilite mapping). */
+    public static final class InternalsNodeFactory extends AdapterNodeFactory {
+        /** {@inheritDoc} */
+        @Override
+        public AdapterNodeModel createNodeModel() {
+            return new AdapterNodeModel(1, 1) {
+                @Override
+                protected void saveInternals(final File nodeInternDir, final ExecutionMonitor exec)
+                    throws IOException, CanceledExecutionException {
+                    Files.write(new File(nodeInternDir, "mapping.txt").toPath(),
+                        "some mapping".getBytes(StandardCharsets.UTF_8));
+                }
+            };
+        }
+    }
+}
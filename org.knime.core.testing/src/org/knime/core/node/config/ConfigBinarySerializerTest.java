@@ -0,0 +1,248 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.node.config;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.knime.core.node.NodeSettings;
+import org.knime.core.node.NodeSettingsRO;
+import org.knime.core.node.config.base.ConfigEntries;
+
+/**
+ * Tests the binary config format ({@link ConfigBinarySerializer}): a binary round trip must yield the same config as
+ * an XML round trip, including entry types, <code>null</code> values and key order.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class ConfigBinarySerializerTest {
+
+    private static final String ENCRYPTION_KEY = "some-encryption-key";
+
+    /** All entry types in one config. */
+    @Test
+    public void testAllEntryTypes() throws Exception {
+        NodeSettings settings = new NodeSettings("all-types");
+        settings.addString("string", "some string with umlauts \u00e4\u00f6\u00fc and \u20ac");
+        settings.addInt("int", Integer.MIN_VALUE);
+        settings.addLong("long", Long.MAX_VALUE);
+        settings.addDouble("double", Math.PI);
+        settings.addDouble("double-nan", Double.NaN);
+        settings.addFloat("float", -1.5f);
+        settings.addBoolean("boolean", true);
+        settings.addChar("char", '\u00df');
+        settings.addShort("short", Short.MIN_VALUE);
+        settings.addByte("byte", Byte.MAX_VALUE);
+        settings.addPassword("password", ENCRYPTION_KEY, "secret");
+        settings.addTransientString("transient", "not saved");
+        settings.addStringArray("string-array", "a", null, "c");
+
+        NodeSettingsRO copy = assertRoundTrip(settings);
+        assertThat("string", copy.getString("string"), is(settings.getString("string")));
+        assertThat("int", copy.getInt("int"), is(Integer.MIN_VALUE));
+        assertThat("long", copy.getLong("long"), is(Long.MAX_VALUE));
+        assertThat("double", copy.getDouble("double"), is(Math.PI));
+        assertTrue("double NaN", Double.isNaN(copy.getDouble("double-nan")));
+        assertThat("float", copy.getFloat("float"), is(-1.5f));
+        assertThat("boolean", copy.getBoolean("boolean"), is(true));
+        assertThat("char", copy.getChar("char"), is('\u00df'));
+        assertThat("short", copy.getShort("short"), is(Short.MIN_VALUE));
+        assertThat("byte", copy.getByte("byte"), is(Byte.MAX_VALUE));
+        assertThat("password", copy.getPassword("password", ENCRYPTION_KEY), is("secret"));
+        assertThat("string array", Arrays.asList(copy.getStringArray("string-array")),
+            is(Arrays.asList("a", null, "c")));
+        for (String key : settings.keySet()) {
+            assertThat("Type of \"" + key + "\"", ((Config)copy).getEntry(key).getType(),
+                is(settings.getEntry(key).getType()));
+        }
+        assertThat("Type of password entry", ((Config)copy).getEntry("password").getType(),
+            is(ConfigEntries.xpassword));
+        assertThat("Type of transient entry", ((Config)copy).getEntry("transient").getType(),
+            is(ConfigEntries.xtransientstring));
+    }
+
+    /** <code>null</code> and empty strings are kept apart. */
+    @Test
+    public void testNullStrings() throws Exception {
+        NodeSettings settings = new NodeSettings("null-strings");
+        settings.addString("null", null);
+        settings.addString("empty", "");
+        settings.addTransientString("null-transient", null);
+        settings.addStringArray("null-array", (String[])null);
+
+        NodeSettingsRO copy = assertRoundTrip(settings);
+        assertThat("null string", copy.getString("null"), is((String)null));
+        assertThat("empty string", copy.getString("empty"), is(""));
+        assertThat("null array", copy.getStringArray("null-array"), is((String[])null));
+    }
+
+    /** Nested and empty sub configs, with keys that repeat on different levels. */
+    @Test
+    public void testNestedAndEmptyConfigs() throws Exception {
+        NodeSettings settings = new NodeSettings("nested");
+        settings.addNodeSettings("empty");
+        NodeSettings level = settings;
+        for (int i = 0; i < 20; i++) {
+            level.addInt("depth", i);
+            level.addNodeSettings("empty");
+            level = (NodeSettings)level.addNodeSettings("child");
+        }
+        level.addString("leaf", "value");
+
+        NodeSettingsRO copy = assertRoundTrip(settings);
+        assertThat("empty config", copy.getNodeSettings("empty").keySet().isEmpty(), is(true));
+        NodeSettingsRO copyLevel = copy;
+        for (int i = 0; i < 20; i++) {
+            assertThat("depth", copyLevel.getInt("depth"), is(i));
+            copyLevel = copyLevel.getNodeSettings("child");
+        }
+        assertThat("leaf", copyLevel.getString("leaf"), is("value"));
+    }
+
+    /** The order of the keys is kept (it's significant, e.g. for the order of columns in a filter). */
+    @Test
+    public void testKeyOrder() throws Exception {
+        NodeSettings settings = new NodeSettings("order");
+        List<String> keys = Arrays.asList("z", "a", "m", "b", "y", "0", "\u00e4");
+        for (String key : keys) {
+            settings.addString(key, key);
+        }
+        NodeSettingsRO copy = assertRoundTrip(settings);
+        assertThat("Key order", new ArrayList<String>(copy.keySet()), is(keys));
+    }
+
+    /** More distinct keys than fit into a one and two byte key reference. */
+    @Test
+    public void testLargeKeyTable() throws Exception {
+        NodeSettings settings = new NodeSettings("large");
+        final int count = 20000;
+        for (int i = 0; i < count; i++) {
+            settings.addInt("key-" + i, i);
+        }
+        // references to keys with large indices in a sub config
+        NodeSettings sub = (NodeSettings)settings.addNodeSettings("sub");
+        for (int i = count - 1; i >= 0; i -= 997) {
+            sub.addInt("key-" + i, -i);
+        }
+
+        NodeSettingsRO copy = assertRoundTrip(settings);
+        assertThat("Number of keys", copy.keySet().size(), is(count + 1));
+        for (int i = 0; i < count; i++) {
+            assertThat("Value of key-" + i, copy.getInt("key-" + i), is(i));
+        }
+        assertThat("Key in sub config", copy.getNodeSettings("sub").getInt("key-" + (count - 1)), is(1 - count));
+    }
+
+    /** Invalid and truncated input is rejected with an IOException. */
+    @Test
+    public void testCorruptInput() throws Exception {
+        NodeSettings settings = new NodeSettings("corrupt");
+        settings.addString("string", "value");
+        settings.addNodeSettings("sub").addInt("int", 42);
+        byte[] bytes = toBinary(settings);
+
+        // truncated at every position
+        for (int length = 0; length < bytes.length; length++) {
+            assertCorrupt("truncated to " + length + " bytes", Arrays.copyOf(bytes, length));
+        }
+        // invalid magic number
+        byte[] invalidMagic = bytes.clone();
+        invalidMagic[0] = 'X';
+        assertCorrupt("invalid magic number", invalidMagic);
+        // future version
+        byte[] futureVersion = bytes.clone();
+        futureVersion[4] = Byte.MAX_VALUE;
+        assertCorrupt("unsupported version", futureVersion);
+        // XML instead of binary
+        ByteArrayOutputStream xml = new ByteArrayOutputStream();
+        settings.saveToXML(xml);
+        assertCorrupt("XML input", xml.toByteArray());
+    }
+
+    private static void assertCorrupt(final String message, final byte[] bytes) {
+        try {
+            NodeSettings.loadFromBinary(new ByteArrayInputStream(bytes));
+            fail("Expected IOException for " + message);
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    private static byte[] toBinary(final NodeSettings settings) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        settings.saveToBinary(out);
+        return out.toByteArray();
+    }
+
+    /** Checks that the binary round trip yields the same config as the XML round trip and returns the former. */
+    private static NodeSettingsRO assertRoundTrip(final NodeSettings settings) throws IOException {
+        NodeSettingsRO fromBinary = NodeSettings.loadFromBinary(new ByteArrayInputStream(toBinary(settings)));
+        ByteArrayOutputStream xml = new ByteArrayOutputStream();
+        settings.saveToXML(xml);
+        NodeSettingsRO fromXML = NodeSettings.loadFromXML(new ByteArrayInputStream(xml.toByteArray()));
+
+        assertThat("Key of root config", fromBinary.getKey(), is(settings.getKey()));
+        assertTrue("Binary round trip differs from XML round trip",
+            ((Config)fromBinary).isIdentical((Config)fromXML));
+        // the string representation also covers the order of the entries
+        StringBuffer binaryString = new StringBuffer();
+        ((Config)fromBinary).toString(binaryString);
+        StringBuffer xmlString = new StringBuffer();
+        ((Config)fromXML).toString(xmlString);
+        assertThat("String representation (including key order)", binaryString.toString(),
+            is(xmlString.toString()));
+        return fromBinary;
+    }
+}
@@ -0,0 +1,329 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.node.workflow;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.core.runtime.FileLocator;
+import org.eclipse.core.runtime.Path;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.knime.core.util.FileUtil;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.FrameworkUtil;
+
+/**
+ * Tests the daemon mode of the {@link BatchExecutor}: reuse of loaded workflows, isolation of workflow variables
+ * between requests, reloading on changed credentials, the bounded workflow cache and malformed requests.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class BatchExecutorDaemonTest {
+    private static File standardTestWorkflowZip;
+
+    private File m_tempDir;
+
+    private File m_daemonDir;
+
+    private File m_workflowDir;
+
+    private File m_csvOut;
+
+    private Thread m_daemon;
+
+    private final AtomicInteger m_daemonExitCode = new AtomicInteger(-1);
+
+    /**
+     * Locates the test workflow zip.
+     *
+     * @throws Exception if an error occurs
+     */
+    @BeforeClass
+    public static void setup() throws Exception {
+        standardTestWorkflowZip = findInPlugin("/files/BatchExecutorTestflow.zip");
+    }
+
+    /**
+     * Creates the request directory and extracts the test workflow.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Before
+    public void beforeEachTest() throws Exception {
+        m_tempDir = FileUtil.createTempDir(getClass().getSimpleName());
+        m_daemonDir = new File(m_tempDir, "requests");
+        m_daemonDir.mkdir();
+        m_workflowDir = extractWorkflow("workflow");
+        m_csvOut = new File(m_tempDir, "out.csv");
+    }
+
+    private File extractWorkflow(final String name) throws IOException {
+        File dir = new File(m_tempDir, name);
+        dir.mkdir();
+        FileUtil.unzip(standardTestWorkflowZip, dir);
+        return dir.listFiles()[0]; // workflow is in a subdirectory of the zip
+    }
+
+    /**
+     * Stops the daemon and checks that it closed all workflows.
+     *
+     * @throws Exception if an error occurs
+     */
+    @After
+    public void afterEachTest() throws Exception {
+        try {
+            if (m_daemon != null) {
+                new File(m_daemonDir, "stop").createNewFile();
+                m_daemon.join(30000);
+                assertFalse("Daemon did not stop", m_daemon.isAlive());
+                assertThat("Wrong return value of stopped daemon", m_daemonExitCode.get(),
+                    is(BatchExecutor.EXIT_SUCCESS));
+                assertThat("Workflows still loaded after daemon stopped", getLoadedWorkflows().size(), is(0));
+            }
+        } finally {
+            FileUtil.deleteRecursively(m_tempDir);
+        }
+    }
+
+    /**
+     * Checks that subsequent requests for the same workflow reuse the loaded workflow.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test(timeout = 120000L)
+    public void testReuse() throws Exception {
+        startDaemon();
+        assertThat("Wrong exit code", request("first", workflowArgs()), is(BatchExecutor.EXIT_SUCCESS));
+        assertThat("Wrong number of lines in written CSV file", countWrittenLines(), is(1001));
+        NodeID id = getOnlyLoadedWorkflow().getID();
+
+        m_csvOut.delete();
+        assertThat("Wrong exit code", request("second", workflowArgs()), is(BatchExecutor.EXIT_SUCCESS));
+        assertThat("Wrong number of lines in written CSV file", countWrittenLines(), is(1001));
+        assertThat("Workflow not reused", getOnlyLoadedWorkflow().getID(), is(id));
+    }
+
+    /**
+     * Checks that workflow variables of a request (known and unknown ones) don't leak into subsequent requests.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test(timeout = 120000L)
+    public void testVariableIsolation() throws Exception {
+        startDaemon();
+        assertThat("Wrong exit code", request("withVariables", workflowArgs("-workflow.variable=maxRows,100,int",
+            "-workflow.variable=requestOnly,1,int")), is(BatchExecutor.EXIT_SUCCESS));
+        assertThat("Wrong number of lines in written CSV file", countWrittenLines(), is(101));
+        WorkflowManager wfm = getOnlyLoadedWorkflow();
+        assertTrue("Request variable not set", hasWorkflowVariable(wfm, "requestOnly"));
+
+        m_csvOut.delete();
+        assertThat("Wrong exit code", request("withoutVariables", workflowArgs()), is(BatchExecutor.EXIT_SUCCESS));
+        assertThat("Variable of previous request used", countWrittenLines(), is(1001));
+        assertThat("Workflow not reused", getOnlyLoadedWorkflow().getID(), is(wfm.getID()));
+        assertFalse("Variable of previous request still defined", hasWorkflowVariable(wfm, "requestOnly"));
+    }
+
+    /**
+     * Checks that changed credentials force a reload of the workflow while the same credentials don't.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test(timeout = 120000L)
+    public void testCredentialsForceReload() throws Exception {
+        startDaemon();
+        assertThat("Wrong exit code", request("first", workflowArgs("-credential=someCredentials;user;secret")),
+            is(BatchExecutor.EXIT_SUCCESS));
+        NodeID firstID = getOnlyLoadedWorkflow().getID();
+
+        assertThat("Wrong exit code", request("same", workflowArgs("-credential=someCredentials;user;secret")),
+            is(BatchExecutor.EXIT_SUCCESS));
+        assertThat("Workflow not reused for same credentials", getOnlyLoadedWorkflow().getID(), is(firstID));
+
+        assertThat("Wrong exit code", request("changed", workflowArgs("-credential=someCredentials;user;other")),
+            is(BatchExecutor.EXIT_SUCCESS));
+        assertThat("Workflow not reloaded for changed credentials", getOnlyLoadedWorkflow().getID(),
+            is(not(firstID)));
+    }
+
+    /**
+     * Checks that the least recently used workflow is closed if more workflows than the cache size are requested.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test(timeout = 120000L)
+    public void testCacheSize() throws Exception {
+        File otherWorkflowDir = extractWorkflow("otherWorkflow");
+        startDaemon("-daemonCacheSize=1");
+        assertThat("Wrong exit code", request("first", workflowArgs()), is(BatchExecutor.EXIT_SUCCESS));
+        NodeID firstID = getOnlyLoadedWorkflow().getID();
+
+        List<String> otherArgs = new ArrayList<String>(workflowArgs());
+        otherArgs.set(0, "-workflowDir=" + otherWorkflowDir.getAbsolutePath());
+        assertThat("Wrong exit code", request("other", otherArgs), is(BatchExecutor.EXIT_SUCCESS));
+        NodeID otherID = getOnlyLoadedWorkflow().getID();
+        assertThat("Least recently used workflow not closed", otherID, is(not(firstID)));
+
+        assertThat("Wrong exit code", request("firstAgain", workflowArgs()), is(BatchExecutor.EXIT_SUCCESS));
+        NodeID firstAgainID = getOnlyLoadedWorkflow().getID();
+        assertThat("Closed workflow not loaded again", firstAgainID, is(not(firstID)));
+        assertThat("Closed workflow not loaded again", firstAgainID, is(not(otherID)));
+    }
+
+    /**
+     * Checks that malformed requests are answered with an error and don't stop the daemon.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test(timeout = 120000L)
+    public void testMalformedRequests() throws Exception {
+        startDaemon();
+        assertThat("Wrong exit code for unknown option", request("unknownOption", workflowArgs("-noSuchOption")),
+            is(BatchExecutor.EXIT_ERR_PRESTART));
+        assertThat("Wrong exit code for non-existing workflow",
+            request("missingWorkflow", Arrays.asList("-workflowDir=" + new File(m_tempDir, "nonExisting"))),
+            is(BatchExecutor.EXIT_ERR_PRESTART));
+        assertThat("Wrong exit code for missing workflow", request("noWorkflow", Arrays.asList("-nosave")),
+            is(BatchExecutor.EXIT_ERR_PRESTART));
+        assertThat("Wrong exit code for invalid variable",
+            request("invalidVariable", workflowArgs("-workflow.variable=maxRows,many,int")),
+            is(BatchExecutor.EXIT_ERR_PRESTART));
+        assertThat("Wrong exit code for empty request", request("empty", new ArrayList<String>()),
+            is(BatchExecutor.EXIT_ERR_PRESTART));
+
+        assertThat("Wrong exit code for valid request after malformed ones", request("valid", workflowArgs()),
+            is(BatchExecutor.EXIT_SUCCESS));
+        assertThat("Wrong number of lines in written CSV file", countWrittenLines(), is(1001));
+    }
+
+    private void startDaemon(final String... extraArgs) {
+        final List<String> args = new ArrayList<String>();
+        args.add("-daemon=" + m_daemonDir.getAbsolutePath());
+        args.addAll(Arrays.asList(extraArgs));
+        m_daemon = new Thread(() -> m_daemonExitCode.set(BatchExecutor.mainRun(args.toArray(new String[0]))),
+            "BatchExecutor daemon");
+        m_daemon.start();
+    }
+
+    private List<String> workflowArgs(final String... extraArgs) {
+        final List<String> args = new ArrayList<String>();
+        args.add("-workflowDir=" + m_workflowDir.getAbsolutePath());
+        args.add("-nosave");
+        args.add("-reset");
+        args.add("-workflow.variable=destinationFile," + m_csvOut.getAbsolutePath() + ",String");
+        args.addAll(Arrays.asList(extraArgs));
+        return args;
+    }
+
+    /** Writes the request, waits for the result and returns the exit code. */
+    private int request(final String name, final List<String> lines) throws Exception {
+        File tmp = new File(m_daemonDir, name + ".tmp");
+        Files.write(tmp.toPath(), lines, StandardCharsets.UTF_8);
+        assertTrue("Can't create request", tmp.renameTo(new File(m_daemonDir, name + ".request")));
+        File result = new File(m_daemonDir, name + ".result");
+        while (!result.isFile()) {
+            assertTrue("Daemon died", m_daemon.isAlive());
+            Thread.sleep(50);
+        }
+        Properties props = new Properties();
+        try (InputStream in = Files.newInputStream(result.toPath())) {
+            props.load(in);
+        }
+        assertTrue("No duration in result", props.containsKey("duration"));
+        return Integer.parseInt(props.getProperty("exitCode"));
+    }
+
+    private static List<WorkflowManager> getLoadedWorkflows() {
+        List<WorkflowManager> result = new ArrayList<WorkflowManager>();
+        for (NodeContainer nc : WorkflowManager.ROOT.getNodeContainers()) {
+            if (!nc.getName().contains("MetaNode Repository") && !nc.getName().contains("Workflow Template Root")) {
+                result.add((WorkflowManager)nc);
+            }
+        }
+        return result;
+    }
+
+    private static WorkflowManager getOnlyLoadedWorkflow() {
+        List<WorkflowManager> workflows = getLoadedWorkflows();
+        assertThat("Wrong number of loaded workflows: " + workflows, workflows.size(), is(1));
+        return workflows.get(0);
+    }
+
+    private static boolean hasWorkflowVariable(final WorkflowManager wfm, final String name) {
+        return wfm.getWorkflowVariables().stream().anyMatch(v -> v.getName().equals(name));
+    }
+
+    private int countWrittenLines() throws IOException {
+        return Files.readAllLines(m_csvOut.toPath(), StandardCharsets.UTF_8).size();
+    }
+
+    private static File findInPlugin(final String name) throws IOException {
+        Bundle thisBundle = FrameworkUtil.getBundle(BatchExecutorDaemonTest.class);
+        URL url = FileLocator.find(thisBundle, new Path(name), null);
+        if (url == null) {
+            throw new FileNotFoundException(thisBundle.getLocation() + name);
+        }
+        return new File(FileLocator.toFileURL(url).getPath());
+    }
+}
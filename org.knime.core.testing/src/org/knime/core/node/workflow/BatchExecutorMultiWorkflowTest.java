@@ -0,0 +1,444 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.node.workflow;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.IsNull.notNullValue;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import org.eclipse.core.runtime.FileLocator;
+import org.eclipse.core.runtime.Path;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.util.FileUtil;
+import org.knime.core.util.LockFailedException;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.FrameworkUtil;
+
+/**
+ * Tests the execution of multiple workflows in one {@link BatchExecutor} run: expansion of <tt>-workflowList</tt> and
+ * <tt>-workflowRoot</tt>, unique <tt>-destDir</tt> and <tt>-trace</tt> per workflow, the exit codes of the single
+ * workflows and of the whole run, <tt>-stopOnError</tt> and <tt>-parallel</tt>.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class BatchExecutorMultiWorkflowTest {
+    private static final int NOT_RUN = -1;
+
+    private static File standardTestWorkflowZip;
+
+    private static File loadErrorWorkflowZip;
+
+    private File m_tempDir;
+
+    private File m_csvOut;
+
+    /**
+     * Locates the test workflow zips.
+     *
+     * @throws Exception if an error occurs
+     */
+    @BeforeClass
+    public static void setup() throws Exception {
+        standardTestWorkflowZip = findInPlugin("/files/BatchExecutorTestflow.zip");
+        loadErrorWorkflowZip = findInPlugin("/files/BatchExecutorTestflowLoadError.zip");
+    }
+
+    /**
+     * Creates the temporary directory for the workflows and outputs.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Before
+    public void beforeEachTest() throws Exception {
+        m_tempDir = FileUtil.createTempDir(getClass().getSimpleName());
+        m_csvOut = new File(m_tempDir, "out.csv");
+    }
+
+    /**
+     * Deletes the temporary directory.
+     *
+     * @throws Exception if an error occurs
+     */
+    @After
+    public void afterEachTest() throws Exception {
+        FileUtil.deleteRecursively(m_tempDir);
+    }
+
+    /**
+     * Checks that the workflow list is expanded into one configuration per listed workflow and that output directory
+     * and trace file are unique per workflow, also for workflows with the same name.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testWorkflowList() throws Exception {
+        File zip = copyZip("wf.zip");
+        File dir = extractWorkflow("other");
+        File sameName = extractWorkflow("sub/wf");
+        File list = writeList("# comment", "", "wf.zip", "  " + dir.getAbsolutePath() + "  ", "sub/wf");
+        File destDir = new File(m_tempDir, "dest");
+        File trace = new File(m_tempDir, "trace.json");
+        File metrics = new File(m_tempDir, "metrics.json");
+
+        BatchExecutor exec = new BatchExecutor(new String[]{"-workflowList=" + list.getAbsolutePath(), "-reset",
+            "-destDir=" + destDir.getAbsolutePath(), "-trace=" + trace.getAbsolutePath(),
+            "-metrics=" + metrics.getAbsolutePath(),
+            "-workflow.variable=destinationFile," + m_csvOut.getAbsolutePath() + ",String"});
+        List<BatchExecutor.WorkflowConfiguration> configs = exec.m_workflows;
+        assertThat("Wrong number of workflows", configs.size(), is(3));
+        assertThat("Wrong first workflow", configs.get(0).inputWorkflow.getCanonicalFile(),
+            is(zip.getCanonicalFile()));
+        assertThat("Wrong second workflow", configs.get(1).inputWorkflow.getCanonicalFile(),
+            is(dir.getCanonicalFile()));
+        assertThat("Wrong third workflow", configs.get(2).inputWorkflow.getCanonicalFile(),
+            is(sameName.getCanonicalFile()));
+        assertThat("Wrong output directories", outputDirNames(configs), is(Arrays.asList("wf", "other", "wf_2")));
+        assertThat("Wrong trace files", traceFileNames(configs),
+            is(Arrays.asList("wf_trace.json", "other_trace.json", "wf_2_trace.json")));
+        List<String> metricsFileNames = new ArrayList<String>();
+        for (BatchExecutor.WorkflowConfiguration config : configs) {
+            metricsFileNames.add(config.metricsFile.getName());
+        }
+        assertThat("Wrong metrics files", metricsFileNames,
+            is(Arrays.asList("wf_metrics.json", "other_metrics.json", "wf_2_metrics.json")));
+        for (BatchExecutor.WorkflowConfiguration config : configs) {
+            assertTrue("Options not copied", config.reset);
+            assertThat("Workflow variables not copied", config.flowVariables.size(), is(1));
+            assertThat("Wrong output parent directory", config.outputDir.getParentFile(), is(destDir));
+            assertThat("Wrong trace parent directory", config.traceFile.getParentFile(),
+                is(trace.getAbsoluteFile().getParentFile()));
+        }
+
+        assertThat("Wrong overall exit code", exec.runAll(), is(BatchExecutor.EXIT_SUCCESS));
+        assertThat("Wrong exit codes", exec.getExitCodes(), is(new int[]{BatchExecutor.EXIT_SUCCESS,
+            BatchExecutor.EXIT_SUCCESS, BatchExecutor.EXIT_SUCCESS}));
+        for (BatchExecutor.WorkflowConfiguration config : configs) {
+            assertTrue("Workflow not saved to " + config.outputDir,
+                new File(config.outputDir, WorkflowPersistor.WORKFLOW_FILE).isFile());
+            assertTrue("Trace not written to " + config.traceFile, config.traceFile.isFile());
+            assertTrue("Metrics not written to " + config.metricsFile, config.metricsFile.isFile());
+        }
+        assertFalse("Trace written to file given on the command line", trace.exists());
+        assertFalse("Metrics written to file given on the command line", metrics.exists());
+        assertThat("Wrong number of lines in written CSV file", countWrittenLines(m_csvOut), is(1001));
+    }
+
+    /**
+     * Checks that all workflow directories and archives in and below the workflow root are found (and only these), in
+     * alphabetical order, and that a workflow root which is a workflow itself is executed alone.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testWorkflowRoot() throws Exception {
+        File root = new File(m_tempDir, "root");
+        File b = extractWorkflow("root/b");
+        File a = copyZip("root/a/first.zip");
+        File c = copyZip("root/c/d/second.knwf");
+        File ignored = new File(root, "c/readme.txt");
+        Files.write(ignored.toPath(), Collections.singletonList("no workflow"), StandardCharsets.UTF_8);
+        new File(root, "empty").mkdir();
+
+        BatchExecutor exec = new BatchExecutor(new String[]{"-workflowRoot=" + root.getAbsolutePath(), "-nosave",
+            "-noexecute"});
+        List<File> inputs = new ArrayList<File>();
+        for (BatchExecutor.WorkflowConfiguration config : exec.m_workflows) {
+            inputs.add(config.inputWorkflow.getCanonicalFile());
+        }
+        assertThat("Wrong workflows found", inputs,
+            is(Arrays.asList(a.getCanonicalFile(), b.getCanonicalFile(), c.getCanonicalFile())));
+        assertThat("Wrong overall exit code", exec.runAll(), is(BatchExecutor.EXIT_SUCCESS));
+
+        exec = new BatchExecutor(new String[]{"-workflowRoot=" + b.getAbsolutePath(), "-nosave", "-noexecute"});
+        assertThat("Workflow root which is a workflow not executed alone", exec.m_workflows.size(), is(1));
+        assertThat("Wrong workflow", exec.m_workflows.get(0).inputWorkflow, is(b));
+    }
+
+    /**
+     * Checks that invalid combinations of options and empty or broken workflow lists are rejected.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testInvalidOptions() throws Exception {
+        copyZip("wf.zip");
+        File list = writeList("wf.zip");
+        String listArg = "-workflowList=" + list.getAbsolutePath();
+        assertThat("-destFile not rejected", BatchExecutor.mainRun(listArg, "-nosave",
+            "-destFile=" + new File(m_tempDir, "out.zip").getAbsolutePath()), is(BatchExecutor.EXIT_ERR_PRESTART));
+        assertThat("-workflowFile not rejected", BatchExecutor.mainRun(listArg, "-nosave",
+            "-workflowFile=" + standardTestWorkflowZip.getAbsolutePath()), is(BatchExecutor.EXIT_ERR_PRESTART));
+        assertThat("Missing workflow not rejected", BatchExecutor.mainRun(
+            "-workflowList=" + writeList("wf.zip", "missing.zip").getAbsolutePath(), "-nosave"),
+            is(BatchExecutor.EXIT_ERR_PRESTART));
+        assertThat("Empty list not rejected", BatchExecutor.mainRun(
+            "-workflowList=" + writeList("# nothing").getAbsolutePath(), "-nosave"),
+            is(BatchExecutor.EXIT_ERR_PRESTART));
+        File emptyRoot = new File(m_tempDir, "emptyRoot");
+        emptyRoot.mkdir();
+        assertThat("Root without workflows not rejected",
+            BatchExecutor.mainRun("-workflowRoot=" + emptyRoot.getAbsolutePath(), "-nosave"),
+            is(BatchExecutor.EXIT_ERR_PRESTART));
+        assertThat("Invalid -parallel not rejected", BatchExecutor.mainRun(listArg, "-nosave", "-parallel=0"),
+            is(BatchExecutor.EXIT_ERR_PRESTART));
+    }
+
+    /**
+     * Checks the exit code of each workflow and of the whole run if one workflow fails: the others are still run
+     * unless <tt>-stopOnError</tt> is given, the overall exit code is that of the failing workflow.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testExitCodes() throws Exception {
+        copyZip("ok1.zip");
+        copyZip("ok2.zip");
+        Files.copy(loadErrorWorkflowZip.toPath(), new File(m_tempDir, "broken.zip").toPath());
+        File list = writeList("ok1.zip", "broken.zip", "ok2.zip");
+        String[] args = {"-workflowList=" + list.getAbsolutePath(), "-nosave", "-noexecute", "-failonloaderror"};
+
+        BatchExecutor exec = new BatchExecutor(args);
+        assertThat("Wrong overall exit code", exec.runAll(), is(BatchExecutor.EXIT_ERR_LOAD));
+        assertThat("Wrong exit codes", exec.getExitCodes(),
+            is(new int[]{BatchExecutor.EXIT_SUCCESS, BatchExecutor.EXIT_ERR_LOAD, BatchExecutor.EXIT_SUCCESS}));
+        assertThat("Wrong overall exit code with mainRun", BatchExecutor.mainRun(args),
+            is(BatchExecutor.EXIT_ERR_LOAD));
+
+        exec = new BatchExecutor(append(args, "-stopOnError"));
+        assertThat("Wrong overall exit code with -stopOnError", exec.runAll(), is(BatchExecutor.EXIT_ERR_LOAD));
+        assertThat("Wrong exit codes with -stopOnError", exec.getExitCodes(),
+            is(new int[]{BatchExecutor.EXIT_SUCCESS, BatchExecutor.EXIT_ERR_LOAD, NOT_RUN}));
+
+        exec = new BatchExecutor(new String[]{"-workflowList=" + writeList("ok1.zip", "ok2.zip").getAbsolutePath(),
+            "-nosave", "-noexecute", "-failonloaderror", "-stopOnError"});
+        assertThat("Wrong overall exit code without failing workflow", exec.runAll(),
+            is(BatchExecutor.EXIT_SUCCESS));
+        assertThat("Wrong exit codes without failing workflow", exec.getExitCodes(),
+            is(new int[]{BatchExecutor.EXIT_SUCCESS, BatchExecutor.EXIT_SUCCESS}));
+    }
+
+    /**
+     * Checks that parallel execution gives the same exit codes as sequential execution and that each workflow has
+     * its own temp directory, which is deleted after the workflow is done.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testParallel() throws Exception {
+        List<String> names = new ArrayList<String>();
+        for (int i = 0; i < 6; i++) {
+            names.add(copyZip("wf" + i + ".zip").getName());
+        }
+        Files.copy(loadErrorWorkflowZip.toPath(), new File(m_tempDir, "broken.zip").toPath());
+        names.add(3, "broken.zip");
+        File list = writeList(names.toArray(new String[names.size()]));
+        String[] args = {"-workflowList=" + list.getAbsolutePath(), "-nosave", "-noexecute", "-failonloaderror"};
+
+        BatchExecutor sequential = new BatchExecutor(args);
+        int sequentialExitCode = sequential.runAll();
+        TempDirRecordingExecutor parallel = new TempDirRecordingExecutor(append(args, "-parallel=3"));
+        assertThat("Wrong overall exit code", parallel.runAll(), is(sequentialExitCode));
+        assertThat("Wrong exit codes", parallel.getExitCodes(), is(sequential.getExitCodes()));
+        assertThat("Wrong overall exit code", sequentialExitCode, is(BatchExecutor.EXIT_ERR_LOAD));
+
+        List<File> tempDirs = parallel.getTempDirs();
+        assertThat("Wrong number of loaded workflows", tempDirs.size(), is(6));
+        assertThat("Workflows share a temp directory: " + tempDirs, new HashSet<File>(tempDirs).size(), is(6));
+        for (File tempDir : tempDirs) {
+            assertFalse("Temp directory not deleted after workflow is done: " + tempDir, tempDir.exists());
+        }
+    }
+
+    /**
+     * Checks that <tt>-stopOnError</tt> with <tt>-parallel</tt> doesn't start further workflows once one failed.
+     * Which workflows are already running at that time depends on timing, but since the workflows are started in
+     * the given order, no workflow can be run after one that was skipped.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testParallelStopOnError() throws Exception {
+        List<String> names = new ArrayList<String>();
+        Files.copy(loadErrorWorkflowZip.toPath(), new File(m_tempDir, "broken.zip").toPath());
+        names.add("broken.zip");
+        for (int i = 0; i < 8; i++) {
+            names.add(copyZip("wf" + i + ".zip").getName());
+        }
+        File list = writeList(names.toArray(new String[names.size()]));
+
+        BatchExecutor exec = new BatchExecutor(new String[]{"-workflowList=" + list.getAbsolutePath(), "-nosave",
+            "-noexecute", "-failonloaderror", "-stopOnError", "-parallel=2"});
+        assertThat("Wrong overall exit code", exec.runAll(), is(BatchExecutor.EXIT_ERR_LOAD));
+        int[] exitCodes = exec.getExitCodes();
+        assertThat("Wrong exit code of failing workflow", exitCodes[0], is(BatchExecutor.EXIT_ERR_LOAD));
+        boolean skipped = false;
+        for (int i = 1; i < exitCodes.length; i++) {
+            if (skipped) {
+                assertThat("Workflow " + i + " run after a skipped one: " + Arrays.toString(exitCodes), exitCodes[i],
+                    is(NOT_RUN));
+            } else {
+                assertThat("Wrong exit code of workflow " + i, exitCodes[i], not(BatchExecutor.EXIT_ERR_LOAD));
+                skipped = exitCodes[i] == NOT_RUN;
+            }
+        }
+    }
+
+    /** Records the temp directory of each loaded workflow. */
+    private static final class TempDirRecordingExecutor extends BatchExecutor {
+        private List<File> m_tempDirs;
+
+        TempDirRecordingExecutor(final String[] args) throws Exception {
+            super(args);
+        }
+
+        @Override
+        protected WorkflowManager loadWorkflow(final WorkflowConfiguration config) throws IOException,
+            InvalidSettingsException, CanceledExecutionException, UnsupportedWorkflowVersionException,
+            LockFailedException, IllegalOptionException {
+            WorkflowManager wfm = super.loadWorkflow(config);
+            File tempDir = wfm.getContext().getTempLocation();
+            assertThat("No temp directory for workflow " + config.inputWorkflow, tempDir, notNullValue());
+            synchronized (this) {
+                if (m_tempDirs == null) {
+                    // the constructor of the super class runs before field initializers
+                    m_tempDirs = new ArrayList<File>();
+                }
+                m_tempDirs.add(tempDir);
+            }
+            return wfm;
+        }
+
+        synchronized List<File> getTempDirs() {
+            return m_tempDirs == null ? Collections.<File> emptyList() : new ArrayList<File>(m_tempDirs);
+        }
+    }
+
+    private File copyZip(final String path) throws IOException {
+        File f = new File(m_tempDir, path);
+        f.getParentFile().mkdirs();
+        Files.copy(standardTestWorkflowZip.toPath(), f.toPath());
+        return f;
+    }
+
+    private File extractWorkflow(final String path) throws IOException {
+        File dir = new File(m_tempDir, path);
+        File unzipDir = FileUtil.createTempDir("unzip", m_tempDir);
+        FileUtil.unzip(standardTestWorkflowZip, unzipDir);
+        dir.getParentFile().mkdirs();
+        // workflow is in a subdirectory of the zip
+        assertTrue("Could not move workflow to " + dir, unzipDir.listFiles()[0].renameTo(dir));
+        FileUtil.deleteRecursively(unzipDir);
+        return dir;
+    }
+
+    private File writeList(final String... lines) throws IOException {
+        File list = File.createTempFile("list", ".txt", m_tempDir);
+        Files.write(list.toPath(), Arrays.asList(lines), StandardCharsets.UTF_8);
+        return list;
+    }
+
+    private static String[] append(final String[] args, final String arg) {
+        String[] result = Arrays.copyOf(args, args.length + 1);
+        result[args.length] = arg;
+        return result;
+    }
+
+    private static List<String> outputDirNames(final List<BatchExecutor.WorkflowConfiguration> configs) {
+        List<String> names = new ArrayList<String>();
+        for (BatchExecutor.WorkflowConfiguration config : configs) {
+            names.add(config.outputDir.getName());
+        }
+        return names;
+    }
+
+    private static List<String> traceFileNames(final List<BatchExecutor.WorkflowConfiguration> configs) {
+        List<String> names = new ArrayList<String>();
+        for (BatchExecutor.WorkflowConfiguration config : configs) {
+            names.add(config.traceFile.getName());
+        }
+        return names;
+    }
+
+    private static int countWrittenLines(final File outputFile) throws IOException {
+        try (BufferedReader in = new BufferedReader(new FileReader(outputFile))) {
+            int count = 0;
+            while (in.readLine() != null) {
+                count++;
+            }
+            return count;
+        }
+    }
+
+    private static File findInPlugin(final String name) throws IOException {
+        Bundle thisBundle = FrameworkUtil.getBundle(BatchExecutorMultiWorkflowTest.class);
+        URL url = FileLocator.find(thisBundle, new Path(name), null);
+        if (url == null) {
+            throw new FileNotFoundException(thisBundle.getLocation() + name);
+        }
+        return new File(FileLocator.toFileURL(url).getPath());
+    }
+}
@@ -65,6 +65,11 @@
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.zip.ZipFile;
 
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.FileLocator;
 import org.eclipse.core.runtime.Path;
@@ -489,6 +494,38 @@ public void testSaveToDir() throws Exception {
         assertTrue("Workflow not altered after in-place save", workflowFile.lastModified() > timestamp);
     }
 
+    /**
+     * Test if the execution metrics of the nodes are written after execution.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testMetrics() throws Exception {
+        File metricsFile = File.createTempFile("metrics", ".json");
+        metricsFile.deleteOnExit();
+
+        int ret =
+            BatchExecutor.mainRun(new String[]{"-workflowFile=" + standardTestWorkflowZip.getAbsolutePath(), "-nosave",
+                "-reset", "-workflow.variable=destinationFile," + csvOut.getAbsolutePath() + ",String",
+                "-metrics=" + metricsFile.getAbsolutePath()});
+        assertEquals("Non-zero return value", 0, ret);
+        JsonArray nodes;
+        try (JsonReader reader = Json.createReader(new FileReader(metricsFile))) {
+            nodes = reader.readObject().getJsonArray("nodes");
+        }
+        assertTrue("No node metrics written", nodes.size() > 0);
+        for (JsonObject node : nodes.getValuesAs(JsonObject.class)) {
+            JsonObject metrics = node.getJsonObject("metrics");
+            assertTrue("Node " + node.getString("id") + " not executed successfully: " + metrics,
+                metrics.getBoolean("success"));
+            assertFalse("Node " + node.getString("id") + " still running: " + metrics,
+                metrics.getBoolean("running"));
+        }
+        assertTrue("No rows written by any node",
+            nodes.getValuesAs(JsonObject.class).stream().anyMatch(n -> n.getJsonObject("metrics")
+                .getJsonNumber("rowsOut").longValue() > 0));
+    }
+
     /**
      * Test if loading credentials works.
      *
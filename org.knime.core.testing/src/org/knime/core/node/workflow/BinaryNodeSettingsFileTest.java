@@ -0,0 +1,184 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.node.workflow;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.node.NodeLogger;
+import org.knime.core.node.NodeSettings;
+import org.knime.core.node.NodeSettingsRO;
+import org.knime.core.util.FileUtil;
+
+/**
+ * Tests that the binary copy of the node settings (<i>settings.bin</i>) is only used if it was written from the
+ * current <i>settings.xml</i> and that the XML file is read otherwise, see
+ * {@link FileSingleNodeContainerPersistor#loadSettings(File, WorkflowPersistor, NodeLogger)}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class BinaryNodeSettingsFileTest {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(BinaryNodeSettingsFileTest.class);
+
+    private File m_nodeDir;
+
+    private File m_xmlFile;
+
+    private File m_binaryFile;
+
+    /** Creates the node directory. */
+    @Before
+    public void setUp() throws Exception {
+        m_nodeDir = FileUtil.createTempDir(getClass().getSimpleName());
+        m_xmlFile = new File(m_nodeDir, SingleNodeContainerPersistor.SETTINGS_FILE_NAME);
+        m_binaryFile = FileSingleNodeContainerPersistor.getBinarySettingsFile(m_xmlFile);
+    }
+
+    /** Deletes the node directory. */
+    @After
+    public void tearDown() throws Exception {
+        FileUtil.deleteRecursively(m_nodeDir);
+    }
+
+    /** The binary file is used if it belongs to the XML file. */
+    @Test
+    public void testBinaryFileUsed() throws Exception {
+        writeXML(createSettings("xml"));
+        // deliberately different content to see which file was read
+        writeBinary(createSettings("binary"));
+        assertThat("Binary file name", m_binaryFile.getName(), is("settings.bin"));
+        assertThat("Origin of settings", load(), is("binary"));
+    }
+
+    /** A change of the XML file (its length or modification time) invalidates the binary file. */
+    @Test
+    public void testChangedXMLFile() throws Exception {
+        writeXML(createSettings("xml"));
+        writeBinary(createSettings("binary"));
+        long lastModified = m_xmlFile.lastModified();
+
+        // same length, different content and modification time (as written by an older version or client without
+        // binary settings)
+        writeXML(createSettings("XML"));
+        m_xmlFile.setLastModified(lastModified - 60000);
+        assertThat("Origin of settings after changing the XML file", load(), is("XML"));
+
+        // different length, same modification time
+        writeXML(createSettings("changed xml"));
+        m_xmlFile.setLastModified(lastModified);
+        assertThat("Origin of settings after changing the XML file", load(), is("changed xml"));
+    }
+
+    /** The XML file is not read if the binary file belongs to it, so it may even be unreadable. */
+    @Test
+    public void testXMLFileNotRead() throws Exception {
+        writeXML(createSettings("xml"));
+        writeBinary(createSettings("binary"));
+        long lastModified = m_xmlFile.lastModified();
+        long length = m_xmlFile.length();
+        try (RandomAccessFile file = new RandomAccessFile(m_xmlFile, "rw")) {
+            file.write(new byte[(int)length]);
+        }
+        m_xmlFile.setLastModified(lastModified);
+        assertThat("Origin of settings", load(), is("binary"));
+    }
+
+    /** A corrupt binary file is ignored. */
+    @Test
+    public void testCorruptBinaryFile() throws Exception {
+        writeXML(createSettings("xml"));
+        writeBinary(createSettings("binary"));
+        try (RandomAccessFile file = new RandomAccessFile(m_binaryFile, "rw")) {
+            file.setLength(file.length() - 3);
+        }
+        assertThat("Origin of settings with truncated binary file", load(), is("xml"));
+
+        try (OutputStream out = new FileOutputStream(m_binaryFile)) {
+            out.write(new byte[]{1, 2, 3});
+        }
+        assertThat("Origin of settings with invalid binary file", load(), is("xml"));
+
+        new FileOutputStream(m_binaryFile).close();
+        assertThat("Origin of settings with empty binary file", load(), is("xml"));
+    }
+
+    /** Without binary file the XML file is read. */
+    @Test
+    public void testNoBinaryFile() throws Exception {
+        writeXML(createSettings("xml"));
+        assertThat("Origin of settings", load(), is("xml"));
+    }
+
+    private static NodeSettings createSettings(final String origin) {
+        NodeSettings settings = new NodeSettings("settings.xml");
+        settings.addString("origin", origin);
+        settings.addNodeSettings("model").addInt("some-int", 42);
+        return settings;
+    }
+
+    private void writeXML(final NodeSettings settings) throws IOException {
+        settings.saveToXML(new FileOutputStream(m_xmlFile));
+    }
+
+    private void writeBinary(final NodeSettings settings) throws IOException {
+        FileSingleNodeContainerPersistor.saveBinarySettings(settings, m_xmlFile, new FileOutputStream(m_binaryFile));
+    }
+
+    private String load() throws Exception {
+        NodeSettingsRO settings = FileSingleNodeContainerPersistor.loadSettings(m_xmlFile, null, LOGGER);
+        assertThat("Model settings", settings.getNodeSettings("model").getInt("some-int"), is(42));
+        return settings.getString("origin");
+    }
+}
@@ -0,0 +1,262 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.node.workflow;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.node.workflow.FlowVariable.Type;
+
+/**
+ * Tests the lookups in {@link FlowObjectStack} (which use lazily built indices) against a linear scan of the stack,
+ * in particular after elements were pushed and popped.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class FlowObjectStackTest {
+
+    private FlowObjectStack m_stack;
+
+    /** Creates an empty stack (containing only the global constants). */
+    @Before
+    public void setUp() {
+        m_stack = new FlowObjectStack(NodeID.fromString("0:1:2"));
+    }
+
+    /** The top-most variable with the given name and type is returned; variables of other types don't shadow it. */
+    @Test
+    public void testPeekFlowVariableShadowing() {
+        m_stack.push(new FlowVariable("x", 1));
+        m_stack.push(new FlowVariable("y", "y"));
+        m_stack.peekFlowVariable("x", Type.INTEGER); // builds the index
+        m_stack.push(new FlowVariable("x", 2));
+        m_stack.push(new FlowVariable("x", "string x"));
+
+        assertThat("int x", m_stack.peekFlowVariable("x", Type.INTEGER).getIntValue(), is(2));
+        assertThat("string x", m_stack.peekFlowVariable("x", Type.STRING).getStringValue(), is("string x"));
+        assertThat("string y", m_stack.peekFlowVariable("y", Type.STRING).getStringValue(), is("y"));
+        try {
+            m_stack.peekFlowVariable("x", Type.DOUBLE);
+            fail("Expected NoSuchElementException for double x");
+        } catch (NoSuchElementException e) {
+            // expected
+        }
+    }
+
+    /** Popping a scope removes the variables defined in it, the shadowed variables are visible again. */
+    @Test
+    public void testPeekFlowVariableAfterPop() {
+        m_stack.push(new FlowVariable("x", 1));
+        FlowLoopContext loop = new FlowLoopContext();
+        m_stack.push(loop);
+        m_stack.push(new FlowVariable("x", 2));
+        m_stack.push(new FlowVariable("z", 3));
+        assertThat("x in loop", m_stack.peekFlowVariable("x", Type.INTEGER).getIntValue(), is(2));
+        assertThat("Available variables in loop", m_stack.getAvailableFlowVariables().containsKey("z"), is(true));
+
+        assertThat("Popped loop context", m_stack.pop(FlowLoopContext.class), sameInstance(loop));
+        assertThat("x after loop", m_stack.peekFlowVariable("x", Type.INTEGER).getIntValue(), is(1));
+        assertThat("Available variables after loop", m_stack.getAvailableFlowVariables().containsKey("z"), is(false));
+        try {
+            m_stack.peekFlowVariable("z", Type.INTEGER);
+            fail("Expected NoSuchElementException for z after popping the loop context");
+        } catch (NoSuchElementException e) {
+            // expected
+        }
+    }
+
+    /** Lookup of scope contexts by class and by active/inactive state, before and after pop. */
+    @Test
+    public void testScopeContexts() {
+        assertThat("No loop context on empty stack", m_stack.peek(FlowLoopContext.class), nullValue());
+        FlowLoopContext loop = new FlowLoopContext();
+        m_stack.push(loop);
+        m_stack.push(new FlowVariable("a", 1));
+        assertThat("Loop context", m_stack.peek(FlowLoopContext.class), sameInstance(loop));
+        FlowScopeContext inactiveScope = new FlowScopeContext();
+        inactiveScope.inactiveScope(true);
+        m_stack.push(inactiveScope);
+        m_stack.push(new FlowVariable("b", 2));
+
+        assertThat("Top-most loop context", m_stack.peek(FlowLoopContext.class), sameInstance(loop));
+        assertThat("Top-most scope context", m_stack.peek(FlowScopeContext.class), sameInstance(inactiveScope));
+        assertThat("Top-most active scope context", m_stack.peekScopeContext(FlowScopeContext.class, false),
+            sameInstance((FlowScopeContext)loop));
+        assertThat("Top-most inactive scope context", m_stack.peekScopeContext(FlowScopeContext.class, true),
+            sameInstance(inactiveScope));
+        assertThat("No inactive loop context", m_stack.peekScopeContext(FlowLoopContext.class, true), nullValue());
+
+        assertThat("Popped inactive scope", m_stack.popScopeContext(FlowScopeContext.class, true),
+            sameInstance(inactiveScope));
+        assertThat("Top-most scope context after pop", m_stack.peek(FlowScopeContext.class),
+            sameInstance((FlowScopeContext)loop));
+        assertThat("Variable below popped scope", m_stack.peekFlowVariable("a", Type.INTEGER).getIntValue(), is(1));
+        FlowLoopContext innerLoop = new FlowLoopContext();
+        m_stack.push(innerLoop);
+        assertThat("Top-most loop context after push", m_stack.peek(FlowLoopContext.class),
+            sameInstance(innerLoop));
+    }
+
+    /** The cached result of getAvailableFlowVariables is discarded on push and pop and depends on the types. */
+    @Test
+    public void testAvailableFlowVariables() {
+        m_stack.push(new FlowVariable("i", 1));
+        m_stack.push(new FlowVariable("s", "s"));
+        Map<String, FlowVariable> all = m_stack.getAvailableFlowVariables();
+        assertThat("Repeated call", m_stack.getAvailableFlowVariables(), sameInstance(all));
+        assertThat("Only integers", m_stack.getAvailableFlowVariables(Type.INTEGER).containsKey("s"), is(false));
+        assertThat("All types again", m_stack.getAvailableFlowVariables().containsKey("s"), is(true));
+
+        m_stack.push(new FlowVariable("d", 1.5));
+        assertThat("Variable pushed after call", m_stack.getAvailableFlowVariables().containsKey("d"), is(true));
+        try {
+            m_stack.getAvailableFlowVariables().put("x", new FlowVariable("x", 1));
+            fail("Expected result to be unmodifiable");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+    }
+
+    /** Random sequences of pushes, pops and lookups give the same results as a scan of the stack. */
+    @Test
+    public void testRandomOperationsAgainstLinearScan() {
+        Random random = new Random(42);
+        String[] names = {"a", "b", "c", "d", "e"};
+        for (int i = 0; i < 5000; i++) {
+            int op = random.nextInt(10);
+            if (op < 6) {
+                String name = names[random.nextInt(names.length)];
+                switch (random.nextInt(3)) {
+                    case 0:
+                        m_stack.push(new FlowVariable(name, i));
+                        break;
+                    case 1:
+                        m_stack.push(new FlowVariable(name, (double)i));
+                        break;
+                    default:
+                        m_stack.push(new FlowVariable(name, Integer.toString(i)));
+                }
+            } else if (op < 8) {
+                FlowScopeContext context = random.nextBoolean() ? new FlowLoopContext() : new FlowScopeContext();
+                context.inactiveScope(random.nextInt(4) == 0);
+                m_stack.push(context);
+            } else if (op < 9) {
+                if (random.nextBoolean()) {
+                    m_stack.pop(FlowLoopContext.class);
+                } else {
+                    m_stack.popScopeContext(FlowScopeContext.class, random.nextBoolean());
+                }
+            }
+            // lookups (also after each modification to exercise the incremental index updates)
+            String name = names[random.nextInt(names.length)];
+            for (Type type : Arrays.asList(Type.INTEGER, Type.DOUBLE, Type.STRING)) {
+                FlowVariable expected = scanFlowVariable(name, type);
+                FlowVariable actual;
+                try {
+                    actual = m_stack.peekFlowVariable(name, type);
+                } catch (NoSuchElementException e) {
+                    actual = null;
+                }
+                assertThat("Variable " + name + " of type " + type + " after " + i + " operations", actual,
+                    sameInstance(expected));
+            }
+            assertThat("Loop context after " + i + " operations", m_stack.peek(FlowLoopContext.class),
+                sameInstance(scanScopeContext(FlowLoopContext.class, null)));
+            boolean inactive = random.nextBoolean();
+            assertThat("Scope context (inactive " + inactive + ") after " + i + " operations",
+                m_stack.peekScopeContext(FlowScopeContext.class, inactive),
+                sameInstance(scanScopeContext(FlowScopeContext.class, inactive)));
+            assertThat("Available variables after " + i + " operations", m_stack.getAvailableFlowVariables(),
+                is(scanAvailableVariables()));
+        }
+    }
+
+    /** @return the top-most variable with given name and type found by iterating the stack, or null */
+    private FlowVariable scanFlowVariable(final String name, final Type type) {
+        for (FlowObject o : m_stack) {
+            if (o instanceof FlowVariable && ((FlowVariable)o).getName().equals(name)
+                && ((FlowVariable)o).getType() == type) {
+                return (FlowVariable)o;
+            }
+        }
+        return null;
+    }
+
+    /** @return the top-most context of the given class (and inactive state if not null), or null */
+    private <T extends FlowScopeContext> T scanScopeContext(final Class<T> type, final Boolean inactive) {
+        for (FlowObject o : m_stack) {
+            if (type.isInstance(o) && (inactive == null || type.cast(o).isInactiveScope() == inactive)) {
+                return type.cast(o);
+            }
+        }
+        return null;
+    }
+
+    private Map<String, FlowVariable> scanAvailableVariables() {
+        Map<String, FlowVariable> result = new LinkedHashMap<String, FlowVariable>();
+        List<Type> types = Arrays.asList(Type.DOUBLE, Type.INTEGER, Type.STRING);
+        for (Iterator<FlowObject> it = m_stack.iterator(); it.hasNext();) {
+            FlowObject o = it.next();
+            if (o instanceof FlowVariable && types.contains(((FlowVariable)o).getType())
+                && !result.containsKey(((FlowVariable)o).getName())) {
+                result.put(((FlowVariable)o).getName(), (FlowVariable)o);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.node.workflow;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+
+import javax.json.JsonObject;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests {@link NodeExecutionMetrics}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class NodeExecutionMetricsTest extends WorkflowTestCase {
+
+    private NodeID m_dataGen;
+
+    private NodeID m_colFilter;
+
+    private NodeID m_rowFilter;
+
+    private NodeID m_tblView;
+
+    /**
+     * Loads the workflow.
+     *
+     * @throws Exception if that fails
+     */
+    @Before
+    public void setUp() throws Exception {
+        NodeID baseID = loadAndSetWorkflow(getWorkflowDirectory("simplechainofnodes"));
+        m_dataGen = new NodeID(baseID, 1);
+        m_colFilter = new NodeID(baseID, 2);
+        m_rowFilter = new NodeID(baseID, 3);
+        m_tblView = new NodeID(baseID, 4);
+    }
+
+    /** Tests the counters and the JSON representation of a single instance. */
+    @Test
+    public void testCounters() {
+        NodeExecutionMetrics metrics = new NodeExecutionMetrics(m_dataGen, null);
+        assertTrue("Not running after creation", metrics.isRunning());
+        assertThat("GC count while running", metrics.getGCCount(), is(-1L));
+        metrics.addRowsIn(10L);
+        metrics.addRowsIn(5L);
+        metrics.addRowsOut(7L);
+        metrics.addContainerWritten(7L, 100L);
+        metrics.addContainerWritten(3L, 0L);
+        metrics.addSpill(4L);
+        metrics.addSpill(6L);
+        metrics.addAsyncWriteBlockedNanos(2_000_000L);
+        metrics.addLockWaitNanos(3_000_000L);
+        metrics.addCpuTimeNanos(4_000_000L);
+        metrics.finish(true);
+
+        assertTrue("Still running after finish", !metrics.isRunning());
+        assertTrue("Not successful", metrics.isSuccess());
+        assertThat("Rows in", metrics.getRowsIn(), is(15L));
+        assertThat("Rows out", metrics.getRowsOut(), is(7L));
+        assertThat("Rows written", metrics.getRowsWritten(), is(10L));
+        assertThat("Bytes written", metrics.getBytesWritten(), is(100L));
+        assertThat("Spill count", metrics.getSpillCount(), is(2L));
+        assertThat("Rows spilled", metrics.getRowsSpilled(), is(10L));
+        assertThat("Async write blocked", metrics.getAsyncWriteBlockedNanos(), is(2_000_000L));
+        assertThat("Lock wait", metrics.getLockWaitNanos(), is(3_000_000L));
+        assertThat("CPU time", metrics.getCpuTimeNanos(), is(4_000_000L));
+        assertTrue("Negative wall time", metrics.getWallTime() >= 0L);
+        assertTrue("Negative GC count", metrics.getGCCount() >= 0L);
+        long wallTime = metrics.getWallTime();
+        assertThat("Wall time changed after finish", metrics.getWallTime(), is(wallTime));
+
+        JsonObject json = metrics.toJson();
+        assertThat("JSON running", json.getBoolean("running"), is(false));
+        assertThat("JSON success", json.getBoolean("success"), is(true));
+        assertThat("JSON rows in", json.getJsonNumber("rowsIn").longValue(), is(15L));
+        assertThat("JSON rows spilled", json.getJsonNumber("rowsSpilled").longValue(), is(10L));
+        assertThat("JSON async write blocked", json.getJsonNumber("asyncWriteBlockedMs").longValue(), is(2L));
+        assertThat("JSON lock wait", json.getJsonNumber("lockWaitMs").longValue(), is(3L));
+        assertThat("JSON CPU time", json.getJsonNumber("cpuTimeMs").longValue(), is(4L));
+    }
+
+    /** Tests that there is no current instance outside a node execution. */
+    @Test
+    public void testNoCurrentMetricsOutsideExecution() {
+        assertThat("Metrics without node context", NodeExecutionMetrics.getCurrent(), nullValue());
+        NodeContext.pushContext(findNodeContainer(m_dataGen));
+        try {
+            assertThat("Metrics of node that is not executing", NodeExecutionMetrics.getCurrent(), nullValue());
+        } finally {
+            NodeContext.removeLastContext();
+        }
+    }
+
+    /**
+     * Executes the workflow and tests the metrics collected for its nodes.
+     *
+     * @throws Exception if execution fails
+     */
+    @Test
+    public void testCollectAfterExecution() throws Exception {
+        assertTrue("Metrics before execution", NodeExecutionMetrics.collect(getManager()).isEmpty());
+        executeAllAndWait();
+        checkState(m_tblView, InternalNodeContainerState.EXECUTED);
+
+        Map<NodeID, NodeExecutionMetrics> metrics = NodeExecutionMetrics.collect(getManager());
+        assertThat("Number of executed nodes", metrics.size(), is(4));
+        for (NodeExecutionMetrics m : metrics.values()) {
+            assertTrue("Node still running: " + m, !m.isRunning());
+            assertTrue("Node not successful: " + m, m.isSuccess());
+        }
+
+        NodeExecutionMetrics dataGen = metrics.get(m_dataGen);
+        assertThat("Rows in of source node", dataGen.getRowsIn(), is(0L));
+        assertTrue("No rows out of source node", dataGen.getRowsOut() > 0L);
+        assertTrue("Rows written less than rows out", dataGen.getRowsWritten() >= dataGen.getRowsOut());
+
+        NodeExecutionMetrics colFilter = metrics.get(m_colFilter);
+        assertThat("Rows in of column filter", colFilter.getRowsIn(), is(dataGen.getRowsOut()));
+        assertThat("Rows out of column filter", colFilter.getRowsOut(), is(colFilter.getRowsIn()));
+
+        NodeExecutionMetrics rowFilter = metrics.get(m_rowFilter);
+        assertThat("Rows in of row filter", rowFilter.getRowsIn(), is(colFilter.getRowsOut()));
+        assertTrue("Row filter returned more rows than it got", rowFilter.getRowsOut() <= rowFilter.getRowsIn());
+
+        JsonObject json = NodeExecutionMetrics.toJson(metrics);
+        assertThat("Nodes in JSON", json.getJsonArray("nodes").size(), is(4));
+        assertThat("First node in JSON", json.getJsonArray("nodes").getJsonObject(0).getString("id"),
+            is(m_dataGen.toString()));
+
+        reset(m_dataGen);
+        assertThat("Metrics dropped on reset", NodeExecutionMetrics.collect(getManager()).size(), is(4));
+    }
+
+}
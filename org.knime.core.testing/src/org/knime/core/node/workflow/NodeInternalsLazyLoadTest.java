@@ -0,0 +1,203 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.node.workflow;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.knime.core.node.workflow.InternalNodeContainerState.EXECUTED;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.node.port.PortObject;
+import org.knime.core.node.workflow.node.adapter.AdapterNodeFactory;
+import org.knime.core.node.workflow.node.adapter.AdapterNodeModel;
+import org.knime.core.util.FileUtil;
+
+/**
+ * Tests that node internals whose loading was deferred (see
+ * {@link KNIMEConstants#PROPERTY_LAZY_LOAD_NODE_INTERNALS}) survive saving the node after it was marked dirty.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class NodeInternalsLazyLoadTest extends WorkflowTestCase {
+
+    private static final String INTERNALS = "Some node internals";
+
+    private File m_workflowDir;
+
+    /**
+     * Creates the temp directory for the workflow.
+     *
+     * @throws Exception if that fails
+     */
+    @Before
+    public void setUp() throws Exception {
+        m_workflowDir = FileUtil.createTempDir(getClass().getSimpleName());
+    }
+
+    /**
+     * Creates and saves a workflow with an executed node that has internals, loads it with deferred internals,
+     * marks the node dirty, saves and re-loads it.
+     *
+     * @throws Exception if that fails
+     */
+    @Test(timeout = 30000L)
+    public void testSaveDirtyNodeWithPendingInternals() throws Exception {
+        WorkflowManager wfm = WorkflowManager.ROOT.createAndAddProject(getClass().getSimpleName(),
+            new WorkflowCreationHelper());
+        int nodeIndex = wfm.createAndAddNode(new InternalsNodeFactory()).getIndex();
+        wfm.executeAllAndWaitUntilDone();
+        wfm.save(m_workflowDir, new ExecutionMonitor(), true);
+        WorkflowManager.ROOT.removeProject(wfm.getID());
+
+        System.setProperty(KNIMEConstants.PROPERTY_LAZY_LOAD_NODE_INTERNALS, "true");
+        try {
+            loadAndSetWorkflow(m_workflowDir);
+        } finally {
+            System.clearProperty(KNIMEConstants.PROPERTY_LAZY_LOAD_NODE_INTERNALS);
+        }
+        NativeNodeContainer nnc = getNode(nodeIndex);
+        checkState(nnc, EXECUTED);
+        assertThat("Internals loaded although deferred", getModel(nnc).getInternals(), nullValue());
+
+        NodeAnnotationData annotation = new NodeAnnotationData(false);
+        annotation.setText("Changed annotation");
+        nnc.getNodeAnnotation().copyFrom(annotation, false);
+        assertTrue("Node not dirty after annotation change", nnc.isDirty());
+        getManager().save(m_workflowDir, new ExecutionMonitor(), true);
+        closeWorkflow();
+
+        loadAndSetWorkflow(m_workflowDir);
+        nnc = getNode(nodeIndex);
+        checkState(nnc, EXECUTED);
+        assertThat("Internals after save and re-load", getModel(nnc).getInternals(), is(INTERNALS));
+    }
+
+    private NativeNodeContainer getNode(final int nodeIndex) {
+        return getManager().getNodeContainer(new NodeID(getManager().getID(), nodeIndex), NativeNodeContainer.class,
+            true);
+    }
+
+    private static InternalsNodeModel getModel(final NativeNodeContainer nnc) {
+        return (InternalsNodeModel)nnc.getNodeModel();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @After
+    public void tearDown() throws Exception {
+        super.tearDown();
+        FileUtil.deleteRecursively(m_workflowDir);
+    }
+
+    /** Creates {@link InternalsNodeModel}. */
+    public static final class InternalsNodeFactory extends AdapterNodeFactory {
+        /** {@inheritDoc} */
+        @Override
+        public AdapterNodeModel createNodeModel() {
+            return new InternalsNodeModel();
+        }
+    }
+
+    /** Source node that keeps a string as internals, which is set during execute. */
+    static final class InternalsNodeModel extends AdapterNodeModel {
+
+        private static final String INTERNALS_FILE = "internals.txt";
+
+        private String m_internals;
+
+        InternalsNodeModel() {
+            super(0, 1);
+        }
+
+        String getInternals() {
+            return m_internals;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        protected PortObject[] execute(final PortObject[] inObjects, final ExecutionContext exec) throws Exception {
+            m_internals = INTERNALS;
+            return super.execute(inObjects, exec);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        protected void reset() {
+            m_internals = null;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        protected void loadInternals(final File nodeInternDir, final ExecutionMonitor exec)
+            throws IOException, CanceledExecutionException {
+            byte[] bytes = Files.readAllBytes(new File(nodeInternDir, INTERNALS_FILE).toPath());
+            m_internals = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        protected void saveInternals(final File nodeInternDir, final ExecutionMonitor exec)
+            throws IOException, CanceledExecutionException {
+            if (m_internals != null) {
+                Files.write(new File(nodeInternDir, INTERNALS_FILE).toPath(),
+                    m_internals.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,297 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.node.workflow;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.notNullValue;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.knime.core.node.workflow.InternalNodeContainerState.EXECUTED;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.NodeModel;
+import org.knime.core.node.port.PortObject;
+import org.knime.core.node.port.PortType;
+import org.knime.core.node.workflow.node.adapter.AdapterNodeFactory;
+import org.knime.core.node.workflow.node.adapter.AdapterNodeModel;
+
+/**
+ * Tests that a single copy of a loop body, as created by {@link WorkflowManager#parallelizeLoop(NodeID)} for all
+ * chunks, can be pasted repeatedly and yields independent and correctly wired bodies. The loop body contains a native
+ * node with internals, a metanode and a component with such a node. Also logs the time of copying the body once per
+ * chunk and once for all chunks.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class ParallelChunkLoopBodyCopyTest extends WorkflowTestCase {
+
+    private static final int NR_CHUNKS = 5;
+
+    private NodeID m_source;
+
+    private NodeID[] m_loopBody;
+
+    /**
+     * Creates a workflow with a source node and a loop body (native node, metanode, component) attached to it.
+     *
+     * @throws Exception if that fails
+     */
+    @Before
+    public void setUp() throws Exception {
+        WorkflowManager wfm = WorkflowManager.ROOT.createAndAddProject(getClass().getSimpleName(),
+            new WorkflowCreationHelper());
+        setManager(wfm);
+        m_source = wfm.createAndAddNode(new AdapterNodeFactory(true));
+        NodeID internals = wfm.createAndAddNode(new InternalsNodeFactory());
+        wfm.addConnection(m_source, 1, internals, 1);
+
+        final PortType[] ports = new PortType[]{BufferedDataTable.TYPE};
+        WorkflowManager meta = wfm.createAndAddSubWorkflow(ports, ports, "Metanode");
+        wfm.addConnection(internals, 1, meta.getID(), 0);
+        NodeID metaInner1 = meta.createAndAddNode(new AdapterNodeFactory());
+        NodeID metaInner2 = meta.createAndAddNode(new InternalsNodeFactory());
+        meta.addConnection(meta.getID(), 0, metaInner1, 1);
+        meta.addConnection(metaInner1, 1, metaInner2, 1);
+        meta.addConnection(metaInner2, 1, meta.getID(), 0);
+
+        WorkflowManager metaInComponent = wfm.createAndAddSubWorkflow(ports, ports, "Component");
+        wfm.addConnection(meta.getID(), 0, metaInComponent.getID(), 0);
+        NodeID componentInner = metaInComponent.createAndAddNode(new InternalsNodeFactory());
+        metaInComponent.addConnection(metaInComponent.getID(), 0, componentInner, 1);
+        metaInComponent.addConnection(componentInner, 1, metaInComponent.getID(), 0);
+        NodeID component = metaInComponent.getID();
+        wfm.convertMetaNodeToSubNode(component);
+
+        NodeID last = wfm.createAndAddNode(new AdapterNodeFactory());
+        wfm.addConnection(component, 1, last, 1);
+        m_loopBody = new NodeID[]{internals, meta.getID(), component, last};
+    }
+
+    /**
+     * Copies the loop body once, pastes it into a metanode for each chunk (like the parallel chunk loop does) and
+     * checks the pasted bodies: node and connection count, no connections between different bodies, no shared
+     * node (model) instances, independent execution and reset.
+     *
+     * @throws Exception if that fails
+     */
+    @Test(timeout = 60000L)
+    public void testPasteCopyPerChunk() throws Exception {
+        WorkflowManager wfm = getManager();
+        final PortType[] ports = new PortType[]{BufferedDataTable.TYPE};
+        WorkflowManager chunks = wfm.createAndAddSubWorkflow(ports, new PortType[0], "Chunks");
+        wfm.addConnection(m_source, 1, chunks.getID(), 0);
+
+        WorkflowPersistor loopBodyCopy = wfm.copy(WorkflowCopyContent.builder().setNodeIDs(m_loopBody).build());
+        List<NodeID[]> bodies = new ArrayList<NodeID[]>();
+        for (int i = 0; i < NR_CHUNKS; i++) {
+            NodeID[] body = chunks.paste(loopBodyCopy).getNodeIDs();
+            assertThat("Wrong number of pasted nodes in chunk " + i, body.length, is(m_loopBody.length));
+            chunks.addConnection(chunks.getID(), 0, body[0], 1);
+            bodies.add(body);
+        }
+
+        final int originalConnections = countConnections(wfm, new HashSet<NodeID>(Arrays.asList(m_loopBody)));
+        final Map<NodeModel, Integer> modelToChunk = new IdentityHashMap<NodeModel, Integer>();
+        final int originalModels = collectNodeModels(wfm, m_loopBody, -1, modelToChunk);
+        for (int i = 0; i < NR_CHUNKS; i++) {
+            Set<NodeID> body = new HashSet<NodeID>(Arrays.asList(bodies.get(i)));
+            assertThat("Wrong number of connections in chunk " + i, countConnections(chunks, body),
+                is(originalConnections));
+            for (NodeID id : body) {
+                for (ConnectionContainer cc : chunks.getIncomingConnectionsFor(id)) {
+                    assertTrue("Chunk " + i + " connected to another chunk: " + cc,
+                        body.contains(cc.getSource()) || cc.getSource().equals(chunks.getID()));
+                }
+            }
+            int models = collectNodeModels(chunks, bodies.get(i), i, modelToChunk);
+            assertThat("Wrong number of nodes (incl. nested ones) in chunk " + i, models, is(originalModels));
+        }
+        assertThat("Node models shared between chunks", modelToChunk.size(), is(originalModels * (NR_CHUNKS + 1)));
+
+        executeAllAndWait();
+        for (NodeID[] body : bodies) {
+            checkStateOfMany(EXECUTED, body);
+        }
+        for (Map.Entry<NodeModel, Integer> e : modelToChunk.entrySet()) {
+            if (e.getKey() instanceof InternalsNodeModel) {
+                assertThat("No internals in node of chunk " + e.getValue(),
+                    ((InternalsNodeModel)e.getKey()).getInternals(), notNullValue());
+            }
+        }
+
+        // resetting the first chunk must not affect the others
+        chunks.resetAndConfigureNode(bodies.get(0)[0]);
+        for (Map.Entry<NodeModel, Integer> e : modelToChunk.entrySet()) {
+            if (e.getKey() instanceof InternalsNodeModel) {
+                assertThat("Wrong internals in node of chunk " + e.getValue() + " after reset of chunk 0",
+                    ((InternalsNodeModel)e.getKey()).getInternals(),
+                    e.getValue() == 0 ? nullValue() : notNullValue());
+            }
+        }
+        for (int i = 1; i < NR_CHUNKS; i++) {
+            checkStateOfMany(EXECUTED, bodies.get(i));
+        }
+    }
+
+    /**
+     * Logs the time needed to create the chunk bodies with a copy per chunk (as before) and with a single copy. This
+     * is a measurement, not a check; the time is dominated by node creation in both cases if the body nodes have few
+     * settings and no internals to copy.
+     *
+     * @throws Exception if that fails
+     */
+    @Test(timeout = 120000L)
+    public void testCopyOnceVersusCopyPerChunk() throws Exception {
+        WorkflowManager wfm = getManager();
+        final int nrChunks = 50;
+        final WorkflowCopyContent content = WorkflowCopyContent.builder().setNodeIDs(m_loopBody).build();
+        for (int run = 0; run < 3; run++) { // first run(s) warm up
+            WorkflowManager perChunk = wfm.createAndAddSubWorkflow(new PortType[0], new PortType[0], "PerChunk");
+            long start = System.nanoTime();
+            for (int i = 0; i < nrChunks; i++) {
+                perChunk.copyFromAndPasteHere(wfm, content);
+            }
+            long perChunkNanos = System.nanoTime() - start;
+
+            WorkflowManager once = wfm.createAndAddSubWorkflow(new PortType[0], new PortType[0], "Once");
+            start = System.nanoTime();
+            WorkflowPersistor loopBodyCopy = wfm.copy(content);
+            for (int i = 0; i < nrChunks; i++) {
+                once.paste(loopBodyCopy);
+            }
+            long onceNanos = System.nanoTime() - start;
+
+            assertThat("Different number of pasted nodes", once.getNodeContainers().size(),
+                is(perChunk.getNodeContainers().size()));
+            getLogger().info("Creating " + nrChunks + " chunk bodies (run " + run + "): copy per chunk "
+                + perChunkNanos / 1000000 + "ms, single copy " + onceNanos / 1000000 + "ms");
+            wfm.removeNode(perChunk.getID());
+            wfm.removeNode(once.getID());
+        }
+    }
+
+    private static int countConnections(final WorkflowManager wfm, final Set<NodeID> nodes) {
+        int count = 0;
+        for (ConnectionContainer cc : wfm.getConnectionContainers()) {
+            if (nodes.contains(cc.getSource()) && nodes.contains(cc.getDest())) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /** Adds the node models of the given nodes and all nested nodes to the map, returns their number. */
+    private static int collectNodeModels(final WorkflowManager wfm, final NodeID[] ids, final int chunk,
+        final Map<NodeModel, Integer> modelToChunk) {
+        int count = 0;
+        for (NodeID id : ids) {
+            NodeContainer nc = wfm.getNodeContainer(id);
+            if (nc instanceof NativeNodeContainer) {
+                modelToChunk.put(((NativeNodeContainer)nc).getNodeModel(), chunk);
+                count++;
+            } else {
+                WorkflowManager inner = nc instanceof SubNodeContainer ? ((SubNodeContainer)nc).getWorkflowManager()
+                    : (WorkflowManager)nc;
+                List<NodeID> innerIDs = new ArrayList<NodeID>();
+                for (NodeContainer innerNC : inner.getNodeContainers()) {
+                    innerIDs.add(innerNC.getID());
+                }
+                Collections.sort(innerIDs);
+                count += collectNodeModels(inner, innerIDs.toArray(new NodeID[0]), chunk, modelToChunk);
+            }
+        }
+        return count;
+    }
+
+    /** Creates {@link InternalsNodeModel}. */
+    public static final class InternalsNodeFactory extends AdapterNodeFactory {
+        /** {@inheritDoc} */
+        @Override
+        public AdapterNodeModel createNodeModel() {
+            return new InternalsNodeModel();
+        }
+    }
+
+    /** Pass-through node that keeps internals (the number of input rows), which are set during execute. */
+    static final class InternalsNodeModel extends AdapterNodeModel {
+
+        private Long m_internals;
+
+        InternalsNodeModel() {
+            super(1, 1);
+        }
+
+        Long getInternals() {
+            return m_internals;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        protected PortObject[] execute(final PortObject[] inObjects, final ExecutionContext exec) throws Exception {
+            m_internals = ((BufferedDataTable)inObjects[0]).size();
+            return super.execute(inObjects, exec);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        protected void reset() {
+            m_internals = null;
+        }
+    }
+
+}
@@ -0,0 +1,259 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.node.workflow;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.node.missing.MissingNodeFactory;
+import org.knime.core.node.port.PortType;
+import org.knime.core.node.workflow.WorkflowPersistor.LoadResultEntry.LoadResultEntryType;
+import org.knime.core.node.workflow.WorkflowPersistor.WorkflowLoadResult;
+import org.knime.core.node.workflow.node.adapter.AdapterNodeFactory;
+import org.knime.core.util.FileUtil;
+
+/**
+ * Tests that pre-loading the nodes of a workflow concurrently (see
+ * {@link KNIMEConstants#PROPERTY_WORKFLOW_LOAD_THREADS}) results in the same workflow and the same load errors as a
+ * sequential load, and that node factories are not instantiated concurrently.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class ParallelWorkflowLoadTest extends WorkflowTestCase {
+
+    private static final String MISSING_FACTORY = "org.knime.core.node.workflow.DoesNotExistNodeFactoryForTesting";
+
+    private static final AtomicInteger ACTIVE_CREATIONS = new AtomicInteger();
+
+    private static final AtomicBoolean CONCURRENT_CREATION = new AtomicBoolean();
+
+    private File m_workflowDir;
+
+    /**
+     * Creates, executes and saves a workflow with native nodes, a metanode and a component. The factory of one node is
+     * replaced by an unknown class, the settings of another node are deleted.
+     *
+     * @throws Exception if that fails
+     */
+    @Before
+    public void setUp() throws Exception {
+        m_workflowDir = FileUtil.createTempDir(getClass().getSimpleName());
+        WorkflowManager wfm = WorkflowManager.ROOT.createAndAddProject(getClass().getSimpleName(),
+            new WorkflowCreationHelper());
+        NodeID previous = wfm.createAndAddNode(new SerialSourceNodeFactory());
+        for (int i = 0; i < 20; i++) {
+            previous = addNode(wfm, previous, 1);
+        }
+        final PortType[] ports = new PortType[]{BufferedDataTable.TYPE};
+        WorkflowManager meta = wfm.createAndAddSubWorkflow(ports, ports, "Metanode");
+        wfm.addConnection(previous, 1, meta.getID(), 0);
+        addChain(meta, 10);
+        WorkflowManager metaInComponent = wfm.createAndAddSubWorkflow(ports, ports, "Component");
+        wfm.addConnection(meta.getID(), 0, metaInComponent.getID(), 0);
+        addChain(metaInComponent, 10);
+        NodeID componentID = metaInComponent.getID();
+        wfm.convertMetaNodeToSubNode(componentID);
+        previous = componentID;
+        NodeID missingFactoryNode = null;
+        NodeID missingSettingsNode = null;
+        for (int i = 0; i < 10; i++) {
+            previous = addNode(wfm, previous, 1);
+            if (i == 3) {
+                missingFactoryNode = previous;
+            } else if (i == 6) {
+                missingSettingsNode = previous;
+            }
+        }
+        wfm.executeAllAndWaitUntilDone();
+        wfm.save(m_workflowDir, new ExecutionMonitor(), true);
+
+        File missingFactorySettings = getSettingsFile(wfm, missingFactoryNode);
+        String settings = new String(Files.readAllBytes(missingFactorySettings.toPath()), StandardCharsets.UTF_8);
+        String factoryName = SerialNodeFactory.class.getName();
+        assertTrue("Factory class name not found in node settings", settings.contains(factoryName));
+        Files.write(missingFactorySettings.toPath(),
+            settings.replace(factoryName, MISSING_FACTORY).getBytes(StandardCharsets.UTF_8));
+        Files.delete(getSettingsFile(wfm, missingSettingsNode).toPath());
+        WorkflowManager.ROOT.removeProject(wfm.getID());
+    }
+
+    private static File getSettingsFile(final WorkflowManager wfm, final NodeID id) {
+        return new File(wfm.getNodeContainer(id).getNodeContainerDirectory().getFile(), "settings.xml");
+    }
+
+    private static NodeID addNode(final WorkflowManager wfm, final NodeID previous, final int previousPort) {
+        NodeID id = wfm.createAndAddNode(new SerialNodeFactory());
+        wfm.addConnection(previous, previousPort, id, 1);
+        return id;
+    }
+
+    /** Adds a chain of nodes between the in- and output of the metanode. */
+    private static void addChain(final WorkflowManager meta, final int length) {
+        NodeID previous = meta.getID();
+        int previousPort = 0;
+        for (int i = 0; i < length; i++) {
+            previous = addNode(meta, previous, previousPort);
+            previousPort = 1;
+        }
+        meta.addConnection(previous, 1, meta.getID(), 0);
+    }
+
+    /**
+     * Loads the workflow sequentially and with 4 threads and compares the loaded workflows and load results.
+     *
+     * @throws Exception if that fails
+     */
+    @Test(timeout = 60000L)
+    public void testParallelLoadEqualsSequentialLoad() throws Exception {
+        final List<String> sequentialWorkflow = new ArrayList<String>();
+        final String sequentialErrors = load(1, sequentialWorkflow);
+        closeWorkflow();
+        final List<String> parallelWorkflow = new ArrayList<String>();
+        final String parallelErrors = load(4, parallelWorkflow);
+
+        assertTrue("No load error for missing node settings: " + sequentialErrors,
+            sequentialErrors.contains("Unable to load node with ID suffix"));
+        assertTrue("No missing node placeholder: " + sequentialWorkflow,
+            sequentialWorkflow.stream().anyMatch(line -> line.endsWith(MissingNodeFactory.class.getName())));
+        assertThat("Different load errors", parallelErrors, is(sequentialErrors));
+        assertThat("Different number of nodes and connections", parallelWorkflow.size(),
+            is(sequentialWorkflow.size()));
+        for (int i = 0; i < sequentialWorkflow.size(); i++) {
+            assertThat("Different node or connection at position " + i, parallelWorkflow.get(i),
+                is(sequentialWorkflow.get(i)));
+        }
+        assertFalse("Node factories instantiated concurrently", CONCURRENT_CREATION.get());
+    }
+
+    private String load(final int threadCount, final List<String> workflow) throws Exception {
+        FileWorkflowPersistor.setLoadThreadCount(threadCount);
+        final WorkflowLoadResult loadResult;
+        try {
+            loadResult = loadWorkflow(m_workflowDir, new ExecutionMonitor());
+        } finally {
+            FileWorkflowPersistor.setLoadThreadCount(1);
+        }
+        setManager(loadResult.getWorkflowManager());
+        describe(getManager(), workflow);
+        return loadResult.getFilteredError("", LoadResultEntryType.Warning);
+    }
+
+    /** Adds one line per node (recursively) and connection to the list, ids are relative to the project. */
+    private static void describe(final WorkflowManager wfm, final List<String> workflow) {
+        for (NodeContainer nc : wfm.getNodeContainers()) {
+            String line = nc.getID().getIndex() + " " + nc.getClass().getSimpleName() + " " + nc.getName() + " "
+                + nc.getNodeContainerState();
+            if (nc instanceof NativeNodeContainer) {
+                line += " " + ((NativeNodeContainer)nc).getNode().getFactory().getClass().getName();
+            }
+            workflow.add(line);
+            if (nc instanceof WorkflowManager) {
+                describe((WorkflowManager)nc, workflow);
+            } else if (nc instanceof SubNodeContainer) {
+                describe(((SubNodeContainer)nc).getWorkflowManager(), workflow);
+            }
+        }
+        for (ConnectionContainer cc : wfm.getConnectionContainers()) {
+            workflow.add(cc.getSource().getIndex() + ":" + cc.getSourcePort() + " -> " + cc.getDest().getIndex() + ":"
+                + cc.getDestPort());
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @After
+    public void tearDown() throws Exception {
+        super.tearDown();
+        FileUtil.deleteRecursively(m_workflowDir);
+        CONCURRENT_CREATION.set(false);
+    }
+
+    /** Called by the factory constructors, records whether factories are created concurrently. */
+    private static void checkSerialCreation() {
+        if (ACTIVE_CREATIONS.incrementAndGet() > 1) {
+            CONCURRENT_CREATION.set(true);
+        }
+        try {
+            Thread.sleep(5);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        ACTIVE_CREATIONS.decrementAndGet();
+    }
+
+    /** Adapter node that checks that it isn't instantiated concurrently. */
+    public static final class SerialNodeFactory extends AdapterNodeFactory {
+        /** Default constructor, also used when the workflow is loaded. */
+        public SerialNodeFactory() {
+            checkSerialCreation();
+        }
+    }
+
+    /** Source node that checks that it isn't instantiated concurrently. */
+    public static final class SerialSourceNodeFactory extends AdapterNodeFactory {
+        /** Default constructor, also used when the workflow is loaded. */
+        public SerialSourceNodeFactory() {
+            super(true);
+            checkSerialCreation();
+        }
+    }
+
+}
@@ -0,0 +1,247 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.node.workflow;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.data.DataRow;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.node.port.PortObject;
+import org.knime.core.node.port.PortType;
+import org.knime.core.node.workflow.node.adapter.AdapterNodeFactory;
+import org.knime.core.util.FileUtil;
+
+/**
+ * Tests that saving the native nodes of a workflow concurrently (see
+ * {@link KNIMEConstants#PROPERTY_WORKFLOW_SAVE_THREADS}) writes the same workflow as a sequential save, and that a
+ * failing node save is reported to the caller.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class ParallelWorkflowSaveTest extends WorkflowTestCase {
+
+    private File m_tempDir;
+
+    private NodeID m_middleNode;
+
+    /**
+     * Creates and executes a workflow with a chain of native nodes, a metanode and a component.
+     *
+     * @throws Exception if that fails
+     */
+    @Before
+    public void setUp() throws Exception {
+        m_tempDir = FileUtil.createTempDir(getClass().getSimpleName());
+        WorkflowManager wfm = WorkflowManager.ROOT.createAndAddProject(getClass().getSimpleName(),
+            new WorkflowCreationHelper());
+        setManager(wfm);
+        NodeID previous = wfm.createAndAddNode(new AdapterNodeFactory(true));
+        for (int i = 0; i < 30; i++) {
+            previous = addNode(wfm, previous, 1);
+            if (i == 15) {
+                m_middleNode = previous;
+            }
+        }
+        final PortType[] ports = new PortType[]{BufferedDataTable.TYPE};
+        WorkflowManager meta = wfm.createAndAddSubWorkflow(ports, ports, "Metanode");
+        wfm.addConnection(previous, 1, meta.getID(), 0);
+        addChain(meta, 10);
+        WorkflowManager metaInComponent = wfm.createAndAddSubWorkflow(ports, ports, "Component");
+        wfm.addConnection(meta.getID(), 0, metaInComponent.getID(), 0);
+        addChain(metaInComponent, 10);
+        wfm.convertMetaNodeToSubNode(metaInComponent.getID());
+        previous = metaInComponent.getID();
+        for (int i = 0; i < 10; i++) {
+            previous = addNode(wfm, previous, 1);
+        }
+        executeAllAndWait();
+        checkState(wfm, InternalNodeContainerState.EXECUTED);
+    }
+
+    private static NodeID addNode(final WorkflowManager wfm, final NodeID previous, final int previousPort) {
+        NodeID id = wfm.createAndAddNode(new AdapterNodeFactory());
+        wfm.addConnection(previous, previousPort, id, 1);
+        return id;
+    }
+
+    /** Adds a chain of nodes between the in- and output of the metanode. */
+    private static void addChain(final WorkflowManager meta, final int length) {
+        NodeID previous = meta.getID();
+        int previousPort = 0;
+        for (int i = 0; i < length; i++) {
+            previous = addNode(meta, previous, previousPort);
+            previousPort = 1;
+        }
+        meta.addConnection(previous, 1, meta.getID(), 0);
+    }
+
+    /**
+     * Saves the executed workflow sequentially and with 4 threads, compares the written files and the reloaded
+     * workflows (nodes, states, connections and output data).
+     *
+     * @throws Exception if that fails
+     */
+    @Test(timeout = 60000L)
+    public void testParallelSaveEqualsSequentialSave() throws Exception {
+        final List<String> original = new ArrayList<String>();
+        describe(getManager(), original);
+        final File sequentialDir = new File(m_tempDir, "sequential");
+        final File parallelDir = new File(m_tempDir, "parallel");
+        save(1, sequentialDir);
+        save(4, parallelDir);
+        closeWorkflow();
+
+        assertThat("Different files written", listFiles(parallelDir), is(listFiles(sequentialDir)));
+
+        final List<String> sequential = new ArrayList<String>();
+        loadAndSetWorkflow(sequentialDir);
+        describe(getManager(), sequential);
+        closeWorkflow();
+        final List<String> parallel = new ArrayList<String>();
+        loadAndSetWorkflow(parallelDir);
+        describe(getManager(), parallel);
+
+        assertThat("Sequentially saved workflow differs from original", sequential, is(original));
+        assertThat("Different number of nodes, connections and rows", parallel.size(), is(sequential.size()));
+        for (int i = 0; i < sequential.size(); i++) {
+            assertThat("Different node, connection or row at position " + i, parallel.get(i), is(sequential.get(i)));
+        }
+    }
+
+    /**
+     * Blocks the directory of a native node by a file so that saving the node fails and checks that the
+     * {@link IOException} of the save thread is thrown to the caller.
+     *
+     * @throws Exception if that fails
+     */
+    @Test(timeout = 60000L)
+    public void testFailingNodeSaveThrowsIOException() throws Exception {
+        final File workflowDir = new File(m_tempDir, "failing");
+        workflowDir.mkdirs();
+        final NodeContainer blocked = getManager().getNodeContainer(m_middleNode);
+        final String nodeDirName =
+            FileUtil.getValidFileName(blocked.getName(), -1) + " (#" + m_middleNode.getIndex() + ")";
+        assertTrue("Could not create file blocking the node directory",
+            new File(workflowDir, nodeDirName).createNewFile());
+        try {
+            save(4, workflowDir);
+            fail("Saving node into a file instead of a directory did not fail");
+        } catch (IOException e) {
+            assertTrue("Unexpected exception: " + e.getMessage(), e.getMessage().contains(nodeDirName));
+        }
+    }
+
+    private void save(final int threadCount, final File directory) throws Exception {
+        FileWorkflowPersistor.setSaveThreadCount(threadCount);
+        try {
+            getManager().save(directory, new ExecutionMonitor(), true);
+        } finally {
+            FileWorkflowPersistor.setSaveThreadCount(1);
+        }
+    }
+
+    /** The paths of all files in the directory (recursively), relative to the directory and sorted. */
+    private static List<String> listFiles(final File directory) throws IOException {
+        final Path root = directory.toPath();
+        try (Stream<Path> files = Files.walk(root)) {
+            return files.map(p -> root.relativize(p).toString()).sorted().collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Adds one line per node (recursively), connection and output row to the list, ids are relative to the project.
+     */
+    private static void describe(final WorkflowManager wfm, final List<String> workflow) {
+        for (NodeContainer nc : wfm.getNodeContainers()) {
+            workflow.add(nc.getID().getIndex() + " " + nc.getClass().getSimpleName() + " " + nc.getName() + " "
+                + nc.getNodeContainerState());
+            if (nc instanceof WorkflowManager) {
+                describe((WorkflowManager)nc, workflow);
+            } else if (nc instanceof SubNodeContainer) {
+                describe(((SubNodeContainer)nc).getWorkflowManager(), workflow);
+            } else {
+                for (int i = 1; i < nc.getNrOutPorts(); i++) {
+                    PortObject output = nc.getOutPort(i).getPortObject();
+                    workflow.add(nc.getID().getIndex() + ":" + i + " " + output.getSummary());
+                    if (output instanceof BufferedDataTable) {
+                        for (DataRow row : (BufferedDataTable)output) {
+                            workflow.add(row.toString());
+                        }
+                    }
+                }
+            }
+        }
+        for (ConnectionContainer cc : wfm.getConnectionContainers()) {
+            workflow.add(cc.getSource().getIndex() + ":" + cc.getSourcePort() + " -> " + cc.getDest().getIndex() + ":"
+                + cc.getDestPort());
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @After
+    public void tearDown() throws Exception {
+        super.tearDown();
+        FileUtil.deleteRecursively(m_tempDir);
+    }
+
+}
@@ -0,0 +1,185 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.node.workflow;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests {@link WorkflowExecutionTrace}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class WorkflowExecutionTraceTest extends WorkflowTestCase {
+
+    private NodeID m_baseID;
+
+    /**
+     * Loads the workflow.
+     *
+     * @throws Exception if that fails
+     */
+    @Before
+    public void setUp() throws Exception {
+        m_baseID = loadAndSetWorkflow(getWorkflowDirectory("simplechainofnodes"));
+    }
+
+    private static JsonArray writeAndParse(final WorkflowExecutionTrace trace) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        trace.writeChromeTrace(out);
+        try (JsonReader reader = Json.createReader(new ByteArrayInputStream(out.toByteArray()))) {
+            JsonObject json = reader.readObject();
+            assertThat("Display time unit", json.getString("displayTimeUnit"), is("ms"));
+            return json.getJsonArray("traceEvents");
+        }
+    }
+
+    private static int countEvents(final JsonArray events, final String phase) {
+        int count = 0;
+        for (int i = 0; i < events.size(); i++) {
+            if (phase.equals(events.getJsonObject(i).getString("ph"))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /** Tests that only the most recent events are kept if the capacity is exceeded. */
+    @Test
+    public void testRingBuffer() throws Exception {
+        WorkflowExecutionTrace trace = new WorkflowExecutionTrace(4);
+        NodeID nodeID = new NodeID(m_baseID, 1);
+        for (int i = 1; i <= 6; i++) {
+            trace.tableSpilled(nodeID, i);
+        }
+        assertThat("Event count", trace.getEventCount(), is(6L));
+        JsonArray events = writeAndParse(trace);
+        assertThat("Instant events", countEvents(events, "i"), is(4));
+        assertThat("Thread name events", countEvents(events, "M"), is(1));
+        JsonObject first = events.getJsonObject(0);
+        assertThat("Oldest event kept", first.getString("name"), is("Swapped 3 rows to disc"));
+        assertThat("Category", first.getString("cat"), is("io"));
+        assertThat("Node", first.getJsonObject("args").getString("node"), is(nodeID.toString()));
+
+        trace.clear();
+        assertThat("Event count after clear", trace.getEventCount(), is(0L));
+        assertThat("Events after clear", writeAndParse(trace).size(), is(0));
+    }
+
+    /** Tests that short table writer stalls are ignored and others are recorded with their duration. */
+    @Test
+    public void testAsyncWriteStall() throws Exception {
+        WorkflowExecutionTrace trace = new WorkflowExecutionTrace();
+        NodeID nodeID = new NodeID(m_baseID, 1);
+        trace.asyncWriteStalled(nodeID, TimeUnit.MICROSECONDS.toNanos(10L));
+        assertThat("Short stall recorded", trace.getEventCount(), is(0L));
+        trace.asyncWriteStalled(nodeID, TimeUnit.MILLISECONDS.toNanos(5L));
+        JsonArray events = writeAndParse(trace);
+        assertThat("Complete events", countEvents(events, "X"), is(1));
+        assertThat("Stall duration", events.getJsonObject(0).getJsonNumber("dur").longValue(), is(5000L));
+    }
+
+    /** Tests that the capacity must be positive. */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidCapacity() {
+        new WorkflowExecutionTrace(0);
+    }
+
+    /**
+     * Executes the workflow with tracing enabled and tests that every node has a matching begin and end event.
+     *
+     * @throws Exception if execution fails
+     */
+    @Test
+    public void testTraceOfExecution() throws Exception {
+        WorkflowManager wfm = getManager();
+        WorkflowExecutionTrace trace = new WorkflowExecutionTrace();
+        wfm.setExecutionTrace(trace);
+        assertTrue("Trace not set", wfm.getExecutionTrace() == trace);
+        executeAllAndWait();
+        checkState(wfm, InternalNodeContainerState.EXECUTED);
+
+        JsonArray events = writeAndParse(trace);
+        Map<String, Long> beginTimes = new HashMap<String, Long>();
+        Map<String, Long> endTimes = new HashMap<String, Long>();
+        for (int i = 0; i < events.size(); i++) {
+            JsonObject event = events.getJsonObject(i);
+            String phase = event.getString("ph");
+            if ("b".equals(phase)) {
+                beginTimes.put(event.getString("id"), event.getJsonNumber("ts").longValue());
+            } else if ("e".equals(phase)) {
+                endTimes.put(event.getString("id"), event.getJsonNumber("ts").longValue());
+                assertTrue("Node not successful: " + event, event.getJsonObject("args").getBoolean("success"));
+            }
+        }
+        assertThat("Executed nodes", beginTimes.size(), is(4));
+        assertThat("Finished nodes", endTimes.keySet(), is(beginTimes.keySet()));
+        for (Map.Entry<String, Long> begin : beginTimes.entrySet()) {
+            assertTrue("Node finished before it started: " + begin.getKey(),
+                endTimes.get(begin.getKey()) >= begin.getValue());
+        }
+        assertTrue("No queued events", countEvents(events, "i") >= 4);
+
+        wfm.setExecutionTrace(null);
+        assertTrue("Trace not removed", wfm.getExecutionTrace() == null);
+    }
+
+}
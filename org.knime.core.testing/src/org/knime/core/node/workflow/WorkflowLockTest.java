@@ -0,0 +1,205 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.node.workflow;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the lock wait statistics of {@link WorkflowLock} and that queries of the workflow graph don't block on the
+ * workflow lock.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class WorkflowLockTest extends WorkflowTestCase {
+
+    private NodeID m_dataGen;
+
+    private NodeID m_colFilter;
+
+    private Thread m_lockHolder;
+
+    private CountDownLatch m_releaseLock;
+
+    /**
+     * Loads the workflow.
+     *
+     * @throws Exception if that fails
+     */
+    @Before
+    public void setUp() throws Exception {
+        NodeID baseID = loadAndSetWorkflow(getWorkflowDirectory("simplechainofnodes"));
+        m_dataGen = new NodeID(baseID, 1);
+        m_colFilter = new NodeID(baseID, 2);
+        m_releaseLock = new CountDownLatch(1);
+    }
+
+    /**
+     * Releases the lock if still held by the helper thread.
+     *
+     * @throws Exception if interrupted
+     */
+    @After
+    public void releaseLock() throws Exception {
+        m_releaseLock.countDown();
+        if (m_lockHolder != null) {
+            m_lockHolder.join();
+        }
+    }
+
+    /** Acquires the workflow lock in a separate thread and keeps it until {@link #m_releaseLock} is counted down. */
+    private void lockInOtherThread() throws InterruptedException {
+        final WorkflowManager wfm = getManager();
+        final CountDownLatch locked = new CountDownLatch(1);
+        m_lockHolder = new Thread(() -> {
+            try (WorkflowLock lock = wfm.lock()) {
+                locked.countDown();
+                m_releaseLock.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "WorkflowLockTest-Holder");
+        m_lockHolder.start();
+        locked.await();
+    }
+
+    /** Tests the counters of the statistics object. */
+    @Test
+    public void testStatisticsCounters() {
+        WorkflowLockStatistics stats = new WorkflowLockStatistics();
+        stats.addUncontendedAcquisition();
+        stats.addUncontendedAcquisition();
+        stats.addContendedAcquisition(30L);
+        stats.addContendedAcquisition(10L);
+        assertThat("Acquisitions", stats.getAcquisitionCount(), is(4L));
+        assertThat("Contended acquisitions", stats.getContendedAcquisitionCount(), is(2L));
+        assertThat("Total wait", stats.getTotalWaitNanos(), is(40L));
+        assertThat("Max wait", stats.getMaxWaitNanos(), is(30L));
+
+        stats.reset();
+        assertThat("Acquisitions after reset", stats.getAcquisitionCount(), is(0L));
+        assertThat("Contended acquisitions after reset", stats.getContendedAcquisitionCount(), is(0L));
+        assertThat("Total wait after reset", stats.getTotalWaitNanos(), is(0L));
+        assertThat("Max wait after reset", stats.getMaxWaitNanos(), is(0L));
+    }
+
+    /** Tests that an uncontended acquisition is counted but not recorded as wait. */
+    @Test
+    public void testUncontendedAcquisition() {
+        WorkflowLockStatistics stats = getManager().getLockStatistics();
+        stats.reset();
+        try (WorkflowLock lock = getManager().lock()) {
+            assertTrue("Acquisition not recorded", stats.getAcquisitionCount() >= 1L);
+        }
+        assertThat("Contended acquisitions", stats.getContendedAcquisitionCount(), is(0L));
+        assertThat("Total wait", stats.getTotalWaitNanos(), is(0L));
+    }
+
+    /**
+     * Tests that waiting for the lock held by another thread is recorded.
+     *
+     * @throws Exception if interrupted
+     */
+    @Test(timeout = 10000)
+    public void testContendedAcquisition() throws Exception {
+        final WorkflowManager wfm = getManager();
+        WorkflowLockStatistics stats = wfm.getLockStatistics();
+        stats.reset();
+        lockInOtherThread();
+        Thread waiter = new Thread(() -> {
+            try (WorkflowLock lock = wfm.lock()) {
+                // only acquire and release
+            }
+        }, "WorkflowLockTest-Waiter");
+        waiter.start();
+        while (!wfm.getReentrantLockInstance().hasQueuedThread(waiter)) {
+            Thread.sleep(5);
+        }
+        Thread.sleep(50);
+        m_releaseLock.countDown();
+        waiter.join();
+        assertTrue("Contended acquisition not recorded", stats.getContendedAcquisitionCount() >= 1L);
+        assertTrue("Acquisitions not recorded", stats.getAcquisitionCount() >= 2L);
+        assertTrue("Wait time too short: " + stats, stats.getMaxWaitNanos() >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertTrue("Total wait smaller than max wait: " + stats,
+            stats.getTotalWaitNanos() >= stats.getMaxWaitNanos());
+    }
+
+    /**
+     * Tests that the nodes and connections can be queried while another thread holds the workflow lock.
+     *
+     * @throws Exception if the queries time out
+     */
+    @Test(timeout = 10000)
+    public void testGraphQueriesWhileLocked() throws Exception {
+        final WorkflowManager wfm = getManager();
+        lockInOtherThread();
+        int nrNodes = CompletableFuture.supplyAsync(() -> wfm.getNodeContainers().size()).get(5, TimeUnit.SECONDS);
+        assertThat("Number of nodes", nrNodes, is(4));
+        int nrIncoming =
+            CompletableFuture.supplyAsync(() -> wfm.getIncomingConnectionsFor(m_colFilter).size()).get(5,
+                TimeUnit.SECONDS);
+        assertThat("Number of incoming connections", nrIncoming, is(1));
+        ConnectionContainer cc =
+            CompletableFuture.supplyAsync(() -> wfm.getIncomingConnectionFor(m_colFilter, 1)).get(5, TimeUnit.SECONDS);
+        assertThat("Source of connection", cc.getSource(), is(m_dataGen));
+        int nrOutgoing = CompletableFuture.supplyAsync(() -> wfm.getOutgoingConnectionsFor(m_dataGen).size())
+            .get(5, TimeUnit.SECONDS);
+        assertThat("Number of outgoing connections", nrOutgoing, is(1));
+        boolean containsConnection =
+            CompletableFuture.supplyAsync(() -> wfm.getConnectionContainers().contains(cc)).get(5, TimeUnit.SECONDS);
+        assertTrue("Connection not contained in workflow", containsConnection);
+    }
+
+}
@@ -0,0 +1,232 @@
+/*
+ * ------------------------------------------------------------------------
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * -------------------------------------------------------------------
+ */
+package org.knime.core.util;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.log4j.AppenderSkeleton;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.spi.Filter;
+import org.apache.log4j.spi.LoggingEvent;
+import org.junit.Test;
+
+/**
+ * Testcases for {@link AsyncLogAppender}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class AsyncLogAppenderTest {
+
+    private static final Logger LOGGER = Logger.getLogger(AsyncLogAppenderTest.class);
+
+    /** Collects the events it is asked to write. */
+    private static final class CollectingAppender extends AppenderSkeleton {
+
+        private final List<LoggingEvent> m_events = Collections.synchronizedList(new ArrayList<LoggingEvent>());
+
+        private volatile boolean m_isClosed;
+
+        CollectingAppender(final String name) {
+            setName(name);
+        }
+
+        @Override
+        protected void append(final LoggingEvent event) {
+            m_events.add(event);
+        }
+
+        @Override
+        public void close() {
+            m_isClosed = true;
+        }
+
+        @Override
+        public boolean requiresLayout() {
+            return false;
+        }
+
+        List<String> getMessages() {
+            synchronized (m_events) {
+                List<String> result = new ArrayList<String>();
+                for (LoggingEvent e : m_events) {
+                    result.add(e.getRenderedMessage());
+                }
+                return result;
+            }
+        }
+    }
+
+    private static LoggingEvent createEvent(final String message) {
+        return new LoggingEvent(AsyncLogAppenderTest.class.getName(), LOGGER, Level.INFO, message, null);
+    }
+
+    /** Tests that events are written in the order they were logged once {@link AsyncLogAppender#flushAll()}
+     * returns. */
+    @Test
+    public void testEventsWrittenInOrder() {
+        CollectingAppender delegate = new CollectingAppender("testEventsWrittenInOrder");
+        AsyncLogAppender appender = new AsyncLogAppender(delegate);
+        List<String> expected = new ArrayList<String>();
+        for (int i = 0; i < 2000; i++) {
+            expected.add("Message " + i);
+            appender.doAppend(createEvent("Message " + i));
+        }
+        AsyncLogAppender.flushAll();
+        assertThat("Written messages", delegate.getMessages(), is(expected));
+        appender.close();
+    }
+
+    /**
+     * Tests that events logged concurrently from several threads are all written, in order per thread, and that
+     * the thread name is captured in the logging thread.
+     *
+     * @throws Exception if interrupted
+     */
+    @Test(timeout = 20000)
+    public void testConcurrentLogging() throws Exception {
+        final CollectingAppender delegate = new CollectingAppender("testConcurrentLogging");
+        final AsyncLogAppender appender = new AsyncLogAppender(delegate);
+        final int nrThreads = 4;
+        final int nrEvents = 5000;
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < nrThreads; t++) {
+            final int threadIndex = t;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < nrEvents; i++) {
+                    appender.doAppend(createEvent(threadIndex + ":" + i));
+                }
+            }, "AsyncLogAppenderTest-" + t));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        AsyncLogAppender.flushAll();
+
+        List<LoggingEvent> events;
+        synchronized (delegate.m_events) {
+            events = new ArrayList<LoggingEvent>(delegate.m_events);
+        }
+        assertThat("Number of written events", events.size(), is(nrThreads * nrEvents));
+        int[] nextIndex = new int[nrThreads];
+        for (LoggingEvent e : events) {
+            String[] parts = e.getRenderedMessage().split(":");
+            int threadIndex = Integer.parseInt(parts[0]);
+            assertThat("Order of events of thread " + threadIndex, Integer.parseInt(parts[1]),
+                is(nextIndex[threadIndex]++));
+            assertThat("Thread name", e.getThreadName(), is("AsyncLogAppenderTest-" + threadIndex));
+        }
+        appender.close();
+    }
+
+    /** Tests that the filters of the delegate are moved to the asynchronous appender and applied there. */
+    @Test
+    public void testFiltersAreMoved() {
+        CollectingAppender delegate = new CollectingAppender("testFiltersAreMoved");
+        delegate.addFilter(new Filter() {
+            @Override
+            public int decide(final LoggingEvent event) {
+                return event.getRenderedMessage().startsWith("deny") ? DENY : NEUTRAL;
+            }
+        });
+        AsyncLogAppender appender = new AsyncLogAppender(delegate);
+        assertThat("Filter of delegate", delegate.getFilter(), nullValue());
+        assertTrue("Filter not moved", appender.getFilter() != null);
+        appender.doAppend(createEvent("accept 1"));
+        appender.doAppend(createEvent("deny 1"));
+        appender.doAppend(createEvent("accept 2"));
+        AsyncLogAppender.flushAll();
+        assertThat("Written messages", delegate.getMessages(), is(Arrays.asList("accept 1", "accept 2")));
+        appender.close();
+    }
+
+    /** Tests that closing writes pending events, closes the delegate and ignores later events. */
+    @Test
+    public void testClose() {
+        CollectingAppender delegate = new CollectingAppender("testClose");
+        AsyncLogAppender appender = new AsyncLogAppender(delegate);
+        for (int i = 0; i < 100; i++) {
+            appender.doAppend(createEvent("Message " + i));
+        }
+        appender.close();
+        assertTrue("Delegate not closed", delegate.m_isClosed);
+        assertThat("Written messages before close", delegate.getMessages().size(), is(100));
+        appender.doAppend(createEvent("After close"));
+        AsyncLogAppender.flushAll();
+        assertThat("Written messages after close", delegate.getMessages().size(), is(100));
+    }
+
+    /** Tests that equals is symmetric and consistent with hashCode. */
+    @Test
+    public void testEqualsAndHashCode() {
+        CollectingAppender delegate1 = new CollectingAppender("sameName");
+        CollectingAppender delegate2 = new CollectingAppender("sameName");
+        AsyncLogAppender appender1 = new AsyncLogAppender(delegate1);
+        AsyncLogAppender appender2 = new AsyncLogAppender(delegate2);
+        AsyncLogAppender other = new AsyncLogAppender(new CollectingAppender("otherName"));
+
+        assertTrue("Same name not equal", appender1.equals(appender2));
+        assertTrue("Same name not equal (reverse)", appender2.equals(appender1));
+        assertThat("Hash code of equal appenders", appender1.hashCode(), is(appender2.hashCode()));
+        assertFalse("Different name equal", appender1.equals(other));
+        assertFalse("Appender equals its delegate", appender1.equals(delegate1));
+        assertFalse("Delegate equals its appender", delegate1.equals(appender1));
+
+        AsyncLogAppender unnamed = new AsyncLogAppender(new CollectingAppender(null));
+        assertTrue("Unnamed appender not equal to itself", unnamed.equals(unnamed));
+        assertFalse("Unnamed appenders equal", unnamed.equals(new AsyncLogAppender(new CollectingAppender(null))));
+    }
+
+}
@@ -125,6 +125,8 @@
 import org.knime.core.node.NodeSettings;
 import org.knime.core.node.NodeSettingsRO;
 import org.knime.core.node.NodeSettingsWO;
+import org.knime.core.node.ProgressCounter;
+import org.knime.core.node.workflow.NodeExecutionMetrics;
 import org.knime.core.util.FileUtil;
 import org.knime.core.util.PathUtils;
 import org.knime.core.util.ThreadUtils;
@@ -1021,6 +1023,19 @@ void closeInternal() {
 
     private MemoryAlertListener m_memoryAlertListener;
 
+    /** Metrics of the node writing this buffer (number of swap events), possibly null. Set by the writing thread,
+     * read by the thread notifying the memory alert listener. */
+    private volatile NodeExecutionMetrics m_executionMetrics;
+
+    /**
+     * Set by the data container creating this buffer.
+     *
+     * @param metrics The metrics of the node writing this buffer, may be null.
+     */
+    void setExecutionMetrics(final NodeExecutionMetrics metrics) {
+        m_executionMetrics = metrics;
+    }
+
     private void registerMemoryAlertListener() {
         m_memoryAlertListener = new MemoryAlertListener() {
             @Override
@@ -1572,16 +1587,16 @@ synchronized void addToZipFile(final ZipOutputStream zipOut, final ExecutionMoni
                 tempFile = DataContainer.createTempFile(copy.m_outputFormat.getFilenameSuffix());
                 copy.initOutputWriter(tempFile);
             }
-            int count = 1;
+            ProgressCounter progressCounter = exec.createProgressCounter(size());
             for (RowIterator it = iterator(); it.hasNext();) {
                 final BlobSupportDataRow row = (BlobSupportDataRow)it.next();
-                final int countCurrent = count;
-                exec.setProgress(count / (double)size(),
-                    () -> "Writing row " + countCurrent + " (\"" + row.getKey() + "\")");
-                exec.checkCanceled();
+                if (progressCounter.increment()) {
+                    final long countCurrent = progressCounter.getCount();
+                    exec.setProgress(progressCounter.getProgress(),
+                        () -> "Writing row " + countCurrent + " (\"" + row.getKey() + "\")");
+                }
                 // make a deep copy of blobs if we have a version hop
                 copy.addRow(row, m_version < IVERSION, false);
-                count++;
             }
             synchronized (copy) {
                 copy.closeInternal();
@@ -1778,7 +1793,11 @@ private static void logDebug(final String message, final Throwable t) {
 
     synchronized void flushBuffer() {
         try {
-            writeAllRowsFromListToFile();
+            final int rowsWritten = writeAllRowsFromListToFile();
+            final NodeExecutionMetrics metrics = m_executionMetrics;
+            if (rowsWritten > 0 && metrics != null) {
+                metrics.addSpill(rowsWritten);
+            }
             m_list = null; // don't write to internal cache any more
         } catch (IllegalStateException ise) {
             LOGGER.error(ise.getMessage() + "; Construction time call stack:\n" + m_fullStackTraceAtConstructionTime);
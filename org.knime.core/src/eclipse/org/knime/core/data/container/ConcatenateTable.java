@@ -46,7 +46,6 @@
 
 import java.io.File;
 import java.io.IOException;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 
@@ -183,14 +182,14 @@ public CloseableRowIterator iterator() {
     /** {@inheritDoc} */
     @Override
     public void putIntoTableRepository(
-            final HashMap<Integer, ContainerTable> rep) {
+            final Map<Integer, ContainerTable> rep) {
         // no new tables, ignore
     }
 
     /** {@inheritDoc} */
     @Override
     public boolean removeFromTableRepository(
-            final HashMap<Integer, ContainerTable> rep) {
+            final Map<Integer, ContainerTable> rep) {
         // no new tables, ignore
         return false;
     }
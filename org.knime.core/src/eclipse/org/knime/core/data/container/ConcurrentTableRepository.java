@@ -0,0 +1,269 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.container;
+
+import java.util.AbstractMap;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Table repository (table ID to table) that can be accessed concurrently without locking, used for the global table
+ * repository of a workflow and the local table repository of a node execution. Tables are created, looked up
+ * (e.g. when resolving blob cells) and removed by many threads in parallel, a single monitor as in a synchronized map
+ * is a point of contention.
+ *
+ * <p>
+ * All operations are delegated to a {@link ConcurrentHashMap}; iteration is weakly consistent. Lookups and removals
+ * with a <code>null</code> key behave as in a <code>HashMap</code> without such a mapping (e.g.
+ * {@link #get(Object) get(null)} returns <code>null</code>), but neither <code>null</code> keys nor
+ * <code>null</code> tables can be added: {@link #put(Integer, ContainerTable) put} and the other methods adding a
+ * mapping throw a {@link NullPointerException}.
+ *
+ * @noreference This class is not intended to be referenced by clients.
+ * @noextend This class is not intended to be subclassed by clients.
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.6
+ */
+public class ConcurrentTableRepository extends AbstractMap<Integer, ContainerTable>
+    implements ConcurrentMap<Integer, ContainerTable> {
+
+    private final ConcurrentHashMap<Integer, ContainerTable> m_tables =
+        new ConcurrentHashMap<Integer, ContainerTable>();
+
+    /** Creates an empty repository. */
+    public ConcurrentTableRepository() {
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public ContainerTable get(final Object key) {
+        return key == null ? null : m_tables.get(key);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public ContainerTable getOrDefault(final Object key, final ContainerTable defaultValue) {
+        return key == null ? defaultValue : m_tables.getOrDefault(key, defaultValue);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean containsKey(final Object key) {
+        return key != null && m_tables.containsKey(key);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean containsValue(final Object value) {
+        return value != null && m_tables.containsValue(value);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws NullPointerException if the key or the table is <code>null</code>
+     */
+    @Override
+    public ContainerTable put(final Integer key, final ContainerTable value) {
+        return m_tables.put(checkKey(key), checkTable(value));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws NullPointerException if the key or the table is <code>null</code>
+     */
+    @Override
+    public ContainerTable putIfAbsent(final Integer key, final ContainerTable value) {
+        return m_tables.putIfAbsent(checkKey(key), checkTable(value));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws NullPointerException if any of the keys or tables is <code>null</code>
+     */
+    @Override
+    public void putAll(final Map<? extends Integer, ? extends ContainerTable> m) {
+        for (Map.Entry<? extends Integer, ? extends ContainerTable> e : m.entrySet()) {
+            put(e.getKey(), e.getValue());
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public ContainerTable remove(final Object key) {
+        return key == null ? null : m_tables.remove(key);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean remove(final Object key, final Object value) {
+        return key != null && value != null && m_tables.remove(key, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws NullPointerException if the key or the table is <code>null</code>
+     */
+    @Override
+    public ContainerTable replace(final Integer key, final ContainerTable value) {
+        return m_tables.replace(checkKey(key), checkTable(value));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws NullPointerException if the key or any of the tables is <code>null</code>
+     */
+    @Override
+    public boolean replace(final Integer key, final ContainerTable oldValue, final ContainerTable newValue) {
+        return m_tables.replace(checkKey(key), checkTable(oldValue), checkTable(newValue));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public ContainerTable computeIfAbsent(final Integer key,
+        final Function<? super Integer, ? extends ContainerTable> mappingFunction) {
+        return m_tables.computeIfAbsent(checkKey(key), mappingFunction);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public ContainerTable computeIfPresent(final Integer key,
+        final BiFunction<? super Integer, ? super ContainerTable, ? extends ContainerTable> remappingFunction) {
+        return m_tables.computeIfPresent(checkKey(key), remappingFunction);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public ContainerTable compute(final Integer key,
+        final BiFunction<? super Integer, ? super ContainerTable, ? extends ContainerTable> remappingFunction) {
+        return m_tables.compute(checkKey(key), remappingFunction);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws NullPointerException if the key or the table is <code>null</code>
+     */
+    @Override
+    public ContainerTable merge(final Integer key, final ContainerTable value,
+        final BiFunction<? super ContainerTable, ? super ContainerTable, ? extends ContainerTable> remappingFunction) {
+        return m_tables.merge(checkKey(key), checkTable(value), remappingFunction);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void forEach(final BiConsumer<? super Integer, ? super ContainerTable> action) {
+        m_tables.forEach(action);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void replaceAll(
+        final BiFunction<? super Integer, ? super ContainerTable, ? extends ContainerTable> function) {
+        m_tables.replaceAll(function);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int size() {
+        return m_tables.size();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean isEmpty() {
+        return m_tables.isEmpty();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void clear() {
+        m_tables.clear();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Set<Integer> keySet() {
+        return m_tables.keySet();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Collection<ContainerTable> values() {
+        return m_tables.values();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Set<Map.Entry<Integer, ContainerTable>> entrySet() {
+        return m_tables.entrySet();
+    }
+
+    private static Integer checkKey(final Integer key) {
+        if (key == null) {
+            throw new NullPointerException("Table ID must not be null");
+        }
+        return key;
+    }
+
+    private static ContainerTable checkTable(final ContainerTable table) {
+        if (table == null) {
+            throw new NullPointerException("Table must not be null");
+        }
+        return table;
+    }
+
+}
@@ -49,7 +49,7 @@
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.Map;
 import java.util.zip.ZipOutputStream;
 
 import org.knime.core.data.DataTable;
@@ -199,7 +199,7 @@ public void saveToFile(final File f, final NodeSettingsWO settings,
      */
     @Override
     public void putIntoTableRepository(
-            final HashMap<Integer, ContainerTable> rep) {
+            final Map<Integer, ContainerTable> rep) {
         rep.put(getBufferID(), this);
         /* The following assertion must generally hold. Unfortunately, we have
          * a bug in pre 2.0 versions (bug #1291), which prevents us from
@@ -219,7 +219,7 @@ public void putIntoTableRepository(
      */
     @Override
     public boolean removeFromTableRepository(
-            final HashMap<Integer, ContainerTable> rep) {
+            final Map<Integer, ContainerTable> rep) {
         if (rep.remove(getBufferID()) == null) {
             LOGGER.debug("Failed to remove container table with id "
                     + getBufferID() + " from global table repository.");
@@ -94,7 +94,9 @@
 import org.knime.core.node.NodeLogger;
 import org.knime.core.node.NodeSettings;
 import org.knime.core.node.NodeSettingsWO;
+import org.knime.core.node.ProgressCounter;
 import org.knime.core.node.workflow.NodeContext;
+import org.knime.core.node.workflow.NodeExecutionMetrics;
 import org.knime.core.util.DuplicateChecker;
 import org.knime.core.util.DuplicateKeyException;
 import org.knime.core.util.FileUtil;
@@ -338,6 +340,9 @@ public Thread newThread(final Runnable r) {
 
     private List<Object> m_emptyingRowBuffer;
 
+    /** Metrics of the node creating this container, null if not created during node execution. */
+    private final NodeExecutionMetrics m_executionMetrics;
+
     private int m_maxRowsInMemory;
 
     /** Holds the keys of the added rows to check for duplicates. */
@@ -428,6 +433,7 @@ protected DataContainer(final DataTableSpec spec, final boolean initDomain, fina
         }
         m_spec = spec;
         m_duplicateChecker = new DuplicateChecker();
+        m_executionMetrics = NodeExecutionMetrics.getCurrent();
         boolean isSynchronousWrite = forceSynchronousIO || SYNCHRONOUS_IO;
         if (!isSynchronousWrite && ASYNC_EXECUTORS.getActiveCount() > MAX_ASYNC_WRITE_THREADS) {
             LOGGER.debug("Number of Table IO write threads exceeds " + MAX_ASYNC_WRITE_THREADS
@@ -610,6 +616,7 @@ public void close() {
             m_buffer =
                 m_bufferCreator.createBuffer(m_spec, m_maxRowsInMemory, createInternalBufferID(),
                     getGlobalTableRepository(), getLocalTableRepository(), getFileStoreHandler());
+            m_buffer.setExecutionMetrics(m_executionMetrics);
         }
         if (!m_isSynchronousWrite) {
             try {
@@ -626,6 +633,9 @@ public void close() {
         // asynchronous write thread to finish)
         DataTableSpec finalSpec = m_domainCreator.createSpec();
         m_buffer.close(finalSpec);
+        if (m_executionMetrics != null) {
+            m_executionMetrics.addContainerWritten(m_size, Math.max(0L, m_buffer.getBufferFileSize()));
+        }
         try {
             m_duplicateChecker.checkForDuplicates();
         } catch (IOException ioe) {
@@ -655,7 +665,11 @@ private void offerToAsynchronousQueue(final Object object) {
         if (m_fillingRowBuffer.size() >= ASYNC_CACHE_SIZE || object == CONTAINER_CLOSE || object == FLUSH_CACHE) {
             while (true) {
                 try {
+                    final long start = m_executionMetrics != null ? System.nanoTime() : 0L;
                     m_fillingRowBuffer = m_rowBufferExchanger.exchange(m_fillingRowBuffer, 30, TimeUnit.SECONDS);
+                    if (m_executionMetrics != null) {
+                        m_executionMetrics.addAsyncWriteBlockedNanos(System.nanoTime() - start);
+                    }
                     if (!m_fillingRowBuffer.isEmpty()) {
                         Object ob = m_fillingRowBuffer.get(0);
                         assert ob == CONTAINER_WRITE_FAILED : "Not expected element in write queue: " + ob;
@@ -770,6 +784,7 @@ public void addRowToTable(final DataRow row) {
             if (m_buffer == null) {
                 throw new NullPointerException("Implementation error, must not return a null buffer.");
             }
+            m_buffer.setExecutionMetrics(m_executionMetrics);
         }
         if (m_isSynchronousWrite) {
             if (MemoryAlertSystem.getInstance().isMemoryLow()) {
@@ -930,12 +945,13 @@ boolean isSynchronousWrite() {
     public static DataTable cache(final DataTable table, final ExecutionMonitor exec, final int maxCellsInMemory)
         throws CanceledExecutionException {
         DataContainer buf = new DataContainer(table.getDataTableSpec(), true, maxCellsInMemory);
-        int row = 0;
+        ProgressCounter progressCounter = exec.createProgressCounter(-1L);
         try {
-            for (RowIterator it = table.iterator(); it.hasNext(); row++) {
+            for (RowIterator it = table.iterator(); it.hasNext();) {
                 DataRow next = it.next();
-                exec.setMessage("Caching row #" + (row + 1) + " (\"" + next.getKey() + "\")");
-                exec.checkCanceled();
+                if (progressCounter.increment()) {
+                    exec.setMessage("Caching row #" + progressCounter.getCount() + " (\"" + next.getKey() + "\")");
+                }
                 buf.addRowToTable(next);
             }
         } finally {
@@ -1016,11 +1032,11 @@ public static void writeToStream(final DataTable table, final OutputStream out,
             buf =
                 new Buffer(table.getDataTableSpec(), 0, -1, new HashMap<Integer, ContainerTable>(),
                 	new HashMap<Integer, ContainerTable>(), NotInWorkflowWriteFileStoreHandler.create());
-            int rowCount = 0;
+            ProgressCounter progressCounter = e.createProgressCounter(-1L);
             for (DataRow row : table) {
-                rowCount++;
-                e.setMessage("Writing row #" + rowCount + " (\"" + row.getKey() + "\")");
-                e.checkCanceled();
+                if (progressCounter.increment()) {
+                    e.setMessage("Writing row #" + progressCounter.getCount() + " (\"" + row.getKey() + "\")");
+                }
                 buf.addRow(row, false, false);
             }
             buf.close(table.getDataTableSpec());
@@ -49,7 +49,6 @@
 
 import java.io.File;
 import java.io.IOException;
-import java.util.HashMap;
 import java.util.Map;
 
 import org.knime.core.data.DataTableSpec;
@@ -174,7 +173,7 @@ public long size() {
      */
     @Override
     public void putIntoTableRepository(
-            final HashMap<Integer, ContainerTable> rep) {
+            final Map<Integer, ContainerTable> rep) {
     }
 
     /**
@@ -182,7 +181,7 @@ public void putIntoTableRepository(
      */
     @Override
     public boolean removeFromTableRepository(
-            final HashMap<Integer, ContainerTable> rep) {
+            final Map<Integer, ContainerTable> rep) {
         return false;
     }
 
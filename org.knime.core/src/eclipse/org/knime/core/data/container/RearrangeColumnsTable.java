@@ -52,7 +52,6 @@
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.IdentityHashMap;
 import java.util.List;
@@ -87,6 +86,7 @@
 import org.knime.core.node.NodeLogger;
 import org.knime.core.node.NodeSettingsRO;
 import org.knime.core.node.NodeSettingsWO;
+import org.knime.core.node.ProgressCounter;
 import org.knime.core.util.MultiThreadWorker;
 import org.knime.core.util.Pair;
 
@@ -180,7 +180,7 @@ private RearrangeColumnsTable(final BufferedDataTable reference, final int[] map
      */
     public RearrangeColumnsTable(final ReferencedFile f, final NodeSettingsRO settings,
         final Map<Integer, BufferedDataTable> tblRep, final DataTableSpec spec, final int tableID,
-        final HashMap<Integer, ContainerTable> bufferRep, final FileStoreHandlerRepository fileStoreHandlerRepository)
+        final Map<Integer, ContainerTable> bufferRep, final FileStoreHandlerRepository fileStoreHandlerRepository)
         throws IOException, InvalidSettingsException {
         NodeSettingsRO subSettings = settings.getNodeSettings(CFG_INTERNAL_META);
         int refTableID = subSettings.getInt(CFG_REFERENCE_ID);
@@ -417,19 +417,18 @@ private static void calcNewColsSynchronously(final BufferedDataTable table, fina
         long finalRowCount = table.size();
         Set<CellFactory> newColsFactories = newColsProducerMapping.getUniqueCellFactoryMap().keySet();
         final int factoryCount = newColsFactories.size();
-        int r = 0;
         CellFactory facForProgress = factoryCount > 0 ? newColsFactories.iterator().next() : null;
-        for (RowIterator it = table.iterator(); it.hasNext(); r++) {
+        // no factory added means at least one columns gets type converted.
+        assert facForProgress != null || !newColsProducerMapping.getConverterToIndexMap().isEmpty();
+        ProgressCounter progressCounter = subProgress.createProgressCounter(finalRowCount);
+        for (RowIterator it = table.iterator(); it.hasNext();) {
             DataRow row = it.next();
             DataRow append = calcNewCellsForRow(row, newColsProducerMapping);
             container.addRowToTable(append);
-            if (facForProgress == null) {
-                // no factory added means at least one columns gets type converted.
-                assert !newColsProducerMapping.getConverterToIndexMap().isEmpty();
-            } else {
-                facForProgress.setProgress(r + 1, finalRowCount, row.getKey(), subProgress);
+            // checks for cancelation every so often
+            if (progressCounter.increment() && facForProgress != null) {
+                facForProgress.setProgress(progressCounter.getCount(), finalRowCount, row.getKey(), subProgress);
             }
-            subProgress.checkCanceled();
         }
     }
 
@@ -647,7 +646,7 @@ public void ensureOpen() {
      * {@inheritDoc}
      */
     @Override
-    public void putIntoTableRepository(final HashMap<Integer, ContainerTable> rep) {
+    public void putIntoTableRepository(final Map<Integer, ContainerTable> rep) {
         if (m_appendTable != null) {
             rep.put(m_appendTable.getBufferID(), m_appendTable);
         }
@@ -657,7 +656,7 @@ public void putIntoTableRepository(final HashMap<Integer, ContainerTable> rep) {
      * {@inheritDoc}
      */
     @Override
-    public boolean removeFromTableRepository(final HashMap<Integer, ContainerTable> rep) {
+    public boolean removeFromTableRepository(final Map<Integer, ContainerTable> rep) {
         if (m_appendTable != null) {
             int id = m_appendTable.getBufferID();
             if (rep.remove(id) == null) {
@@ -698,6 +697,9 @@ private static final class ConcurrentNewColCalculator extends MultiThreadWorker<
 
         private final ExecutionMonitor m_subProgress;
 
+        /** Only used in {@link #processFinished(ComputationTask)}, which is called sequentially. */
+        private final ProgressCounter m_progressCounter;
+
         private NewColumnsProducerMapping m_reducedList;
 
         private DataContainer m_container;
@@ -721,6 +723,7 @@ private ConcurrentNewColCalculator(final int maxQueueSize, final int maxActiveIn
             super(maxQueueSize, maxActiveInstanceSize);
             m_container = container;
             m_subProgress = subProgress;
+            m_progressCounter = subProgress.createProgressCounter(totalRowCount);
             m_totalRowCount = totalRowCount;
             m_reducedList = reducedList;
             m_facForProgress = facForProgress;
@@ -736,13 +739,15 @@ protected DataRow compute(final DataRow in, final long index) throws Exception {
         @Override
         protected void processFinished(final ComputationTask task) throws ExecutionException, CancellationException,
             InterruptedException {
-            int r = (int)task.getIndex(); // row count in table is integer
+            long r = task.getIndex();
             RowKey key = task.getInput().getKey();
             DataRow append = task.get(); // exception falls through
             m_container.addRowToTable(append);
-            m_facForProgress.setProgress(r + 1, m_totalRowCount, key, m_subProgress);
             try {
-                m_subProgress.checkCanceled();
+                // checks for cancelation every so often
+                if (m_progressCounter.increment()) {
+                    m_facForProgress.setProgress(r + 1, m_totalRowCount, key, m_subProgress);
+                }
             } catch (CanceledExecutionException cee) {
                 throw new CancellationException();
             }
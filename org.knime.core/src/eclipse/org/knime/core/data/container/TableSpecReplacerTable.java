@@ -51,7 +51,6 @@
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
@@ -122,7 +121,7 @@ public void saveToFile(final File f, final NodeSettingsWO s,
      */
     @Override
     public void putIntoTableRepository(
-            final HashMap<Integer, ContainerTable> rep) {
+            final Map<Integer, ContainerTable> rep) {
     }
 
     /**
@@ -131,7 +130,7 @@ public void putIntoTableRepository(
      */
     @Override
     public boolean removeFromTableRepository(
-            final HashMap<Integer, ContainerTable> rep) {
+            final Map<Integer, ContainerTable> rep) {
         return false;
     }
 
@@ -49,7 +49,7 @@
 
 import java.io.File;
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.Map;
 
 import org.knime.core.data.DataRow;
 import org.knime.core.data.DataTableSpec;
@@ -150,12 +150,12 @@ public long size() {
 
     /** {@inheritDoc} */
     @Override
-    public void putIntoTableRepository(final HashMap<Integer, ContainerTable> rep) {
+    public void putIntoTableRepository(final Map<Integer, ContainerTable> rep) {
     }
 
     /** {@inheritDoc} */
     @Override
-    public boolean removeFromTableRepository(final HashMap<Integer, ContainerTable> rep) {
+    public boolean removeFromTableRepository(final Map<Integer, ContainerTable> rep) {
         return false;
     }
 
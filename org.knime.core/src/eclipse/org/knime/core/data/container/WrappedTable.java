@@ -49,7 +49,6 @@
 
 import java.io.File;
 import java.io.IOException;
-import java.util.HashMap;
 import java.util.Map;
 
 import org.knime.core.data.DataTableSpec;
@@ -133,13 +132,13 @@ public DataTableSpec getDataTableSpec() {
     /** {@inheritDoc} */
     @Override
     public void putIntoTableRepository(
-            final HashMap<Integer, ContainerTable> rep) {
+            final Map<Integer, ContainerTable> rep) {
     }
 
     /** {@inheritDoc} */
     @Override
     public boolean removeFromTableRepository(
-            final HashMap<Integer, ContainerTable> rep) {
+            final Map<Integer, ContainerTable> rep) {
         return false;
     }
 
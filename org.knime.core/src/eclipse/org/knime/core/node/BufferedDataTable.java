@@ -56,7 +56,6 @@
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -145,7 +144,7 @@ public static BufferedDataTable getDataTable(
         }
         // update the lastID counter!
         assert result.m_tableID == tableID;
-        LAST_ID.set(Math.max(tableID, LAST_ID.get()));
+        LAST_ID.accumulateAndGet(tableID, Math::max);
         return result;
     }
 
@@ -266,7 +265,7 @@ private BufferedDataTable(final KnowsRowCountTable table, final int id) {
      * are returned from the execute method into a global table repository.
      * @param rep The repository from the workflow
      */
-    void putIntoTableRepository(final HashMap<Integer, ContainerTable> rep) {
+    void putIntoTableRepository(final Map<Integer, ContainerTable> rep) {
         m_delegate.putIntoTableRepository(rep);
         BufferedDataTable[] references = m_delegate.getReferenceTables();
         for (BufferedDataTable reference : references) {
@@ -280,7 +279,7 @@ void putIntoTableRepository(final HashMap<Integer, ContainerTable> rep) {
      * @param owner The dedicated owner.
      * @return The number of tables effectively removed, used for assertions.
      */
-    int removeFromTableRepository(final HashMap<Integer, ContainerTable> rep,
+    int removeFromTableRepository(final Map<Integer, ContainerTable> rep,
             final Node owner) {
         if (getOwner() != owner) { // can safely test for hard references here
             return 0;
@@ -597,7 +596,7 @@ static DataTableSpec loadSpec(final ReferencedFile dataPortDir)
     static BufferedDataTable loadFromFile(final ReferencedFile dirRef,
             final NodeSettingsRO settings, final ExecutionMonitor exec,
             final Map<Integer, BufferedDataTable> tblRep,
-            final HashMap<Integer, ContainerTable> bufferRep,
+            final Map<Integer, ContainerTable> bufferRep,
             final FileStoreHandlerRepository fileStoreHandlerRepository)
             throws IOException, CanceledExecutionException,
             InvalidSettingsException {
@@ -625,7 +624,7 @@ static BufferedDataTable loadFromFile(final ReferencedFile dirRef,
             isVersion11x = true;
         }
         int id = s.getInt(CFG_TABLE_ID);
-        LAST_ID.set(Math.max(LAST_ID.get(), id + 1));
+        LAST_ID.accumulateAndGet(id + 1, Math::max);
         String fileName = s.getString(CFG_TABLE_FILE_NAME);
         ReferencedFile fileRef;
         if (fileName != null) {
@@ -871,7 +870,7 @@ void saveToFile(final File f, final NodeSettingsWO settings,
          * execution finished.
          * @param rep The workflow table repository.
          */
-        void putIntoTableRepository(final HashMap<Integer, ContainerTable> rep);
+        void putIntoTableRepository(final Map<Integer, ContainerTable> rep);
 
         /** Remove this table from global table repository. Called when
          * node is reset.
@@ -881,7 +880,7 @@ void saveToFile(final File f, final NodeSettingsWO settings,
          *         such as concatenate or spec replacer)
          */
         boolean removeFromTableRepository(
-                final HashMap<Integer, ContainerTable> rep);
+                final Map<Integer, ContainerTable> rep);
 
         /**
          * Checks if the row count is greater than {@link Integer#MAX_VALUE}. If this is the case an exception is
@@ -77,8 +77,8 @@ public class DefaultNodeProgressMonitor implements NodeProgressMonitor {
 
     private static final Supplier<String> NULL_SUPPLIER = () -> null;
 
-    /** The cancel requested flag. */
-    private boolean m_cancelExecute;
+    /** The cancel requested flag, volatile as it's set and read from different threads without synchronization. */
+    private volatile boolean m_cancelExecute;
 
     /** Progress of the execution between 0 and 1, or null if not available. */
     private Double m_progress;
@@ -47,7 +47,7 @@
 
 import java.io.IOException;
 import java.lang.reflect.Constructor;
-import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Future;
@@ -58,6 +58,7 @@
 import org.knime.core.data.RowIterator;
 import org.knime.core.data.container.ColumnRearranger;
 import org.knime.core.data.container.ConcatenateTable;
+import org.knime.core.data.container.ConcurrentTableRepository;
 import org.knime.core.data.container.ContainerTable;
 import org.knime.core.data.container.JoinedTable;
 import org.knime.core.data.container.RearrangeColumnsTable;
@@ -122,8 +123,8 @@ public class ExecutionContext extends ExecutionMonitor {
 
     private final Node m_node;
     private final MemoryPolicy m_memoryPolicy;
-    private final HashMap<Integer, ContainerTable> m_globalTableRepository;
-    private final HashMap<Integer, ContainerTable> m_localTableRepository;
+    private final Map<Integer, ContainerTable> m_globalTableRepository;
+    private final Map<Integer, ContainerTable> m_localTableRepository;
     private final IWriteFileStoreHandler m_fileStoreHandler;
 
     /** Creates new object based on a progress monitor and a node as parent
@@ -139,7 +140,7 @@ public class ExecutionContext extends ExecutionMonitor {
     public ExecutionContext(final NodeProgressMonitor progMon, final Node node) {
         // as it is deprecated we don't introduce an argument for mem policy
         this(progMon, node, MemoryPolicy.CacheSmallInMemory,
-                new HashMap<Integer, ContainerTable>());
+                new ConcurrentTableRepository());
     }
 
     /**
@@ -156,8 +157,8 @@ public ExecutionContext(final NodeProgressMonitor progMon, final Node node) {
      */
     public ExecutionContext(final NodeProgressMonitor progMon, final Node node,
             final MemoryPolicy policy,
-            final HashMap<Integer, ContainerTable> tableRepository) {
-        this(progMon, node, policy, tableRepository, new HashMap<Integer, ContainerTable>(),
+            final Map<Integer, ContainerTable> tableRepository) {
+        this(progMon, node, policy, tableRepository, new ConcurrentTableRepository(),
                 (node.getFileStoreHandler() instanceof IWriteFileStoreHandler ?
                         (IWriteFileStoreHandler)node.getFileStoreHandler() : null));
     }
@@ -175,8 +176,8 @@ public ExecutionContext(final NodeProgressMonitor progMon, final Node node,
      */
     private ExecutionContext(final NodeProgressMonitor progMon, final Node node,
             final MemoryPolicy policy,
-            final HashMap<Integer, ContainerTable> tableRepository,
-            final HashMap<Integer, ContainerTable> localTableRepository,
+            final Map<Integer, ContainerTable> tableRepository,
+            final Map<Integer, ContainerTable> localTableRepository,
             final IWriteFileStoreHandler fileStoreHandler) {
         super(progMon);
         if (node == null || tableRepository == null) {
@@ -651,7 +652,7 @@ IWriteFileStoreHandler getFileStoreHandler() {
      * repository after execution.
      * @return The local table repository.
      */
-    HashMap<Integer, ContainerTable> getLocalTableRepository() {
+    Map<Integer, ContainerTable> getLocalTableRepository() {
         return m_localTableRepository;
     }
 
@@ -173,6 +173,18 @@ public void setProgress(final String message) {
         m_progress.setProgress(message);
     }
 
+    /**
+     * Creates a counter to be used in tight row loops instead of calling {@link #setProgress(double, String)} and
+     * {@link #checkCanceled()} for each row. See {@link ProgressCounter} for details.
+     *
+     * @param totalCount The total number of rows to be processed or a negative value if unknown.
+     * @return A new counter, checking for cancelation via this monitor.
+     * @since 3.6
+     */
+    public ProgressCounter createProgressCounter(final long totalCount) {
+        return new ProgressCounter(this, totalCount);
+    }
+
     /** Creates an execution monitor with a partial progress range.
      * Classes that use a progress monitor and report in the range of [0,1]
      * should get such a sub-progress monitor when their job is only partially
@@ -281,7 +281,7 @@ ReferencedFile loadNodeInternDirectory(final NodeSettingsRO settings, final Refe
      * @nooverride
      */
     void loadPorts(final Node node, final ExecutionMonitor exec, final NodeSettingsRO settings,
-        final Map<Integer, BufferedDataTable> loadTblRep, final HashMap<Integer, ContainerTable> tblRep,
+        final Map<Integer, BufferedDataTable> loadTblRep, final Map<Integer, ContainerTable> tblRep,
         final FileStoreHandlerRepository fileStoreHandlerRepository) throws IOException, InvalidSettingsException,
         CanceledExecutionException {
         final int nrOutPorts = node.getNrOutPorts();
@@ -341,7 +341,7 @@ void loadPorts(final Node node, final ExecutionMonitor exec, final NodeSettingsR
 
     void loadPort(final Node node, final ReferencedFile portDir, final NodeSettingsRO settings,
         final ExecutionMonitor exec, final int portIdx, final Map<Integer, BufferedDataTable> loadTblRep,
-        final HashMap<Integer, ContainerTable> tblRep, final FileStoreHandlerRepository fileStoreHandlerRepository)
+        final Map<Integer, ContainerTable> tblRep, final FileStoreHandlerRepository fileStoreHandlerRepository)
         throws IOException, InvalidSettingsException, CanceledExecutionException {
         final String specClass = settings.getString("port_spec_class");
         final String objectClass = loadPortObjectClassName(settings);
@@ -476,7 +476,7 @@ private Optional<PortObject> loadPortObject(final ReferencedFile portDir, final
     }
 
     private BufferedDataTable loadBufferedDataTable(final ReferencedFile objectDir, final ExecutionMonitor exec,
-        final Map<Integer, BufferedDataTable> loadTblRep, final HashMap<Integer, ContainerTable> tblRep,
+        final Map<Integer, BufferedDataTable> loadTblRep, final Map<Integer, ContainerTable> tblRep,
         final FileStoreHandlerRepository fileStoreHandlerRepository) throws CanceledExecutionException, IOException,
         InvalidSettingsException {
         return BufferedDataTable.loadFromFile(objectDir, /* ignored in 1.2+ */
@@ -595,7 +595,7 @@ private int getNewPortIndex(final int old) {
     /** Reads internally held table in version {@link LoadVersion#V2100Pre} and before. Was replaced by
      * #loadInternalHeldObjects then on. */
     void loadInternalHeldTablesPre210(final Node node, final ExecutionMonitor execMon, final NodeSettingsRO settings,
-        final Map<Integer, BufferedDataTable> loadTblRep, final HashMap<Integer, ContainerTable> tblRep,
+        final Map<Integer, BufferedDataTable> loadTblRep, final Map<Integer, ContainerTable> tblRep,
         final FileStoreHandlerRepository fileStoreHandlerRepository) throws IOException, InvalidSettingsException,
         CanceledExecutionException {
         if (getLoadVersion().isOlderThan(FileWorkflowPersistor.LoadVersion.V200)) {
@@ -636,7 +636,7 @@ void loadInternalHeldTablesPre210(final Node node, final ExecutionMonitor execMo
 
     /** New with {@link LoadVersion#V2100}, supports {@link org.knime.core.node.port.PortObjectHolder}. */
     void loadInternalHeldObjects(final Node node, final ExecutionMonitor execMon, final NodeSettingsRO settings,
-        final Map<Integer, BufferedDataTable> loadTblRep, final HashMap<Integer, ContainerTable> tblRep,
+        final Map<Integer, BufferedDataTable> loadTblRep, final Map<Integer, ContainerTable> tblRep,
         final FileStoreHandlerRepository fileStoreHandlerRepository) throws IOException, InvalidSettingsException,
         CanceledExecutionException {
         assert !getLoadVersion().isOlderThan(FileWorkflowPersistor.LoadVersion.V2100);
@@ -713,7 +713,7 @@ IFileStoreHandler loadFileStoreHandler(final Node node, final ExecutionMonitor e
 
     private BufferedDataTable loadBufferedDataTable(final Node node, final NodeSettingsRO settings,
         final ExecutionMonitor execMon, final Map<Integer, BufferedDataTable> loadTblRep, final int index,
-        final HashMap<Integer, ContainerTable> tblRep, final FileStoreHandlerRepository fileStoreHandlerRepository)
+        final Map<Integer, ContainerTable> tblRep, final FileStoreHandlerRepository fileStoreHandlerRepository)
         throws InvalidSettingsException, IOException, CanceledExecutionException {
         // in 1.1.x and before the settings.xml contained the location
         // of the data table specs file (spec_0.xml, e.g.). From 1.2.0 on,
@@ -954,7 +954,7 @@ public final void preLoad(final Node node, final LoadResult loadResult) {
      * @nooverride
      */
     public final void load(final Node node, final WorkflowPersistor parentPersistor, final ExecutionMonitor exec,
-        final Map<Integer, BufferedDataTable> loadTblRep, final HashMap<Integer, ContainerTable> tblRep,
+        final Map<Integer, BufferedDataTable> loadTblRep, final Map<Integer, ContainerTable> tblRep,
         final WorkflowFileStoreHandlerRepository fileStoreHandlerRepository, final LoadResult loadResult)
         throws IOException, CanceledExecutionException {
         ExecutionMonitor loadExec = exec.createSilentSubProgress(0.6);
@@ -1176,6 +1176,13 @@ public static void save(final NativeNodeContainer nnc, final NodeSettingsWO sett
         saveIsInactive(node, settings);
         ReferencedFile nodeInternDirRef = getNodeInternDirectory(nodeDirRef);
         File nodeInternDir = nodeInternDirRef.getFile();
+        // internals may not have been loaded yet and are about to be overwritten
+        NodeContext.pushContext(nnc);
+        try {
+            node.loadPendingInternals();
+        } finally {
+            NodeContext.removeLastContext();
+        }
         if (nodeInternDir.exists()) {
             FileUtil.deleteRecursively(nodeInternDir);
         }
@@ -310,6 +310,72 @@ public final class KNIMEConstants {
     * @since 3.0 */
    public static final String PROPERTY_HIGH_DPI_SUPPORT = "knime.highdpi.support";
 
+    /** Java property to specify the number of threads used to save the nodes of a workflow (or metanode)
+     * concurrently. Only nodes that are not metanodes or wrapped metanodes are saved in parallel; the value must
+     * be a positive integer, the default is 1 (all nodes are saved sequentially).
+     * @since 3.6 */
+    public static final String PROPERTY_WORKFLOW_SAVE_THREADS = "knime.workflow.save.threads";
+
+    /** Java property to specify the number of threads used to read the node settings of a workflow (or metanode)
+     * concurrently when it is loaded. Node factories are instantiated and nodes are added to the workflow one after
+     * another in their original order. The value must be a positive integer, the default is 1 (sequential loading).
+     * @since 3.6 */
+    public static final String PROPERTY_WORKFLOW_LOAD_THREADS = "knime.workflow.load.threads";
+
+    /** Java property to defer loading of node internals (see {@link NodeModel#loadInternals(java.io.File,
+     * ExecutionMonitor)}) when a workflow is loaded. If set to <code>true</code> the internals are loaded when a
+     * node view is opened or the node is modified or saved. Only the internals are deferred; node settings, port
+     * specs, port objects and internal tables are loaded as before. Nodes with interactive or wizard views and nodes
+     * holding internal tables always load their internals immediately. Note that node models which restore their
+     * hilite mapping as part of their internals will not translate hilite events until the internals are loaded.
+     * Default is <code>false</code>.
+     * @since 3.6 */
+    public static final String PROPERTY_LAZY_LOAD_NODE_INTERNALS = "knime.node.internals.lazyload";
+
+    /** Java property to load deferred node internals (see {@link #PROPERTY_LAZY_LOAD_NODE_INTERNALS}) in a
+     * background thread after the workflow has been loaded. Has no effect unless lazy loading is enabled.
+     * Default is <code>false</code>.
+     * @since 3.6 */
+    public static final String PROPERTY_PREFETCH_NODE_INTERNALS = "knime.node.internals.prefetch";
+
+    /** Java property to write log messages to the log files (the global <i>knime.log</i> and the log files in the
+     * workflow directories) asynchronously in a background thread. The value must be <code>true</code> or
+     * <code>false</code> (the default).
+     * @since 3.6 */
+    public static final String PROPERTY_ASYNC_LOGGING = "knime.logging.async";
+
+    /** Java property to set the maximum number of log messages queued for asynchronous writing, see
+     * {@link #PROPERTY_ASYNC_LOGGING}. The default is 8192.
+     * @since 3.6 */
+    public static final String PROPERTY_ASYNC_LOGGING_QUEUE_SIZE = "knime.logging.async.queuesize";
+
+    /** Java property to control what happens if the queue of asynchronous log messages is full: "block" (the
+     * default) lets the logging thread wait until there is space in the queue, "drop" discards the message.
+     * @since 3.6 */
+    public static final String PROPERTY_ASYNC_LOGGING_POLICY = "knime.logging.async.policy";
+
+    /** Java property to additionally save the settings of each node in a compact binary file (<i>settings.bin</i>)
+     * next to the <i>settings.xml</i>. When a workflow is loaded the binary file is read instead of the XML file if it
+     * exists and was written from the current XML file (checked by length and modification time); otherwise, or if it
+     * can't be read, the XML file is used. The XML file is always written so that workflows remain readable by older
+     * versions. Default is <code>false</code>.
+     * @since 3.6 */
+    public static final String PROPERTY_BINARY_SETTINGS = "knime.settings.binary";
+
+    /** Java property to enable the node execution cache: the output tables of executed nodes are stored in the given
+     * directory, keyed by a hash of the node's settings, its factory and its input, and reused when a node with
+     * identical key is executed again (also in later runs or other workflows). Only nodes with data inputs and
+     * outputs, without views and internal state are cached. Not to be used with nodes whose results are not
+     * deterministic. The cache is disabled by default.
+     * @since 3.6 */
+    public static final String PROPERTY_EXECUTION_CACHE_DIR = "knime.execution.cache.dir";
+
+    /** Java property to set the maximum size of the node execution cache (see
+     * {@link #PROPERTY_EXECUTION_CACHE_DIR}) in MB; least recently used results are deleted when it's exceeded.
+     * The default is 10240 (10GB).
+     * @since 3.6 */
+    public static final String PROPERTY_EXECUTION_CACHE_MAX_SIZE = "knime.execution.cache.maxsize";
+
     /**
      * The minimum refresh interval in ms, e.g. to refresh the node progress or the state of the remote job view.
      *
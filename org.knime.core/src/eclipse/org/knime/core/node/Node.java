@@ -63,6 +63,8 @@
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
@@ -128,6 +130,7 @@
 import org.knime.core.node.workflow.execresult.NodeExecutionResult;
 import org.knime.core.node.workflow.virtual.subnode.VirtualSubNodeInputNodeModel;
 import org.knime.core.util.FileUtil;
+import org.knime.core.util.ThreadUtils;
 import org.w3c.dom.Element;
 
 /**
@@ -238,6 +241,23 @@ static class Input {
     // cases then
     private final Object m_configureLock = new Object();
 
+    /** Loads deferred internals in the background if
+     * {@link KNIMEConstants#PROPERTY_PREFETCH_NODE_INTERNALS} is set; created on first use. */
+    private static final class InternalsPrefetcher {
+        private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "KNIME Node Internals Prefetcher");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+    }
+
+    /** Directory of node internals whose loading was deferred, null if there is nothing to load. Guarded by
+     * {@link #m_pendingInternalsLock}. */
+    private ReferencedFile m_pendingInternDirRef;
+
+    private final Object m_pendingInternalsLock = new Object();
+
     /**
      * Creates a new node by retrieving the model, dialog, and views, from the
      * specified <code>NodeFactory</code>. Also initializes the input and output
@@ -471,7 +491,14 @@ public void loadDataAndInternals(final NodeContentPersistor loader,
         }
         m_model.restoreWarningMessage(loader.getWarningMessage());
         ReferencedFile internDirRef = loader.getNodeInternDirectory();
-        if (internDirRef != null) {
+        if (internDirRef != null && isDeferLoadInternals(loader)) {
+            synchronized (m_pendingInternalsLock) {
+                m_pendingInternDirRef = internDirRef;
+            }
+            if (Boolean.getBoolean(KNIMEConstants.PROPERTY_PREFETCH_NODE_INTERNALS)) {
+                InternalsPrefetcher.EXECUTOR.execute(ThreadUtils.runnableWithContext(this::loadPendingInternals));
+            }
+        } else if (internDirRef != null) {
             internDirRef.lock();
             try {
                 exec.setMessage("Loading internals");
@@ -957,7 +984,17 @@ public boolean execute(final PortObject[] rawInData, final ExecutionEnvironment
             try {
                 // INVOKE MODEL'S EXECUTE
                 // (warnings will now be processed "automatically" - we listen)
-                rawOutData = invokeFullyNodeModelExecute(exec, exEnv, newInData);
+                NodeExecutionCache cache = NodeExecutionCache.getInstance();
+                String cacheKey = cache == null ? null : cache.createKey(this, newInData, exec);
+                PortObject[] cachedOutData = cacheKey == null ? null : cache.load(cacheKey, this, exec);
+                if (cachedOutData != null) {
+                    rawOutData = cachedOutData;
+                } else {
+                    rawOutData = invokeFullyNodeModelExecute(exec, exEnv, newInData);
+                    if (cacheKey != null) {
+                        cache.store(cacheKey, this, rawOutData, exec);
+                    }
+                }
             } catch (Throwable th) {
                 boolean isCanceled = th instanceof CanceledExecutionException;
                 isCanceled = isCanceled || th instanceof InterruptedException;
@@ -1492,6 +1529,7 @@ public void reset() {
         LOGGER.debug("reset");
         clearLoopContext();
         setPauseLoopExecution(false);
+        discardPendingInternals();
         m_model.resetModel();
         clearNodeMessageAndNotify();
     }
@@ -1597,7 +1635,7 @@ public void addToTemporaryTables(final Set<ContainerTable> tempTables) {
      * from the NodeContainer class to access a package-scope method in BufferedDataTable.
      * @param rep The global repository.
      */
-    public void putOutputTablesIntoGlobalRepository(final HashMap<Integer, ContainerTable> rep) {
+    public void putOutputTablesIntoGlobalRepository(final Map<Integer, ContainerTable> rep) {
         for (int i = 0; i < m_outputs.length; i++) {
             PortObject portObject = m_outputs[i].object;
             if (portObject instanceof BufferedDataTable) {
@@ -1623,7 +1661,7 @@ public void putOutputTablesIntoGlobalRepository(final HashMap<Integer, Container
      * @param rep The global table rep.
      * @return The number of tables effectively removed, used for assertions.
      */
-    public int removeOutputTablesFromGlobalRepository(final HashMap<Integer, ContainerTable> rep) {
+    public int removeOutputTablesFromGlobalRepository(final Map<Integer, ContainerTable> rep) {
         int result = 0;
         for (int i = 0; i < m_outputs.length; i++) {
             PortObject portObject = m_outputs[i].object;
@@ -1643,7 +1681,7 @@ public int removeOutputTablesFromGlobalRepository(final HashMap<Integer, Contain
      * @param c To access.
      * @return Its local table repository.
      */
-    public static HashMap<Integer, ContainerTable> getLocalTableRepositoryFromContext(
+    public static Map<Integer, ContainerTable> getLocalTableRepositoryFromContext(
             final ExecutionContext c) {
         return c.getLocalTableRepository();
     }
@@ -1676,6 +1714,7 @@ public void cleanup() {
             "No node context available, please check call hierarchy and fix it");
 
         m_model.unregisterAllViews();
+        discardPendingInternals();
         try {
             m_model.onDispose();
         } catch (Throwable t) {
@@ -1870,6 +1909,7 @@ public AbstractNodeView<?> getView(final int viewIndex, final String title) {
         LOGGER.assertLog(NodeContext.getContext() != null,
             "No node context available, please check call hierarchy and fix it");
 
+        loadPendingInternals();
         try {
             return m_factory.createAbstractNodeView(viewIndex, m_model);
         } catch (Throwable e) {
@@ -2206,7 +2246,7 @@ public void saveInternals(final File internDir, final ExecutionMonitor exec)
         LOGGER.assertLog(NodeContext.getContext() != null,
                 "No node context available, please check call hierarchy and fix it");
 
-
+        loadPendingInternals();
         if (internDir.exists()) {
             FileUtil.deleteRecursively(internDir);
         }
@@ -2239,6 +2279,52 @@ public void saveInternals(final File internDir, final ExecutionMonitor exec)
         }
     }
 
+    /** Whether loading the internals from the argument persistor can be deferred, see
+     * {@link KNIMEConstants#PROPERTY_LAZY_LOAD_NODE_INTERNALS}. Only done for internals that are part of the
+     * workflow directory and for models whose internals are (usually) only used by classic node views. */
+    private boolean isDeferLoadInternals(final NodeContentPersistor loader) {
+        return Boolean.getBoolean(KNIMEConstants.PROPERTY_LAZY_LOAD_NODE_INTERNALS)
+            && loader instanceof FileNodePersistor
+            && !(m_model instanceof WizardNode || m_model instanceof InteractiveNode
+                || m_model instanceof ValueControlledNode || m_model instanceof BufferedDataTableHolder
+                || m_model instanceof PortObjectHolder);
+    }
+
+    /** Loads the node internals if their loading was deferred during workflow load. Called before the internals
+     * are accessed (view creation, save), before the node directory is about to be deleted (node is marked dirty)
+     * and by the background prefetcher; does nothing if there are no pending internals. Errors are reported as node
+     * message.
+     * @noreference This method is not intended to be referenced by clients.
+     * @since 3.6 */
+    public void loadPendingInternals() {
+        synchronized (m_pendingInternalsLock) {
+            final ReferencedFile internDirRef = m_pendingInternDirRef;
+            if (internDirRef == null) {
+                return;
+            }
+            m_pendingInternDirRef = null;
+            internDirRef.lock();
+            try {
+                m_model.loadInternals(internDirRef.getFile(), new ExecutionMonitor());
+            } catch (Throwable e) {
+                String error = "Loading model internals failed: " + e.getMessage();
+                if (!(e instanceof IOException)) {
+                    LOGGER.coding(error, e);
+                }
+                createErrorMessageAndNotify(error, e);
+            } finally {
+                internDirRef.unlock();
+            }
+        }
+    }
+
+    /** Drops pending internals (node is reset or disposed, its internals are obsolete). */
+    private void discardPendingInternals() {
+        synchronized (m_pendingInternalsLock) {
+            m_pendingInternDirRef = null;
+        }
+    }
+
     /** Call {@link NodeModel#loadInternals(File, ExecutionMonitor)} and handles errors by logging to the NodeLogger
      * or setting a warning message at the node.
      * @param internDir ...
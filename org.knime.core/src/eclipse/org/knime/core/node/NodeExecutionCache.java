@@ -0,0 +1,485 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.WeakHashMap;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.output.NullOutputStream;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataCellDataOutput;
+import org.knime.core.data.DataCellSerializer;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTypeRegistry;
+import org.knime.core.data.MissingValue;
+import org.knime.core.data.container.ContainerTable;
+import org.knime.core.data.container.DataContainer;
+import org.knime.core.data.container.LongUTFDataOutputStream;
+import org.knime.core.node.interactive.InteractiveNode;
+import org.knime.core.node.port.PortObject;
+import org.knime.core.node.port.PortObjectHolder;
+import org.knime.core.node.port.flowvariable.FlowVariablePortObject;
+import org.knime.core.node.wizard.WizardNode;
+import org.knime.core.node.workflow.FlowVariable;
+import org.knime.core.node.workflow.LoopEndNode;
+import org.knime.core.node.workflow.LoopStartNode;
+import org.knime.core.node.workflow.ScopeEndNode;
+import org.knime.core.node.workflow.ScopeStartNode;
+import org.knime.core.util.FileUtil;
+
+/**
+ * Content-addressed cache of node results, enabled by {@link KNIMEConstants#PROPERTY_EXECUTION_CACHE_DIR}. The
+ * output tables of a node are stored under a key that is a hash of the node factory (and its bundle version), the
+ * node's model settings, the incoming flow variables and fingerprints of the input tables. When the same node is
+ * executed again with an identical key -- in a later run, after reloading the workflow or in another workflow -- the
+ * stored tables are used instead of executing the node model.
+ *
+ * <p>
+ * The fingerprint of a table produced by a node that went through the cache is derived from that node's key, so a
+ * chain of cached nodes is hashed in constant time per node; other tables are hashed once by content (the full
+ * table spec and the serialized cells). Only nodes whose results are fully described by their output tables are
+ * cached: nodes with data inputs and data outputs only, without views, internally held objects or saved internals,
+ * not being part of the loop or scope control and not pushing flow variables. Nodes whose results depend on
+ * anything else (e.g. the current time, random numbers without a seed) should not be run with the cache enabled.
+ *
+ * <p>
+ * Entries are directories in the cache directory; the least recently used entries are deleted when the cache exceeds
+ * {@link KNIMEConstants#PROPERTY_EXECUTION_CACHE_MAX_SIZE}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class NodeExecutionCache {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(NodeExecutionCache.class);
+
+    private static final String KEY_VERSION = "knime.execution.cache.v2";
+
+    private static final long DEFAULT_MAX_SIZE_MB = 10240;
+
+    private static final NodeExecutionCache INSTANCE = createInstance();
+
+    /** Fingerprints of tables that were created or loaded via the cache (or hashed by content already). */
+    private static final Map<BufferedDataTable, String> FINGERPRINTS = new WeakHashMap<BufferedDataTable, String>();
+
+    private final File m_cacheDir;
+
+    private final long m_maxSize;
+
+    /** Guards the eviction, which is done after each new entry. */
+    private final Object m_evictionLock = new Object();
+
+    /**
+     * @param cacheDir the existing cache directory
+     * @param maxSize the maximum size in bytes
+     */
+    NodeExecutionCache(final File cacheDir, final long maxSize) {
+        m_cacheDir = cacheDir;
+        m_maxSize = maxSize;
+    }
+
+    private static NodeExecutionCache createInstance() {
+        String dir = System.getProperty(KNIMEConstants.PROPERTY_EXECUTION_CACHE_DIR);
+        if (dir == null || dir.trim().isEmpty()) {
+            return null;
+        }
+        File cacheDir = new File(dir.trim());
+        if (!cacheDir.isDirectory() && !cacheDir.mkdirs()) {
+            LOGGER.error("Unable to create node execution cache directory \"" + cacheDir.getAbsolutePath()
+                + "\" -- cache is disabled");
+            return null;
+        }
+        long maxSizeMB = DEFAULT_MAX_SIZE_MB;
+        String maxSizeProp = System.getProperty(KNIMEConstants.PROPERTY_EXECUTION_CACHE_MAX_SIZE);
+        if (maxSizeProp != null) {
+            try {
+                maxSizeMB = Long.parseLong(maxSizeProp.trim());
+            } catch (NumberFormatException e) {
+                LOGGER.warn("Invalid value for " + KNIMEConstants.PROPERTY_EXECUTION_CACHE_MAX_SIZE + ": "
+                    + maxSizeProp + " -- using default of " + DEFAULT_MAX_SIZE_MB + "MB");
+            }
+        }
+        LOGGER.info("Node execution cache enabled in \"" + cacheDir.getAbsolutePath() + "\" (max " + maxSizeMB
+            + "MB)");
+        return new NodeExecutionCache(cacheDir, maxSizeMB * 1024L * 1024L);
+    }
+
+    /** @return the cache or <code>null</code> if caching is not enabled. */
+    static NodeExecutionCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Computes the cache key for the node and its inputs.
+     *
+     * @param node the node to be executed, not executed yet
+     * @param inData the input data as passed to the node model (including the flow variable port)
+     * @param exec for progress and cancelation while unknown input tables are hashed
+     * @return the key or <code>null</code> if the node's results can't be cached
+     * @throws CanceledExecutionException if canceled while hashing the input
+     */
+    String createKey(final Node node, final PortObject[] inData, final ExecutionMonitor exec)
+        throws CanceledExecutionException {
+        if (!isCacheable(node, inData)) {
+            return null;
+        }
+        MessageDigest digest = newDigest();
+        try (DataOutputStream out =
+            new DataOutputStream(new DigestOutputStream(NullOutputStream.NULL_OUTPUT_STREAM, digest))) {
+            out.writeUTF(KEY_VERSION);
+            NodeFactory<NodeModel> factory = node.getFactory();
+            out.writeUTF(factory.getClass().getName());
+            out.writeUTF(new NodeAndBundleInformation(factory).getBundleVersion().map(Object::toString).orElse(""));
+
+            NodeSettings modelSettings = new NodeSettings("model");
+            node.saveModelSettingsTo(modelSettings);
+            ByteArrayOutputStream settingsBytes = new ByteArrayOutputStream();
+            modelSettings.saveToBinary(settingsBytes);
+            out.write(settingsBytes.toByteArray());
+
+            // variables may be read by the node model directly, not only via its settings
+            Map<String, FlowVariable> variables =
+                new TreeMap<String, FlowVariable>(getAllFlowVariables(node, false));
+            out.writeInt(variables.size());
+            for (FlowVariable v : variables.values()) {
+                out.writeUTF(v.getName());
+                out.writeUTF(v.getType().name());
+                out.writeUTF(String.valueOf(v.getValueAsString()));
+            }
+
+            for (int i = 1; i < inData.length; i++) {
+                out.writeUTF(inData[i] == null ? "" : getFingerprint((BufferedDataTable)inData[i], exec));
+            }
+        } catch (IOException e) {
+            // writes to an in-memory digest don't fail
+            throw new IllegalStateException("Unable to compute cache key: " + e.getMessage(), e);
+        }
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Reads the output of a node from the cache.
+     *
+     * @param key the key as returned by {@link #createKey(Node, PortObject[], ExecutionMonitor)}
+     * @param node the node to be executed
+     * @param exec to create the output tables
+     * @return the output (including the flow variable port) or <code>null</code> if not cached
+     * @throws CanceledExecutionException if canceled while reading
+     */
+    PortObject[] load(final String key, final Node node, final ExecutionContext exec)
+        throws CanceledExecutionException {
+        File entry = new File(m_cacheDir, key);
+        if (!entry.isDirectory()) {
+            return null;
+        }
+        PortObject[] result = new PortObject[node.getNrOutPorts()];
+        result[0] = FlowVariablePortObject.INSTANCE;
+        try {
+            for (int i = 1; i < result.length; i++) {
+                exec.setMessage("Reading cached result of port " + i);
+                ContainerTable table = DataContainer.readFromZip(getPortFile(entry, i));
+                try {
+                    result[i] = exec.createBufferedDataTable(table, exec.createSubProgress(1.0 / result.length));
+                } finally {
+                    table.clear();
+                }
+                registerFingerprint((BufferedDataTable)result[i], key, i);
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Unable to read cached result of \"" + node.getName() + "\", executing node instead: "
+                + e.getMessage(), e);
+            deleteEntry(entry);
+            return null;
+        }
+        // mark as recently used for the eviction
+        entry.setLastModified(System.currentTimeMillis());
+        LOGGER.info("Reused cached result for \"" + node.getName() + "\" (" + key + ")");
+        return result;
+    }
+
+    /**
+     * Adds the output of an executed node to the cache. Errors are logged but otherwise ignored.
+     *
+     * @param key the key as returned by {@link #createKey(Node, PortObject[], ExecutionMonitor)}
+     * @param node the executed node
+     * @param outData the output of the node model (including the flow variable port)
+     * @param exec for cancelation while writing
+     * @throws CanceledExecutionException if canceled while writing
+     */
+    void store(final String key, final Node node, final PortObject[] outData, final ExecutionMonitor exec)
+        throws CanceledExecutionException {
+        for (int i = 1; i < outData.length; i++) {
+            if (!(outData[i] instanceof BufferedDataTable)) {
+                return; // inactive or otherwise unexpected output
+            }
+        }
+        if (!getAllFlowVariables(node, true).equals(getAllFlowVariables(node, false))) {
+            LOGGER.debug("Not caching result of \"" + node.getName() + "\", node pushes flow variables");
+            return;
+        }
+        File entry = new File(m_cacheDir, key);
+        if (entry.exists()) {
+            return;
+        }
+        File tmpEntry = new File(m_cacheDir, key + ".tmp-" + UUID.randomUUID());
+        try {
+            if (!tmpEntry.mkdir()) {
+                throw new IOException("Can't create directory " + tmpEntry.getAbsolutePath());
+            }
+            // a cache hit skips the execution and therefore the internals (e.g. hilite mappings) would be missing
+            if (hasInternals(node, new File(tmpEntry, "internals"), exec)) {
+                LOGGER.debug("Not caching result of \"" + node.getName() + "\", node saves internals");
+                deleteEntry(tmpEntry);
+                return;
+            }
+            for (int i = 1; i < outData.length; i++) {
+                DataContainer.writeToZip((BufferedDataTable)outData[i], getPortFile(tmpEntry, i),
+                    exec.createSubProgress(0.0));
+            }
+            Files.move(tmpEntry.toPath(), entry.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // also if another thread or process has stored the same result concurrently
+            LOGGER.debug("Unable to cache result of \"" + node.getName() + "\": " + e.getMessage(), e);
+            deleteEntry(tmpEntry);
+            return;
+        }
+        for (int i = 1; i < outData.length; i++) {
+            registerFingerprint((BufferedDataTable)outData[i], key, i);
+        }
+        evict();
+    }
+
+    /** Whether the results of the node are entirely described by its output tables. */
+    private static boolean isCacheable(final Node node, final PortObject[] inData) {
+        NodeModel model = node.getNodeModel();
+        if (model instanceof ScopeStartNode || model instanceof ScopeEndNode || model instanceof LoopStartNode
+            || model instanceof LoopEndNode || model instanceof BufferedDataTableHolder
+            || model instanceof PortObjectHolder || model instanceof InteractiveNode || model instanceof WizardNode) {
+            return false;
+        }
+        if (node.getNrViews() > 0 || node.getNrOutPorts() < 2) {
+            return false;
+        }
+        // source nodes read from outside the workflow, their result isn't determined by their inputs
+        boolean hasDataInput = false;
+        for (int i = 1; i < inData.length; i++) {
+            if (inData[i] instanceof BufferedDataTable) {
+                hasDataInput = true;
+            } else if (inData[i] != null) {
+                return false;
+            }
+        }
+        for (int i = 1; i < node.getNrOutPorts(); i++) {
+            if (!BufferedDataTable.class.equals(node.getOutputType(i).getPortObjectClass())) {
+                return false;
+            }
+        }
+        return hasDataInput;
+    }
+
+    /** Whether the node model writes anything when saving its internals (into the given, not existing directory). */
+    private static boolean hasInternals(final Node node, final File internalsDir, final ExecutionMonitor exec)
+        throws IOException, CanceledExecutionException {
+        if (!internalsDir.mkdir()) {
+            throw new IOException("Can't create directory " + internalsDir.getAbsolutePath());
+        }
+        node.getNodeModel().saveInternals(internalsDir, exec.createSubProgress(0.0));
+        String[] files = internalsDir.list();
+        return files == null || files.length > 0;
+    }
+
+    private static Map<String, FlowVariable> getAllFlowVariables(final Node node, final boolean outgoing) {
+        return (outgoing ? node.getOutgoingFlowObjectStack() : node.getFlowObjectStack())
+            .getAvailableFlowVariables(FlowVariable.Type.values());
+    }
+
+    /**
+     * Returns the fingerprint of the table, hashing its content if it is not known yet. The content is the complete
+     * table spec (including domains and properties), the row keys and the cells as written by their serializers.
+     */
+    static String getFingerprint(final BufferedDataTable table, final ExecutionMonitor exec)
+        throws CanceledExecutionException {
+        synchronized (FINGERPRINTS) {
+            String fingerprint = FINGERPRINTS.get(table);
+            if (fingerprint != null) {
+                return fingerprint;
+            }
+        }
+        exec.setMessage("Computing cache key of input table");
+        MessageDigest digest = newDigest();
+        try (CellDigestOutput out = new CellDigestOutput(
+            new DataOutputStream(new DigestOutputStream(NullOutputStream.NULL_OUTPUT_STREAM, digest)))) {
+            NodeSettings specSettings = new NodeSettings("spec");
+            table.getDataTableSpec().save(specSettings);
+            ByteArrayOutputStream specBytes = new ByteArrayOutputStream();
+            specSettings.saveToBinary(specBytes);
+            out.write(specBytes.toByteArray());
+            ProgressCounter counter = exec.createProgressCounter(table.size());
+            for (DataRow row : table) {
+                out.writeUTF(row.getKey().getString());
+                for (DataCell cell : row) {
+                    if (cell.isMissing()) {
+                        out.writeByte(0);
+                        String error = cell instanceof MissingValue ? ((MissingValue)cell).getError() : null;
+                        out.writeUTF(String.valueOf(error));
+                    } else {
+                        out.writeByte(1);
+                        out.writeDataCell(cell);
+                    }
+                }
+                if (counter.increment()) {
+                    exec.setProgress(counter.getProgress());
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to compute table fingerprint: " + e.getMessage(), e);
+        }
+        String fingerprint = toHex(digest.digest());
+        synchronized (FINGERPRINTS) {
+            FINGERPRINTS.put(table, fingerprint);
+        }
+        return fingerprint;
+    }
+
+    private static void registerFingerprint(final BufferedDataTable table, final String key, final int port) {
+        synchronized (FINGERPRINTS) {
+            FINGERPRINTS.put(table, key + ":" + port);
+        }
+    }
+
+    /**
+     * Writes cells as their serializers do (or, for cells without serializer, by java serialization) -- unlike the
+     * string representation this covers the complete content. Strings can be of arbitrary length.
+     */
+    private static final class CellDigestOutput extends LongUTFDataOutputStream implements DataCellDataOutput {
+
+        CellDigestOutput(final DataOutputStream output) {
+            super(output);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void writeDataCell(final DataCell cell) throws IOException {
+            writeUTF(cell.getClass().getName());
+            Optional<DataCellSerializer<DataCell>> serializer =
+                DataTypeRegistry.getInstance().getSerializer(cell.getClass());
+            if (serializer.isPresent()) {
+                serializer.get().serialize(cell, this);
+            } else {
+                ObjectOutputStream objectOut = new ObjectOutputStream(this);
+                objectOut.writeObject(cell);
+                objectOut.flush();
+            }
+        }
+    }
+
+    /** Deletes the least recently used entries until the cache size is below the limit. */
+    private void evict() {
+        synchronized (m_evictionLock) {
+            File[] entries = m_cacheDir.listFiles(f -> f.isDirectory() && !f.getName().contains(".tmp-"));
+            if (entries == null) {
+                return;
+            }
+            List<File> sortedEntries = new ArrayList<File>(Arrays.asList(entries));
+            Collections.sort(sortedEntries, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+            long totalSize = 0;
+            long[] sizes = new long[sortedEntries.size()];
+            for (int i = 0; i < sizes.length; i++) {
+                sizes[i] = FileUtils.sizeOfDirectory(sortedEntries.get(i));
+                totalSize += sizes[i];
+            }
+            for (int i = 0; i < sizes.length && totalSize > m_maxSize; i++) {
+                LOGGER.debug("Evicting node execution cache entry " + sortedEntries.get(i).getName());
+                deleteEntry(sortedEntries.get(i));
+                totalSize -= sizes[i];
+            }
+        }
+    }
+
+    private static void deleteEntry(final File entry) {
+        if (entry.exists() && !FileUtil.deleteRecursively(entry)) {
+            LOGGER.debug("Unable to delete node execution cache entry \"" + entry.getAbsolutePath() + "\"");
+        }
+    }
+
+    private static File getPortFile(final File entry, final int port) {
+        return new File(entry, "port_" + port + ".zip");
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String toHex(final byte[] bytes) {
+        StringBuilder b = new StringBuilder(bytes.length * 2);
+        for (byte by : bytes) {
+            b.append(Character.forDigit((by >> 4) & 0xF, 16)).append(Character.forDigit(by & 0xF, 16));
+        }
+        return b.toString();
+    }
+
+}
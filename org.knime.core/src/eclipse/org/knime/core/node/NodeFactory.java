@@ -78,7 +78,8 @@
  * @param <T> the concrete type of the {@link NodeModel}
  */
 public abstract class NodeFactory<T extends NodeModel> {
-    private static final List<String> LOADED_NODE_FACTORIES = new ArrayList<String>();
+    private static final List<String> LOADED_NODE_FACTORIES =
+        Collections.synchronizedList(new ArrayList<String>());
 
     private static final List<String> RO_LIST = Collections.unmodifiableList(LOADED_NODE_FACTORIES);
 
@@ -627,7 +628,8 @@ public static URL getDefaultIcon() {
     }
 
     /**
-     * Returns a collection of all loaded node factories.
+     * Returns a collection of all loaded node factories. The list is synchronized, iterating it requires a
+     * <code>synchronized</code> block on the list.
      *
      * @return a collection array of fully qualified node factory class names
      */
@@ -86,6 +86,7 @@
 import org.knime.core.node.workflow.WorkflowEvent.Type;
 import org.knime.core.node.workflow.WorkflowListener;
 import org.knime.core.node.workflow.WorkflowManager;
+import org.knime.core.util.AsyncLogAppender;
 import org.knime.core.util.EclipseUtil;
 import org.knime.core.util.FileUtil;
 import org.knime.core.util.LogfileAppender;
@@ -282,6 +283,9 @@ public void workflowChanged(final WorkflowEvent event) {
 
     private static Layout WF_DIR_LOG_FILE_LAYOUT = new PatternLayout("%-5p\t %-30c{1}\t %." + MAX_CHARS + "m\n");
 
+    /** Whether log files are written asynchronously, see {@link KNIMEConstants#PROPERTY_ASYNC_LOGGING}. */
+    private static final boolean ASYNC_LOGGING = Boolean.getBoolean(KNIMEConstants.PROPERTY_ASYNC_LOGGING);
+
     /**
      * Inits Log4J logger and appends <code>System.out</code>,
      * <code>System.err</code>, and <i>knime.log</i> to it.
@@ -296,6 +300,11 @@ public void workflowChanged(final WorkflowEvent event) {
             // init root logger
             Logger root = Logger.getRootLogger();
             Appender a = root.getAppender(LOGFILE_APPENDER);
+            if (a != null && ASYNC_LOGGING) {
+                root.removeAppender(a);
+                a = new AsyncLogAppender(a);
+                root.addAppender(a);
+            }
             if (a != null) {
                 LOG_FILE_APPENDER = a;
                 WF_DIR_LOG_FILE_LAYOUT = a.getLayout();
@@ -456,9 +465,11 @@ private static void startMessage() {
         copyrightMessage();
         l.info("#                                                                                       #");
         l.info("#########################################################################################");
-        if (LOG_FILE_APPENDER instanceof LogfileAppender) {
+        Appender logFileAppender = LOG_FILE_APPENDER instanceof AsyncLogAppender
+            ? ((AsyncLogAppender)LOG_FILE_APPENDER).getDelegate() : LOG_FILE_APPENDER;
+        if (logFileAppender instanceof LogfileAppender) {
             l.info("# For more details see the KNIME log file:                                              #");
-            l.info("# " + ((LogfileAppender)LOG_FILE_APPENDER).getFile());
+            l.info("# " + ((LogfileAppender)logFileAppender).getFile());
             l.info("#---------------------------------------------------------------------------------------#");
         }
 
@@ -718,8 +729,10 @@ public int decide(final LoggingEvent event) {
                     });
                     //we have to call this function to activate the writer!!!
                     fileAppender.activateOptions();
-                    logger.addAppender(fileAppender);
-                    WF_APPENDER.put(workflowDirPath, fileAppender);
+                    //the async appender takes over the filter and compares by name, just as the LogfileAppender
+                    wfAppender = ASYNC_LOGGING ? new AsyncLogAppender(fileAppender) : fileAppender;
+                    logger.addAppender(wfAppender);
+                    WF_APPENDER.put(workflowDirPath, wfAppender);
                     if (m_listener == null) {
                         m_listener = new MyWorkflowListener();
                         WorkflowManager.ROOT.addListener(m_listener);
@@ -1242,6 +1255,19 @@ public static void setAppenderLevelRange(final String appenderName, final LEVEL
         }
     }
 
+    /**
+     * Blocks until all log messages are written to the log files. This is only relevant if log files are written
+     * asynchronously (see {@link KNIMEConstants#PROPERTY_ASYNC_LOGGING}), otherwise it returns immediately. Log
+     * files in workflow directories are also flushed when the workflow is closed.
+     *
+     * @since 3.6
+     */
+    public static void flush() {
+        if (ASYNC_LOGGING) {
+            AsyncLogAppender.flushAll();
+        }
+    }
+
     /**
      * Allows to enable/disable logging in the workflow directory. If enabled log messages that belong to workflow
      * are logged into a log file within the workflow directory itself in addition to the global KNIME log file.
@@ -105,6 +105,23 @@ public static NodeSettingsRO loadFromXML(
         return (NodeSettingsRO) Config.loadFromXML(tmp, in);
     }
 
+    /**
+     * Reads <code>NodeSettings</code> object from a stream written by
+     * {@link #saveToBinary(java.io.OutputStream)}. The stream will be closed by
+     * this call.
+     *
+     * @param in binary input stream to read settings from.
+     * @return A new settings object.
+     * @throws IOException If the stream could not be read or is not in the
+     *         binary settings format.
+     * @since 3.6
+     */
+    public static NodeSettingsRO loadFromBinary(
+            final InputStream in) throws IOException {
+        NodeSettings tmp = new NodeSettings("ignored");
+        return (NodeSettingsRO) Config.loadFromBinary(tmp, in);
+    }
+
     /**
      * Makes a deep copy of this Config and all sub-configs.
      *
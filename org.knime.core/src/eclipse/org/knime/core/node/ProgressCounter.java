@@ -0,0 +1,150 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A low-overhead replacement for calling {@link ExecutionMonitor#setProgress(double, String)} and
+ * {@link ExecutionMonitor#checkCanceled()} for each row in a tight loop. The counter is incremented for each processed
+ * row (a plain field increment most of the time); only every n-th call checks for cancelation and tells the caller to
+ * report progress. The stride n adapts itself so that these checks happen roughly every {@value #UPDATE_INTERVAL_MS}ms,
+ * independent of how expensive the processing of a single row is.
+ *
+ * <p>
+ * Typical usage:
+ *
+ * <pre>
+ * ProgressCounter counter = exec.createProgressCounter(table.size());
+ * for (DataRow row : table) {
+ *     ... // process row
+ *     if (counter.increment()) {
+ *         exec.setProgress(counter.getProgress(), "Processed row " + counter.getCount());
+ *     }
+ * }
+ * </pre>
+ *
+ * Instances are not thread-safe and are meant to be used by the thread iterating the rows.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.6
+ */
+public final class ProgressCounter {
+
+    /** Target interval between two progress updates/cancel checks. */
+    private static final long UPDATE_INTERVAL_MS = 50L;
+
+    private static final long UPDATE_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(UPDATE_INTERVAL_MS);
+
+    /** Upper bound of the stride, so that a sudden slow down does not delay cancelation for too long. */
+    private static final long MAX_STRIDE = 1L << 16;
+
+    private final ExecutionMonitor m_exec;
+
+    private final long m_totalCount;
+
+    private long m_count;
+
+    private long m_nextUpdate;
+
+    private long m_stride;
+
+    private long m_lastUpdateNanos;
+
+    /**
+     * Created via {@link ExecutionMonitor#createProgressCounter(long)}.
+     *
+     * @param exec The monitor to check for cancelation.
+     * @param totalCount The total number of rows or a negative value if unknown.
+     */
+    ProgressCounter(final ExecutionMonitor exec, final long totalCount) {
+        m_exec = exec;
+        m_totalCount = totalCount;
+        m_stride = 1L;
+        m_nextUpdate = 1L;
+        m_lastUpdateNanos = System.nanoTime();
+    }
+
+    /**
+     * Counts one processed row. Every so often this checks whether the execution was canceled and returns
+     * <code>true</code> to indicate that the caller should report progress now.
+     *
+     * @return <code>true</code> if progress should be reported, <code>false</code> most of the time.
+     * @throws CanceledExecutionException If the execution was canceled.
+     */
+    public boolean increment() throws CanceledExecutionException {
+        if (++m_count < m_nextUpdate) {
+            return false;
+        }
+        m_exec.checkCanceled();
+        final long now = System.nanoTime();
+        final long elapsed = now - m_lastUpdateNanos;
+        if (elapsed < UPDATE_INTERVAL_NANOS / 2 && m_stride < MAX_STRIDE) {
+            m_stride <<= 1;
+        } else if (elapsed > 2 * UPDATE_INTERVAL_NANOS && m_stride > 1L) {
+            m_stride >>= 1;
+        }
+        m_lastUpdateNanos = now;
+        m_nextUpdate = m_count + m_stride;
+        return true;
+    }
+
+    /** @return the number of calls to {@link #increment()} so far. */
+    public long getCount() {
+        return m_count;
+    }
+
+    /** @return the total count as passed in the constructor (negative if unknown). */
+    public long getTotalCount() {
+        return m_totalCount;
+    }
+
+    /** @return the current count divided by the total count or 0 if the total count is not known. */
+    public double getProgress() {
+        return m_totalCount > 0 ? Math.min(1.0, m_count / (double)m_totalCount) : 0.0;
+    }
+
+}
@@ -0,0 +1,250 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.config;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.knime.core.node.config.base.AbstractConfigEntry;
+import org.knime.core.node.config.base.ConfigEntries;
+
+/**
+ * Compact binary representation of a {@link Config} tree, used as a faster alternative to the XML format when
+ * reading and writing node settings. Leaf entries are stored by their type and string value (the same information
+ * that is written to XML) so that a round trip is lossless; keys are written once and then referenced by index as
+ * most keys repeat many times in a typical settings tree.
+ *
+ * <p>
+ * Layout: magic number, format version, root key, followed by the entries of the root config. Each entry is a type
+ * code, a key reference and either the (nullable) string value or, for sub configs, the entry count and the entries.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class ConfigBinarySerializer {
+
+    /** Magic number at the beginning of each binary config ("KCFG"). */
+    private static final int MAGIC = 0x4B434647;
+
+    private static final byte VERSION = 1;
+
+    /** The entry types in the order of their binary codes -- only append, never reorder. */
+    private static final ConfigEntries[] TYPES = {ConfigEntries.config, ConfigEntries.xstring, ConfigEntries.xint,
+        ConfigEntries.xlong, ConfigEntries.xdouble, ConfigEntries.xfloat, ConfigEntries.xboolean, ConfigEntries.xchar,
+        ConfigEntries.xshort, ConfigEntries.xbyte, ConfigEntries.xtransientstring, ConfigEntries.xpassword};
+
+    private static final Map<ConfigEntries, Byte> TYPE_CODES = new HashMap<>();
+
+    static {
+        for (byte i = 0; i < TYPES.length; i++) {
+            TYPE_CODES.put(TYPES[i], i);
+        }
+    }
+
+    private ConfigBinarySerializer() {
+    }
+
+    /**
+     * Writes the config to the stream. The stream is flushed but not closed.
+     *
+     * @param config The config to write.
+     * @param out The stream to write to.
+     * @throws IOException If writing fails or the config contains an unsupported entry type.
+     */
+    static void write(final Config config, final OutputStream out) throws IOException {
+        DataOutputStream dataOut = new DataOutputStream(out);
+        dataOut.writeInt(MAGIC);
+        dataOut.writeByte(VERSION);
+        Map<String, Integer> keys = new HashMap<>();
+        writeKey(config.getKey(), dataOut, keys);
+        writeEntries(config, dataOut, keys);
+        dataOut.flush();
+    }
+
+    private static void writeEntries(final Config config, final DataOutputStream out,
+        final Map<String, Integer> keys) throws IOException {
+        List<String> entryKeys = new ArrayList<>(config.keySet());
+        writeVarInt(entryKeys.size(), out);
+        for (String key : entryKeys) {
+            AbstractConfigEntry entry = config.getEntry(key);
+            Byte code = TYPE_CODES.get(entry.getType());
+            if (code == null) {
+                throw new IOException("Unsupported config entry type " + entry.getType() + " (key \"" + key + "\")");
+            }
+            out.writeByte(code);
+            writeKey(key, out, keys);
+            if (entry.getType() == ConfigEntries.config) {
+                writeEntries((Config)entry, out, keys);
+            } else {
+                writeString(entry.toStringValue(), out);
+            }
+        }
+    }
+
+    /**
+     * Reads a config from the stream. The stream is not closed.
+     *
+     * @param factory Creates the (empty) root config for the key read from the stream, usually
+     *            {@link Config#getInstance(String)} of a prototype.
+     * @param in The stream to read from.
+     * @return The config read from the stream.
+     * @throws IOException If the stream is not a binary config or is corrupt.
+     */
+    static Config read(final Function<String, Config> factory, final InputStream in)
+        throws IOException {
+        DataInputStream dataIn = new DataInputStream(in);
+        if (dataIn.readInt() != MAGIC) {
+            throw new IOException("Not a binary config (invalid header)");
+        }
+        byte version = dataIn.readByte();
+        if (version > VERSION) {
+            throw new IOException("Unsupported binary config version " + version + " (supported: " + VERSION + ")");
+        }
+        List<String> keys = new ArrayList<>();
+        Config config = factory.apply(readKey(dataIn, keys));
+        readEntries(config, dataIn, keys);
+        return config;
+    }
+
+    private static void readEntries(final Config config, final DataInputStream in, final List<String> keys)
+        throws IOException {
+        int count = readVarInt(in);
+        for (int i = 0; i < count; i++) {
+            int code = in.readByte();
+            if (code < 0 || code >= TYPES.length) {
+                throw new IOException("Invalid config entry type code " + code);
+            }
+            ConfigEntries type = TYPES[code];
+            String key = readKey(in, keys);
+            if (type == ConfigEntries.config) {
+                readEntries((Config)config.addConfig(key), in, keys);
+            } else {
+                config.addEntry(type.createEntry(key, readString(in)));
+            }
+        }
+    }
+
+    /** Writes the index of a known key or, for a new key, the next free index followed by the key itself. */
+    private static void writeKey(final String key, final DataOutputStream out, final Map<String, Integer> keys)
+        throws IOException {
+        Integer index = keys.get(key);
+        if (index != null) {
+            writeVarInt(index, out);
+        } else {
+            int newIndex = keys.size();
+            keys.put(key, newIndex);
+            writeVarInt(newIndex, out);
+            writeString(key, out);
+        }
+    }
+
+    private static String readKey(final DataInputStream in, final List<String> keys) throws IOException {
+        int index = readVarInt(in);
+        if (index < keys.size()) {
+            return keys.get(index);
+        }
+        if (index != keys.size()) {
+            throw new IOException("Invalid key reference " + index + " (" + keys.size() + " keys read so far)");
+        }
+        String key = readString(in);
+        keys.add(key);
+        return key;
+    }
+
+    /** Writes the string as UTF-8, prefixed by its byte length + 1 (0 denotes <code>null</code>). */
+    private static void writeString(final String s, final DataOutputStream out) throws IOException {
+        if (s == null) {
+            writeVarInt(0, out);
+        } else {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length + 1, out);
+            out.write(bytes);
+        }
+    }
+
+    private static String readString(final DataInputStream in) throws IOException {
+        int length = readVarInt(in);
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length - 1];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeVarInt(final int value, final DataOutputStream out) throws IOException {
+        int v = value;
+        while ((v & ~0x7F) != 0) {
+            out.writeByte((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        out.writeByte(v);
+    }
+
+    private static int readVarInt(final DataInputStream in) throws IOException {
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            result |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                if (result < 0) {
+                    throw new IOException("Invalid length or index in binary config: " + result);
+                }
+                return result;
+            }
+        }
+        throw new IOException("Malformed variable length integer in binary config");
+    }
+
+}
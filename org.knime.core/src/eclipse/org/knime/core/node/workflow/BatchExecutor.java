@@ -50,18 +50,34 @@
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TimerTask;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.json.Json;
+import javax.json.JsonException;
+import javax.json.JsonWriter;
+import javax.json.stream.JsonGenerator;
 
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
@@ -235,6 +251,27 @@ public IllegalOptionException(final String message, final Throwable cause) {
      */
     protected boolean m_stopOnError = true;
 
+    /** Directory watched for execution requests in daemon mode, null if not running as daemon. */
+    private File m_daemonDir;
+
+    /** Maximum number of workflows kept loaded in daemon mode. */
+    private int m_daemonCacheSize = 10;
+
+    /** File listing the workflows to execute (one per line), null if not given. */
+    private File m_workflowListFile;
+
+    /** Directory searched for workflows to execute, null if not given. */
+    private File m_workflowRoot;
+
+    /** Number of workflows that are executed concurrently if multiple workflows are given. */
+    private int m_parallelism = 1;
+
+    /** Whether -stopOnError was given, only used if multiple workflows are given. */
+    private boolean m_stopOnErrorOption;
+
+    /** Exit codes of the workflows executed by the last call to {@link #runAll()}. */
+    private int[] m_exitCodes = new int[0];
+
     private static final NodeLogger LOGGER = NodeLogger.getLogger(BatchExecutor.class);
 
     private static class Option {
@@ -388,6 +425,21 @@ protected static class WorkflowConfiguration {
         /** A collection of node options. */
         public final Collection<Option> nodeOptions = new ArrayList<BatchExecutor.Option>();
 
+        /**
+         * The file the execution trace is written to, <code>null</code> if no trace should be recorded.
+         *
+         * @since 3.6
+         */
+        public File traceFile;
+
+        /**
+         * The file the execution metrics of all nodes are written to (as JSON) after execution, <code>null</code> if
+         * they should not be written.
+         *
+         * @since 3.6
+         */
+        public File metricsFile;
+
         /** The (temporary) workflow location which should be used to load the workflow. */
         File workflowLocation;
     }
@@ -409,6 +461,12 @@ public BatchExecutor(final String[] args) throws IOException, CoreException, Ill
             throw new IllegalOptionException("No arguments provided");
         }
         processArguments(args);
+        if (m_daemonDir != null) {
+            // workflows are given by the requests
+            m_workflows.clear();
+        } else if (m_workflowListFile != null || m_workflowRoot != null) {
+            expandWorkflowList();
+        }
         for (WorkflowConfiguration config : m_workflows) {
             checkConfiguration(config);
         }
@@ -556,6 +614,66 @@ protected void handleCommandlineArgument(final String[] parts, final String s, f
                 throw new IllegalOptionException("Couldn't parse -destDir argument: " + s);
             }
             config.outputDir = new File(parts[1]);
+        } else if ("-daemon".equals(parts[0])) {
+            if (parts.length != 2) {
+                throw new IllegalOptionException("Couldn't parse -daemon argument: " + s);
+            }
+            m_daemonDir = new File(parts[1]);
+            if (!m_daemonDir.isDirectory()) {
+                throw new IllegalOptionException("Request directory '" + parts[1] + "' is not a directory.");
+            }
+        } else if ("-daemonCacheSize".equals(parts[0])) {
+            if (parts.length != 2) {
+                throw new IllegalOptionException("Couldn't parse -daemonCacheSize argument: " + s);
+            }
+            try {
+                m_daemonCacheSize = Integer.parseInt(parts[1]);
+            } catch (NumberFormatException ex) {
+                throw new IllegalOptionException("Couldn't parse -daemonCacheSize argument: " + s, ex);
+            }
+            if (m_daemonCacheSize < 1) {
+                throw new IllegalOptionException("Number of cached workflows must be at least 1: " + s);
+            }
+        } else if ("-workflowList".equals(parts[0])) {
+            if (parts.length != 2) {
+                throw new IllegalOptionException("Couldn't parse -workflowList argument: " + s);
+            }
+            m_workflowListFile = new File(parts[1]);
+            if (!m_workflowListFile.isFile()) {
+                throw new IllegalOptionException("Workflow list '" + parts[1] + "' is not a file.");
+            }
+        } else if ("-workflowRoot".equals(parts[0])) {
+            if (parts.length != 2) {
+                throw new IllegalOptionException("Couldn't parse -workflowRoot argument: " + s);
+            }
+            m_workflowRoot = new File(parts[1]);
+            if (!m_workflowRoot.isDirectory()) {
+                throw new IllegalOptionException("Workflow root '" + parts[1] + "' is not a directory.");
+            }
+        } else if ("-parallel".equals(parts[0])) {
+            if (parts.length != 2) {
+                throw new IllegalOptionException("Couldn't parse -parallel argument: " + s);
+            }
+            try {
+                m_parallelism = Integer.parseInt(parts[1]);
+            } catch (NumberFormatException ex) {
+                throw new IllegalOptionException("Couldn't parse -parallel argument: " + s, ex);
+            }
+            if (m_parallelism < 1) {
+                throw new IllegalOptionException("Number of parallel workflows must be at least 1: " + s);
+            }
+        } else if ("-stopOnError".equals(parts[0])) {
+            m_stopOnErrorOption = true;
+        } else if ("-trace".equals(parts[0])) {
+            if (parts.length != 2) {
+                throw new IllegalOptionException("Couldn't parse -trace argument: " + s);
+            }
+            config.traceFile = new File(parts[1]);
+        } else if ("-metrics".equals(parts[0])) {
+            if (parts.length != 2) {
+                throw new IllegalOptionException("Couldn't parse -metrics argument: " + s);
+            }
+            config.metricsFile = new File(parts[1]);
         } else if ("-workflow.variable".equals(parts[0])) {
             if (parts.length != 2) {
                 throw new IllegalOptionException("Couldn't parse -workflow.variable argument: " + s);
@@ -624,7 +742,30 @@ public static String getOptionsString() {
                 + "                      if omitted the workflow is only saved in place\n"
                 + " -workflow.variable=name,value,type => define or overwrite workflow variable\n"
                 + "                      'name' with value 'value' (possibly enclosed by quotes). The\n"
-                + "                      'type' must be one of \"String\", \"int\" or \"double\".";
+                + "                      'type' must be one of \"String\", \"int\" or \"double\".\n"
+                + " -trace=...        => JSON file where an execution trace (node timeline in Chrome's\n"
+                + "                      trace event format) is written to after execution\n"
+                + " -metrics=...      => JSON file where the execution metrics of all executed nodes\n"
+                + "                      (time, rows, spills, ...) are written to after execution\n"
+                + " -workflowList=... => file listing workflow directories or ZIP files (one per line)\n"
+                + "                      to execute instead of a single workflow; all other options\n"
+                + "                      apply to each of them, -destDir, -trace and -metrics get a\n"
+                + "                      sub-directory or prefix per workflow. A failing workflow does not stop the\n"
+                + "                      others unless -stopOnError is given\n"
+                + " -workflowRoot=... => like -workflowList but executes all workflows found in the\n"
+                + "                      given directory (recursively)\n"
+                + " -parallel=n       => number of workflows that are executed concurrently in the same\n"
+                + "                      JVM if multiple workflows are given (default 1); the nodes\n"
+                + "                      share the global thread pool\n"
+                + " -stopOnError      => don't start any further workflows after one failed if multiple\n"
+                + "                      workflows are given; workflows already running are completed\n"
+                + " -daemon=...       => keep running and execute the requests put into the given\n"
+                + "                      directory as '<name>.request' files (one of the above options\n"
+                + "                      per line); the exit code is written to '<name>.result'. Loaded\n"
+                + "                      workflows are kept and reset for subsequent requests. A file\n"
+                + "                      named 'stop' in the directory terminates the daemon.\n"
+                + " -daemonCacheSize=n => maximum number of workflows kept loaded in daemon mode\n"
+                + "                      (default 10); the least recently used one is closed first";
     }
 
     /**
@@ -666,7 +807,7 @@ public static int mainRun(final String... args) {
 
         try {
             BatchExecutor exec = new BatchExecutor(args);
-            return exec.runAll();
+            return exec.m_daemonDir != null ? exec.runDaemon() : exec.runAll();
         } catch (IOException ex) {
             LOGGER.error("Error while reading input XML file: " + ex.getMessage(), ex);
             return EXIT_ERR_PRESTART;
@@ -679,6 +820,9 @@ public static int mainRun(final String... args) {
         } catch (BatchException ex) {
             LOGGER.error(ex.getMessage(), ex);
             return ex.getDetailCode();
+        } finally {
+            // make sure all (asynchronously written) log messages are in the log file before the application exits
+            NodeLogger.flush();
         }
     }
 
@@ -690,7 +834,8 @@ public static int mainRun(final String... args) {
      */
     public static void main(final String[] args) throws Exception {
         BatchExecutor be = new BatchExecutor(args);
-        int returnVal = be.runAll();
+        int returnVal = be.m_daemonDir != null ? be.runDaemon() : be.runAll();
+        NodeLogger.flush();
         System.exit(returnVal);
     }
 
@@ -880,11 +1025,21 @@ protected void saveWorkflow(final WorkflowManager wfm, final WorkflowConfigurati
      * @since 2.7
      */
     public int runAll() {
+        if (m_parallelism > 1 && m_workflows.size() > 1) {
+            return runParallel();
+        }
         int retVal = EXIT_SUCCESS;
+        int[] exitCodes = new int[m_workflows.size()];
+        Arrays.fill(exitCodes, NOT_RUN);
+        long[] durations = new long[m_workflows.size()];
 
-        for (WorkflowConfiguration config : m_workflows) {
+        for (int i = 0; i < m_workflows.size(); i++) {
+            WorkflowConfiguration config = m_workflows.get(i);
             LOGGER.info("===== Executing workflow " + config.inputWorkflow + " =====");
+            long start = System.currentTimeMillis();
             int rv = runOne(config);
+            exitCodes[i] = rv;
+            durations[i] = System.currentTimeMillis() - start;
             if (rv != EXIT_SUCCESS) {
                 LOGGER.info("========= Workflow did not execute sucessfully ============");
                 retVal = rv;
@@ -895,14 +1050,242 @@ public int runAll() {
                 LOGGER.info("============= Workflow executed sucessfully ===============");
             }
         }
+        m_exitCodes = exitCodes;
+        if (m_workflows.size() > 1) {
+            logSummary(exitCodes, durations);
+        }
         return retVal;
     }
 
+    /** Exit code placeholder for workflows that were not run (because of a previous error). */
+    private static final int NOT_RUN = -1;
+
+    /**
+     * Executes all configured workflows with up to {@link #m_parallelism} workflows at a time. The workflows are
+     * loaded, executed and saved in dedicated threads, which mostly wait for the nodes that are executed in the global
+     * thread pool (shared by all workflows). If {@link #m_stopOnError} is set, workflows that haven't been started
+     * yet are skipped once a workflow failed.
+     *
+     * @return the exit code of the last failing workflow (in the order given) or {@link #EXIT_SUCCESS}
+     */
+    private int runParallel() {
+        final int count = m_workflows.size();
+        final int[] exitCodes = new int[count];
+        Arrays.fill(exitCodes, NOT_RUN);
+        final long[] durations = new long[count];
+        final AtomicBoolean failed = new AtomicBoolean();
+        final AtomicInteger threadCounter = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(m_parallelism, count), r -> {
+            Thread t = new Thread(r, "KNIME-BatchExecutor-" + threadCounter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        LOGGER.info("===== Executing " + count + " workflows, " + m_parallelism + " in parallel =====");
+        for (int i = 0; i < count; i++) {
+            final int index = i;
+            final WorkflowConfiguration config = m_workflows.get(i);
+            executor.execute(() -> {
+                if (m_stopOnError && failed.get()) {
+                    return;
+                }
+                LOGGER.info("===== Executing workflow " + config.inputWorkflow + " =====");
+                long start = System.currentTimeMillis();
+                int rv;
+                try {
+                    rv = runOne(config);
+                } catch (RuntimeException ex) {
+                    LOGGER.error("Unexpected error while running workflow " + config.inputWorkflow + ": "
+                        + ex.getMessage(), ex);
+                    rv = EXIT_ERR_EXECUTION;
+                }
+                durations[index] = System.currentTimeMillis() - start;
+                exitCodes[index] = rv;
+                if (rv != EXIT_SUCCESS) {
+                    failed.set(true);
+                    LOGGER.info("===== Workflow " + config.inputWorkflow + " did not execute sucessfully =====");
+                } else {
+                    LOGGER.info("===== Workflow " + config.inputWorkflow + " executed sucessfully =====");
+                }
+            });
+        }
+        executor.shutdown();
+        try {
+            while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                // keep waiting, workflows may run for a long time
+            }
+        } catch (InterruptedException ex) {
+            LOGGER.warn("Interrupted while waiting for workflows to finish, canceling remaining workflows");
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        int retVal = EXIT_SUCCESS;
+        for (int rv : exitCodes) {
+            if (rv != EXIT_SUCCESS && rv != NOT_RUN) {
+                retVal = rv;
+            }
+        }
+        m_exitCodes = exitCodes;
+        logSummary(exitCodes, durations);
+        return retVal;
+    }
+
+    /**
+     * Used for testing, only.
+     *
+     * @return the exit code of each workflow executed by the last call to {@link #runAll()} (in the order of
+     *         {@link #m_workflows}), -1 for workflows that were not run
+     */
+    int[] getExitCodes() {
+        return m_exitCodes.clone();
+    }
+
+    /** Logs the exit code and execution time of each workflow after multiple workflows have been run. */
+    private void logSummary(final int[] exitCodes, final long[] durations) {
+        int successful = 0;
+        StringBuilder b = new StringBuilder();
+        for (int i = 0; i < exitCodes.length; i++) {
+            b.append('\n');
+            if (exitCodes[i] == NOT_RUN) {
+                b.append("not run");
+            } else {
+                b.append("exit code ").append(exitCodes[i]).append(" (").append(durations[i]).append("ms)");
+            }
+            b.append('\t').append(m_workflows.get(i).inputWorkflow.getAbsolutePath());
+            if (exitCodes[i] == EXIT_SUCCESS) {
+                successful++;
+            }
+        }
+        LOGGER.info("===== " + successful + " of " + exitCodes.length + " workflows executed successfully ====="
+            + b.toString());
+    }
+
+    /**
+     * Replaces the workflow configuration read from the command line by one configuration per workflow given by the
+     * workflow list and/or the workflow root directory. Each copy has the options of the command line configuration,
+     * the output directory and trace file are made unique per workflow. Note that only the fields of
+     * {@link WorkflowConfiguration} are copied.
+     *
+     * @throws IOException if the workflow list cannot be read
+     * @throws IllegalOptionException if no or an invalid workflow is given or the options are not applicable to
+     *             multiple workflows
+     */
+    private void expandWorkflowList() throws IOException, IllegalOptionException {
+        if (m_workflows.size() != 1) {
+            throw new IllegalOptionException("-workflowList and -workflowRoot can't be used with "
+                + getClass().getSimpleName());
+        }
+        WorkflowConfiguration template = m_workflows.get(0);
+        if (template.inputWorkflow != null) {
+            throw new IllegalOptionException(
+                "-workflowFile and -workflowDir can't be combined with -workflowList or -workflowRoot");
+        }
+        if (template.outputFile != null) {
+            throw new IllegalOptionException("-destFile can't be used with multiple workflows, use -destDir instead");
+        }
+        List<File> inputs = new ArrayList<File>();
+        if (m_workflowListFile != null) {
+            for (String line : Files.readAllLines(m_workflowListFile.toPath(), StandardCharsets.UTF_8)) {
+                String path = line.trim();
+                if (path.isEmpty() || path.startsWith("#")) {
+                    continue;
+                }
+                File f = new File(path);
+                if (!f.isAbsolute()) {
+                    f = new File(m_workflowListFile.getAbsoluteFile().getParentFile(), path);
+                }
+                if (!f.exists()) {
+                    throw new IllegalOptionException("Workflow '" + path + "' in " + m_workflowListFile
+                        + " does not exist.");
+                }
+                inputs.add(f);
+            }
+        }
+        if (m_workflowRoot != null) {
+            if (new File(m_workflowRoot, WorkflowPersistor.WORKFLOW_FILE).isFile()) {
+                inputs.add(m_workflowRoot);
+            } else {
+                collectWorkflows(m_workflowRoot, inputs);
+            }
+        }
+        if (inputs.isEmpty()) {
+            throw new IllegalOptionException("No workflows found to execute.");
+        }
+
+        m_workflows.clear();
+        Set<String> usedNames = new HashSet<String>();
+        for (File input : inputs) {
+            String name = input.getName().replaceAll("\\.(?:zip|ZIP|knwf)$", "");
+            String uniqueName = name;
+            for (int i = 2; !usedNames.add(uniqueName); i++) {
+                uniqueName = name + "_" + i;
+            }
+            WorkflowConfiguration config = createNewConfiguration();
+            config.noSave = template.noSave;
+            config.reset = template.reset;
+            config.updateMetanodeLinks = template.updateMetanodeLinks;
+            config.noExecute = template.noExecute;
+            config.failOnLoadError = template.failOnLoadError;
+            config.masterKey = template.masterKey;
+            config.credentials.putAll(template.credentials);
+            config.flowVariables.addAll(template.flowVariables);
+            config.nodeOptions.addAll(template.nodeOptions);
+            config.inputWorkflow = input;
+            if (template.outputDir != null) {
+                config.outputDir = new File(template.outputDir, uniqueName);
+            }
+            if (template.traceFile != null) {
+                config.traceFile =
+                    new File(template.traceFile.getAbsoluteFile().getParentFile(), uniqueName + "_"
+                        + template.traceFile.getName());
+            }
+            if (template.metricsFile != null) {
+                config.metricsFile =
+                    new File(template.metricsFile.getAbsoluteFile().getParentFile(), uniqueName + "_"
+                        + template.metricsFile.getName());
+            }
+            m_workflows.add(config);
+        }
+        // the workflows are independent of each other, unless the user asks otherwise
+        m_stopOnError = m_stopOnErrorOption;
+    }
+
+    /** Adds all workflow directories and workflow archives (.zip, .knwf) in or below the directory to the list. */
+    private static void collectWorkflows(final File dir, final List<File> result) {
+        File[] children = dir.listFiles();
+        if (children == null) {
+            return;
+        }
+        Arrays.sort(children);
+        for (File child : children) {
+            if (child.isDirectory()) {
+                if (new File(child, WorkflowPersistor.WORKFLOW_FILE).isFile()) {
+                    result.add(child);
+                } else {
+                    collectWorkflows(child, result);
+                }
+            } else if (child.getName().matches(".*\\.(?:zip|ZIP|knwf)$")) {
+                result.add(child);
+            }
+        }
+    }
+
     private int runOne(final WorkflowConfiguration config) {
+        return runOne(config, null);
+    }
+
+    /**
+     * Loads (or takes from the cache), executes and saves a workflow.
+     *
+     * @param config the workflow configuration
+     * @param cache if not <code>null</code> the workflow is taken from and kept in the cache; otherwise it's loaded
+     *            and removed after execution
+     * @return the exit code
+     */
+    private int runOne(final WorkflowConfiguration config, final WorkflowCache cache) {
         long t = System.currentTimeMillis();
         WorkflowManager wfm;
         try {
-            wfm = loadWorkflow(config);
+            wfm = cache == null ? loadWorkflow(config) : cache.getOrLoad(config);
         } catch (IOException ex) {
             LOGGER.error("IO error while loading the workflow: " + ex.getMessage());
             return EXIT_ERR_LOAD;
@@ -922,6 +1305,8 @@ private int runOne(final WorkflowConfiguration config) {
             LOGGER.error("Unknown or wrong option: " + ex.getMessage());
             return EXIT_ERR_PRESTART;
         }
+        // (a workflow reused in daemon mode may still have the trace of a previous request)
+        wfm.setExecutionTrace(config.traceFile != null ? new WorkflowExecutionTrace() : null);
         boolean sucessful;
         try {
             try {
@@ -937,6 +1322,8 @@ private int runOne(final WorkflowConfiguration config) {
                 String niceTime = StringFormat.formatElapsedTime(elapsedTimeMillis);
                 String timeString = "Finished in " + niceTime + " (" + elapsedTimeMillis + "ms)";
                 LOGGER.info("Workflow execution done " + timeString);
+                writeExecutionTrace(wfm, config);
+                writeExecutionMetrics(wfm, config);
                 LOGGER.debug("Status of workflow after execution:");
                 LOGGER.debug("------------------------------------");
                 dumpWorkflowToDebugLog(wfm);
@@ -945,6 +1332,9 @@ private int runOne(final WorkflowConfiguration config) {
 
             try {
                 saveWorkflow(wfm, config);
+                if (cache != null) {
+                    cache.workflowSaved(config);
+                }
             } catch (IOException ex) {
                 LOGGER.error("IO error while saving workflow: " + ex.getMessage(), ex);
                 return EXIT_ERR_EXECUTION;
@@ -956,11 +1346,279 @@ private int runOne(final WorkflowConfiguration config) {
                 return EXIT_ERR_EXECUTION;
             }
         } finally {
-            wfm.getParent().removeProject(wfm.getID());
+            if (cache == null) {
+                wfm.getParent().removeProject(wfm.getID());
+            }
         }
         return sucessful ? EXIT_SUCCESS : EXIT_ERR_EXECUTION;
     }
 
+    /**
+     * Runs in daemon mode: waits for request files in the daemon directory and executes them one after the other
+     * until a <code>stop</code> file appears. Each request file contains the usual command line options (one per
+     * line). The request is renamed to <code>&lt;name&gt;.running</code> while it is processed and a file
+     * <code>&lt;name&gt;.result</code> with the exit code and the execution time is written afterwards. Workflows are
+     * loaded once and then reset and re-executed for subsequent requests.
+     *
+     * @return {@link #EXIT_SUCCESS} when stopped, {@link #EXIT_ERR_PRESTART} if the directory cannot be read
+     * @since 3.6
+     */
+    public int runDaemon() {
+        LOGGER.info("===== Waiting for requests in " + m_daemonDir.getAbsolutePath() + " =====");
+        final File stopFile = new File(m_daemonDir, "stop");
+        WorkflowCache cache = new WorkflowCache(m_daemonCacheSize);
+        try {
+            while (!stopFile.exists()) {
+                File[] requests = m_daemonDir.listFiles((dir, name) -> name.endsWith(REQUEST_SUFFIX));
+                if (requests == null) {
+                    LOGGER.error("Can't read request directory " + m_daemonDir.getAbsolutePath());
+                    return EXIT_ERR_PRESTART;
+                }
+                if (requests.length == 0) {
+                    try {
+                        Thread.sleep(200);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                    continue;
+                }
+                // process in order of arrival
+                Arrays.sort(requests, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+                for (File request : requests) {
+                    processRequest(request, cache);
+                }
+            }
+        } finally {
+            cache.clear();
+            LOGGER.info("===== Daemon stopped =====");
+        }
+        return EXIT_SUCCESS;
+    }
+
+    private static final String REQUEST_SUFFIX = ".request";
+
+    private void processRequest(final File request, final WorkflowCache cache) {
+        final String name = request.getName().substring(0, request.getName().length() - REQUEST_SUFFIX.length());
+        final File running = new File(request.getParentFile(), name + ".running");
+        if (!request.renameTo(running)) {
+            // claimed by someone else or still being written
+            return;
+        }
+        long start = System.currentTimeMillis();
+        int rv;
+        String message = null;
+        try {
+            WorkflowConfiguration config = createNewConfiguration();
+            for (String line : Files.readAllLines(running.toPath(), StandardCharsets.UTF_8)) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    handleCommandlineArgument(line.split("=", 2), line, config);
+                }
+            }
+            checkConfiguration(config);
+            LOGGER.info("===== Executing request " + name + " (" + config.inputWorkflow + ") =====");
+            rv = runOne(config, cache);
+        } catch (IOException | CoreException | IllegalOptionException ex) {
+            LOGGER.error("Invalid request " + name + ": " + ex.getMessage(), ex);
+            message = ex.getMessage();
+            rv = EXIT_ERR_PRESTART;
+        } catch (Exception ex) {
+            LOGGER.error("Request " + name + " failed: " + ex.getMessage(), ex);
+            message = ex.getMessage();
+            rv = EXIT_ERR_EXECUTION;
+        }
+        StringBuilder result = new StringBuilder();
+        result.append("exitCode=").append(rv).append('\n');
+        result.append("duration=").append(System.currentTimeMillis() - start).append('\n');
+        if (message != null) {
+            result.append("message=").append(message.replace('\n', ' ')).append('\n');
+        }
+        File resultFile = new File(request.getParentFile(), name + ".result");
+        File tmpResultFile = new File(request.getParentFile(), name + ".result.tmp");
+        try {
+            Files.write(tmpResultFile.toPath(), result.toString().getBytes(StandardCharsets.UTF_8));
+            Files.move(tmpResultFile.toPath(), resultFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException ex) {
+            LOGGER.error("Could not write result of request " + name + ": " + ex.getMessage(), ex);
+        }
+        if (!running.delete()) {
+            LOGGER.warn("Could not delete " + running.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Workflows kept loaded in daemon mode, keyed by the input workflow (file or directory). A cached workflow is
+     * reused if the input did not change and the request does not need modifications that can't be undone by a
+     * reset (node options or different credentials); otherwise it's removed and loaded again. If more than the
+     * maximum number of workflows are loaded, the least recently used one is removed.
+     */
+    private final class WorkflowCache {
+
+        private final Map<File, CachedWorkflow> m_cache;
+
+        WorkflowCache(final int maxSize) {
+            m_cache = new LinkedHashMap<File, CachedWorkflow>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<File, CachedWorkflow> eldest) {
+                    if (size() > maxSize) {
+                        LOGGER.debug("Closing least recently used workflow " + eldest.getKey());
+                        eldest.getValue().remove();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        WorkflowManager getOrLoad(final WorkflowConfiguration config) throws IOException, InvalidSettingsException,
+            CanceledExecutionException, UnsupportedWorkflowVersionException, LockFailedException,
+            IllegalOptionException {
+            File key = config.inputWorkflow.getCanonicalFile();
+            long stamp = getModificationStamp(config.inputWorkflow);
+            CachedWorkflow cached = m_cache.remove(key);
+            if (cached != null) {
+                if (cached.canReuse(config, stamp)) {
+                    LOGGER.debug("Reusing loaded workflow " + config.inputWorkflow);
+                    config.workflowLocation = cached.m_workflowLocation;
+                    cached.prepare(config);
+                    m_cache.put(key, cached);
+                    return cached.m_wfm;
+                }
+                LOGGER.debug("Reloading workflow " + config.inputWorkflow);
+                cached.remove();
+            }
+            // load without the requested variables to remember the workflow's own values
+            List<FlowVariable> requestedVariables = new ArrayList<FlowVariable>(config.flowVariables);
+            config.flowVariables.clear();
+            WorkflowManager wfm = loadWorkflow(config);
+            config.flowVariables.addAll(requestedVariables);
+            m_cache.put(key, new CachedWorkflow(wfm, config, stamp));
+            if (!requestedVariables.isEmpty()) {
+                applyWorkflowVariables(wfm, config.reset, requestedVariables);
+            }
+            return wfm;
+        }
+
+        /**
+         * Called after the executor saved the workflow (possibly in place, i.e. into the input workflow); takes the
+         * new modification stamp so that the executor's own save doesn't count as an external change.
+         */
+        void workflowSaved(final WorkflowConfiguration config) throws IOException {
+            CachedWorkflow cached = m_cache.get(config.inputWorkflow.getCanonicalFile());
+            if (cached != null) {
+                cached.m_stamp = getModificationStamp(config.inputWorkflow);
+            }
+        }
+
+        void clear() {
+            for (CachedWorkflow cached : m_cache.values()) {
+                cached.remove();
+            }
+            m_cache.clear();
+        }
+    }
+
+    /** @return last modification time of the workflow file (zip) or its workflow.knime */
+    private static long getModificationStamp(final File inputWorkflow) {
+        if (inputWorkflow.isFile()) {
+            return inputWorkflow.lastModified();
+        }
+        return new File(inputWorkflow, WorkflowPersistor.WORKFLOW_FILE).lastModified();
+    }
+
+    /** Entry in the {@link WorkflowCache}. */
+    private static final class CachedWorkflow {
+
+        private final WorkflowManager m_wfm;
+
+        private final File m_workflowLocation;
+
+        /** Modification stamp of the input workflow, updated after each save by the executor. */
+        private long m_stamp;
+
+        private final List<FlowVariable> m_originalVariables;
+
+        private final Map<String, String> m_credentials;
+
+        private final boolean m_hasNodeOptions;
+
+        CachedWorkflow(final WorkflowManager wfm, final WorkflowConfiguration config, final long stamp) {
+            m_wfm = wfm;
+            m_workflowLocation = config.workflowLocation;
+            m_stamp = stamp;
+            m_originalVariables = new ArrayList<FlowVariable>(wfm.getWorkflowVariables());
+            m_credentials = toStringMap(config.credentials);
+            m_hasNodeOptions = !config.nodeOptions.isEmpty();
+        }
+
+        private static Map<String, String> toStringMap(final Map<String, Credentials> credentials) {
+            Map<String, String> result = new HashMap<String, String>();
+            for (Map.Entry<String, Credentials> e : credentials.entrySet()) {
+                Credentials c = e.getValue();
+                result.put(e.getKey(), c == null ? null : c.getLogin() + "\0" + c.getPassword());
+            }
+            return result;
+        }
+
+        boolean canReuse(final WorkflowConfiguration config, final long stamp) {
+            return m_stamp == stamp && !m_hasNodeOptions && config.nodeOptions.isEmpty()
+                && !config.updateMetanodeLinks
+                && m_credentials.equals(toStringMap(config.credentials))
+                && WorkflowManager.ROOT.containsNodeContainer(m_wfm.getID());
+        }
+
+        void prepare(final WorkflowConfiguration config) {
+            // restore the workflow's own variables, variables added by previous requests are removed
+            for (FlowVariable v : new ArrayList<FlowVariable>(m_wfm.getWorkflowVariables())) {
+                m_wfm.removeWorkflowVariable(v.getName());
+            }
+            m_wfm.addWorkflowVariables(true, m_originalVariables.toArray(new FlowVariable[0]));
+            if (!config.flowVariables.isEmpty()) {
+                applyWorkflowVariables(m_wfm, false, config.flowVariables);
+            }
+            m_wfm.resetAndConfigureAll();
+        }
+
+        void remove() {
+            if (WorkflowManager.ROOT.containsNodeContainer(m_wfm.getID())) {
+                WorkflowManager.ROOT.removeProject(m_wfm.getID());
+            }
+        }
+    }
+
+    private static void writeExecutionTrace(final WorkflowManager wfm, final WorkflowConfiguration config) {
+        WorkflowExecutionTrace trace = wfm.getExecutionTrace();
+        if (config.traceFile == null || trace == null) {
+            return;
+        }
+        try {
+            trace.writeChromeTrace(config.traceFile);
+            LOGGER.info("Execution trace (" + trace.getEventCount() + " events) written to "
+                + config.traceFile.getAbsolutePath());
+        } catch (IOException ex) {
+            LOGGER.error("Could not write execution trace to " + config.traceFile.getAbsolutePath() + ": "
+                + ex.getMessage(), ex);
+        }
+    }
+
+    private static void writeExecutionMetrics(final WorkflowManager wfm, final WorkflowConfiguration config) {
+        if (config.metricsFile == null) {
+            return;
+        }
+        Map<NodeID, NodeExecutionMetrics> metrics = NodeExecutionMetrics.collect(wfm);
+        Map<String, Boolean> cfg = Collections.singletonMap(JsonGenerator.PRETTY_PRINTING, Boolean.TRUE);
+        try (JsonWriter jw = Json.createWriterFactory(cfg).createWriter(new FileOutputStream(config.metricsFile),
+            StandardCharsets.UTF_8)) {
+            jw.write(NodeExecutionMetrics.toJson(metrics));
+            LOGGER.info("Execution metrics (" + metrics.size() + " nodes) written to "
+                + config.metricsFile.getAbsolutePath());
+        } catch (IOException | JsonException ex) {
+            LOGGER.error("Could not write execution metrics to " + config.metricsFile.getAbsolutePath() + ": "
+                + ex.getMessage(), ex);
+        }
+    }
+
     private static void setNodeOptions(final Collection<Option> options, final WorkflowManager wfm)
             throws InvalidSettingsException, IllegalOptionException {
         for (Option o : options) {
@@ -83,7 +83,7 @@
      * @param isUndoableDeleteCommand
      */
     public CopySubNodeContainerPersistor(final SubNodeContainer original,
-        final HashMap<Integer, ContainerTable> tableRep,
+        final Map<Integer, ContainerTable> tableRep,
         final FileStoreHandlerRepository fileStoreHandlerRepository, final boolean preserveDeletableFlags,
         final boolean isUndoableDeleteCommand) {
         super(original, preserveDeletableFlags, isUndoableDeleteCommand);
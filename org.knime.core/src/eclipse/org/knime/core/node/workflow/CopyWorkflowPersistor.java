@@ -50,7 +50,6 @@
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -83,7 +82,7 @@ class CopyWorkflowPersistor implements WorkflowPersistor {
     private final MetaNodeTemplateInformation m_templateInformation;
     private final AuthorInformation m_authorInformation;
     private final CopyNodeContainerMetaPersistor m_metaPersistor;
-    private final HashMap<Integer, ContainerTable> m_tableRep;
+    private final Map<Integer, ContainerTable> m_tableRep;
     private final WorkflowFileStoreHandlerRepository m_fileStoreHandlerRepository;
     private final List<FlowVariable> m_workflowVariables;
     private final List<Credentials> m_credentials;
@@ -101,7 +100,7 @@ class CopyWorkflowPersistor implements WorkflowPersistor {
      */
     @SuppressWarnings("unchecked")
     CopyWorkflowPersistor(final WorkflowManager original,
-            final HashMap<Integer, ContainerTable> tableRep,
+            final Map<Integer, ContainerTable> tableRep,
             final FileStoreHandlerRepository fileStoreHandlerRepository,
             final boolean preserveDeletableFlags,
             final boolean isUndoableDeleteCommand) {
@@ -191,7 +190,7 @@ public Set<ConnectionContainerTemplate> getAdditionalConnectionSet() {
 
     /** {@inheritDoc} */
     @Override
-    public HashMap<Integer, ContainerTable> getGlobalTableRepository() {
+    public Map<Integer, ContainerTable> getGlobalTableRepository() {
         return m_tableRep;
     }
 
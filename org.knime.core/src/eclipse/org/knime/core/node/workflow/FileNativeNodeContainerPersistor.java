@@ -55,7 +55,6 @@
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -81,6 +80,7 @@
 import org.knime.core.node.missing.MissingNodeFactory;
 import org.knime.core.node.port.PortObject;
 import org.knime.core.node.port.PortType;
+import org.knime.core.node.util.CheckUtils;
 import org.knime.core.node.workflow.FileWorkflowPersistor.LoadVersion;
 import org.knime.core.node.workflow.WorkflowPersistor.LoadResult;
 import org.knime.core.node.workflow.WorkflowPersistor.LoadResultEntry.LoadResultEntryType;
@@ -119,13 +119,19 @@ public class FileNativeNodeContainerPersistor extends FileSingleNodeContainerPer
 
     private NodeAndBundleInformation m_nodeAndBundleInformation;
 
+    /** Factory information and additional factory settings read in {@link #preLoadSettings(WorkflowPersistor,
+     * NodeSettingsRO, LoadResult)}, used (and cleared) in {@link #createNode()}. */
+    private NodeAndBundleInformation m_preLoadedNodeInfo;
+
+    private NodeSettingsRO m_preLoadedAdditionalFactorySettings;
+
     /**
      * @param nodeSettingsFile
      * @param loadHelper
      * @param version
      */
     FileNativeNodeContainerPersistor(final ReferencedFile nodeSettingsFile, final WorkflowLoadHelper loadHelper,
-        final LoadVersion version, final HashMap<Integer, ContainerTable> globalTableRepository,
+        final LoadVersion version, final Map<Integer, ContainerTable> globalTableRepository,
         final WorkflowFileStoreHandlerRepository fileStoreHandlerRepository, final boolean mustWarnOnDataLoadError) {
         super(nodeSettingsFile, loadHelper, version, globalTableRepository,
             fileStoreHandlerRepository, mustWarnOnDataLoadError);
@@ -169,6 +175,23 @@ public NativeNodeContainer getNodeContainer(final WorkflowManager wm, final Node
      */
     @Override
     public void preLoadNodeContainer(final WorkflowPersistor parentPersistor,
+        final NodeSettingsRO parentSettings, final LoadResult result) throws InvalidSettingsException, IOException {
+        preLoadSettings(parentPersistor, parentSettings, result);
+        createNode();
+    }
+
+    /**
+     * First part of {@link #preLoadNodeContainer(WorkflowPersistor, NodeSettingsRO, LoadResult)}: reads the node
+     * settings and the factory information. It doesn't instantiate the node factory and can hence run concurrently for
+     * different nodes of a workflow.
+     *
+     * @param parentPersistor ...
+     * @param parentSettings ...
+     * @param result ...
+     * @throws InvalidSettingsException ...
+     * @throws IOException ...
+     */
+    void preLoadSettings(final WorkflowPersistor parentPersistor,
         final NodeSettingsRO parentSettings, final LoadResult result) throws InvalidSettingsException, IOException {
         super.preLoadNodeContainer(parentPersistor, parentSettings, result);
         m_parentPersistor = parentPersistor;
@@ -189,6 +212,25 @@ public void preLoadNodeContainer(final WorkflowPersistor parentPersistor,
             setDirtyAfterLoad();
             throw new InvalidSettingsException(error, e);
         }
+        m_preLoadedNodeInfo = nodeInfo;
+        m_preLoadedAdditionalFactorySettings = additionalFactorySettings;
+    }
+
+    /**
+     * Second part of {@link #preLoadNodeContainer(WorkflowPersistor, NodeSettingsRO, LoadResult)}: instantiates the
+     * node factory and the node. Node factories (their constructors and static initializers) are not required to be
+     * thread-safe, so this is called for one node after another, even if the settings were read concurrently.
+     *
+     * @throws NodeFactoryUnknownException If the factory can't be instantiated or doesn't accept the additional
+     *             factory settings (a missing node placeholder is used instead).
+     */
+    void createNode() throws NodeFactoryUnknownException {
+        CheckUtils.checkState(m_preLoadedNodeInfo != null, "Node settings have not been pre-loaded");
+        final NodeAndBundleInformation nodeInfo = m_preLoadedNodeInfo;
+        final NodeSettingsRO additionalFactorySettings = m_preLoadedAdditionalFactorySettings;
+        m_preLoadedNodeInfo = null;
+        m_preLoadedAdditionalFactorySettings = null;
+        String error;
         NodeFactory<NodeModel> nodeFactory;
         try {
             nodeFactory = loadNodeFactory(nodeInfo.getFactoryClass());
@@ -265,7 +307,7 @@ NodeSettingsRO loadNCAndWashModelSettings(final NodeSettingsRO settingsForNode,
             }
         }
         try {
-            HashMap<Integer, ContainerTable> globalTableRepository = getGlobalTableRepository();
+            Map<Integer, ContainerTable> globalTableRepository = getGlobalTableRepository();
             WorkflowFileStoreHandlerRepository fileStoreHandlerRepository = getFileStoreHandlerRepository();
             m_nodePersistor.load(m_node, getParentPersistor(), exec, tblRep, globalTableRepository,
                 fileStoreHandlerRepository, result);
@@ -346,7 +388,8 @@ public static final NodeFactory<NodeModel> loadNodeFactory(final String factoryC
             String[] x = factoryClassName.split("\\.");
             String simpleClassName = x[x.length - 1];
 
-            for (String s : NodeFactory.getLoadedNodeFactories()) {
+            // copy, the list is modified by other threads and when factories are instantiated in the loop
+            for (String s : new ArrayList<String>(NodeFactory.getLoadedNodeFactories())) {
                 if (s.endsWith("." + simpleClassName)) {
                     NodeFactory<NodeModel> f =
                         (NodeFactory<NodeModel>)((GlobalClassCreator.createClass(s)).newInstance());
@@ -45,6 +45,9 @@
 package org.knime.core.node.workflow;
 
 import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -54,7 +57,6 @@
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -66,6 +68,7 @@
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionMonitor;
 import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.KNIMEConstants;
 import org.knime.core.node.Node;
 import org.knime.core.node.NodeLogger;
 import org.knime.core.node.NodePersistor.LoadNodeModelSettingsFailPolicy;
@@ -92,6 +95,9 @@ public abstract class FileSingleNodeContainerPersistor implements SingleNodeCont
     FromFileNodeContainerPersistor {
 
     private static final NodeLogger SAVE_LOGGER = NodeLogger.getLogger(FileSingleNodeContainerPersistor.class);
+
+    /** See {@link KNIMEConstants#PROPERTY_BINARY_SETTINGS}. */
+    private static final boolean SAVE_BINARY_SETTINGS = Boolean.getBoolean(KNIMEConstants.PROPERTY_BINARY_SETTINGS);
     private final NodeLogger m_logger = NodeLogger.getLogger(getClass());
 
     private final LoadVersion m_version;
@@ -109,7 +115,7 @@ public abstract class FileSingleNodeContainerPersistor implements SingleNodeCont
 
     private List<FlowObject> m_flowObjects;
 
-    private final HashMap<Integer, ContainerTable> m_globalTableRepository;
+    private final Map<Integer, ContainerTable> m_globalTableRepository;
 
     private final boolean m_mustWarnOnDataLoadError;
 
@@ -122,7 +128,7 @@ public abstract class FileSingleNodeContainerPersistor implements SingleNodeCont
      * @param mustWarnOnDataLoadError TODO*/
     FileSingleNodeContainerPersistor(final ReferencedFile nodeSettingsFile,
         final WorkflowLoadHelper loadHelper, final LoadVersion version,
-        final HashMap<Integer, ContainerTable> globalTableRepository,
+        final Map<Integer, ContainerTable> globalTableRepository,
         final WorkflowFileStoreHandlerRepository fileStoreHandlerRepository, final boolean mustWarnOnDataLoadError) {
         CheckUtils.checkArgumentNotNull(version, "Version must not be null");
         CheckUtils.checkArgumentNotNull(globalTableRepository, "Table repository must not be null");
@@ -217,10 +223,7 @@ public void preLoadNodeContainer(final WorkflowPersistor parentPersistor, final
         }
         NodeSettingsRO settings;
         try {
-            InputStream in = new FileInputStream(settingsFile);
-            // parentPersitor is null for loaded subnode templates
-            in = parentPersistor == null ? in : parentPersistor.decipherInput(in);
-            settings = NodeSettings.loadFromXML(new BufferedInputStream(in));
+            settings = loadSettings(settingsFile, parentPersistor, getLogger());
         } catch (IOException ioe) {
             setDirtyAfterLoad();
             throw ioe;
@@ -493,7 +496,7 @@ boolean shouldFixModelPortOrder() {
     }
 
     /** @return the tableRepository as passed in constructor, not null. */
-    HashMap<Integer, ContainerTable> getGlobalTableRepository() {
+    Map<Integer, ContainerTable> getGlobalTableRepository() {
         return m_globalTableRepository;
     }
 
@@ -557,6 +560,14 @@ protected static String save(final SingleNodeContainer singleNC, final Reference
         }
         boolean nodeDirDeleted = true;
         if (singleNC instanceof NativeNodeContainer) {
+            // deferred internals are read from the directory that is about to be deleted - the node is usually
+            // marked dirty before (which also loads them) but not necessarily
+            NodeContext.pushContext(singleNC);
+            try {
+                ((NativeNodeContainer)singleNC).getNode().loadPendingInternals();
+            } finally {
+                NodeContext.removeLastContext();
+            }
             nodeDirDeleted = deleteChildren(nodeDir, SingleNodeContainer.DROP_DIR_NAME);
         }
         nodeDir.mkdirs();
@@ -612,6 +623,14 @@ protected static String save(final SingleNodeContainer singleNC, final Reference
         OutputStream os = new FileOutputStream(nodeSettingsXMLFile);
         os = singleNC.getDirectNCParent().cipherOutput(os);
         settings.saveToXML(os);
+        File nodeSettingsBinaryFile = getBinarySettingsFile(nodeSettingsXMLFile);
+        if (SAVE_BINARY_SETTINGS) {
+            OutputStream binaryOut = new FileOutputStream(nodeSettingsBinaryFile);
+            binaryOut = new BufferedOutputStream(singleNC.getDirectNCParent().cipherOutput(binaryOut));
+            saveBinarySettings(settings, nodeSettingsXMLFile, binaryOut);
+        } else if (nodeSettingsBinaryFile.exists() && !nodeSettingsBinaryFile.delete()) {
+            SAVE_LOGGER.debug("Unable to delete outdated binary settings file \"" + nodeSettingsBinaryFile + "\"");
+        }
         if (saveHelper.isAutoSave() && sncAutoSaveDirRef == null) {
             sncAutoSaveDirRef = nodeDirRef;
             singleNC.setAutoSaveDirectory(sncAutoSaveDirRef);
@@ -630,6 +649,105 @@ protected static String save(final SingleNodeContainer singleNC, final Reference
     }
 
 
+    /**
+     * The binary copy of the node settings, which is read instead of the (possibly encrypted) settings.xml if present
+     * and up-to-date. See {@link KNIMEConstants#PROPERTY_BINARY_SETTINGS}.
+     *
+     * @param settingsXMLFile the settings.xml file (or its encrypted counterpart)
+     * @return the binary settings file in the same directory, not null
+     */
+    static File getBinarySettingsFile(final File settingsXMLFile) {
+        String name = settingsXMLFile.getName();
+        String suffix = name.startsWith(SETTINGS_FILE_NAME) ? name.substring(SETTINGS_FILE_NAME.length()) : "";
+        return new File(settingsXMLFile.getParentFile(), SETTINGS_BINARY_FILE_NAME + suffix);
+    }
+
+    /**
+     * Reads the node settings from the binary copy if it exists and belongs to the given XML file, otherwise (or if
+     * it can't be read) from the XML file.
+     *
+     * @param settingsFile the settings.xml file (or its encrypted counterpart)
+     * @param parentPersistor used to decipher the files, null for loaded subnode templates
+     * @param logger to report a binary file that is ignored
+     * @return the settings, not null
+     * @throws IOException if the XML file can't be read
+     */
+    static NodeSettingsRO loadSettings(final File settingsFile, final WorkflowPersistor parentPersistor,
+        final NodeLogger logger) throws IOException {
+        // the binary copy is only used if it was written from the current XML file; an older version (or a client
+        // not writing binary settings) may have changed the XML file in the meantime
+        File binarySettingsFile = getBinarySettingsFile(settingsFile);
+        if (binarySettingsFile.isFile()) {
+            try {
+                InputStream in = new FileInputStream(binarySettingsFile);
+                in = parentPersistor == null ? in : parentPersistor.decipherInput(in);
+                NodeSettingsRO settings = loadBinarySettings(new BufferedInputStream(in), settingsFile);
+                if (settings != null) {
+                    return settings;
+                }
+                logger.debug("Binary settings \"" + binarySettingsFile.getAbsolutePath()
+                    + "\" don't match the XML file, ignoring them");
+            } catch (IOException ioe) {
+                logger.debug("Unable to read binary settings from \"" + binarySettingsFile.getAbsolutePath()
+                    + "\", falling back to XML: " + ioe.getMessage(), ioe);
+            }
+        }
+        InputStream in = new FileInputStream(settingsFile);
+        // parentPersitor is null for loaded subnode templates
+        in = parentPersistor == null ? in : parentPersistor.decipherInput(in);
+        return NodeSettings.loadFromXML(new BufferedInputStream(in));
+    }
+
+    /**
+     * Writes the binary copy of the settings, prefixed by the length and modification time of the (already written)
+     * XML file so that a later change to the XML file invalidates the binary copy. The stream will be closed by this
+     * call.
+     *
+     * @param settings the settings to write
+     * @param settingsXMLFile the settings.xml file (as stored on disk, i.e. possibly encrypted)
+     * @param out the (possibly ciphered) stream to the binary settings file
+     * @throws IOException if writing the binary settings fails
+     */
+    static void saveBinarySettings(final NodeSettings settings, final File settingsXMLFile, final OutputStream out)
+        throws IOException {
+        DataOutputStream dataOut = new DataOutputStream(out);
+        try {
+            dataOut.writeLong(settingsXMLFile.length());
+            dataOut.writeLong(settingsXMLFile.lastModified());
+        } catch (IOException ioe) {
+            dataOut.close();
+            throw ioe;
+        }
+        settings.saveToBinary(dataOut);
+    }
+
+    /**
+     * Reads the binary copy of the settings written by {@link #saveBinarySettings(NodeSettings, File, OutputStream)}
+     * if it belongs to the given XML file. Only the file metadata is compared so that the XML file isn't read at all;
+     * an edit keeping both length and modification time of the XML file goes unnoticed. The stream will be closed by
+     * this call.
+     *
+     * @param in the (deciphered) stream from the binary settings file
+     * @param settingsXMLFile the settings.xml file (as stored on disk, i.e. possibly encrypted)
+     * @return the settings or <code>null</code> if the XML file was changed after the binary file was written
+     * @throws IOException if the binary file can't be read or is corrupt
+     */
+    static NodeSettingsRO loadBinarySettings(final InputStream in, final File settingsXMLFile) throws IOException {
+        DataInputStream dataIn = new DataInputStream(in);
+        try {
+            long xmlLength = dataIn.readLong();
+            long xmlLastModified = dataIn.readLong();
+            if (xmlLength != settingsXMLFile.length() || xmlLastModified != settingsXMLFile.lastModified()) {
+                dataIn.close();
+                return null;
+            }
+        } catch (IOException ioe) {
+            dataIn.close();
+            throw ioe;
+        }
+        return NodeSettings.loadFromBinary(dataIn);
+    }
+
     protected static ReferencedFile saveNodeFileName(final SingleNodeContainer snc, final NodeSettingsWO settings,
         final ReferencedFile nodeDirectoryRef) {
         // KNIME 2.7- reads from this file. It used to be "node.xml", which was removed in 2.8 and now the settings.xml
@@ -111,7 +111,7 @@ public final class FileSubNodeContainerPersistor extends FileSingleNodeContainer
      * @param mustWarnOnDataLoadError
      */
     public FileSubNodeContainerPersistor(final ReferencedFile nodeSettingsFile, final WorkflowLoadHelper loadHelper,
-        final LoadVersion version, final HashMap<Integer, ContainerTable> globalTableRepository,
+        final LoadVersion version, final Map<Integer, ContainerTable> globalTableRepository,
         final WorkflowFileStoreHandlerRepository fileStoreHandlerRepository, final boolean mustWarnOnDataLoadError) {
         super(nodeSettingsFile, loadHelper, version, globalTableRepository,
             fileStoreHandlerRepository, mustWarnOnDataLoadError);
@@ -68,6 +68,12 @@
 import java.util.Set;
 import java.util.Stack;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.knime.core.data.container.ContainerTable;
 import org.knime.core.data.filestore.internal.WorkflowFileStoreHandlerRepository;
@@ -90,6 +96,7 @@
 import org.knime.core.node.workflow.WorkflowManager.AuthorInformation;
 import org.knime.core.util.FileUtil;
 import org.knime.core.util.LockFailedException;
+import org.knime.core.util.ThreadUtils;
 
 /**
  *
@@ -250,6 +257,14 @@ public String toString() {
 
     private static final NodeSettingsRO EMPTY_SETTINGS = new NodeSettings("<<empty>>");
 
+    /** Number of threads used to save the nodes of a workflow, see
+     * {@link KNIMEConstants#PROPERTY_WORKFLOW_SAVE_THREADS} (changed in testing routines). */
+    private static int saveThreadCount = getThreadCount(KNIMEConstants.PROPERTY_WORKFLOW_SAVE_THREADS);
+
+    /** Number of threads used to pre-load the nodes of a workflow, see
+     * {@link KNIMEConstants#PROPERTY_WORKFLOW_LOAD_THREADS} (changed in testing routines). */
+    private static int loadThreadCount = getThreadCount(KNIMEConstants.PROPERTY_WORKFLOW_LOAD_THREADS);
+
     /** The node logger for this class. */
     private final NodeLogger m_logger = NodeLogger.getLogger(getClass());
 
@@ -261,7 +276,7 @@ public String toString() {
 
     private final FileNodeContainerMetaPersistor m_metaPersistor;
 
-    private final HashMap<Integer, ContainerTable> m_globalTableRepository;
+    private final Map<Integer, ContainerTable> m_globalTableRepository;
 
     private final WorkflowFileStoreHandlerRepository m_fileStoreRepository;
 
@@ -330,7 +345,7 @@ static LoadVersion parseVersion(final String versionString) {
      * @param loadHelper The load helper as required by meta persistor.
      * @param version of loading workflow.
      */
-    FileWorkflowPersistor(final HashMap<Integer, ContainerTable> tableRep,
+    FileWorkflowPersistor(final Map<Integer, ContainerTable> tableRep,
         final WorkflowFileStoreHandlerRepository fileStoreHandlerRepository, final ReferencedFile dotKNIMEFile,
         final WorkflowLoadHelper loadHelper, final LoadVersion version, final boolean isProject) {
         assert version != null;
@@ -404,7 +419,7 @@ public FileNodeContainerMetaPersistor getMetaPersistor() {
 
     /** {@inheritDoc} */
     @Override
-    public HashMap<Integer, ContainerTable> getGlobalTableRepository() {
+    public Map<Integer, ContainerTable> getGlobalTableRepository() {
         return m_globalTableRepository;
     }
 
@@ -946,7 +961,9 @@ public void loadNodeContainer(final Map<Integer, BufferedDataTable> tblRep, fina
             new HashMap<Integer, NodeFactoryUnknownException>();
         exec.setMessage("node information");
         final ReferencedFile workflowDirRef = workflowKNIMEFile.getParent();
-        /* Load nodes */
+        /* Load nodes: collect node information from workflow.knime, pre-load the nodes (reading settings.xml,
+         * possibly concurrently), then instantiate the node factories and register the persistors in workflow order */
+        final List<NodePreLoadTask> preLoadTasks = new ArrayList<NodePreLoadTask>();
         for (String nodeKey : nodes.keySet()) {
             exec.checkCanceled();
             NodeSettingsRO nodeSetting;
@@ -1036,11 +1053,20 @@ public void loadNodeContainer(final Map<Integer, BufferedDataTable> tblRep, fina
                 default:
                     throw new IllegalStateException("Unknown node type: " + nodeType);
             }
-            try {
-                LoadResult childResult = new LoadResult(nodeType.toString() + " with ID suffix " + nodeIDSuffix);
-                persistor.preLoadNodeContainer(this, nodeSetting, childResult);
-                loadResult.addChildError(childResult);
-            } catch (Throwable e) {
+            preLoadTasks.add(new NodePreLoadTask(this, persistor, nodeSetting, nodeIDSuffix, nodeType, nodeUIInfo,
+                nodeFile));
+        }
+        runPreLoadTasks(preLoadTasks);
+        for (NodePreLoadTask preLoadTask : preLoadTasks) {
+            exec.checkCanceled();
+            preLoadTask.createNode();
+            final FromFileNodeContainerPersistor persistor = preLoadTask.m_persistor;
+            int nodeIDSuffix = preLoadTask.m_nodeIDSuffix;
+            final ReferencedFile nodeFile = preLoadTask.m_nodeFile;
+            final Throwable e = preLoadTask.m_preLoadError;
+            if (e == null) {
+                loadResult.addChildError(preLoadTask.m_childResult);
+            } else {
                 String error =
                     "Unable to load node with ID suffix " + nodeIDSuffix + " into workflow, skipping it: "
                         + e.getMessage();
@@ -1077,7 +1103,7 @@ public void loadNodeContainer(final Map<Integer, BufferedDataTable> tblRep, fina
                 nodeIDSuffix = randomID;
             }
             meta.setNodeIDSuffix(nodeIDSuffix);
-            meta.setUIInfo(nodeUIInfo);
+            meta.setUIInfo(preLoadTask.m_nodeUIInfo);
             if (persistor.isDirtyAfterLoad()) {
                 setDirtyAfterLoad();
             }
@@ -1826,6 +1852,82 @@ boolean loadIfMustWarnOnDataLoadError(final File workflowDir) {
     }
 
 
+    /** Runs the node pre-load tasks, concurrently if {@link #loadThreadCount} is larger than 1. Errors are
+     * recorded in the individual tasks. */
+    private static void runPreLoadTasks(final List<NodePreLoadTask> preLoadTasks) throws CanceledExecutionException {
+        final int threadCount = loadThreadCount;
+        if (threadCount <= 1 || preLoadTasks.size() <= 1) {
+            preLoadTasks.forEach(NodePreLoadTask::call);
+            return;
+        }
+        final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(preLoadTasks.size());
+        for (NodePreLoadTask preLoadTask : preLoadTasks) {
+            tasks.add(ThreadUtils.callableWithContext(preLoadTask, false));
+        }
+        try {
+            invokeAll(tasks, threadCount, "KNIME Workflow Loader");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CanceledExecutionException("Interrupted while loading workflow");
+        }
+    }
+
+    /** Pre-loads a single node - see
+     * {@link FromFileNodeContainerPersistor#preLoadNodeContainer(WorkflowPersistor, NodeSettingsRO, LoadResult)}.
+     * {@link #call()} only reads the settings, tasks of different nodes are independent and may run concurrently.
+     * The node factory of a native node is instantiated in {@link #createNode()}, which is called for one task after
+     * another in workflow order. */
+    private static final class NodePreLoadTask implements Callable<Void> {
+
+        private final FileWorkflowPersistor m_parentPersistor;
+        private final FromFileNodeContainerPersistor m_persistor;
+        private final NodeSettingsRO m_nodeSetting;
+        private final int m_nodeIDSuffix;
+        private final NodeUIInformation m_nodeUIInfo;
+        private final ReferencedFile m_nodeFile;
+        private final LoadResult m_childResult;
+        private Throwable m_preLoadError;
+
+        NodePreLoadTask(final FileWorkflowPersistor parentPersistor, final FromFileNodeContainerPersistor persistor,
+            final NodeSettingsRO nodeSetting, final int nodeIDSuffix, final NodeType nodeType,
+            final NodeUIInformation nodeUIInfo, final ReferencedFile nodeFile) {
+            m_parentPersistor = parentPersistor;
+            m_persistor = persistor;
+            m_nodeSetting = nodeSetting;
+            m_nodeIDSuffix = nodeIDSuffix;
+            m_nodeUIInfo = nodeUIInfo;
+            m_nodeFile = nodeFile;
+            m_childResult = new LoadResult(nodeType.toString() + " with ID suffix " + nodeIDSuffix);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public Void call() {
+            try {
+                if (m_persistor instanceof FileNativeNodeContainerPersistor) {
+                    ((FileNativeNodeContainerPersistor)m_persistor).preLoadSettings(
+                        m_parentPersistor, m_nodeSetting, m_childResult);
+                } else {
+                    m_persistor.preLoadNodeContainer(m_parentPersistor, m_nodeSetting, m_childResult);
+                }
+            } catch (Throwable e) {
+                m_preLoadError = e;
+            }
+            return null;
+        }
+
+        /** Instantiates the node factory of a native node whose settings were read without errors. */
+        void createNode() {
+            if (m_preLoadError == null && m_persistor instanceof FileNativeNodeContainerPersistor) {
+                try {
+                    ((FileNativeNodeContainerPersistor)m_persistor).createNode();
+                } catch (Throwable e) {
+                    m_preLoadError = e;
+                }
+            }
+        }
+    }
+
     /** {@inheritDoc} */
     @Override
     public void postLoad(final WorkflowManager wfm, final LoadResult loadResult) {
@@ -2014,14 +2116,28 @@ private static void saveContent(final WorkflowManager wm, final NodeSettings pre
             Collection<NodeContainer> nodes = wm.getNodeContainers();
             double progRatio = 1.0 / (nodes.size() + 1);
 
+            // native nodes are independent of each other (own directory, own settings object) and can be saved
+            // concurrently; metanodes and subnodes are saved by this thread as they acquire the workflow lock
+            final ReferencedFile nodesDirRef = workflowDirRef;
+            final List<Callable<Void>> parallelSaveTasks = new ArrayList<Callable<Void>>();
+            final int threadCount = saveThreadCount;
             for (NodeContainer nextNode : nodes) {
                 int id = nextNode.getID().getIndex();
                 ExecutionMonitor subExec = execMon.createSubProgress(progRatio);
-                execMon.setMessage(nextNode.getNameWithID());
                 NodeSettingsWO sub = nodesSettings.addNodeSettings("node_" + id);
-                saveNodeContainer(sub, workflowDirRef, nextNode, subExec, saveHelper);
-                subExec.setProgress(1.0);
+                if (threadCount > 1 && nextNode instanceof NativeNodeContainer) {
+                    parallelSaveTasks.add(ThreadUtils.callableWithContext(() -> {
+                        saveNodeContainer(sub, nodesDirRef, nextNode, subExec, saveHelper);
+                        subExec.setProgress(1.0);
+                        return null;
+                    }, false));
+                } else {
+                    execMon.setMessage(nextNode.getNameWithID());
+                    saveNodeContainer(sub, workflowDirRef, nextNode, subExec, saveHelper);
+                    subExec.setProgress(1.0);
+                }
             }
+            saveNodeContainersInParallel(parallelSaveTasks, threadCount, execMon);
 
             execMon.setMessage("connection information");
             NodeSettingsWO connSettings = saveSettingsForConnections(preFilledSettings);
@@ -2099,6 +2215,108 @@ private static void saveContent(final WorkflowManager wm, final NodeSettings pre
         }
     }
 
+    /**
+     * Runs the save tasks created in {@link #saveContent(WorkflowManager, NodeSettings, ReferencedFile,
+     * ExecutionMonitor, WorkflowSaveHelper)} using (at most) the given number of threads and waits for all of them to
+     * finish.
+     */
+    private static void saveNodeContainersInParallel(final List<Callable<Void>> saveTasks, final int threadCount,
+        final ExecutionMonitor execMon) throws IOException, CanceledExecutionException, LockFailedException {
+        if (saveTasks.isEmpty()) {
+            return;
+        }
+        execMon.setMessage("Saving " + saveTasks.size() + " nodes");
+        final List<Future<Void>> futures;
+        try {
+            futures = invokeAll(saveTasks, threadCount, "KNIME Workflow Saver");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CanceledExecutionException("Interrupted while saving workflow");
+        }
+        for (Future<Void> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CanceledExecutionException("Interrupted while saving workflow");
+            } catch (ExecutionException e) {
+                final Throwable cause = e.getCause();
+                if (cause instanceof IOException) {
+                    throw (IOException)cause;
+                } else if (cause instanceof CanceledExecutionException) {
+                    throw (CanceledExecutionException)cause;
+                } else if (cause instanceof LockFailedException) {
+                    throw (LockFailedException)cause;
+                } else if (cause instanceof RuntimeException) {
+                    throw (RuntimeException)cause;
+                } else if (cause instanceof Error) {
+                    throw (Error)cause;
+                }
+                throw new IOException("Saving node failed: " + cause.getMessage(), cause);
+            }
+        }
+    }
+
+    /**
+     * Runs the tasks using a temporary pool of (at most) the given number of daemon threads and waits for all of them
+     * to complete.
+     *
+     * @return the completed futures, in the order of the tasks
+     */
+    private static <T> List<Future<T>> invokeAll(final List<? extends Callable<T>> tasks, final int maxThreadCount,
+        final String threadName) throws InterruptedException {
+        final int threadCount = Math.max(1, Math.min(maxThreadCount, tasks.size()));
+        final AtomicInteger threadIndex = new AtomicInteger();
+        final ExecutorService executor = Executors.newFixedThreadPool(threadCount, r -> {
+            Thread t = new Thread(r, threadName + "-" + threadIndex.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            return executor.invokeAll(tasks);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /** Reads a positive integer (thread count) from the system property with the given name, defaults to 1. */
+    private static int getThreadCount(final String property) {
+        final String prop = System.getProperty(property);
+        if (prop != null) {
+            try {
+                int count = Integer.parseInt(prop.trim());
+                if (count < 1) {
+                    throw new NumberFormatException("thread count < 1: " + count);
+                }
+                return count;
+            } catch (NumberFormatException e) {
+                NodeLogger.getLogger(FileWorkflowPersistor.class).warn(
+                    "Unable to parse property " + property + ", using default (1)", e);
+            }
+        }
+        return 1;
+    }
+
+    /**
+     * Used for testing, only.
+     *
+     * @param threadCount the number of threads used to pre-load the nodes of a workflow, see
+     *            {@link KNIMEConstants#PROPERTY_WORKFLOW_LOAD_THREADS}
+     */
+    static void setLoadThreadCount(final int threadCount) {
+        loadThreadCount = threadCount;
+    }
+
+    /**
+     * Used for testing, only.
+     *
+     * @param threadCount the number of threads used to save the nodes of a workflow, see
+     *            {@link KNIMEConstants#PROPERTY_WORKFLOW_SAVE_THREADS}
+     */
+    static void setSaveThreadCount(final int threadCount) {
+        saveThreadCount = threadCount;
+    }
+
     /** Add version field. */
     static void saveHeader(final NodeSettings settings) {
         settings.addString(WorkflowLoadHelper.CFG_CREATED_BY, KNIMEConstants.VERSION);
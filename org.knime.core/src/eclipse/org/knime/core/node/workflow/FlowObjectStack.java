@@ -48,6 +48,7 @@
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
@@ -85,6 +86,21 @@ public final class FlowObjectStack implements Iterable<FlowObject> {
      * StackWrapper. */
     private final NodeID m_nodeID;
 
+    /* The following fields are lookup structures derived from m_stack. They are built lazily on first access,
+     * updated on push and discarded when elements are removed (pop is rare compared to lookups). All access is
+     * guarded by m_stack. */
+
+    /** Top-most flow variable per name, the array is indexed by {@link Type#ordinal()}; null if not built. */
+    private Map<String, FlowVariable[]> m_variableIndex;
+
+    /** Positions of the {@link FlowScopeContext} objects in m_stack, bottom first; null if not built. */
+    private List<Integer> m_scopeContextPositions;
+
+    /** Types argument and result of the last call to {@link #getAvailableFlowVariables(Type...)}; null if the stack
+     * was modified since. */
+    private Type[] m_availableVariablesTypes;
+    private Map<String, FlowVariable> m_availableVariables;
+
     /** Root stack. */
     private FlowObjectStack() {
         m_nodeID = WorkflowManager.ROOT.getID();
@@ -285,6 +301,17 @@ public <T extends FlowObject> T peek(final Class<T> type) {
      */
     public <T extends FlowObject> Optional<T> peekOptional(final Class<T> type) {
         synchronized (m_stack) {
+            if (FlowScopeContext.class.isAssignableFrom(type)) {
+                // only look at the scope contexts, not at the (possibly many) variables on top of them
+                List<Integer> positions = getScopeContextPositions();
+                for (int i = positions.size() - 1; i >= 0; i--) {
+                    FlowObject e = m_stack.get(positions.get(i));
+                    if (type.isInstance(e)) {
+                        return Optional.of(type.cast(e));
+                    }
+                }
+                return Optional.empty();
+            }
             for (int i = m_stack.size() - 1; i >= 0; i--) {
                 FlowObject e = m_stack.get(i);
                 if (type.isInstance(e)) {
@@ -307,8 +334,9 @@ public <T extends FlowObject> Optional<T> peekOptional(final Class<T> type) {
      */
     public <T extends FlowScopeContext> T peekScopeContext(final Class<T> type, final boolean isInactiveScope) {
         synchronized (m_stack) {
-            for (int i = m_stack.size() - 1; i >= 0; i--) {
-                FlowObject e = m_stack.get(i);
+            List<Integer> positions = getScopeContextPositions();
+            for (int i = positions.size() - 1; i >= 0; i--) {
+                FlowObject e = m_stack.get(positions.get(i));
                 if (type.isInstance(e) && (type.cast(e).isInactiveScope() == isInactiveScope)) {
                     return type.cast(e);
                 }
@@ -330,6 +358,7 @@ public <T extends FlowScopeContext> T peekScopeContext(final Class<T> type, fina
      */
     public <T extends FlowObject> T pop(final Class<T> type) {
         synchronized (m_stack) {
+            invalidateIndices();
             for (int i = m_stack.size() - 1; i >= 0; i--) {
                 FlowObject e = m_stack.remove(i);
                 if (type.isInstance(e)) {
@@ -356,6 +385,7 @@ public <T extends FlowObject> T pop(final Class<T> type) {
      */
     public <T extends FlowScopeContext> T popScopeContext(final Class<T> type, final boolean isInactiveScope) {
         synchronized (m_stack) {
+            invalidateIndices();
             for (int i = m_stack.size() - 1; i >= 0; i--) {
                 FlowObject e = m_stack.remove(i);
                 if (type.isInstance(e) && (type.cast(e).isInactiveScope() == isInactiveScope)) {
@@ -375,15 +405,9 @@ public <T extends FlowScopeContext> T popScopeContext(final Class<T> type, final
      */
     public FlowVariable peekFlowVariable(final String name, final Type type) {
         synchronized (m_stack) {
-            for (int i = m_stack.size() - 1; i >= 0; i--) {
-                FlowObject e = m_stack.get(i);
-                if (!(e instanceof FlowVariable)) {
-                    continue;
-                }
-                FlowVariable v = (FlowVariable)e;
-                if (v.getName().equals(name) && v.getType().equals(type)) {
-                    return v;
-                }
+            FlowVariable[] variables = getVariableIndex().get(name);
+            if (variables != null && variables[type.ordinal()] != null) {
+                return variables[type.ordinal()];
             }
         }
         throw new NoSuchElementException("No such variable \"" + name + "\" of"
@@ -408,6 +432,10 @@ public Map<String, FlowVariable> getAvailableFlowVariables(final FlowVariable.Ty
         LinkedHashMap<String, FlowVariable> hash = new LinkedHashMap<String, FlowVariable>();
         List<Type> typesAsList = Arrays.asList(types);
         synchronized (m_stack) {
+            // usually called repeatedly (configure, execute, dialogs) without modifications in between
+            if (m_availableVariables != null && Arrays.equals(m_availableVariablesTypes, types)) {
+                return m_availableVariables;
+            }
             for (int i = m_stack.size() - 1; i >= 0; i--) {
                 FlowObject e = m_stack.get(i);
                 if (!(e instanceof FlowVariable)) {
@@ -421,8 +449,56 @@ public Map<String, FlowVariable> getAvailableFlowVariables(final FlowVariable.Ty
                     hash.put(v.getName(), v);
                 }
             }
+            m_availableVariablesTypes = types.clone();
+            m_availableVariables = Collections.unmodifiableMap(hash);
+            return m_availableVariables;
         }
-        return Collections.unmodifiableMap(hash);
+    }
+
+    /** @return the index of the top-most variable per name and type, built if necessary. Caller holds m_stack. */
+    private Map<String, FlowVariable[]> getVariableIndex() {
+        if (m_variableIndex == null) {
+            Map<String, FlowVariable[]> index = new HashMap<String, FlowVariable[]>();
+            for (FlowObject o : m_stack) {
+                if (o instanceof FlowVariable) {
+                    addToVariableIndex(index, (FlowVariable)o);
+                }
+            }
+            m_variableIndex = index;
+        }
+        return m_variableIndex;
+    }
+
+    /** Adds the variable to the index, shadowing a variable with the same name and type. */
+    private static void addToVariableIndex(final Map<String, FlowVariable[]> index, final FlowVariable v) {
+        FlowVariable[] variables = index.get(v.getName());
+        if (variables == null) {
+            variables = new FlowVariable[Type.values().length];
+            index.put(v.getName(), variables);
+        }
+        variables[v.getType().ordinal()] = v;
+    }
+
+    /** @return the positions of the scope contexts on the stack, built if necessary. Caller holds m_stack. */
+    private List<Integer> getScopeContextPositions() {
+        if (m_scopeContextPositions == null) {
+            List<Integer> positions = new ArrayList<Integer>();
+            for (int i = 0; i < m_stack.size(); i++) {
+                if (m_stack.get(i) instanceof FlowScopeContext) {
+                    positions.add(i);
+                }
+            }
+            m_scopeContextPositions = positions;
+        }
+        return m_scopeContextPositions;
+    }
+
+    /** Discards all lookup structures, called when elements are removed. Caller holds m_stack. */
+    private void invalidateIndices() {
+        m_variableIndex = null;
+        m_scopeContextPositions = null;
+        m_availableVariables = null;
+        m_availableVariablesTypes = null;
     }
 
     /** Get all objects on the stack that are owned by the node with the given
@@ -466,7 +542,18 @@ public void push(final FlowObject item) {
      */
     void pushWithOwner(final FlowObject item) {
         CheckUtils.checkArgument(item.getOwner() != null, "Item should have owner set at this point: %s", item);
-        m_stack.add(item);
+        synchronized (m_stack) {
+            if (item instanceof FlowVariable) {
+                if (m_variableIndex != null) {
+                    addToVariableIndex(m_variableIndex, (FlowVariable)item);
+                }
+            } else if (item instanceof FlowScopeContext && m_scopeContextPositions != null) {
+                m_scopeContextPositions.add(m_stack.size());
+            }
+            m_availableVariables = null;
+            m_availableVariablesTypes = null;
+            m_stack.add(item);
+        }
     }
 
     /**
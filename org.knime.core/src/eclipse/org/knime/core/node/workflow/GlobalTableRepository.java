@@ -47,35 +47,16 @@
  */
 package org.knime.core.node.workflow;
 
-import java.util.HashMap;
-
-import org.knime.core.data.container.ContainerTable;
+import org.knime.core.data.container.ConcurrentTableRepository;
 
 /**
- * Synchronized table repository held by {@link WorkflowManager}.
+ * Table repository held by {@link WorkflowManager}.
  * See also bug 3383: workflow manager's table repository must not
- * be unsynchronized (recent problems with GroupLoop start "forgetting" its sorted table)
+ * be unsynchronized (recent problems with GroupLoop start "forgetting" its sorted table).
+ * Backed by a concurrent map as tables are put, looked up and removed by many nodes executing in parallel.
  *
  * @author Bernd Wiswedel, KNIME AG, Zurich, Switzerland
  */
-final class GlobalTableRepository extends HashMap<Integer, ContainerTable> {
-
-    /** {@inheritDoc} */
-    @Override
-    public synchronized ContainerTable put(
-            final Integer key, final ContainerTable value) {
-        return super.put(key, value);
-    }
-
-    /** {@inheritDoc} */
-    @Override
-    public synchronized ContainerTable get(final Object key) {
-        return super.get(key);
-    }
+final class GlobalTableRepository extends ConcurrentTableRepository {
 
-    /** {@inheritDoc} */
-    @Override
-    public synchronized ContainerTable remove(final Object key) {
-        return super.remove(key);
-    }
 }
@@ -49,7 +49,6 @@
 
 import java.io.InputStream;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -108,7 +107,7 @@ public Set<ConnectionContainerTemplate> getAdditionalConnectionSet() {
 
     /** {@inheritDoc} */
     @Override
-    public HashMap<Integer, ContainerTable> getGlobalTableRepository() {
+    public Map<Integer, ContainerTable> getGlobalTableRepository() {
         throw new IllegalStateException("no table repository for root wfm");
     }
 
@@ -48,10 +48,11 @@
 
 import java.io.File;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
@@ -555,14 +556,29 @@ public NodeContainerExecutionStatus performExecuteNode(final PortObject[] inObje
             setNodeMessage(new NodeMessage(NodeMessage.Type.WARNING, errorString));
             success = false;
         }
+        final NodeExecutionMetrics metrics = getNodeTimer().getExecutionMetrics();
+        if (metrics != null) {
+            metrics.addRowsIn(getRowCount(inObjects));
+        }
+        final long cpuTimeAtStart = getCurrentThreadCpuTime();
         NodeContext.pushContext(this);
         try {
             // execute node outside any synchronization!
             success = success && m_node.execute(inObjects, ev, ec);
         } finally {
             NodeContext.removeLastContext();
+            if (metrics != null && cpuTimeAtStart >= 0L) {
+                metrics.addCpuTimeNanos(getCurrentThreadCpuTime() - cpuTimeAtStart);
+            }
         }
         if (success) {
+            if (metrics != null) {
+                PortObject[] outObjects = new PortObject[getNrOutPorts()];
+                for (int i = 0; i < outObjects.length; i++) {
+                    outObjects[i] = m_node.getOutputObject(i);
+                }
+                metrics.addRowsOut(getRowCount(outObjects));
+            }
             // output tables are made publicly available (for blobs)
             putOutputTablesIntoGlobalRepository(ec);
         } else {
@@ -574,6 +590,23 @@ public NodeContainerExecutionStatus performExecuteNode(final PortObject[] inObje
     }
 
 
+    /** Sum of rows of all data tables in the argument array (for the execution metrics). */
+    private static long getRowCount(final PortObject[] portObjects) {
+        long result = 0L;
+        for (PortObject p : portObjects) {
+            if (p instanceof BufferedDataTable) {
+                result += ((BufferedDataTable)p).size();
+            }
+        }
+        return result;
+    }
+
+    /** CPU time of the current thread in nanoseconds or -1 if not supported by the JVM. */
+    private static long getCurrentThreadCpuTime() {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        return threadBean.isCurrentThreadCpuTimeSupported() ? threadBean.getCurrentThreadCpuTime() : -1L;
+    }
+
     /* ----------- Reset and Port handling ------------- */
 
     /** {@inheritDoc} */
@@ -608,10 +641,10 @@ void cleanOutPorts(final boolean isLoopRestart) {
      * @noreference This method is not intended to be referenced by clients.
      */
     public final void putOutputTablesIntoGlobalRepository(final ExecutionContext c) {
-        HashMap<Integer, ContainerTable> globalRep =
+        Map<Integer, ContainerTable> globalRep =
             getParent().getGlobalTableRepository();
         m_node.putOutputTablesIntoGlobalRepository(globalRep);
-        HashMap<Integer, ContainerTable> localRep =
+        Map<Integer, ContainerTable> localRep =
                 Node.getLocalTableRepositoryFromContext(c);
         Set<ContainerTable> localTables = new HashSet<ContainerTable>();
         for (Map.Entry<Integer, ContainerTable> t : localRep.entrySet()) {
@@ -629,7 +662,7 @@ public final void putOutputTablesIntoGlobalRepository(final ExecutionContext c)
     /** Removes all tables that were created by this node from the global
      * table repository. */
     private int removeOutputTablesFromGlobalRepository() {
-        HashMap<Integer, ContainerTable> globalRep =
+        Map<Integer, ContainerTable> globalRep =
             getParent().getGlobalTableRepository();
         return m_node.removeOutputTablesFromGlobalRepository(globalRep);
     }
@@ -1038,6 +1071,8 @@ public void setDirty() {
                 } catch (Exception e) {
                     LOGGER.error("Unable to read output data", e);
                 }
+                // internals whose loading was deferred are read from the node directory, too
+                m_node.loadPendingInternals();
                 IFileStoreHandler fileStoreHandler = m_node.getFileStoreHandler();
                 if (fileStoreHandler instanceof IWriteFileStoreHandler) {
                     try {
@@ -1056,7 +1091,7 @@ public void setDirty() {
     /** {@inheritDoc} */
     @Override
     protected NodeContainerPersistor getCopyPersistor(
-            final HashMap<Integer, ContainerTable> tableRep,
+            final Map<Integer, ContainerTable> tableRep,
             final FileStoreHandlerRepository fileStoreHandlerRepository,
             final boolean preserveDeletableFlags,
             final boolean isUndoableDeleteCommand) {
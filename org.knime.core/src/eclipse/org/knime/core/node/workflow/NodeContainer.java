@@ -46,7 +46,6 @@
 
 import java.net.URL;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CopyOnWriteArraySet;
@@ -390,6 +389,10 @@ boolean queue(final PortObject[] inData) {
             if (!performStateTransitionQUEUED()) {
                 return false;
             }
+            WorkflowExecutionTrace trace = WorkflowExecutionTrace.get(this);
+            if (trace != null) {
+                trace.nodeQueued(this);
+            }
             // queue job if state change was successful
             NodeExecutionJobManager jobManager = findJobManager();
             NodeContext.pushContext(this);
@@ -1450,7 +1453,7 @@ public void setDirty() {
      *        for details.)
      * @return A new persistor for copying. */
     protected abstract NodeContainerPersistor getCopyPersistor(
-            final HashMap<Integer, ContainerTable> tableRep,
+            final Map<Integer, ContainerTable> tableRep,
             FileStoreHandlerRepository fileStoreHandlerRepository,
             final boolean preserveDeletableFlags,
             final boolean isUndoableDeleteCommand);
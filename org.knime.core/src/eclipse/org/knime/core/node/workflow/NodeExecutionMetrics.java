@@ -0,0 +1,439 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.workflow;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.json.Json;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObject;
+
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.LongCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.ExecutionContext;
+
+/**
+ * Runtime metrics of a single node execution, such as the number of rows read and written, the bytes written to temp
+ * files, the number of times in-memory tables were swapped to disc and the time spent waiting for asynchronous table
+ * writes or the workflow lock. An instance is created by the {@link NodeTimer} of a node each time the node starts
+ * executing and is kept until the next execution; the counters are fed by the data containers and buffers that are
+ * created in the node's {@link NodeContext} (see {@link #getCurrent()}). If the workflow records a
+ * {@link WorkflowExecutionTrace}, swap and stall events are also added to the trace.
+ *
+ * <p>
+ * Use {@link #collect(WorkflowManager)} to get the metrics of all nodes in a workflow, e.g. after a batch run, and
+ * {@link #toJson(Map)} or {@link #createTable(Map, ExecutionContext)} to export them.
+ *
+ * <p>
+ * Garbage collection figures are JVM wide and only reflect the collections that happened while the node was executing
+ * (other nodes may have caused them).
+ *
+ * @noreference This class is not intended to be referenced by clients.
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.6
+ */
+public final class NodeExecutionMetrics {
+
+    private final LongAdder m_rowsIn = new LongAdder();
+
+    private final LongAdder m_rowsOut = new LongAdder();
+
+    private final LongAdder m_rowsWritten = new LongAdder();
+
+    private final LongAdder m_bytesWritten = new LongAdder();
+
+    private final LongAdder m_spillCount = new LongAdder();
+
+    private final LongAdder m_rowsSpilled = new LongAdder();
+
+    private final LongAdder m_asyncWriteBlockedNanos = new LongAdder();
+
+    private final LongAdder m_lockWaitNanos = new LongAdder();
+
+    private final LongAdder m_cpuTimeNanos = new LongAdder();
+
+    private final long m_startTime;
+
+    private final long m_gcCountAtStart;
+
+    private final long m_gcTimeAtStart;
+
+    private volatile boolean m_isRunning;
+
+    private volatile long m_wallTime = -1L;
+
+    private volatile long m_gcCount;
+
+    private volatile long m_gcTime;
+
+    private volatile boolean m_success;
+
+    private final NodeID m_nodeID;
+
+    private final WorkflowExecutionTrace m_trace;
+
+    /**
+     * Created by {@link NodeTimer#startExec()}.
+     *
+     * @param nodeID The ID of the executing node.
+     * @param trace The trace of the workflow project to forward IO events to, or null if not tracing.
+     */
+    NodeExecutionMetrics(final NodeID nodeID, final WorkflowExecutionTrace trace) {
+        m_nodeID = nodeID;
+        m_trace = trace;
+        m_startTime = System.currentTimeMillis();
+        m_gcCountAtStart = getTotalGCCount();
+        m_gcTimeAtStart = getTotalGCTime();
+        m_isRunning = true;
+    }
+
+    /**
+     * Called by {@link NodeTimer#endExec(boolean)}.
+     *
+     * @param success Whether the execution was successful.
+     */
+    void finish(final boolean success) {
+        m_wallTime = System.currentTimeMillis() - m_startTime;
+        m_gcCount = getTotalGCCount() - m_gcCountAtStart;
+        m_gcTime = getTotalGCTime() - m_gcTimeAtStart;
+        m_success = success;
+        m_isRunning = false;
+    }
+
+    /**
+     * The metrics of the node that is associated with the current thread's {@link NodeContext}, provided the node is
+     * currently executing.
+     *
+     * @return the metrics of the executing node or <code>null</code> if there is no (executing) node in the context
+     */
+    public static NodeExecutionMetrics getCurrent() {
+        NodeContext context = NodeContext.getContext();
+        if (context == null) {
+            return null;
+        }
+        NodeContainer nc = context.getNodeContainer();
+        if (nc == null) {
+            return null;
+        }
+        NodeExecutionMetrics metrics = nc.getNodeTimer().getExecutionMetrics();
+        return metrics != null && metrics.m_isRunning ? metrics : null;
+    }
+
+    /** @param rows number of rows in the input tables of the node */
+    public void addRowsIn(final long rows) {
+        m_rowsIn.add(rows);
+    }
+
+    /** @param rows number of rows in the output tables of the node */
+    public void addRowsOut(final long rows) {
+        m_rowsOut.add(rows);
+    }
+
+    /**
+     * Called when a data container is closed.
+     *
+     * @param rows number of rows written to the container
+     * @param bytes size of the container's temp file, 0 if the table is kept in memory
+     */
+    public void addContainerWritten(final long rows, final long bytes) {
+        m_rowsWritten.add(rows);
+        m_bytesWritten.add(bytes);
+    }
+
+    /** @param rows number of rows that were moved from memory into a temp file */
+    public void addSpill(final long rows) {
+        m_spillCount.increment();
+        m_rowsSpilled.add(rows);
+        if (m_trace != null) {
+            m_trace.tableSpilled(m_nodeID, rows);
+        }
+    }
+
+    /** @param nanos time the producing thread was blocked handing over rows to the asynchronous write thread */
+    public void addAsyncWriteBlockedNanos(final long nanos) {
+        m_asyncWriteBlockedNanos.add(nanos);
+        if (m_trace != null) {
+            m_trace.asyncWriteStalled(m_nodeID, nanos);
+        }
+    }
+
+    /** @param nanos time spent waiting for the workflow lock */
+    void addLockWaitNanos(final long nanos) {
+        m_lockWaitNanos.add(nanos);
+    }
+
+    /** @param nanos CPU time of the thread executing the node */
+    void addCpuTimeNanos(final long nanos) {
+        m_cpuTimeNanos.add(nanos);
+    }
+
+    /** @return whether the node is still executing */
+    public boolean isRunning() {
+        return m_isRunning;
+    }
+
+    /** @return whether the execution was successful, false while running */
+    public boolean isSuccess() {
+        return m_success;
+    }
+
+    /** @return the time in milliseconds when the execution started */
+    public long getStartTime() {
+        return m_startTime;
+    }
+
+    /** @return wall clock execution time in milliseconds, the time since start if still running */
+    public long getWallTime() {
+        return m_isRunning ? System.currentTimeMillis() - m_startTime : m_wallTime;
+    }
+
+    /** @return CPU time of the executing thread in nanoseconds, 0 if not supported by the JVM */
+    public long getCpuTimeNanos() {
+        return m_cpuTimeNanos.sum();
+    }
+
+    /** @return the number of rows in the input tables */
+    public long getRowsIn() {
+        return m_rowsIn.sum();
+    }
+
+    /** @return the number of rows in the output tables */
+    public long getRowsOut() {
+        return m_rowsOut.sum();
+    }
+
+    /** @return the number of rows written to all data containers created by the node, including temporary ones */
+    public long getRowsWritten() {
+        return m_rowsWritten.sum();
+    }
+
+    /** @return the number of bytes written to temp files by all data containers created by the node */
+    public long getBytesWritten() {
+        return m_bytesWritten.sum();
+    }
+
+    /** @return how often in-memory rows were moved to disc (size limit exceeded or low memory) */
+    public long getSpillCount() {
+        return m_spillCount.sum();
+    }
+
+    /** @return the number of rows moved from memory to disc */
+    public long getRowsSpilled() {
+        return m_rowsSpilled.sum();
+    }
+
+    /** @return nanoseconds the node was blocked on asynchronous table writes */
+    public long getAsyncWriteBlockedNanos() {
+        return m_asyncWriteBlockedNanos.sum();
+    }
+
+    /** @return nanoseconds the node's threads waited for the workflow lock */
+    public long getLockWaitNanos() {
+        return m_lockWaitNanos.sum();
+    }
+
+    /** @return JVM wide number of garbage collections during the execution (-1 while running) */
+    public long getGCCount() {
+        return m_isRunning ? -1L : m_gcCount;
+    }
+
+    /** @return JVM wide garbage collection time in milliseconds during the execution (-1 while running) */
+    public long getGCTime() {
+        return m_isRunning ? -1L : m_gcTime;
+    }
+
+    /** @return rows written per second (based on the output rows and the wall time) */
+    public double getRowsPerSecond() {
+        long wallTime = getWallTime();
+        return wallTime > 0 ? getRowsOut() * 1000.0 / wallTime : 0.0;
+    }
+
+    /** @return the metrics as JSON object */
+    public JsonObject toJson() {
+        return Json.createObjectBuilder()
+            .add("running", isRunning())
+            .add("success", isSuccess())
+            .add("startTime", getStartTime())
+            .add("wallTimeMs", getWallTime())
+            .add("cpuTimeMs", getCpuTimeNanos() / 1_000_000L)
+            .add("rowsIn", getRowsIn())
+            .add("rowsOut", getRowsOut())
+            .add("rowsPerSecond", getRowsPerSecond())
+            .add("rowsWritten", getRowsWritten())
+            .add("bytesWritten", getBytesWritten())
+            .add("spillCount", getSpillCount())
+            .add("rowsSpilled", getRowsSpilled())
+            .add("asyncWriteBlockedMs", getAsyncWriteBlockedNanos() / 1_000_000L)
+            .add("lockWaitMs", getLockWaitNanos() / 1_000_000L)
+            .add("gcCount", getGCCount())
+            .add("gcTimeMs", getGCTime())
+            .build();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return toJson().toString();
+    }
+
+    /**
+     * Collects the metrics of the last (or current) execution of all nodes in the argument workflow, including the
+     * nodes in metanodes and wrapped metanodes. Nodes that have not been executed are omitted.
+     *
+     * @param wfm The workflow to query.
+     * @return A new map, keyed by node ID, in the order of the nodes in the workflow.
+     */
+    public static Map<NodeID, NodeExecutionMetrics> collect(final WorkflowManager wfm) {
+        Map<NodeID, NodeExecutionMetrics> result = new LinkedHashMap<NodeID, NodeExecutionMetrics>();
+        collect(wfm, result);
+        return result;
+    }
+
+    private static void collect(final WorkflowManager wfm, final Map<NodeID, NodeExecutionMetrics> result) {
+        for (NodeContainer nc : wfm.getNodeContainers()) {
+            NodeExecutionMetrics metrics = nc.getNodeTimer().getExecutionMetrics();
+            if (metrics != null) {
+                result.put(nc.getID(), metrics);
+            }
+            if (nc instanceof WorkflowManager) {
+                collect((WorkflowManager)nc, result);
+            } else if (nc instanceof SubNodeContainer) {
+                collect(((SubNodeContainer)nc).getWorkflowManager(), result);
+            }
+        }
+    }
+
+    /**
+     * @param metrics As returned by {@link #collect(WorkflowManager)}.
+     * @return A JSON object with one entry per node in the workflow, keyed by node ID.
+     */
+    public static JsonObject toJson(final Map<NodeID, NodeExecutionMetrics> metrics) {
+        JsonArrayBuilder nodes = Json.createArrayBuilder();
+        for (Map.Entry<NodeID, NodeExecutionMetrics> e : metrics.entrySet()) {
+            nodes.add(Json.createObjectBuilder().add("id", e.getKey().toString())
+                .add("metrics", e.getValue().toJson()));
+        }
+        return Json.createObjectBuilder().add("nodes", nodes).build();
+    }
+
+    /** @return the spec of the table created by {@link #createTable(Map, ExecutionContext)} */
+    public static DataTableSpec createTableSpec() {
+        return new DataTableSpec(
+            new DataColumnSpecCreator("Node ID", StringCell.TYPE).createSpec(),
+            new DataColumnSpecCreator("Wall Time (ms)", LongCell.TYPE).createSpec(),
+            new DataColumnSpecCreator("CPU Time (ms)", LongCell.TYPE).createSpec(),
+            new DataColumnSpecCreator("Rows In", LongCell.TYPE).createSpec(),
+            new DataColumnSpecCreator("Rows Out", LongCell.TYPE).createSpec(),
+            new DataColumnSpecCreator("Rows/s", DoubleCell.TYPE).createSpec(),
+            new DataColumnSpecCreator("Rows Written", LongCell.TYPE).createSpec(),
+            new DataColumnSpecCreator("Bytes Written", LongCell.TYPE).createSpec(),
+            new DataColumnSpecCreator("Spill Count", LongCell.TYPE).createSpec(),
+            new DataColumnSpecCreator("Rows Spilled", LongCell.TYPE).createSpec(),
+            new DataColumnSpecCreator("Async Write Blocked (ms)", LongCell.TYPE).createSpec(),
+            new DataColumnSpecCreator("Lock Wait (ms)", LongCell.TYPE).createSpec(),
+            new DataColumnSpecCreator("GC Count", LongCell.TYPE).createSpec(),
+            new DataColumnSpecCreator("GC Time (ms)", LongCell.TYPE).createSpec());
+    }
+
+    /**
+     * @param metrics As returned by {@link #collect(WorkflowManager)}.
+     * @param exec To create the table.
+     * @return A table with one row per node.
+     */
+    public static BufferedDataTable createTable(final Map<NodeID, NodeExecutionMetrics> metrics,
+        final ExecutionContext exec) {
+        BufferedDataContainer result = exec.createDataContainer(createTableSpec());
+        long rowcount = 0;
+        for (Map.Entry<NodeID, NodeExecutionMetrics> e : metrics.entrySet()) {
+            NodeExecutionMetrics m = e.getValue();
+            result.addRowToTable(new DefaultRow(RowKey.createRowKey(rowcount++),
+                new StringCell(e.getKey().toString()),
+                new LongCell(m.getWallTime()),
+                new LongCell(m.getCpuTimeNanos() / 1_000_000L),
+                new LongCell(m.getRowsIn()),
+                new LongCell(m.getRowsOut()),
+                new DoubleCell(m.getRowsPerSecond()),
+                new LongCell(m.getRowsWritten()),
+                new LongCell(m.getBytesWritten()),
+                new LongCell(m.getSpillCount()),
+                new LongCell(m.getRowsSpilled()),
+                new LongCell(m.getAsyncWriteBlockedNanos() / 1_000_000L),
+                new LongCell(m.getLockWaitNanos() / 1_000_000L),
+                new LongCell(m.getGCCount()),
+                new LongCell(m.getGCTime())));
+        }
+        result.close();
+        return result.getTable();
+    }
+
+    private static long getTotalGCCount() {
+        long result = 0L;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            result += Math.max(0L, gc.getCollectionCount());
+        }
+        return result;
+    }
+
+    private static long getTotalGCTime() {
+        long result = 0L;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            result += Math.max(0L, gc.getCollectionTime());
+        }
+        return result;
+    }
+
+}
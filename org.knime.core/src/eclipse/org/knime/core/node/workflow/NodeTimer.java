@@ -121,6 +121,7 @@ public final class NodeTimer {
     private long m_executionDurationOverall;
     private int m_numberOfExecutionsSinceReset;
     private int m_numberOfExecutionsOverall;
+    private volatile NodeExecutionMetrics m_executionMetrics;
 
     /**
      * Container holding stats for the entire instance and all nodes that have been used/timed.
@@ -671,6 +672,16 @@ public int getNrExecsSinceStart() {
         return m_numberOfExecutionsOverall;
     }
 
+    /**
+     * @return the metrics of the current or last execution, <code>null</code> if the node has not been executed
+     *         since it was created or loaded
+     * @noreference This method is not intended to be referenced by clients.
+     * @since 3.6
+     */
+    public NodeExecutionMetrics getExecutionMetrics() {
+        return m_executionMetrics;
+    }
+
     private void initialize() {
         m_startTime = -1;
         m_lastExecutionDuration = -1;
@@ -687,6 +698,11 @@ public void resetNode() {
 
     public void startExec() {
         m_startTime = System.currentTimeMillis();
+        WorkflowExecutionTrace trace = WorkflowExecutionTrace.get(m_parent);
+        if (trace != null) {
+            trace.nodeStarted(m_parent);
+        }
+        m_executionMetrics = new NodeExecutionMetrics(m_parent.getID(), trace);
     }
 
     public void endExec(final boolean success) {
@@ -701,6 +717,14 @@ public void endExec(final boolean success) {
             String cname = getCanonicalName(m_parent);
             GLOBAL_TIMER.addExecutionTime(cname, success, m_lastExecutionDuration);
         }
+        NodeExecutionMetrics metrics = m_executionMetrics;
+        if (metrics != null && metrics.isRunning()) {
+            metrics.finish(success);
+        }
+        WorkflowExecutionTrace trace = WorkflowExecutionTrace.get(m_parent);
+        if (trace != null) {
+            trace.nodeFinished(m_parent, success);
+        }
         m_startTime = -1;
     }
 
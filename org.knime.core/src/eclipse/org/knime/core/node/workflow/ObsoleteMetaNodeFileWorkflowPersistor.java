@@ -53,8 +53,8 @@
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.knime.core.data.container.ContainerTable;
 import org.knime.core.data.filestore.internal.WorkflowFileStoreHandlerRepository;
@@ -104,7 +104,7 @@ private enum MetaNodeType {
     private MetaNodeType m_metaNodeType = MetaNodeType.ORDINARY;
 
     ObsoleteMetaNodeFileWorkflowPersistor(
-            final HashMap<Integer, ContainerTable> globalRep,
+            final Map<Integer, ContainerTable> globalRep,
             final WorkflowFileStoreHandlerRepository fileStoreHandlerRepository,
             final ReferencedFile workflowKNIMEFile,
             final WorkflowLoadHelper loadHelper,
@@ -422,7 +422,7 @@ public ObsoleteSpecialNodeFileNativeNodeContainerPersistor(
                 final ReferencedFile nodeSettingsFile,
                 final WorkflowLoadHelper loadHelper,
                 final FileWorkflowPersistor.LoadVersion version,
-                final HashMap<Integer, ContainerTable> globalTableRepository,
+                final Map<Integer, ContainerTable> globalTableRepository,
                 final WorkflowFileStoreHandlerRepository fileStoreHandlerRepository,
                 final boolean mustWarnOnDataLoadError) {
             super(nodeSettingsFile, loadHelper, version, globalTableRepository,
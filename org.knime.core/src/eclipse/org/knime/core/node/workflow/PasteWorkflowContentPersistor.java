@@ -52,7 +52,6 @@
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -117,7 +116,7 @@ public Set<ConnectionContainerTemplate> getAdditionalConnectionSet() {
 
     /** {@inheritDoc} */
     @Override
-    public HashMap<Integer, ContainerTable> getGlobalTableRepository() {
+    public Map<Integer, ContainerTable> getGlobalTableRepository() {
         throwUnsupportedOperationException();
         return null;
     }
@@ -57,6 +57,10 @@ interface SingleNodeContainerPersistor extends NodeContainerPersistor {
     /** Name of the settings file in a node's directory. */
     static final String SETTINGS_FILE_NAME = "settings.xml";
 
+    /** Name of the optional binary copy of the settings file, see
+     * {@link org.knime.core.node.KNIMEConstants#PROPERTY_BINARY_SETTINGS}. */
+    static final String SETTINGS_BINARY_FILE_NAME = "settings.bin";
+
     /** @return The single node container settings for the new instance, not null. */
     SingleNodeContainerSettings getSNCSettings();
 
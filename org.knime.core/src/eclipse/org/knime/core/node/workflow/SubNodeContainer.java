@@ -1788,7 +1788,7 @@ void performSaveModelSettingsTo(final NodeSettings modelSettings) {
      * {@inheritDoc}
      */
     @Override
-    protected NodeContainerPersistor getCopyPersistor(final HashMap<Integer, ContainerTable> tableRep,
+    protected NodeContainerPersistor getCopyPersistor(final Map<Integer, ContainerTable> tableRep,
         final FileStoreHandlerRepository fileStoreHandlerRepository, final boolean preserveDeletableFlags,
         final boolean isUndoableDeleteCommand) {
         return new CopySubNodeContainerPersistor(this,
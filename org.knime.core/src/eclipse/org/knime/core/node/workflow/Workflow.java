@@ -58,6 +58,7 @@
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.knime.core.node.NodeLogger;
 import org.knime.core.node.port.MetaPortInfo;
@@ -90,6 +91,12 @@ class Workflow {
     private final Map<NodeID, Set<ConnectionContainer>> m_connectionsByDest
                                   = new TreeMap<NodeID, Set<ConnectionContainer>>();
 
+    /** Guards the node and connection maps above. Modifications are done while also holding the workflow lock,
+     * the read lock allows queries (such as {@link WorkflowManager#getNodeContainers()}) without acquiring the
+     * workflow lock, which is held for the entire duration of, e.g., a reset or state update. The lock is never held
+     * while acquiring other locks. */
+    private final ReentrantReadWriteLock m_graphLock = new ReentrantReadWriteLock();
+
     private WorkflowManager m_wfm;
     private NodeID m_id;
 
@@ -141,7 +148,12 @@ NodeID createUniqueID() {
      * @return node with that id
      */
     NodeContainer getNode(final NodeID id) {
-        return m_nodes.get(id);
+        m_graphLock.readLock().lock();
+        try {
+            return m_nodes.get(id);
+        } finally {
+            m_graphLock.readLock().unlock();
+        }
     }
 
     /** Store NodeContainer with a given id.
@@ -150,11 +162,16 @@ NodeContainer getNode(final NodeID id) {
      * @param nc NodeContainer itself
      */
     void putNode(final NodeID id, final NodeContainer nc) {
-        // create Sets of in and outgoing connections
-        m_connectionsBySource.put(id, new LinkedHashSet<ConnectionContainer>());
-        m_connectionsByDest.put(id, new LinkedHashSet<ConnectionContainer>());
-        // and then add node (avoid inconsistent node - connection setup)
-        m_nodes.put(id, nc);
+        m_graphLock.writeLock().lock();
+        try {
+            // create Sets of in and outgoing connections
+            m_connectionsBySource.put(id, new LinkedHashSet<ConnectionContainer>());
+            m_connectionsByDest.put(id, new LinkedHashSet<ConnectionContainer>());
+            // and then add node (avoid inconsistent node - connection setup)
+            m_nodes.put(id, nc);
+        } finally {
+            m_graphLock.writeLock().unlock();
+        }
         clearGraphAnnotationCache();
     }
 
@@ -164,11 +181,17 @@ void putNode(final NodeID id, final NodeContainer nc) {
      * @return removed NodeContainer
      */
     NodeContainer removeNode(final NodeID id) {
-        // remove node
-        NodeContainer node = m_nodes.remove(id);
-        // and then clean up the connection lists  (avoid inconsistent node - connection setup)
-        m_connectionsBySource.remove(id);
-        m_connectionsByDest.remove(id);
+        NodeContainer node;
+        m_graphLock.writeLock().lock();
+        try {
+            // remove node
+            node = m_nodes.remove(id);
+            // and then clean up the connection lists  (avoid inconsistent node - connection setup)
+            m_connectionsBySource.remove(id);
+            m_connectionsByDest.remove(id);
+        } finally {
+            m_graphLock.writeLock().unlock();
+        }
         clearGraphAnnotationCache();
         // and return removed node container
         return node;
@@ -182,6 +205,19 @@ Collection<NodeContainer> getNodeValues() {
         return Collections.unmodifiableCollection(cnc);
     }
 
+    /**
+     * @return a copy of all NodeContainers that are part of this workflow, can be called without holding the
+     * workflow lock.
+     */
+    List<NodeContainer> copyNodeValues() {
+        m_graphLock.readLock().lock();
+        try {
+            return new ArrayList<NodeContainer>(m_nodes.values());
+        } finally {
+            m_graphLock.readLock().unlock();
+        }
+    }
+
     /**
      * @return unmodifiable collection of all NodeIDs that are part of this workflow.
      */
@@ -194,7 +230,12 @@ Set<NodeID> getNodeIDs() {
      * @return number of nodes
      */
     int getNrNodes() {
-        return m_nodes.size();
+        m_graphLock.readLock().lock();
+        try {
+            return m_nodes.size();
+        } finally {
+            m_graphLock.readLock().unlock();
+        }
     }
 
     /**
@@ -202,7 +243,12 @@ int getNrNodes() {
      * @return true of a node with this key already exists.
      */
     boolean containsNodeKey(final NodeID id) {
-        return m_nodes.containsKey(id);
+        m_graphLock.readLock().lock();
+        try {
+            return m_nodes.containsKey(id);
+        } finally {
+            m_graphLock.readLock().unlock();
+        }
     }
 
     /** Return all connections having the same destination.
@@ -225,13 +271,53 @@ Set<ConnectionContainer> getConnectionsBySource(final NodeID id) {
         return scc == null ? null : Collections.unmodifiableSet(scc);
     }
 
+    /** Return a copy of all connections having the given destination, can be called without holding the
+     * workflow lock.
+     *
+     * @param id of destination node
+     * @return a new set as described above or null if the node is not part of this workflow
+     */
+    Set<ConnectionContainer> copyConnectionsByDest(final NodeID id) {
+        m_graphLock.readLock().lock();
+        try {
+            Set<ConnectionContainer> scc = m_connectionsByDest.get(id);
+            return scc == null ? null : new LinkedHashSet<ConnectionContainer>(scc);
+        } finally {
+            m_graphLock.readLock().unlock();
+        }
+    }
+
+    /** Return a copy of all connections having the given source, can be called without holding the
+     * workflow lock.
+     *
+     * @param id of source node
+     * @return a new set as described above or null if the node is not part of this workflow
+     */
+    Set<ConnectionContainer> copyConnectionsBySource(final NodeID id) {
+        m_graphLock.readLock().lock();
+        try {
+            Set<ConnectionContainer> scc = m_connectionsBySource.get(id);
+            return scc == null ? null : new LinkedHashSet<ConnectionContainer>(scc);
+        } finally {
+            m_graphLock.readLock().unlock();
+        }
+    }
+
     /**
-     * @return a collection of sets of ConnectionContainers, grouped by
-     *   source node ID.
+     * @return a copy of all connections of this workflow (including the meta connections), can be called without
+     * holding the workflow lock.
      */
-    Collection<Set<ConnectionContainer>> getConnectionsBySourceValues() {
-        Collection<Set<ConnectionContainer>> cscc = m_connectionsBySource.values();
-        return cscc == null ? null : Collections.unmodifiableCollection(cscc);
+    Set<ConnectionContainer> copyConnections() {
+        m_graphLock.readLock().lock();
+        try {
+            Set<ConnectionContainer> result = new LinkedHashSet<ConnectionContainer>();
+            for (Set<ConnectionContainer> s : m_connectionsBySource.values()) {
+                result.addAll(s);
+            }
+            return result;
+        } finally {
+            m_graphLock.readLock().unlock();
+        }
     }
 
     /** Remove a connection.
@@ -241,13 +327,18 @@ Collection<Set<ConnectionContainer>> getConnectionsBySourceValues() {
      */
     void removeConnection(final ConnectionContainer cc) throws IllegalArgumentException {
         clearGraphAnnotationCache();
-        // 1) try to delete it from set of outgoing connections
-        if (!m_connectionsBySource.get(cc.getSource()).remove(cc)) {
-            throw new IllegalArgumentException("Connection does not exist!");
-        }
-        // 2) remove connection from set of ingoing connections
-        if (!m_connectionsByDest.get(cc.getDest()).remove(cc)) {
-            throw new IllegalArgumentException("Connection did not exist (it did exist as outcoming conn.)!");
+        m_graphLock.writeLock().lock();
+        try {
+            // 1) try to delete it from set of outgoing connections
+            if (!m_connectionsBySource.get(cc.getSource()).remove(cc)) {
+                throw new IllegalArgumentException("Connection does not exist!");
+            }
+            // 2) remove connection from set of ingoing connections
+            if (!m_connectionsByDest.get(cc.getDest()).remove(cc)) {
+                throw new IllegalArgumentException("Connection did not exist (it did exist as outcoming conn.)!");
+            }
+        } finally {
+            m_graphLock.writeLock().unlock();
         }
     }
 
@@ -258,13 +349,18 @@ void removeConnection(final ConnectionContainer cc) throws IllegalArgumentExcept
     */
     void addConnection(final ConnectionContainer cc) throws IllegalArgumentException {
         clearGraphAnnotationCache();
-        // 1) try to insert it into set of outgoing connections
-        if (!m_connectionsBySource.get(cc.getSource()).add(cc)) {
-            throw new IllegalArgumentException("Connection already exists!");
-        }
-        // 2) insert connection into set of ingoing connections
-        if (!m_connectionsByDest.get(cc.getDest()).add(cc)) {
-            throw new IllegalArgumentException("Connection already exists (oddly enough only as incoming)!");
+        m_graphLock.writeLock().lock();
+        try {
+            // 1) try to insert it into set of outgoing connections
+            if (!m_connectionsBySource.get(cc.getSource()).add(cc)) {
+                throw new IllegalArgumentException("Connection already exists!");
+            }
+            // 2) insert connection into set of ingoing connections
+            if (!m_connectionsByDest.get(cc.getDest()).add(cc)) {
+                throw new IllegalArgumentException("Connection already exists (oddly enough only as incoming)!");
+            }
+        } finally {
+            m_graphLock.writeLock().unlock();
         }
     }
 
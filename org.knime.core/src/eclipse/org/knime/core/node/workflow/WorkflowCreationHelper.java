@@ -47,6 +47,7 @@
 package org.knime.core.node.workflow;
 
 import java.util.HashMap;
+import java.util.Map;
 
 import org.knime.core.data.container.ContainerTable;
 import org.knime.core.data.filestore.internal.WorkflowFileStoreHandlerRepository;
@@ -61,7 +62,7 @@
  */
 public class WorkflowCreationHelper {
     private WorkflowContext m_context;
-    private HashMap<Integer, ContainerTable> m_globalTableRepository;
+    private Map<Integer, ContainerTable> m_globalTableRepository;
     private WorkflowFileStoreHandlerRepository m_fileStoreHandlerRepository;
 
     /**
@@ -93,7 +94,7 @@ public WorkflowContext getWorkflowContext() {
      * @since 3.1
      * @noreference This method is not intended to be referenced by clients.
      */
-    public WorkflowCreationHelper setDataHandlers(final HashMap<Integer, ContainerTable> globalTableRepository,
+    public WorkflowCreationHelper setDataHandlers(final Map<Integer, ContainerTable> globalTableRepository,
         final WorkflowFileStoreHandlerRepository fileStoreHandlerRepository) {
         CheckUtils.checkArgument(!((globalTableRepository == null) ^ (fileStoreHandlerRepository == null)),
             "Both args to be null or both args to be non-null");
@@ -118,7 +119,7 @@ public WorkflowFileStoreHandlerRepository getFileStoreHandlerRepository() {
      * @since 3.1
      * @noreference This method is not intended to be referenced by clients.
      */
-    public HashMap<Integer, ContainerTable> getGlobalTableRepository() {
+    public Map<Integer, ContainerTable> getGlobalTableRepository() {
         return m_globalTableRepository;
     }
 }
\ No newline at end of file
@@ -0,0 +1,305 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.workflow;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import javax.json.Json;
+import javax.json.stream.JsonGenerator;
+
+import org.knime.core.node.util.CheckUtils;
+
+/**
+ * Records a timeline of the execution of a workflow project: nodes being queued, started and finished, loop
+ * iterations, tables being swapped to disc and stalls of the asynchronous table writer. The events are kept in a ring
+ * buffer of fixed capacity (older events are overwritten) and recording does not acquire any lock. The trace can be
+ * exported in the <a href="https://docs.google.com/document/d/1CvAClvFfyA5R-PhYUmn5OOQtYMH4h6I0nSsKchNAySU">Trace
+ * Event Format</a> that is understood by Chrome's <code>about:tracing</code> and similar tools.
+ *
+ * <p>
+ * A trace is enabled by setting it on a project, see {@link WorkflowManager#setExecutionTrace(WorkflowExecutionTrace)}
+ * (or the <code>-trace</code> option of the {@link BatchExecutor}).
+ *
+ * @noreference This class is not intended to be referenced by clients.
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.6
+ */
+public final class WorkflowExecutionTrace {
+
+    /** Default number of events kept in the ring buffer. */
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+
+    /** Stalls of the asynchronous table writer shorter than this are not recorded. */
+    private static final long MIN_STALL_NANOS = TimeUnit.MILLISECONDS.toNanos(1L);
+
+    /** A single event, immutable. */
+    private static final class Event {
+        private final char m_phase;
+        private final String m_category;
+        private final String m_name;
+        private final NodeID m_nodeID;
+        private final long m_timeNanos;
+        private final long m_durationNanos;
+        private final long m_threadID;
+        private final String m_threadName;
+
+        Event(final char phase, final String category, final String name, final NodeID nodeID, final long timeNanos,
+            final long durationNanos) {
+            m_phase = phase;
+            m_category = category;
+            m_name = name;
+            m_nodeID = nodeID;
+            m_timeNanos = timeNanos;
+            m_durationNanos = durationNanos;
+            Thread thread = Thread.currentThread();
+            m_threadID = thread.getId();
+            m_threadName = thread.getName();
+        }
+    }
+
+    private final AtomicReferenceArray<Event> m_events;
+
+    private final AtomicLong m_eventCount = new AtomicLong();
+
+    private final long m_originNanos = System.nanoTime();
+
+    /** Creates a trace with {@link #DEFAULT_CAPACITY}. */
+    public WorkflowExecutionTrace() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity The maximum number of events kept, must be positive.
+     */
+    public WorkflowExecutionTrace(final int capacity) {
+        CheckUtils.checkArgument(capacity > 0, "Capacity must be positive: %d", capacity);
+        m_events = new AtomicReferenceArray<Event>(capacity);
+    }
+
+    /**
+     * The trace of the project the argument node is contained in (or of the node itself if it is a project).
+     *
+     * @param nc The node in question, not null.
+     * @return the trace or <code>null</code> if tracing is not enabled for the project
+     */
+    static WorkflowExecutionTrace get(final NodeContainer nc) {
+        NodeContainerParent parent = nc instanceof WorkflowManager ? (WorkflowManager)nc : nc.getDirectNCParent();
+        while (parent != null) {
+            if (parent instanceof WorkflowManager && ((WorkflowManager)parent).isProject()) {
+                return ((WorkflowManager)parent).getExecutionTraceInternal();
+            }
+            parent = parent.getDirectNCParent();
+        }
+        return null;
+    }
+
+    private void add(final char phase, final String category, final String name, final NodeID nodeID,
+        final long timeNanos, final long durationNanos) {
+        Event event = new Event(phase, category, name, nodeID, timeNanos, durationNanos);
+        int index = (int)(m_eventCount.getAndIncrement() % m_events.length());
+        m_events.set(index, event);
+    }
+
+    /** @param nc node that was queued for execution */
+    void nodeQueued(final NodeContainer nc) {
+        add('i', "node", "Queued " + nc.getNameWithID(), nc.getID(), System.nanoTime(), 0L);
+    }
+
+    /** @param nc node that starts executing */
+    void nodeStarted(final NodeContainer nc) {
+        add('b', "node", nc.getNameWithID(), nc.getID(), System.nanoTime(), 0L);
+    }
+
+    /**
+     * @param nc node that finished executing
+     * @param success whether the execution was successful
+     */
+    void nodeFinished(final NodeContainer nc, final boolean success) {
+        add('e', "node", nc.getNameWithID(), nc.getID(), System.nanoTime(), success ? 0L : -1L);
+    }
+
+    /** @param loopEnd end node of a loop that is about to start the next iteration */
+    void loopIteration(final NodeContainer loopEnd) {
+        add('i', "loop", "Next iteration " + loopEnd.getNameWithID(), loopEnd.getID(), System.nanoTime(), 0L);
+    }
+
+    /**
+     * @param nodeID node writing the table
+     * @param rows number of rows swapped to disc
+     */
+    void tableSpilled(final NodeID nodeID, final long rows) {
+        add('i', "io", "Swapped " + rows + " rows to disc", nodeID, System.nanoTime(), 0L);
+    }
+
+    /**
+     * @param nodeID node writing the table
+     * @param nanos time the writing thread was blocked, the stall is assumed to end now
+     */
+    void asyncWriteStalled(final NodeID nodeID, final long nanos) {
+        if (nanos >= MIN_STALL_NANOS) {
+            long now = System.nanoTime();
+            add('X', "io", "Table writer stall", nodeID, now - nanos, nanos);
+        }
+    }
+
+    /** @return the number of events recorded, including those that were overwritten */
+    public long getEventCount() {
+        return m_eventCount.get();
+    }
+
+    /** Discards all recorded events. */
+    public void clear() {
+        for (int i = 0; i < m_events.length(); i++) {
+            m_events.set(i, null);
+        }
+        m_eventCount.set(0L);
+    }
+
+    /** Snapshot of the events in the ring buffer, oldest first. */
+    private List<Event> getEvents() {
+        final long count = m_eventCount.get();
+        final int capacity = m_events.length();
+        final long first = Math.max(0L, count - capacity);
+        List<Event> result = new ArrayList<Event>((int)(count - first));
+        for (long i = first; i < count; i++) {
+            Event e = m_events.get((int)(i % capacity));
+            if (e != null) {
+                result.add(e);
+            }
+        }
+        Collections.sort(result, (a, b) -> Long.compare(a.m_timeNanos, b.m_timeNanos));
+        return result;
+    }
+
+    private long toMicros(final long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos - m_originNanos);
+    }
+
+    /**
+     * Writes the recorded events as JSON object in the Trace Event Format. The stream is not closed.
+     *
+     * @param out To write to.
+     * @throws IOException If writing fails.
+     */
+    public void writeChromeTrace(final OutputStream out) throws IOException {
+        List<Event> events = getEvents();
+        Map<Long, String> threadNames = new LinkedHashMap<Long, String>();
+        JsonGenerator generator = Json.createGenerator(out);
+        generator.writeStartObject();
+        generator.write("displayTimeUnit", "ms");
+        generator.writeStartArray("traceEvents");
+        for (Event e : events) {
+            threadNames.putIfAbsent(e.m_threadID, e.m_threadName);
+            generator.writeStartObject();
+            generator.write("name", e.m_name);
+            generator.write("cat", e.m_category);
+            generator.write("ph", String.valueOf(e.m_phase));
+            generator.write("ts", toMicros(e.m_timeNanos));
+            generator.write("pid", 1);
+            generator.write("tid", e.m_threadID);
+            switch (e.m_phase) {
+                case 'X':
+                    generator.write("dur", TimeUnit.NANOSECONDS.toMicros(e.m_durationNanos));
+                    break;
+                case 'b':
+                case 'e':
+                    // async events are matched by id (nodes may start and finish on different threads)
+                    generator.write("id", e.m_nodeID.toString());
+                    break;
+                case 'i':
+                    generator.write("s", "t");
+                    break;
+                default:
+            }
+            generator.writeStartObject("args");
+            generator.write("node", e.m_nodeID.toString());
+            if (e.m_phase == 'e') {
+                generator.write("success", e.m_durationNanos == 0L);
+            }
+            generator.writeEnd();
+            generator.writeEnd();
+        }
+        for (Map.Entry<Long, String> thread : threadNames.entrySet()) {
+            generator.writeStartObject();
+            generator.write("name", "thread_name");
+            generator.write("ph", "M");
+            generator.write("pid", 1);
+            generator.write("tid", thread.getKey());
+            generator.writeStartObject("args");
+            generator.write("name", thread.getValue());
+            generator.writeEnd();
+            generator.writeEnd();
+        }
+        generator.writeEnd();
+        generator.writeEnd();
+        generator.flush();
+    }
+
+    /**
+     * Writes the recorded events to a file, see {@link #writeChromeTrace(OutputStream)}.
+     *
+     * @param file The file to write to, will be overwritten.
+     * @throws IOException If writing fails.
+     */
+    public void writeChromeTrace(final File file) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+            writeChromeTrace(out);
+        }
+    }
+
+}
@@ -50,8 +50,8 @@
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.net.URI;
-import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.knime.core.data.container.ContainerTable;
 import org.knime.core.data.filestore.internal.WorkflowFileStoreHandlerRepository;
@@ -333,7 +333,7 @@ public final TemplateNodeContainerPersistor createTemplateLoadPersistor(
 
         final TemplateNodeContainerPersistor persistor;
         // TODO only create new hash map if workflow is a project?
-        HashMap<Integer, ContainerTable> tableRep = new GlobalTableRepository();
+        Map<Integer, ContainerTable> tableRep = new GlobalTableRepository();
         WorkflowFileStoreHandlerRepository fileStoreHandlerRepository = new WorkflowFileStoreHandlerRepository();
         // ordinary workflow is loaded
         if (templateInfo == null) {
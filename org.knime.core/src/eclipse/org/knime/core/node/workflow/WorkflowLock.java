@@ -64,7 +64,14 @@
  * <p/>
  * This class is wrapping a {@link ReentrantLock}. Workflows and contained meta/sub nodes share the same
  * {@link ReentrantLock} but are still distinct {@link WorkflowLock} instances to properly isolate the status
- * update request.
+ * update request. They also share one {@link WorkflowLockStatistics} instance, which records how often and how long
+ * threads had to wait for the lock.
+ *
+ * <p/>
+ * Queries of the workflow graph (nodes and connections, e.g. {@link WorkflowManager#getNodeContainers()}) don't
+ * acquire this lock but a read/write lock private to each workflow, which is write-locked by modifications of the graph
+ * (done while holding this lock). Queries hence don't block on threads propagating state changes or resets but might
+ * observe the intermediate states of a composite edit, such as a collapse into a metanode.
  *
  * @noreference This class is not intended to be referenced by clients.
  * @author Bernd Wiswedel, KNIME AG, Zurich, Switzerland
@@ -72,6 +79,7 @@
 public final class WorkflowLock implements AutoCloseable {
 
     private final ReentrantLock m_reentrantLock;
+    private final WorkflowLockStatistics m_statistics;
     private final WorkflowManager m_wfm;
 
     private boolean m_checkForNodeStateChanges;
@@ -91,7 +99,8 @@ public final class WorkflowLock implements AutoCloseable {
      */
     WorkflowLock(final WorkflowManager wfm) {
         m_wfm = CheckUtils.checkArgumentNotNull(wfm);
-        m_reentrantLock = new ReentrantLock();
+        m_statistics = new WorkflowLockStatistics();
+        m_reentrantLock = new StatisticsReentrantLock(m_statistics);
     }
 
     /** An instance for a contained metanode or sub node.
@@ -101,6 +110,9 @@ public final class WorkflowLock implements AutoCloseable {
     WorkflowLock(final WorkflowManager wfm, final NodeContainerParent parent) {
         m_wfm = CheckUtils.checkArgumentNotNull(wfm);
         m_reentrantLock = parent.getReentrantLockInstance();
+        // the lock is only created by this class but the interface doesn't guarantee it, hence the fallback
+        m_statistics = m_reentrantLock instanceof StatisticsReentrantLock
+            ? ((StatisticsReentrantLock)m_reentrantLock).m_statistics : new WorkflowLockStatistics();
     }
 
     /** @return the {@link ReentrantLock} - rarely used except for wait methods that need to sleep on the lock. */
@@ -108,6 +120,11 @@ ReentrantLock getReentrantLock() {
         return m_reentrantLock;
     }
 
+    /** @return the lock wait statistics, shared with all workflows using the same underlying lock, not null. */
+    WorkflowLockStatistics getStatistics() {
+        return m_statistics;
+    }
+
     /** @return whether calling thread holds the lock.
      * @see java.util.concurrent.locks.ReentrantLock#isHeldByCurrentThread()
      */
@@ -119,7 +136,19 @@ boolean isHeldByCurrentThread() {
      * @return this.
      */
     public WorkflowLock lock() {
-        m_reentrantLock.lock();
+        // fast path without time measurement; tryLock has the same (non-fair) semantics as lock
+        if (m_reentrantLock.tryLock()) {
+            m_statistics.addUncontendedAcquisition();
+        } else {
+            final long start = System.nanoTime();
+            m_reentrantLock.lock();
+            final long waitNanos = System.nanoTime() - start;
+            m_statistics.addContendedAcquisition(waitNanos);
+            NodeExecutionMetrics metrics = NodeExecutionMetrics.getCurrent();
+            if (metrics != null) {
+                metrics.addLockWaitNanos(waitNanos);
+            }
+        }
         if (KNIMEConstants.ASSERTIONS_ENABLED) {
             hasNoChildLocked();
         }
@@ -199,4 +228,16 @@ public void close() {
         unlock();
     }
 
+    /** The {@link ReentrantLock} created for workflow projects, carrying the statistics so that they can be shared
+     * with the locks of contained metanodes and subnodes. */
+    @SuppressWarnings("serial")
+    private static final class StatisticsReentrantLock extends ReentrantLock {
+
+        private final transient WorkflowLockStatistics m_statistics;
+
+        StatisticsReentrantLock(final WorkflowLockStatistics statistics) {
+            m_statistics = statistics;
+        }
+    }
+
 }
@@ -0,0 +1,131 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.workflow;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock wait statistics of a {@link WorkflowLock}. One instance is shared by a workflow project and all its contained
+ * metanodes and subnodes (as is the underlying {@link java.util.concurrent.locks.ReentrantLock}). Uncontended
+ * acquisitions are only counted, contended acquisitions also measure the time the calling thread was blocked.
+ *
+ * <p>
+ * The counters are updated without synchronization and can be read at any time; a snapshot is not guaranteed to be
+ * consistent across the individual values.
+ *
+ * @noreference This class is not intended to be referenced by clients.
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.6
+ */
+public final class WorkflowLockStatistics {
+
+    private final LongAdder m_acquisitionCount = new LongAdder();
+
+    private final LongAdder m_contendedAcquisitionCount = new LongAdder();
+
+    private final LongAdder m_totalWaitNanos = new LongAdder();
+
+    private final AtomicLong m_maxWaitNanos = new AtomicLong();
+
+    /** Only created by {@link WorkflowLock}. */
+    WorkflowLockStatistics() {
+    }
+
+    /** Called when the lock was acquired without blocking. */
+    void addUncontendedAcquisition() {
+        m_acquisitionCount.increment();
+    }
+
+    /**
+     * Called when the lock was acquired after the calling thread had to wait.
+     *
+     * @param waitNanos The time the thread was blocked, in nanoseconds.
+     */
+    void addContendedAcquisition(final long waitNanos) {
+        m_acquisitionCount.increment();
+        m_contendedAcquisitionCount.increment();
+        m_totalWaitNanos.add(waitNanos);
+        m_maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+
+    /** @return the number of times the lock was acquired (including reentrant acquisitions). */
+    public long getAcquisitionCount() {
+        return m_acquisitionCount.sum();
+    }
+
+    /** @return the number of times a thread had to wait for the lock to become available. */
+    public long getContendedAcquisitionCount() {
+        return m_contendedAcquisitionCount.sum();
+    }
+
+    /** @return the accumulated time threads were blocked waiting for the lock, in nanoseconds. */
+    public long getTotalWaitNanos() {
+        return m_totalWaitNanos.sum();
+    }
+
+    /** @return the longest time a single thread was blocked waiting for the lock, in nanoseconds. */
+    public long getMaxWaitNanos() {
+        return m_maxWaitNanos.get();
+    }
+
+    /** Resets all counters to 0. */
+    public void reset() {
+        m_acquisitionCount.reset();
+        m_contendedAcquisitionCount.reset();
+        m_totalWaitNanos.reset();
+        m_maxWaitNanos.set(0L);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return String.format("acquisitions: %d, contended: %d, total wait: %d ms, max wait: %d ms",
+            getAcquisitionCount(), getContendedAcquisitionCount(), getTotalWaitNanos() / 1_000_000L,
+            getMaxWaitNanos() / 1_000_000L);
+    }
+
+}
@@ -274,7 +274,7 @@ public Thread newThread(final Runnable r) {
     // Misc members:
 
     /** for internal usage, holding output table references. */
-    private final HashMap<Integer, ContainerTable> m_globalTableRepository;
+    private final Map<Integer, ContainerTable> m_globalTableRepository;
 
     /**
      * The repository of all active {@link IFileStoreHandler}. It inherits from the parent if this wfm is a metanode.
@@ -319,6 +319,9 @@ public Thread newThread(final Runnable r) {
      */
     private final WorkflowLock m_workflowLock;
 
+    /** Execution trace, only used by projects and null unless tracing is enabled. */
+    private volatile WorkflowExecutionTrace m_executionTrace;
+
     /** see {@link #getDirectNCParent()}. */
     private final NodeContainerParent m_directNCParent;
 
@@ -410,7 +413,7 @@ private static void executeEarlyStartup() {
      */
     WorkflowManager(final NodeContainerParent directNCParent, final WorkflowManager parent, final NodeID id,
         final PortType[] inTypes, final PortType[] outTypes, final boolean isProject, final WorkflowContext context,
-        final String name, final Optional<HashMap<Integer, ContainerTable>> globalTableRepositoryOptional,
+        final String name, final Optional<Map<Integer, ContainerTable>> globalTableRepositoryOptional,
         final Optional<WorkflowFileStoreHandlerRepository> fsHandlerRepositoryOptional,
         final Optional<NodeAnnotation> nodeAnno) {
         super(parent, id, nodeAnno.orElse(null));
@@ -484,7 +487,7 @@ private NodeContainerParent assertParentAssignments(final NodeContainerParent di
      * @param fileStoreHandlerRepository ...
      */
     WorkflowManager(final NodeContainerParent directNCParent, final WorkflowManager parent, final NodeID id,
-        final WorkflowPersistor persistor, final HashMap<Integer, ContainerTable> globalTableRepository,
+        final WorkflowPersistor persistor, final Map<Integer, ContainerTable> globalTableRepository,
         final WorkflowFileStoreHandlerRepository fileStoreHandlerRepository) {
         super(parent, id, persistor.getMetaPersistor());
         m_directNCParent = assertParentAssignments(directNCParent, parent);
@@ -605,6 +608,46 @@ public boolean isLockedByCurrentThread() {
         return m_workflowLock.isHeldByCurrentThread();
     }
 
+    /**
+     * Lock wait statistics of this workflow's lock. The lock and hence the statistics are shared with the enclosing
+     * workflow project and all its contained metanodes and subnodes.
+     *
+     * @return the statistics of the workflow lock, not null.
+     * @noreference This method is not intended to be referenced by clients.
+     * @since 3.6
+     */
+    public WorkflowLockStatistics getLockStatistics() {
+        return m_workflowLock.getStatistics();
+    }
+
+    /**
+     * Enables (or disables) recording of an execution trace for this workflow project, including all contained
+     * metanodes and subnodes.
+     *
+     * @param trace The trace to record to or <code>null</code> to disable tracing.
+     * @throws IllegalStateException If this workflow is not a project.
+     * @noreference This method is not intended to be referenced by clients.
+     * @since 3.6
+     */
+    public void setExecutionTrace(final WorkflowExecutionTrace trace) {
+        CheckUtils.checkState(isProject(), "Execution traces can only be recorded for workflow projects");
+        m_executionTrace = trace;
+    }
+
+    /**
+     * @return the execution trace of this workflow's project or <code>null</code> if tracing is not enabled.
+     * @noreference This method is not intended to be referenced by clients.
+     * @since 3.6
+     */
+    public WorkflowExecutionTrace getExecutionTrace() {
+        return WorkflowExecutionTrace.get(this);
+    }
+
+    /** @return the value of the field, used by {@link WorkflowExecutionTrace#get(NodeContainer)}. */
+    WorkflowExecutionTrace getExecutionTraceInternal() {
+        return m_executionTrace;
+    }
+
     /** {@inheritDoc} */
     @Override
     public NodeContainerParent getDirectNCParent() {
@@ -689,6 +732,8 @@ public void removeProject(final NodeID id) {
             if (nc instanceof WorkflowManager && ((WorkflowManager)nc).isProject()) {
                 final String nameAndID = "\"" + nc.getNameWithID() + "\"";
                 LOGGER.debug("Removing project " + nameAndID);
+                LOGGER.debug("Lock statistics of project " + nameAndID + ": "
+                    + ((WorkflowManager)nc).getLockStatistics());
                 ((WorkflowManager)nc).shutdown();
                 removeNode(id);
                 LOGGER.debug("Project " + nameAndID + " removed (" + m_workflow.getNrNodes() + " remaining)");
@@ -848,7 +893,7 @@ public WorkflowManager createAndAddSubWorkflow(final PortType[] inPorts, final P
      */
     private WorkflowManager createAndAddSubWorkflow(final PortType[] inPorts, final PortType[] outPorts,
         final String name, final boolean isNewProject, final WorkflowContext context,
-        final HashMap<Integer, ContainerTable> globalTableRepository,
+        final Map<Integer, ContainerTable> globalTableRepository,
         final WorkflowFileStoreHandlerRepository fileStoreHandlerRepository, final NodeID idOrNull,
         final NodeAnnotation nodeAnno) {
         final boolean hasPorts = inPorts.length != 0 || outPorts.length != 0;
@@ -871,7 +916,7 @@ private WorkflowManager createAndAddSubWorkflow(final PortType[] inPorts, final
             // TODO both args into one "data-repo" wrapper class
             CheckUtils.checkArgument(!((globalTableRepository == null) ^ (fileStoreHandlerRepository == null)),
                 "Both args must be null or both args must be non-null");
-            Optional<HashMap<Integer, ContainerTable>> globalTableRepositoryOptional;
+            Optional<Map<Integer, ContainerTable>> globalTableRepositoryOptional;
             Optional<WorkflowFileStoreHandlerRepository> fileStoreRepositoryOptional;
             if (isNewProject) {
                 globalTableRepositoryOptional = Optional.ofNullable(globalTableRepository);
@@ -1400,10 +1445,11 @@ public Set<ConnectionContainer> getOutgoingConnectionsFor(final NodeID id, final
      * @throws IllegalArgumentException If the node is unknown or null.
      */
     public Set<ConnectionContainer> getOutgoingConnectionsFor(final NodeID id) {
-        try (WorkflowLock lock = lock()) {
-            getNodeContainer(id); // for exception handling
-            return new LinkedHashSet<ConnectionContainer>(m_workflow.getConnectionsBySource(id));
-        }
+        // doesn't acquire the workflow lock, see Workflow#m_graphLock
+        getNodeContainer(id); // for exception handling
+        Set<ConnectionContainer> outConns = m_workflow.copyConnectionsBySource(id);
+        CheckUtils.checkArgument(outConns != null, "No such node ID: %s", id);
+        return outConns;
     }
 
     /**
@@ -1415,16 +1461,15 @@ public Set<ConnectionContainer> getOutgoingConnectionsFor(final NodeID id) {
      * @throws IllegalArgumentException If node is not contained in workflow, nor is it the ID of this WFM
      */
     public ConnectionContainer getIncomingConnectionFor(final NodeID id, final int portIdx) {
-        try (WorkflowLock lock = lock()) {
-            CheckUtils.checkArgument(id.equals(getID()) || containsNodeContainer(id),
-                "Node ID \"%s\" not contained in workflow, nor it's the workflow itself (ID of this workflow is \"%s\"",
-                id, getID());
-            Set<ConnectionContainer> inConns = m_workflow.getConnectionsByDest(id);
-            if (inConns != null) {
-                for (ConnectionContainer cont : inConns) {
-                    if (cont.getDestPort() == portIdx) {
-                        return cont;
-                    }
+        // doesn't acquire the workflow lock, see Workflow#m_graphLock
+        CheckUtils.checkArgument(id.equals(getID()) || containsNodeContainer(id),
+            "Node ID \"%s\" not contained in workflow, nor it's the workflow itself (ID of this workflow is \"%s\"",
+            id, getID());
+        Set<ConnectionContainer> inConns = m_workflow.copyConnectionsByDest(id);
+        if (inConns != null) {
+            for (ConnectionContainer cont : inConns) {
+                if (cont.getDestPort() == portIdx) {
+                    return cont;
                 }
             }
         }
@@ -1439,10 +1484,11 @@ public ConnectionContainer getIncomingConnectionFor(final NodeID id, final int p
      * @throws IllegalArgumentException If the node is unknown or null.
      */
     public Set<ConnectionContainer> getIncomingConnectionsFor(final NodeID id) {
-        try (WorkflowLock lock = lock()) {
-            getNodeContainer(id); // for exception handling
-            return new LinkedHashSet<ConnectionContainer>(m_workflow.getConnectionsByDest(id));
-        }
+        // doesn't acquire the workflow lock, see Workflow#m_graphLock
+        getNodeContainer(id); // for exception handling
+        Set<ConnectionContainer> inConns = m_workflow.copyConnectionsByDest(id);
+        CheckUtils.checkArgument(inConns != null, "No such node ID: %s", id);
+        return inConns;
     }
 
     /**
@@ -1452,9 +1498,7 @@ public Set<ConnectionContainer> getIncomingConnectionsFor(final NodeID id) {
      * @return the connection with the specified id
      */
     public ConnectionContainer getConnection(final ConnectionID id) {
-        try (WorkflowLock lock = lock()) {
-            return getIncomingConnectionFor(id.getDestinationNode(), id.getDestinationPort());
-        }
+        return getIncomingConnectionFor(id.getDestinationNode(), id.getDestinationPort());
     }
 
     /**
@@ -3221,6 +3265,10 @@ private void restartLoop(final FlowLoopContext slc) throws IllegalLoopException
         // NOTE: if we ever queue nodes asynchronosly this might cause problems.
         NativeNodeContainer headNNC = ((NativeNodeContainer)headNode);
         assert headNNC.isModelCompatibleTo(LoopStartNode.class);
+        WorkflowExecutionTrace trace = WorkflowExecutionTrace.get(tailNode);
+        if (trace != null) {
+            trace.loopIteration(tailNode);
+        }
         headNNC.markForReExecution(new ExecutionEnvironment(true, null, false));
         // clean up all newly added objects on FlowVariable Stack
         // (otherwise we will push the same variables many times...
@@ -3401,9 +3449,14 @@ private void parallelizeLoop(final NodeID startID) throws IllegalLoopException {
             }
             ParallelizedChunkContentMaster pccm =
                 new ParallelizedChunkContentMaster(subwfm, endNode, startNode.getNrRemoteChunks());
+            // the copy persistor is a snapshot of the loop body that can be pasted repeatedly, so the copy of the
+            // node settings is done once and not once per chunk; each paste still creates, configures and executes
+            // a new set of nodes per chunk
+            final WorkflowPersistor loopBodyCopy = startNode.getNrRemoteChunks() > 0
+                ? copy(WorkflowCopyContent.builder().setNodeIDs(loopNodes).build()) : null;
             for (int i = 0; i < startNode.getNrRemoteChunks(); i++) {
-                ParallelizedChunkContent copiedNodes =
-                    duplicateLoopBodyInSubWFMandAttach(subwfm, extInConnections, startID, endID, loopNodes, i);
+                ParallelizedChunkContent copiedNodes = duplicateLoopBodyInSubWFMandAttach(
+                    subwfm, extInConnections, startID, endID, loopNodes, loopBodyCopy, i);
                 copiedNodes.executeChunk();
                 pccm.addParallelChunk(i, copiedNodes);
             }
@@ -3447,11 +3500,13 @@ private Set<Pair<NodeID, Integer>> findNodesWithExternalSources(final NodeID sta
      *   added to the same workflow.
      * @param extInConnections map of incoming connections
      *   (NodeID + PortIndex) => WFM-Inport. Can be null if subWFM==this.
+     * @param loopBodyCopy copy of the nodes in oldIDs (in that order),
+     *   shared by all chunks.
      * ...
      */
     private ParallelizedChunkContent duplicateLoopBodyInSubWFMandAttach(final WorkflowManager subWFM,
         final HashMap<Pair<NodeID, Integer>, Integer> extInConnections, final NodeID startID, final NodeID endID,
-        final NodeID[] oldIDs, final int chunkIndex) {
+        final NodeID[] oldIDs, final WorkflowPersistor loopBodyCopy, final int chunkIndex) {
         assert m_workflowLock.isHeldByCurrentThread();
         // compute offset for new nodes (shifted in case of same
         // workflow, otherwise just underneath each other)
@@ -3489,10 +3544,8 @@ private ParallelizedChunkContent duplicateLoopBodyInSubWFMandAttach(final Workfl
             NodeUIInformation endUI = NodeUIInformation.builder(endUIPlain).translate(moveUIDist).build();
             subWFM.getNodeContainer(virtualEndID).setUIInformation(endUI);
         }
-        // copy nodes in loop body
-        WorkflowCopyContent.Builder copyContent = WorkflowCopyContent.builder();
-        copyContent.setNodeIDs(oldIDs);
-        WorkflowCopyContent newBody = subWFM.copyFromAndPasteHere(this, copyContent.build());
+        // paste copy of nodes in loop body
+        WorkflowCopyContent newBody = subWFM.paste(loopBodyCopy);
         NodeID[] newIDs = newBody.getNodeIDs();
         Map<NodeID, NodeID> oldIDsHash = new HashMap<NodeID, NodeID>();
         for (int i = 0; i < oldIDs.length; i++) {
@@ -5517,7 +5570,7 @@ public boolean areDialogAndNodeSettingsEqual() {
      * @since 3.1
      * @noreference This method is not intended to be referenced by clients.
      */
-    public HashMap<Integer, ContainerTable> getGlobalTableRepository() {
+    public Map<Integer, ContainerTable> getGlobalTableRepository() {
         return m_globalTableRepository;
     }
 
@@ -6283,23 +6336,15 @@ public String toString() {
     /** {@inheritDoc} */
     @Override
     public Collection<NodeContainer> getNodeContainers() {
-        try (WorkflowLock lock = lock()) {
-            // TODO should we copy the list as changes to the wkf later will change this list
-            return m_workflow.getNodeValues();
-        }
+        // doesn't acquire the workflow lock, see Workflow#m_graphLock
+        return Collections.unmodifiableList(m_workflow.copyNodeValues());
     }
 
     /**
      * @return collection of ConnectionContainer in this WFM
      */
     public Collection<ConnectionContainer> getConnectionContainers() {
-        Set<ConnectionContainer> result = new LinkedHashSet<ConnectionContainer>();
-        for (Set<ConnectionContainer> s : m_workflow.getConnectionsBySourceValues()) {
-            if (s != null) {
-                result.addAll(s);
-            }
-        }
-        return result;
+        return m_workflow.copyConnections();
     }
 
     /**
@@ -7296,7 +7341,7 @@ protected void notifyNodePropertyChangedListener(final NodeProperty property) {
 
     /** {@inheritDoc} */
     @Override
-    protected CopyWorkflowPersistor getCopyPersistor(final HashMap<Integer, ContainerTable> tableRep,
+    protected CopyWorkflowPersistor getCopyPersistor(final Map<Integer, ContainerTable> tableRep,
         final FileStoreHandlerRepository fileStoreHandlerRepository, final boolean preserveDeletableFlags,
         final boolean isUndoableDeleteCommand) {
         return new CopyWorkflowPersistor(this, tableRep, fileStoreHandlerRepository, preserveDeletableFlags,
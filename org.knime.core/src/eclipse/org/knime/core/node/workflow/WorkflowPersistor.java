@@ -52,7 +52,6 @@
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -136,7 +135,7 @@ public interface WorkflowPersistor extends NodeContainerPersistor {
      * @return Such a set (often empty but never null). */
     Set<ConnectionContainerTemplate> getAdditionalConnectionSet();
 
-    HashMap<Integer, ContainerTable> getGlobalTableRepository();
+    Map<Integer, ContainerTable> getGlobalTableRepository();
 
     /** The repository of file store handlers.
      * @return
@@ -0,0 +1,403 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.util;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.log4j.Appender;
+import org.apache.log4j.Layout;
+import org.apache.log4j.WriterAppender;
+import org.apache.log4j.helpers.LogLog;
+import org.apache.log4j.spi.ErrorHandler;
+import org.apache.log4j.spi.Filter;
+import org.apache.log4j.spi.LoggingEvent;
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.node.util.CheckUtils;
+
+/**
+ * Appender that hands log events over to a background thread which then writes them to the wrapped appender (usually
+ * a {@link LogfileAppender}). Logging threads don't block on the (synchronized) file appender but only append to a
+ * bounded lock-free queue; the background thread drains the queue in batches and only flushes the wrapped appender at
+ * the end of a batch.
+ *
+ * <p>
+ * All instances share one queue and writer thread. The size of the queue and the behavior when it is full are
+ * controlled by {@link KNIMEConstants#PROPERTY_ASYNC_LOGGING_QUEUE_SIZE} and
+ * {@link KNIMEConstants#PROPERTY_ASYNC_LOGGING_POLICY}. The filters of the wrapped appender are moved to this appender,
+ * i.e. events are filtered in the logging thread before they are queued.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.6
+ */
+public final class AsyncLogAppender implements Appender {
+
+    private static final int DEFAULT_QUEUE_SIZE = 8192;
+
+    private static final int MAX_BATCH_SIZE = 512;
+
+    private static final int QUEUE_SIZE = getQueueSize();
+
+    private static final boolean DROP_IF_FULL =
+        "drop".equalsIgnoreCase(System.getProperty(KNIMEConstants.PROPERTY_ASYNC_LOGGING_POLICY));
+
+    /** An event together with the appender it is to be written to. */
+    private static final class QueuedEvent {
+        private final AsyncLogAppender m_appender;
+        private final LoggingEvent m_event;
+
+        QueuedEvent(final AsyncLogAppender appender, final LoggingEvent event) {
+            m_appender = appender;
+            m_event = event;
+        }
+    }
+
+    private static final ConcurrentLinkedQueue<QueuedEvent> QUEUE = new ConcurrentLinkedQueue<>();
+
+    private static final AtomicInteger QUEUE_LENGTH = new AtomicInteger();
+
+    /** Number of events added to the queue. */
+    private static final AtomicLong ENQUEUED_COUNT = new AtomicLong();
+
+    /** Number of events taken from the queue and written. Only modified by the writer thread. */
+    private static volatile long writtenCount;
+
+    private static final AtomicLong DROPPED_COUNT = new AtomicLong();
+
+    /** Set by the writer thread before it parks on an empty queue, so that loggers know they need to wake it up. */
+    private static volatile boolean writerIdle;
+
+    private static final Object FLUSH_MONITOR = new Object();
+
+    private static final Thread WRITER_THREAD;
+
+    static {
+        WRITER_THREAD = new Thread(AsyncLogAppender::writeLoop, "KNIME Log Writer");
+        WRITER_THREAD.setDaemon(true);
+        WRITER_THREAD.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> flushAll(), "KNIME Log Writer Shutdown"));
+    }
+
+    private final Appender m_delegate;
+
+    private volatile Filter m_headFilter;
+
+    private Filter m_tailFilter;
+
+    private volatile boolean m_closed;
+
+    /**
+     * Wraps the argument appender. The filters of the argument are moved to this appender.
+     *
+     * @param delegate The appender to write to, not null.
+     */
+    public AsyncLogAppender(final Appender delegate) {
+        m_delegate = CheckUtils.checkArgumentNotNull(delegate, "Appender must not be null");
+        Filter filter = delegate.getFilter();
+        if (filter != null) {
+            delegate.clearFilters();
+            addFilter(filter);
+            while (m_tailFilter.getNext() != null) {
+                m_tailFilter = m_tailFilter.getNext();
+            }
+        }
+    }
+
+    private static int getQueueSize() {
+        String value = System.getProperty(KNIMEConstants.PROPERTY_ASYNC_LOGGING_QUEUE_SIZE);
+        if (value != null) {
+            try {
+                int size = Integer.parseInt(value.trim());
+                if (size > 0) {
+                    return size;
+                }
+            } catch (NumberFormatException nfe) {
+                // fall through
+            }
+            LogLog.warn("Invalid value for " + KNIMEConstants.PROPERTY_ASYNC_LOGGING_QUEUE_SIZE + ": " + value
+                + ", using default " + DEFAULT_QUEUE_SIZE);
+        }
+        return DEFAULT_QUEUE_SIZE;
+    }
+
+    /** @return the wrapped appender. */
+    public Appender getDelegate() {
+        return m_delegate;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void doAppend(final LoggingEvent event) {
+        if (m_closed) {
+            return;
+        }
+        for (Filter f = m_headFilter; f != null; f = f.getNext()) {
+            int decision = f.decide(event);
+            if (decision == Filter.DENY) {
+                return;
+            } else if (decision == Filter.ACCEPT) {
+                break;
+            }
+        }
+        // capture all thread dependent information before handing the event over to another thread
+        event.getNDC();
+        event.getThreadName();
+        event.getMDCCopy();
+        event.getRenderedMessage();
+        event.getThrowableStrRep();
+        if (Thread.currentThread() == WRITER_THREAD) {
+            // logging while writing (e.g. LogLog output) -- don't queue to avoid dead lock
+            m_delegate.doAppend(event);
+            return;
+        }
+        while (QUEUE_LENGTH.incrementAndGet() > QUEUE_SIZE) {
+            QUEUE_LENGTH.decrementAndGet();
+            if (DROP_IF_FULL) {
+                DROPPED_COUNT.incrementAndGet();
+                return;
+            }
+            LockSupport.unpark(WRITER_THREAD);
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1L));
+        }
+        ENQUEUED_COUNT.incrementAndGet();
+        QUEUE.add(new QueuedEvent(this, event));
+        if (writerIdle) {
+            LockSupport.unpark(WRITER_THREAD);
+        }
+    }
+
+    private static void writeLoop() {
+        final List<QueuedEvent> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        final Map<AsyncLogAppender, QueuedEvent> lastEventPerAppender = new IdentityHashMap<>();
+        while (true) {
+            QueuedEvent e;
+            while (batch.size() < MAX_BATCH_SIZE && (e = QUEUE.poll()) != null) {
+                batch.add(e);
+                lastEventPerAppender.put(e.m_appender, e);
+            }
+            if (batch.isEmpty()) {
+                long dropped = DROPPED_COUNT.getAndSet(0L);
+                if (dropped > 0L) {
+                    LogLog.warn(dropped + " log message(s) dropped as the asynchronous log queue was full");
+                }
+                writerIdle = true;
+                if (QUEUE.isEmpty()) {
+                    // time out is only a safety net, loggers unpark this thread
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100L));
+                }
+                writerIdle = false;
+                continue;
+            }
+            QUEUE_LENGTH.addAndGet(-batch.size());
+            for (QueuedEvent q : batch) {
+                // only flush after the last event of each appender in this batch
+                q.m_appender.write(q.m_event, lastEventPerAppender.get(q.m_appender) == q);
+            }
+            writtenCount += batch.size();
+            batch.clear();
+            lastEventPerAppender.clear();
+            synchronized (FLUSH_MONITOR) {
+                FLUSH_MONITOR.notifyAll();
+            }
+        }
+    }
+
+    /** Called by the writer thread only. */
+    private void write(final LoggingEvent event, final boolean flush) {
+        try {
+            if (m_delegate instanceof WriterAppender) {
+                ((WriterAppender)m_delegate).setImmediateFlush(flush);
+            }
+            m_delegate.doAppend(event);
+        } catch (RuntimeException ex) {
+            LogLog.error("Failed to write log event: " + ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Blocks until all log events that were queued before this call are written (by all instances of this class).
+     * Returns immediately when called from the writer thread.
+     */
+    public static void flushAll() {
+        if (Thread.currentThread() == WRITER_THREAD) {
+            return;
+        }
+        final long target = ENQUEUED_COUNT.get();
+        LockSupport.unpark(WRITER_THREAD);
+        synchronized (FLUSH_MONITOR) {
+            // the timeout avoids hanging forever if the writer thread died
+            long deadline = System.currentTimeMillis() + 10000L;
+            while (writtenCount < target && WRITER_THREAD.isAlive()) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0L) {
+                    LogLog.warn("Timeout while waiting for asynchronous log messages to be written");
+                    return;
+                }
+                try {
+                    FLUSH_MONITOR.wait(Math.min(remaining, 100L));
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /** Flushes all pending events and closes the wrapped appender. {@inheritDoc} */
+    @Override
+    public void close() {
+        if (!m_closed) {
+            flushAll();
+            m_closed = true;
+            m_delegate.close();
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public synchronized void addFilter(final Filter newFilter) {
+        if (m_headFilter == null) {
+            m_headFilter = newFilter;
+            m_tailFilter = newFilter;
+        } else {
+            m_tailFilter.setNext(newFilter);
+            m_tailFilter = newFilter;
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Filter getFilter() {
+        return m_headFilter;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public synchronized void clearFilters() {
+        m_headFilter = null;
+        m_tailFilter = null;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String getName() {
+        return m_delegate.getName();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void setName(final String name) {
+        m_delegate.setName(name);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void setErrorHandler(final ErrorHandler errorHandler) {
+        m_delegate.setErrorHandler(errorHandler);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public ErrorHandler getErrorHandler() {
+        return m_delegate.getErrorHandler();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void setLayout(final Layout layout) {
+        m_delegate.setLayout(layout);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Layout getLayout() {
+        return m_delegate.getLayout();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean requiresLayout() {
+        return m_delegate.requiresLayout();
+    }
+
+    /** {@inheritDoc} Based on the name, consistent with {@link #equals(Object)}. */
+    @Override
+    public int hashCode() {
+        String name = getName();
+        return name != null ? name.hashCode() : super.hashCode();
+    }
+
+    /**
+     * {@inheritDoc} Compares the name of other asynchronous appenders, as {@link LogfileAppender#equals(Object)}, to
+     * prevent duplicate registration of workflow directory log files. An instance is never equal to an appender of
+     * another class (including its delegate) to keep the relation symmetric.
+     */
+    @Override
+    public boolean equals(final Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof AsyncLogAppender)) {
+            return false;
+        }
+        String name = getName();
+        return name != null && name.equals(((AsyncLogAppender)obj).getName());
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return "async(" + m_delegate + ")";
+    }
+
+}